@@ -3,9 +3,15 @@ package io.github.iweidujiang.springinsight.agent.autoconfigure;
 import io.github.iweidujiang.springinsight.agent.collector.AsyncSpanReporter;
 import io.github.iweidujiang.springinsight.agent.collector.JvmMetricsCollector;
 import io.github.iweidujiang.springinsight.agent.collector.JvmMetricsReporter;
+import io.github.iweidujiang.springinsight.agent.collector.queue.BlockingReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.OverflowPolicy;
+import io.github.iweidujiang.springinsight.agent.collector.queue.ReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.RingReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.SpillFile;
 import io.github.iweidujiang.springinsight.agent.context.TraceContext;
 import io.github.iweidujiang.springinsight.agent.instrumentation.DbCallAspect;
 import io.github.iweidujiang.springinsight.agent.listener.SpanReportingListener;
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
 import io.github.iweidujiang.springinsight.agent.sink.InsightBatchSink;
 import lombok.extern.slf4j.Slf4j;
 import org.springframework.beans.factory.ObjectProvider;
@@ -16,6 +22,9 @@ import org.springframework.boot.ApplicationRunner;
 import org.springframework.context.annotation.Bean;
 import org.springframework.context.annotation.Configuration;
 
+import java.io.IOException;
+import java.nio.file.Path;
+
 /**
  * ┌───────────────────────────────────────────────
  * │ 📦 专门负责创建 Spring Insight 核心 Bean 的配置类
@@ -55,10 +64,39 @@ public class InsightBeanConfiguration {
             serviceInstance = "localhost:" + getServerPort();
         }
 
+        InsightProperties.Reporter reporterProperties = properties.getReporter();
+        ReporterQueue<TraceSpan> spanQueue = reporterProperties.getQueueType() == InsightProperties.QueueType.BLOCKING
+                ? new BlockingReporterQueue<>(reporterProperties.getQueueCapacity(), reporterProperties.getOfferTimeoutMs())
+                : new RingReporterQueue<>(reporterProperties.getQueueCapacity());
+
+        SpillFile spillFile = null;
+        if (reporterProperties.getOverflowPolicy() == OverflowPolicy.SPILL_TO_DISK) {
+            String dir = reporterProperties.getSpillDir();
+            Path spillDir = dir != null && !dir.isBlank() ? Path.of(dir)
+                    : Path.of(System.getProperty("java.io.tmpdir"), "spring-insight-spill", properties.getServiceName());
+            try {
+                spillFile = new SpillFile(spillDir, reporterProperties.getSpillMaxSize().toBytes());
+            } catch (IOException e) {
+                throw new IllegalStateException("无法创建上报溢写目录: " + spillDir, e);
+            }
+        }
+
         AsyncSpanReporter reporter = new AsyncSpanReporter(
                 properties.getServiceName(),
                 serviceInstance,
-                batchSinkProvider
+                batchSinkProvider,
+                spanQueue,
+                new AsyncSpanReporter.ChannelOptions(
+                        reporterProperties.getMinBatchSize(), reporterProperties.getMaxBatchSize(),
+                        reporterProperties.getMinLingerMs(), reporterProperties.getMaxLingerMs(),
+                        reporterProperties.getTargetSinkLatencyMs(), reporterProperties.getFlushIntervalMs()),
+                new RingReporterQueue<>(reporterProperties.getMetricQueueCapacity()),
+                AsyncSpanReporter.ChannelOptions.fixed(reporterProperties.getMetricBatchSize(),
+                        reporterProperties.getMetricFlushIntervalMs()),
+                reporterProperties.getOverflowPolicy(),
+                reporterProperties.getSampleThreshold(),
+                reporterProperties.getSampleKeepRatio(),
+                spillFile
         );
         reporter.start();
         log.info("[Bean配置] 异步上报器初始化完成");
@@ -72,7 +110,9 @@ public class InsightBeanConfiguration {
     @ConditionalOnMissingBean
     public SpanReportingListener spanReportingListener(AsyncSpanReporter asyncSpanReporter) {
         log.info("[Bean配置] Span报告监听器初始化完成");
-        return new SpanReportingListener(asyncSpanReporter);
+        return new SpanReportingListener(asyncSpanReporter,
+                properties.getReporter().getThreadBufferSize(),
+                properties.getReporter().getThreadBufferMaxDelayMs());
     }
 
     /**
@@ -186,9 +226,9 @@ public class InsightBeanConfiguration {
      * 应用关闭时清理资源的钩子
      */
     @Bean
-    public ShutdownHook shutdownHook(AsyncSpanReporter asyncSpanReporter) {
+    public ShutdownHook shutdownHook(AsyncSpanReporter asyncSpanReporter, SpanReportingListener spanReportingListener) {
         log.info("[Bean配置] 注册应用关闭钩子");
-        return new ShutdownHook(asyncSpanReporter);
+        return new ShutdownHook(asyncSpanReporter, spanReportingListener);
     }
 
     /**
@@ -196,13 +236,18 @@ public class InsightBeanConfiguration {
      */
     private static class ShutdownHook {
         private final AsyncSpanReporter reporter;
-        public ShutdownHook(AsyncSpanReporter reporter) {
+        private final SpanReportingListener listener;
+        public ShutdownHook(AsyncSpanReporter reporter, SpanReportingListener listener) {
             this.reporter = reporter;
+            this.listener = listener;
             // 注册JVM关闭钩子
             Runtime.getRuntime().addShutdownHook(new Thread(this::shutdown));
         }
         private void shutdown() {
             log.info("[关闭钩子] 正在停止 Spring Insight Agent 组件...");
+            if (listener != null) {
+                listener.flushBuffers(); // 先把线程缓冲中的 Span 交给上报器
+            }
             if (reporter != null) {
                 reporter.stop(); // 调用上报器的停止方法， flush剩余数据
             }
@@ -1,7 +1,9 @@
 package io.github.iweidujiang.springinsight.agent.autoconfigure;
 
+import io.github.iweidujiang.springinsight.agent.collector.queue.OverflowPolicy;
 import lombok.Data;
 import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
 
 import java.util.ArrayList;
 import java.util.Arrays;
@@ -70,6 +72,11 @@ public class InsightProperties {
      */
     private boolean diagnosticLogs = false;
 
+    /**
+     * 异步上报缓冲配置
+     */
+    private Reporter reporter = new Reporter();
+
     /**
      * HTTP 追踪排除路径：在配置的 {@link #excludePatterns} 基础上，若设置了 {@link #uiBasePath} 则自动追加 {@code {uiBasePath}/**}。
      */
@@ -110,6 +117,130 @@ public class InsightProperties {
             if (serviceName == null || serviceName.trim().isEmpty()) {
                 throw new IllegalArgumentException("spring.insight.service-name 必须配置");
             }
+            if (reporter.getQueueCapacity() <= 0) {
+                throw new IllegalArgumentException("spring.insight.reporter.queue-capacity 必须为正数");
+            }
+            if (reporter.getMetricQueueCapacity() <= 0) {
+                throw new IllegalArgumentException("spring.insight.reporter.metric-queue-capacity 必须为正数");
+            }
+            if (reporter.getMinBatchSize() <= 0 || reporter.getMaxBatchSize() < reporter.getMinBatchSize()
+                    || reporter.getMetricBatchSize() <= 0) {
+                throw new IllegalArgumentException("spring.insight.reporter 批量大小必须为正数，且 min-batch-size 不大于 max-batch-size");
+            }
+            if (reporter.getMinLingerMs() < 0 || reporter.getMaxLingerMs() < reporter.getMinLingerMs()
+                    || reporter.getTargetSinkLatencyMs() < 0) {
+                throw new IllegalArgumentException("spring.insight.reporter 凑批等待与目标耗时不能为负，且 min-linger-ms 不大于 max-linger-ms");
+            }
+            if (reporter.getFlushIntervalMs() <= 0 || reporter.getMetricFlushIntervalMs() <= 0) {
+                throw new IllegalArgumentException("spring.insight.reporter 刷新间隔必须为正数");
+            }
         }
     }
+
+    /**
+     * 异步上报缓冲配置（spring.insight.reporter.*）
+     */
+    @Data
+    public static class Reporter {
+
+        /**
+         * 缓冲队列实现：RING 预分配无锁环形缓冲（满时立即丢弃）；BLOCKING 为 LinkedBlockingQueue
+         */
+        private QueueType queueType = QueueType.RING;
+
+        /**
+         * Span 缓冲容量；RING 向上取整为 2 的幂
+         */
+        private int queueCapacity = 10000;
+
+        /**
+         * Span 自适应批量的下界（初始值）；低流量或 Sink 变慢时回落到此
+         */
+        private int minBatchSize = 50;
+
+        /**
+         * Span 自适应批量的上界；持续积压时每批翻倍直至此值，减少 Sink 调用次数
+         */
+        private int maxBatchSize = 2000;
+
+        /**
+         * 取到首条 Span 后凑批等待时间的下界（毫秒）；空闲时逐步回落到此，默认取到即发
+         */
+        private long minLingerMs = 0;
+
+        /**
+         * 凑批等待时间的上界（毫秒）；批次持续被填满时逐步放大至此
+         */
+        private long maxLingerMs = 500;
+
+        /**
+         * InsightBatchSink 单次调用的目标耗时（毫秒），超出则批量减半；0 表示不按耗时调整
+         */
+        private long targetSinkLatencyMs = 200;
+
+        /**
+         * Span 队列空闲时上报线程的唤醒间隔（毫秒），用于检查溢写补报
+         */
+        private long flushIntervalMs = 5000;
+
+        /**
+         * JVM 指标独立队列的容量（环形缓冲），满时淘汰最旧的指标，不受 Span 流量影响
+         */
+        private int metricQueueCapacity = 256;
+
+        /**
+         * JVM 指标每批最大条数
+         */
+        private int metricBatchSize = 50;
+
+        /**
+         * JVM 指标队列空闲时上报线程的最长等待（毫秒）
+         */
+        private long metricFlushIntervalMs = 1000;
+
+        /**
+         * BLOCKING 队列已满时业务线程的最长等待（毫秒）；默认 0 不等待，满时按 {@link #overflowPolicy} 处理
+         */
+        private long offerTimeoutMs = 0;
+
+        /**
+         * Span 队列已满时的处理策略（JVM 指标通道始终淘汰最旧数据）
+         */
+        private OverflowPolicy overflowPolicy = OverflowPolicy.DROP_NEWEST;
+
+        /**
+         * SAMPLE：队列水位（占容量比例）超过该值后开始降采样
+         */
+        private double sampleThreshold = 0.75;
+
+        /**
+         * SAMPLE：降采样期间保留的链路比例（按 traceId 取舍）
+         */
+        private double sampleKeepRatio = 0.1;
+
+        /**
+         * SPILL_TO_DISK：溢写目录，默认 ${java.io.tmpdir}/spring-insight-spill/{serviceName}
+         */
+        private String spillDir;
+
+        /**
+         * SPILL_TO_DISK：溢写文件上限，超出后丢弃新数据
+         */
+        private DataSize spillMaxSize = DataSize.ofMegabytes(64);
+
+        /**
+         * 平台线程私有 Span 缓冲攒满多少条后一次性交给上报队列；不大于 1 时逐条上报（虚拟线程始终逐条上报）
+         */
+        private int threadBufferSize = 32;
+
+        /**
+         * 线程缓冲中 Span 的最长停留时间（毫秒），超时由后台线程冲刷
+         */
+        private long threadBufferMaxDelayMs = 200;
+    }
+
+    public enum QueueType {
+        RING,
+        BLOCKING
+    }
 }
@@ -0,0 +1,70 @@
+package io.github.iweidujiang.springinsight.agent.collector;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 自适应批量参数：按每批实际条数与 InsightBatchSink 调用耗时调整批量大小和凑批等待时间
+ * │    · 批次被填满（有积压）→ 批量翻倍、等待时间翻倍，减少 Sink 调用次数
+ * │    · 凑批等待后仍只有零星数据（空闲）→ 等待时间减半，Span 尽快送达
+ * │    · Sink 单次调用超过目标耗时 → 批量减半，避免单批拖住上报线程
+ * │    仅由所属通道的上报线程调用；当前值供其他线程读取统计
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+public class AdaptiveBatcher {
+
+    private final int minBatchSize;
+    private final int maxBatchSize;
+    private final long minLingerMs;
+    private final long maxLingerMs;
+    /** 0 表示不按 Sink 耗时调整 */
+    private final long targetSinkLatencyMs;
+
+    private volatile int batchSize;
+    private volatile long lingerMs;
+
+    public AdaptiveBatcher(AsyncSpanReporter.ChannelOptions options) {
+        this.minBatchSize = options.minBatchSize();
+        this.maxBatchSize = options.maxBatchSize();
+        this.minLingerMs = options.minLingerMs();
+        this.maxLingerMs = options.maxLingerMs();
+        this.targetSinkLatencyMs = options.targetSinkLatencyMs();
+        this.batchSize = minBatchSize;
+        this.lingerMs = minLingerMs;
+    }
+
+    /**
+     * 当前每批上限
+     */
+    public int batchSize() {
+        return batchSize;
+    }
+
+    /**
+     * 取到首条数据后，为凑满一批最多再等待的时间
+     */
+    public long lingerMs() {
+        return lingerMs;
+    }
+
+    /**
+     * 一批交付完成后调用
+     *
+     * @param size         本批条数
+     * @param sinkCostNanos 本批 Sink 调用耗时
+     */
+    public void onBatch(int size, long sinkCostNanos) {
+        if (targetSinkLatencyMs > 0 && sinkCostNanos > targetSinkLatencyMs * 1_000_000) {
+            batchSize = Math.max(minBatchSize, batchSize / 2);
+        } else if (size >= batchSize) {
+            batchSize = (int) Math.min(maxBatchSize, batchSize * 2L);
+            lingerMs = Math.min(maxLingerMs, Math.max(1, lingerMs * 2));
+        } else if (size <= batchSize / 4) {
+            lingerMs = Math.max(minLingerMs, lingerMs / 2);
+        }
+    }
+}
@@ -1,5 +1,9 @@
 package io.github.iweidujiang.springinsight.agent.collector;
 
+import io.github.iweidujiang.springinsight.agent.collector.queue.OverflowPolicy;
+import io.github.iweidujiang.springinsight.agent.collector.queue.ReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.RingReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.SpillFile;
 import io.github.iweidujiang.springinsight.agent.model.JvmMetric;
 import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
 import io.github.iweidujiang.springinsight.agent.sink.InsightBatchSink;
@@ -9,14 +13,18 @@ import lombok.extern.slf4j.Slf4j;
 
 import java.util.ArrayList;
 import java.util.List;
-import java.util.concurrent.BlockingQueue;
-import java.util.concurrent.LinkedBlockingQueue;
 import java.util.concurrent.TimeUnit;
 import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
 
 /**
  * ┌───────────────────────────────────────────────
  * │ 📦 异步Span上报器,负责缓冲收集到的TraceSpan，并批量上报到Collector服务
+ * │    TraceSpan 与 JvmMetric 各走独立的队列和上报线程，容量、批量大小与刷新间隔分别配置，
+ * │    Span 洪峰既不会挤占指标队列，也不会拖慢指标上报；Span 通道由 {@link AdaptiveBatcher}
+ * │    按流量与 Sink 耗时调整批量大小和凑批等待时间
  * │
  * │ 👤 作者：苏渡苇
  * │ 🔗 公众号：苏渡苇
@@ -30,14 +38,66 @@ public class AsyncSpanReporter {
 
     // 配置常量
     private static final int DEFAULT_QUEUE_CAPACITY = 10000;
-    private static final int DEFAULT_BATCH_SIZE = 200;
+    private static final int DEFAULT_MIN_BATCH_SIZE = 50;
+    private static final int DEFAULT_MAX_BATCH_SIZE = 2000;
+    private static final long DEFAULT_MAX_LINGER_MS = 500;
+    private static final long DEFAULT_TARGET_SINK_LATENCY_MS = 200;
     private static final long DEFAULT_FLUSH_INTERVAL_MS = 5000; // 5秒
-    private static final long DEFAULT_OFFER_TIMEOUT_MS = 100;
+    private static final int DEFAULT_METRIC_QUEUE_CAPACITY = 256;
+    private static final int DEFAULT_METRIC_BATCH_SIZE = 50;
+    private static final long DEFAULT_METRIC_FLUSH_INTERVAL_MS = 1000;
+    private static final long OVERFLOW_WARN_INTERVAL_MS = 10_000;
+    /** DROP_OLDEST 时为新数据腾位置的最大尝试次数，其间被其他生产者抢占则放弃 */
+    private static final int DROP_OLDEST_ATTEMPTS = 3;
 
-    // 队列与状态控制
-    private final BlockingQueue<Object> metricsQueue;
+    /**
+     * 单个通道的批量参数
+     *
+     * @param minBatchSize        每批上限的下界（初始值）
+     * @param maxBatchSize        每批上限的上界
+     * @param minLingerMs         取到首条数据后凑批等待时间的下界（初始值）
+     * @param maxLingerMs         凑批等待时间的上界
+     * @param targetSinkLatencyMs Sink 单次调用的目标耗时，超出则缩小批量；0 表示不按耗时调整
+     * @param flushIntervalMs     队列空闲时上报线程的唤醒间隔（检查溢写补报等）
+     */
+    public record ChannelOptions(int minBatchSize, int maxBatchSize, long minLingerMs, long maxLingerMs,
+                                 long targetSinkLatencyMs, long flushIntervalMs) {
+        public ChannelOptions {
+            if (minBatchSize <= 0 || maxBatchSize < minBatchSize) {
+                throw new IllegalArgumentException("批量大小须满足 0 < minBatchSize <= maxBatchSize");
+            }
+            if (minLingerMs < 0 || maxLingerMs < minLingerMs) {
+                throw new IllegalArgumentException("凑批等待须满足 0 <= minLingerMs <= maxLingerMs");
+            }
+            if (targetSinkLatencyMs < 0 || flushIntervalMs <= 0) {
+                throw new IllegalArgumentException("targetSinkLatencyMs 不能为负，flushIntervalMs 必须为正数");
+            }
+        }
+
+        /**
+         * 固定批量、取到即发的通道
+         */
+        public static ChannelOptions fixed(int batchSize, long flushIntervalMs) {
+            return new ChannelOptions(batchSize, batchSize, 0, 0, 0, flushIntervalMs);
+        }
+    }
+
+    // 队列与状态控制（业务线程多写、各通道上报线程单读）
+    private final ReporterQueue<TraceSpan> spanQueue;
+    private final ChannelOptions spanOptions;
+    private final AdaptiveBatcher spanBatcher;
+    private final ReporterQueue<JvmMetric> metricQueue;
+    private final ChannelOptions metricOptions;
+    private final AdaptiveBatcher metricBatcher;
+    private final OverflowPolicy overflowPolicy;
+    /** SAMPLE：开始降采样的队列长度 */
+    private final int sampleThreshold;
+    /** SAMPLE：traceId 哈希取模 10000 后小于该值的链路被保留 */
+    private final int sampleKeepPerTenThousand;
+    private final SpillFile spillFile;
     private final AtomicBoolean running = new AtomicBoolean(false);
-    private Thread flushThread;
+    private Thread spanThread;
+    private Thread metricThread;
 
     // 服务标识
     private final String serviceName;
@@ -48,21 +108,88 @@ public class AsyncSpanReporter {
      */
     private final ObjectProvider<InsightBatchSink> batchSinkProvider;
 
-    // 统计信息
+    // 统计信息；入队 / 丢弃计数在业务线程上累加，用 LongAdder 避免同步
     private final ReporterMetrics metrics = new ReporterMetrics();
+    private final LongAdder received = new LongAdder();
+    private final LongAdder dropped = new LongAdder();
+    private final LongAdder droppedNewest = new LongAdder();
+    private final LongAdder droppedOldest = new LongAdder();
+    private final LongAdder sampledOut = new LongAdder();
+    private final LongAdder spilled = new LongAdder();
+    private final LongAdder spillReplayed = new LongAdder();
+    private final LongAdder metricsDropped = new LongAdder();
+    private final AtomicLong lastOverflowWarnAt = new AtomicLong();
 
     /**
-     * 构造函数
+     * 构造函数（默认无锁环形缓冲）
      */
     public AsyncSpanReporter(String serviceName, String serviceInstance,
                              ObjectProvider<InsightBatchSink> batchSinkProvider) {
+        this(serviceName, serviceInstance, batchSinkProvider, new RingReporterQueue<>(DEFAULT_QUEUE_CAPACITY));
+    }
+
+    /**
+     * 构造函数，指定 Span 缓冲队列（队列满时立即丢弃新数据）
+     */
+    public AsyncSpanReporter(String serviceName, String serviceInstance,
+                             ObjectProvider<InsightBatchSink> batchSinkProvider,
+                             ReporterQueue<TraceSpan> spanQueue) {
+        this(serviceName, serviceInstance, batchSinkProvider, spanQueue,
+                OverflowPolicy.DROP_NEWEST, 1.0, 1.0, null);
+    }
+
+    /**
+     * 构造函数，指定 Span 缓冲队列与溢出策略，JVM 指标通道使用默认参数
+     */
+    public AsyncSpanReporter(String serviceName, String serviceInstance,
+                             ObjectProvider<InsightBatchSink> batchSinkProvider,
+                             ReporterQueue<TraceSpan> spanQueue,
+                             OverflowPolicy overflowPolicy, double sampleThreshold, double sampleKeepRatio,
+                             SpillFile spillFile) {
+        this(serviceName, serviceInstance, batchSinkProvider,
+                spanQueue, new ChannelOptions(DEFAULT_MIN_BATCH_SIZE, DEFAULT_MAX_BATCH_SIZE, 0, DEFAULT_MAX_LINGER_MS,
+                        DEFAULT_TARGET_SINK_LATENCY_MS, DEFAULT_FLUSH_INTERVAL_MS),
+                new RingReporterQueue<>(DEFAULT_METRIC_QUEUE_CAPACITY),
+                ChannelOptions.fixed(DEFAULT_METRIC_BATCH_SIZE, DEFAULT_METRIC_FLUSH_INTERVAL_MS),
+                overflowPolicy, sampleThreshold, sampleKeepRatio, spillFile);
+    }
+
+    /**
+     * 构造函数，分别指定 Span 与 JVM 指标通道；溢出策略只作用于 Span 通道
+     *
+     * @param sampleThreshold  SAMPLE：开始降采样的 Span 队列水位（占容量比例）
+     * @param sampleKeepRatio  SAMPLE：降采样期间保留的链路比例
+     * @param spillFile        SPILL_TO_DISK：溢写文件，其他策略可为 {@code null}
+     */
+    public AsyncSpanReporter(String serviceName, String serviceInstance,
+                             ObjectProvider<InsightBatchSink> batchSinkProvider,
+                             ReporterQueue<TraceSpan> spanQueue, ChannelOptions spanOptions,
+                             ReporterQueue<JvmMetric> metricQueue, ChannelOptions metricOptions,
+                             OverflowPolicy overflowPolicy, double sampleThreshold, double sampleKeepRatio,
+                             SpillFile spillFile) {
+        if (overflowPolicy == OverflowPolicy.SPILL_TO_DISK && spillFile == null) {
+            throw new IllegalArgumentException("SPILL_TO_DISK 策略需要溢写文件");
+        }
         this.serviceName = serviceName;
         this.serviceInstance = serviceInstance;
         this.batchSinkProvider = batchSinkProvider;
-        this.metricsQueue = new LinkedBlockingQueue<>(DEFAULT_QUEUE_CAPACITY);
-
-        log.info("[异步上报器] 初始化完成: serviceName={}, serviceInstance={}",
-                serviceName, serviceInstance);
+        this.spanQueue = spanQueue;
+        this.spanOptions = spanOptions;
+        this.spanBatcher = new AdaptiveBatcher(spanOptions);
+        this.metricQueue = metricQueue;
+        this.metricOptions = metricOptions;
+        this.metricBatcher = new AdaptiveBatcher(metricOptions);
+        this.overflowPolicy = overflowPolicy;
+        this.sampleThreshold = (int) (spanQueue.capacity() * Math.max(0.0, Math.min(1.0, sampleThreshold)));
+        this.sampleKeepPerTenThousand = (int) (Math.max(0.0, Math.min(1.0, sampleKeepRatio)) * 10_000);
+        this.spillFile = spillFile;
+
+        log.info("[异步上报器] 初始化完成: serviceName={}, serviceInstance={}, queue={}, capacity={}, overflowPolicy={}, "
+                        + "span批量={}~{}, 凑批等待={}~{}ms, 目标Sink耗时={}ms, 指标队列={}, 指标批量={}",
+                serviceName, serviceInstance, spanQueue.getClass().getSimpleName(), spanQueue.capacity(),
+                overflowPolicy, spanOptions.minBatchSize(), spanOptions.maxBatchSize(),
+                spanOptions.minLingerMs(), spanOptions.maxLingerMs(), spanOptions.targetSinkLatencyMs(),
+                metricQueue.capacity(), metricOptions.maxBatchSize());
     }
 
     /**
@@ -70,10 +197,15 @@ public class AsyncSpanReporter {
      */
     public void start() {
         if (running.compareAndSet(false, true)) {
-            flushThread = new Thread(this::flushLoop, "spring-insight-reporter");
-            flushThread.setDaemon(true);
-            flushThread.start();
-            log.info("[异步上报器] 已启动后台上报线程");
+            spanThread = new Thread(() -> flushLoop("TraceSpan", spanQueue, spanOptions, spanBatcher,
+                    this::flushTraceSpans, this::replaySpillIfDrained), "spring-insight-reporter");
+            spanThread.setDaemon(true);
+            spanThread.start();
+            metricThread = new Thread(() -> flushLoop("JvmMetric", metricQueue, metricOptions, metricBatcher,
+                    this::flushJvmMetrics, null), "spring-insight-metric-reporter");
+            metricThread.setDaemon(true);
+            metricThread.start();
+            log.info("[异步上报器] 已启动后台上报线程（TraceSpan / JvmMetric 各一）");
         } else {
             log.warn("[异步上报器] 上报器已在运行状态，忽略重复启动");
         }
@@ -85,19 +217,27 @@ public class AsyncSpanReporter {
     public void stop() {
         if (running.compareAndSet(true, false)) {
             // 等待flush线程结束
-            if (flushThread != null) {
+            for (Thread thread : new Thread[]{spanThread, metricThread}) {
+                if (thread == null) {
+                    continue;
+                }
                 try {
-                    flushThread.interrupt();
-                    flushThread.join(3000); // 等待3秒
-                    log.info("[异步上报器] 上报线程已停止");
+                    thread.interrupt();
+                    thread.join(3000); // 等待3秒
                 } catch (InterruptedException e) {
                     log.warn("[异步上报器] 等待上报线程停止时被中断", e);
                     Thread.currentThread().interrupt();
                 }
             }
+            log.info("[异步上报器] 上报线程已停止");
             // 尝试清空队列并上报剩余数据
-            flushRemainingSpans();
-            log.info("[异步上报器] 已停止，上报统计: {}", metrics);
+            flushRemaining();
+            if (spillFile != null) {
+                // 先让写线程落盘剩余数据，再整体补报
+                spillFile.close();
+                replaySpill();
+            }
+            log.info("[异步上报器] 已停止，上报统计: {}", getMetrics());
         }
     }
 
@@ -110,111 +250,186 @@ public class AsyncSpanReporter {
             return false;
         }
 
-        return report((Object) span);
+        if (!running.get()) {
+            log.warn("[异步上报器] 上报器未运行，丢弃 Span");
+            dropped.increment();
+            return false;
+        }
+
+        if (overflowPolicy == OverflowPolicy.SAMPLE
+                && spanQueue.size() >= sampleThreshold && !sampledIn(span)) {
+            sampledOut.increment();
+            warnOverflow();
+            return false;
+        }
+
+        if (spanQueue.offer(span)) {
+            received.increment();
+            return true;
+        }
+        return overflow(span);
     }
 
     /**
-     * 上报JVM指标（异步非阻塞）
+     * 批量上报 Span（异步非阻塞）：整段一次入队发布，放不下的部分按溢出策略逐条处理；返回被接受的条数
      */
-    public boolean report(JvmMetric metric) {
-        if (metric == null) {
-            log.warn("[异步上报器] 尝试上报空的JVM指标，已忽略");
-            return false;
+    public int reportBatch(List<TraceSpan> spans) {
+        if (spans == null || spans.isEmpty()) {
+            return 0;
         }
 
-        return report((Object) metric);
+        if (!running.get()) {
+            log.warn("[异步上报器] 上报器未运行，丢弃 Span 批次: size={}", spans.size());
+            dropped.add(spans.size());
+            return 0;
+        }
+
+        List<TraceSpan> batch = spans;
+        if (overflowPolicy == OverflowPolicy.SAMPLE && spanQueue.size() >= sampleThreshold) {
+            batch = new ArrayList<>(spans.size());
+            for (TraceSpan span : spans) {
+                if (sampledIn(span)) {
+                    batch.add(span);
+                } else {
+                    sampledOut.increment();
+                }
+            }
+            if (batch.size() < spans.size()) {
+                warnOverflow();
+            }
+        }
+
+        int offered = spanQueue.offerBatch(batch);
+        received.add(offered);
+        int accepted = offered;
+        for (int i = offered; i < batch.size(); i++) {
+            if (overflow(batch.get(i))) {
+                accepted++;
+            }
+        }
+        return accepted;
     }
 
     /**
-     * 上报指标（异步非阻塞）
+     * 上报JVM指标（异步非阻塞）。指标走独立的小容量通道，满时淘汰最旧的指标，保证最新状态能送达
      */
-    private boolean report(Object metric) {
+    public boolean report(JvmMetric metric) {
         if (metric == null) {
-            log.warn("[异步上报器] 尝试上报空的指标，已忽略");
+            log.warn("[异步上报器] 尝试上报空的JVM指标，已忽略");
             return false;
         }
 
         if (!running.get()) {
-            log.warn("[异步上报器] 上报器未运行，丢弃指标: {}", metric.getClass().getSimpleName());
-            metrics.incrementDropped();
+            log.warn("[异步上报器] 上报器未运行，丢弃 JVM 指标");
+            dropped.increment();
             return false;
         }
 
-        try {
-            boolean offered = metricsQueue.offer(metric, DEFAULT_OFFER_TIMEOUT_MS, TimeUnit.MILLISECONDS);
-            if (offered) {
-                metrics.incrementReceived();
-                log.debug("[异步上报器] 指标已加入队列: type={}, 当前队列大小={}",
-                        metric.getClass().getSimpleName(), metricsQueue.size());
+        for (int i = 0; i < DROP_OLDEST_ATTEMPTS; i++) {
+            if (metricQueue.offer(metric)) {
+                received.increment();
                 return true;
-            } else {
-                log.warn("[异步上报器] 队列已满，丢弃指标: type={}, 队列容量={}",
-                        metric.getClass().getSimpleName(), DEFAULT_QUEUE_CAPACITY);
-                metrics.incrementDropped();
-                return false;
             }
-        } catch (InterruptedException e) {
-            log.warn("[异步上报器] 添加指标到队列时被中断", e);
-            Thread.currentThread().interrupt();
-            metrics.incrementDropped();
-            return false;
+            if (metricQueue.poll() != null) {
+                metricsDropped.increment();
+            }
         }
+        metricsDropped.increment();
+        return false;
     }
 
     /**
-     * 后台刷新循环
+     * Span 队列已满：按溢出策略处理，任何分支都不等待（SPILL_TO_DISK 只投递给溢写线程，不在业务线程上做 I/O）
      */
-    private void flushLoop() {
-        log.info("[异步上报器] 后台上报线程开始运行");
-
-        while (running.get()) {
-            try {
-                // 等待指定间隔或队列达到批量大小
-                List<TraceSpan> traceBatch = new ArrayList<>(DEFAULT_BATCH_SIZE);
-                List<JvmMetric> jvmBatch = new ArrayList<>(DEFAULT_BATCH_SIZE);
-                
-                // 从队列中获取数据，最长等待DEFAULT_FLUSH_INTERVAL_MS
-                Object firstMetric = metricsQueue.poll(DEFAULT_FLUSH_INTERVAL_MS, TimeUnit.MILLISECONDS);
-
-                if (firstMetric != null) {
-                    // 处理第一个指标
-                    if (firstMetric instanceof TraceSpan) {
-                        traceBatch.add((TraceSpan) firstMetric);
-                    } else if (firstMetric instanceof JvmMetric) {
-                        jvmBatch.add((JvmMetric) firstMetric);
+    private boolean overflow(TraceSpan span) {
+        warnOverflow();
+        switch (overflowPolicy) {
+            case DROP_OLDEST -> {
+                for (int i = 0; i < DROP_OLDEST_ATTEMPTS; i++) {
+                    if (spanQueue.poll() != null) {
+                        droppedOldest.increment();
                     }
-                    
-                    // 非阻塞方式获取更多指标，按类型分组
-                    List<Object> remainingMetrics = new ArrayList<>(DEFAULT_BATCH_SIZE - 1);
-                    metricsQueue.drainTo(remainingMetrics, DEFAULT_BATCH_SIZE - 1);
-                    
-                    for (Object metric : remainingMetrics) {
-                        if (metric instanceof TraceSpan) {
-                            traceBatch.add((TraceSpan) metric);
-                        } else if (metric instanceof JvmMetric) {
-                            jvmBatch.add((JvmMetric) metric);
-                        }
+                    if (spanQueue.offer(span)) {
+                        received.increment();
+                        return true;
                     }
                 }
+            }
+            case SPILL_TO_DISK -> {
+                if (spillFile.append(span)) {
+                    spilled.increment();
+                    received.increment();
+                    return true;
+                }
+            }
+            default -> {
+            }
+        }
+        droppedNewest.increment();
+        return false;
+    }
 
-                // 如果有TraceSpan数据则上报
-                if (!traceBatch.isEmpty()) {
-                    flushTraceSpans(traceBatch);
+    /**
+     * 按 traceId 取舍，同一链路的 Span 要么全部保留、要么全部丢弃
+     */
+    private boolean sampledIn(TraceSpan span) {
+        String traceId = span.getTraceId();
+        int bucket = traceId != null ? (traceId.hashCode() & Integer.MAX_VALUE) % 10_000 : 0;
+        return bucket < sampleKeepPerTenThousand;
+    }
+
+    /**
+     * 溢出告警限频，避免在业务线程上逐条打日志
+     */
+    private void warnOverflow() {
+        long now = System.currentTimeMillis();
+        long last = lastOverflowWarnAt.get();
+        if (now - last >= OVERFLOW_WARN_INTERVAL_MS && lastOverflowWarnAt.compareAndSet(last, now)) {
+            log.warn("[异步上报器] Span 队列已满: 容量={}, 策略={}, 累计丢弃新数据={}, 丢弃旧数据={}, 降采样={}, 溢写={}",
+                    spanQueue.capacity(), overflowPolicy, droppedNewest.sum(), droppedOldest.sum(),
+                    sampledOut.sum(), spilled.sum());
+        }
+    }
+
+    /**
+     * 单个通道的后台刷新循环：队列空闲时最多等待 flushIntervalMs；取到首条数据后连同积压部分凑批，
+     * 不满一批时再等待至多 linger 时长，交付后把条数与 Sink 耗时反馈给 {@link AdaptiveBatcher}
+     *
+     * @param afterBatch 每轮结束后的附加动作，可为 {@code null}
+     */
+    private <T> void flushLoop(String type, ReporterQueue<T> queue, ChannelOptions options, AdaptiveBatcher batcher,
+                               Consumer<List<T>> flusher, Runnable afterBatch) {
+        log.info("[异步上报器] {} 上报线程开始运行", type);
+
+        while (running.get()) {
+            try {
+                // 从队列中获取数据，最长等待 flushIntervalMs
+                T first = queue.poll(options.flushIntervalMs(), TimeUnit.MILLISECONDS);
+
+                if (first != null) {
+                    int target = batcher.batchSize();
+                    List<T> batch = new ArrayList<>(Math.min(target, queue.size() + 1));
+                    batch.add(first);
+                    queue.drainTo(batch, target - 1);
+                    linger(queue, batch, target, batcher.lingerMs());
+
+                    long startNanos = System.nanoTime();
+                    flusher.accept(batch);
+                    batcher.onBatch(batch.size(), System.nanoTime() - startNanos);
                 }
-                
-                // 如果有JvmMetric数据则上报
-                if (!jvmBatch.isEmpty()) {
-                    flushJvmMetrics(jvmBatch);
+
+                if (afterBatch != null) {
+                    afterBatch.run();
                 }
 
             } catch (InterruptedException e) {
                 if (running.get()) {
-                    log.warn("[异步上报器] 刷新循环被意外中断", e);
+                    log.warn("[异步上报器] {} 刷新循环被意外中断", type, e);
                 }
                 Thread.currentThread().interrupt();
                 break;
             } catch (Exception e) {
-                log.error("[异步上报器] 刷新循环发生异常", e);
+                log.error("[异步上报器] {} 刷新循环发生异常", type, e);
                 // 继续运行，避免因单次异常导致上报停止
                 try {
                     Thread.sleep(1000); // 异常后暂停1秒
@@ -225,7 +440,30 @@ public class AsyncSpanReporter {
             }
         }
 
-        log.info("[异步上报器] 后台上报线程结束运行");
+        log.info("[异步上报器] {} 上报线程结束运行", type);
+    }
+
+    /**
+     * 批次未满时继续等待后续数据，直到凑满或超过 lingerMs；被中断时保留中断标记并交付已取到的部分
+     */
+    private static <T> void linger(ReporterQueue<T> queue, List<T> batch, int target, long lingerMs) {
+        if (lingerMs <= 0 || batch.size() >= target) {
+            return;
+        }
+        long deadline = System.nanoTime() + TimeUnit.MILLISECONDS.toNanos(lingerMs);
+        try {
+            long remaining;
+            while (batch.size() < target && (remaining = deadline - System.nanoTime()) > 0) {
+                T next = queue.poll(remaining, TimeUnit.NANOSECONDS);
+                if (next == null) {
+                    return;
+                }
+                batch.add(next);
+                queue.drainTo(batch, target - batch.size());
+            }
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
     }
 
     /**
@@ -300,52 +538,91 @@ public class AsyncSpanReporter {
     }
 
     /**
-     * 获取当前队列大小
+     * Span 队列回落到半满以下时补报溢写数据
      */
-    public int getQueueSize() {
-        return metricsQueue.size();
+    private void replaySpillIfDrained() {
+        if (spillFile != null && spillFile.hasPending() && spanQueue.size() < spanQueue.capacity() / 2) {
+            replaySpill();
+        }
     }
 
     /**
-     * 清空并上报剩余的所有指标（用于关闭时）
+     * 读回溢写文件并按批补报
      */
-    private void flushRemainingSpans() {
-        if (metricsQueue.isEmpty()) {
-            log.debug("[异步上报器] 队列已空，无需清理");
-            return;
-        }
-
-        List<TraceSpan> remainingTraceSpans = new ArrayList<>();
-        List<JvmMetric> remainingJvmMetrics = new ArrayList<>();
-        
-        // 将剩余指标按类型分组
-        List<Object> remainingMetrics = new ArrayList<>();
-        metricsQueue.drainTo(remainingMetrics);
-        
-        for (Object metric : remainingMetrics) {
-            if (metric instanceof TraceSpan) {
-                remainingTraceSpans.add((TraceSpan) metric);
-            } else if (metric instanceof JvmMetric) {
-                remainingJvmMetrics.add((JvmMetric) metric);
+    private void replaySpill() {
+        List<TraceSpan> traceBatch = new ArrayList<>(spanOptions.maxBatchSize());
+        int n = spillFile.replay(span -> {
+            traceBatch.add(span);
+            if (traceBatch.size() >= spanOptions.maxBatchSize()) {
+                flushTraceSpans(new ArrayList<>(traceBatch));
+                traceBatch.clear();
             }
+        });
+        if (!traceBatch.isEmpty()) {
+            flushTraceSpans(traceBatch);
         }
+        if (n > 0) {
+            spillReplayed.add(n);
+            log.info("[异步上报器] 已补报溢写数据: size={}", n);
+        }
+    }
 
-        if (!remainingTraceSpans.isEmpty()) {
-            log.info("[异步上报器] 清理剩余TraceSpan: size={}", remainingTraceSpans.size());
-            flushTraceSpans(remainingTraceSpans);
+    /**
+     * 获取当前 Span 队列大小
+     */
+    public int getQueueSize() {
+        return spanQueue.size();
+    }
+
+    /**
+     * 获取当前 JVM 指标队列大小
+     */
+    public int getMetricQueueSize() {
+        return metricQueue.size();
+    }
+
+    /**
+     * 清空两个通道并按批上报剩余数据（用于关闭时）
+     */
+    private void flushRemaining() {
+        int spans = drainRemaining(spanQueue, spanOptions, this::flushTraceSpans);
+        int jvmMetrics = drainRemaining(metricQueue, metricOptions, this::flushJvmMetrics);
+        if (spans > 0 || jvmMetrics > 0) {
+            log.info("[异步上报器] 清理剩余数据: TraceSpan={}, JvmMetric={}", spans, jvmMetrics);
         }
-        
-        if (!remainingJvmMetrics.isEmpty()) {
-            log.info("[异步上报器] 清理剩余JvmMetric: size={}", remainingJvmMetrics.size());
-            flushJvmMetrics(remainingJvmMetrics);
+    }
+
+    private static <T> int drainRemaining(ReporterQueue<T> queue, ChannelOptions options, Consumer<List<T>> flusher) {
+        int total = 0;
+        while (!queue.isEmpty()) {
+            List<T> batch = new ArrayList<>(Math.min(options.maxBatchSize(), queue.size()));
+            if (queue.drainTo(batch, options.maxBatchSize()) == 0) {
+                break;
+            }
+            flusher.accept(batch);
+            total += batch.size();
         }
+        return total;
     }
 
     /**
      * 获取上报统计信息
      */
     public ReporterMetrics getMetrics() {
-        return metrics.copy();
+        ReporterMetrics copy = metrics.copy();
+        copy.setTotalReceived(received.sum());
+        long spillDropped = spillFile != null ? spillFile.dropped() : 0L;
+        copy.setDroppedNewest(droppedNewest.sum() + spillDropped);
+        copy.setDroppedOldest(droppedOldest.sum());
+        copy.setSampledOut(sampledOut.sum());
+        copy.setSpilled(spilled.sum() - spillDropped);
+        copy.setSpillReplayed(spillReplayed.sum());
+        copy.setMetricsDropped(metricsDropped.sum());
+        copy.setSpanBatchSize(spanBatcher.batchSize());
+        copy.setSpanLingerMs(spanBatcher.lingerMs());
+        copy.setTotalDropped(dropped.sum() + copy.getDroppedNewest() + copy.getDroppedOldest()
+                + copy.getSampledOut() + copy.getMetricsDropped());
+        return copy;
     }
 
     /**
@@ -356,9 +633,17 @@ public class AsyncSpanReporter {
         private long totalReceived = 0;      // 总接收数
         private long totalSuccess = 0;       // 总成功上报数
         private long totalFailed = 0;        // 总失败数
-        private long totalDropped = 0;       // 总丢弃数
+        private long totalDropped = 0;       // 总丢弃数（下列各策略丢弃之和，含未运行时丢弃）
+        private long droppedNewest = 0;      // 队列满时丢弃的新数据（含溢写超出上限的部分）
+        private long droppedOldest = 0;      // DROP_OLDEST 淘汰的旧数据
+        private long sampledOut = 0;         // SAMPLE 降采样丢弃数
+        private long spilled = 0;            // SPILL_TO_DISK 溢写数
+        private long spillReplayed = 0;      // 溢写后补报数
+        private long metricsDropped = 0;     // JVM 指标通道已满时淘汰的旧指标
         private long totalBatches = 0;       // 总批次数
         private long totalCostMs = 0;        // 总耗时(ms)
+        private int spanBatchSize = 0;       // Span 通道当前自适应批量上限
+        private long spanLingerMs = 0;       // Span 通道当前凑批等待(ms)
 
         public synchronized void incrementReceived() {
             totalReceived++;
@@ -387,14 +672,23 @@ public class AsyncSpanReporter {
             copy.totalDropped = this.totalDropped;
             copy.totalBatches = this.totalBatches;
             copy.totalCostMs = this.totalCostMs;
+            copy.droppedNewest = this.droppedNewest;
+            copy.droppedOldest = this.droppedOldest;
+            copy.sampledOut = this.sampledOut;
+            copy.spilled = this.spilled;
+            copy.spillReplayed = this.spillReplayed;
+            copy.metricsDropped = this.metricsDropped;
+            copy.spanBatchSize = this.spanBatchSize;
+            copy.spanLingerMs = this.spanLingerMs;
             return copy;
         }
 
         @Override
         public String toString() {
-            return String.format("接收数=%d, 成功=%d, 失败=%d, 丢弃=%d, 批次=%d, 平均耗时=%.2fms",
-                    totalReceived, totalSuccess, totalFailed, totalDropped, totalBatches,
-                    totalBatches > 0 ? (double) totalCostMs / totalBatches : 0.0);
+            return String.format("接收数=%d, 成功=%d, 失败=%d, 丢弃=%d(新=%d, 旧=%d, 降采样=%d, 指标=%d), 溢写=%d, 补报=%d, 批次=%d, 平均耗时=%.2fms, 当前批量=%d, 凑批等待=%dms",
+                    totalReceived, totalSuccess, totalFailed, totalDropped, droppedNewest, droppedOldest, sampledOut,
+                    metricsDropped, spilled, spillReplayed, totalBatches,
+                    totalBatches > 0 ? (double) totalCostMs / totalBatches : 0.0, spanBatchSize, spanLingerMs);
         }
     }
 }
@@ -0,0 +1,68 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+import java.util.Collection;
+import java.util.concurrent.LinkedBlockingQueue;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 基于 LinkedBlockingQueue 的上报队列
+ * │    每次入队分配链表节点并竞争 put 锁，队列满时最多等待 offerTimeoutMs；保留作对照与兼容
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+public class BlockingReporterQueue<E> implements ReporterQueue<E> {
+
+    private final LinkedBlockingQueue<E> queue;
+    private final int capacity;
+    private final long offerTimeoutMs;
+
+    public BlockingReporterQueue(int capacity, long offerTimeoutMs) {
+        this.queue = new LinkedBlockingQueue<>(capacity);
+        this.capacity = capacity;
+        this.offerTimeoutMs = Math.max(0, offerTimeoutMs);
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (offerTimeoutMs == 0) {
+            return queue.offer(e);
+        }
+        try {
+            return queue.offer(e, offerTimeoutMs, TimeUnit.MILLISECONDS);
+        } catch (InterruptedException ex) {
+            Thread.currentThread().interrupt();
+            return false;
+        }
+    }
+
+    @Override
+    public E poll() {
+        return queue.poll();
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        return queue.poll(timeout, unit);
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        return queue.drainTo(target, maxElements);
+    }
+
+    @Override
+    public int size() {
+        return queue.size();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+}
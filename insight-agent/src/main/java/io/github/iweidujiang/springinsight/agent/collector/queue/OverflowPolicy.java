@@ -0,0 +1,35 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 上报队列已满时的处理策略；任何策略都不会让业务线程等待
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+public enum OverflowPolicy {
+
+    /**
+     * 立即丢弃新到的数据（默认）
+     */
+    DROP_NEWEST,
+
+    /**
+     * 丢弃队列中最旧的数据，为新数据腾出位置
+     */
+    DROP_OLDEST,
+
+    /**
+     * 队列水位超过阈值后按 traceId 降采样（同一链路的 Span 同进同出），满时丢弃新数据
+     */
+    SAMPLE,
+
+    /**
+     * 溢出数据追加到本地溢写文件，队列回落后由上报线程读回补报；文件达到上限后丢弃新数据
+     */
+    SPILL_TO_DISK
+}
@@ -0,0 +1,65 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 上报缓冲队列策略：业务线程多写、上报线程单读
+ * │    {@link RingReporterQueue} 预分配无锁环形缓冲（默认）；{@link BlockingReporterQueue} 为原 LinkedBlockingQueue 实现
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+public interface ReporterQueue<E> {
+
+    /**
+     * 入队，可由任意线程并发调用；队列已满时返回 {@code false}
+     */
+    boolean offer(E e);
+
+    /**
+     * 批量入队：按顺序放入尽可能多的元素，返回放入的个数（其余元素由调用方按溢出策略处理）
+     */
+    default int offerBatch(List<? extends E> items) {
+        int n = 0;
+        for (E e : items) {
+            if (!offer(e)) {
+                break;
+            }
+            n++;
+        }
+        return n;
+    }
+
+    /**
+     * 非阻塞取出一个元素，队列为空时返回 {@code null}；可由任意线程调用（DROP_OLDEST 时生产者借此淘汰最旧元素）
+     */
+    E poll();
+
+    /**
+     * 取出一个元素，队列为空时最多等待 {@code timeout}；超时返回 {@code null}。仅由消费线程调用
+     */
+    E poll(long timeout, TimeUnit unit) throws InterruptedException;
+
+    /**
+     * 非阻塞地取出至多 {@code maxElements} 个元素追加到 {@code target}，返回取出数量。仅由消费线程调用
+     */
+    int drainTo(Collection<? super E> target, int maxElements);
+
+    /**
+     * 当前元素数（并发下为近似值）
+     */
+    int size();
+
+    int capacity();
+
+    default boolean isEmpty() {
+        return size() == 0;
+    }
+}
@@ -0,0 +1,213 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+import java.util.Collection;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 预分配的无锁多生产者 / 单消费者环形缓冲（Vyukov 有界队列）
+ * │    每个槽位带序号：生产者 CAS 推进写指针认领槽位，写入元素后以序号发布；
+ * │    入队不加锁、不分配节点，满时立即返回 false（不阻塞业务线程）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ * <p>
+ * 槽位序号约定：等于 pos 表示空闲、可由写入 pos 的生产者认领；等于 pos + 1 表示已发布、可由消费者读取；
+ * 消费后置为 pos + 容量，留给下一圈。消费线程空闲时 park 等待，生产者发布后若发现其在等待则唤醒。
+ * 读指针同样以 CAS 推进，因此 DROP_OLDEST 策略下生产者也可并发 {@link #poll()} 淘汰最旧元素。
+ */
+public class RingReporterQueue<E> implements ReporterQueue<E> {
+
+    private final int mask;
+    private final Object[] buffer;
+    private final AtomicLongArray sequences;
+    /** 生产者共享的写指针，单独对象以免与消费者字段伪共享 */
+    private final AtomicLong tail = new AtomicLong();
+    /** 读指针；通常只有上报线程推进，DROP_OLDEST 时生产者也会参与 */
+    private final AtomicLong head = new AtomicLong();
+    private volatile Thread waiter;
+
+    /**
+     * @param capacity 容量，向上取整为 2 的幂
+     */
+    public RingReporterQueue(int capacity) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("容量必须为正数: " + capacity);
+        }
+        int size = capacity == 1 ? 1 : Integer.highestOneBit(capacity - 1) << 1;
+        if (size <= 0) {
+            throw new IllegalArgumentException("容量过大: " + capacity);
+        }
+        this.mask = size - 1;
+        this.buffer = new Object[size];
+        this.sequences = new AtomicLongArray(size);
+        for (int i = 0; i < size; i++) {
+            sequences.set(i, i);
+        }
+    }
+
+    @Override
+    public boolean offer(E e) {
+        if (e == null) {
+            throw new NullPointerException();
+        }
+        long pos = tail.get();
+        int index;
+        for (;;) {
+            index = (int) (pos & mask);
+            long diff = sequences.getAcquire(index) - pos;
+            if (diff == 0) {
+                if (tail.weakCompareAndSetVolatile(pos, pos + 1)) {
+                    break;
+                }
+                pos = tail.get();
+            } else if (diff < 0) {
+                // 该槽位上一圈尚未被消费：队列已满
+                return false;
+            } else {
+                pos = tail.get();
+            }
+        }
+        buffer[index] = e;
+        // volatile 写与下面读 waiter 构成 StoreLoad，与消费者「登记 waiter 后复查」配对，不会漏唤醒
+        sequences.set(index, pos + 1);
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return true;
+    }
+
+    /**
+     * 一次 CAS 认领连续的一段空闲槽位并整体发布；空间不足时只放入能放下的前缀
+     */
+    @Override
+    public int offerBatch(List<? extends E> items) {
+        int size = items.size();
+        for (int i = 0; i < size; i++) {
+            if (items.get(i) == null) {
+                throw new NullPointerException();
+            }
+        }
+        if (size == 0) {
+            return 0;
+        }
+        long pos = tail.get();
+        int n;
+        for (;;) {
+            // 逐个确认槽位空闲：DROP_OLDEST 时多个读取方释放槽位的顺序不保证与序号一致
+            n = 0;
+            while (n < size && n <= mask && sequences.getAcquire((int) ((pos + n) & mask)) == pos + n) {
+                n++;
+            }
+            if (n == 0) {
+                if (sequences.getAcquire((int) (pos & mask)) < pos) {
+                    return 0;
+                }
+                pos = tail.get();
+                continue;
+            }
+            if (tail.compareAndSet(pos, pos + n)) {
+                break;
+            }
+            pos = tail.get();
+        }
+        for (int i = 0; i < n; i++) {
+            buffer[(int) ((pos + i) & mask)] = items.get(i);
+        }
+        for (int i = 0; i < n; i++) {
+            sequences.set((int) ((pos + i) & mask), pos + i + 1);
+        }
+        Thread w = waiter;
+        if (w != null) {
+            LockSupport.unpark(w);
+        }
+        return n;
+    }
+
+    @Override
+    @SuppressWarnings("unchecked")
+    public E poll() {
+        long pos = head.get();
+        for (;;) {
+            int index = (int) (pos & mask);
+            // volatile 读：与 poll(timeout) 中登记 waiter 的写入配对
+            long diff = sequences.get(index) - (pos + 1);
+            if (diff == 0) {
+                if (head.compareAndSet(pos, pos + 1)) {
+                    E e = (E) buffer[index];
+                    buffer[index] = null;
+                    sequences.setRelease(index, pos + mask + 1);
+                    return e;
+                }
+                pos = head.get();
+            } else if (diff < 0) {
+                return null;
+            } else {
+                pos = head.get();
+            }
+        }
+    }
+
+    @Override
+    public E poll(long timeout, TimeUnit unit) throws InterruptedException {
+        E e = poll();
+        if (e != null) {
+            return e;
+        }
+        long deadline = System.nanoTime() + unit.toNanos(timeout);
+        waiter = Thread.currentThread();
+        try {
+            for (;;) {
+                e = poll();
+                if (e != null) {
+                    return e;
+                }
+                long remaining = deadline - System.nanoTime();
+                if (remaining <= 0) {
+                    return null;
+                }
+                LockSupport.parkNanos(this, remaining);
+                if (Thread.interrupted()) {
+                    throw new InterruptedException();
+                }
+            }
+        } finally {
+            waiter = null;
+        }
+    }
+
+    @Override
+    public int drainTo(Collection<? super E> target, int maxElements) {
+        int n = 0;
+        while (n < maxElements) {
+            E e = poll();
+            if (e == null) {
+                break;
+            }
+            target.add(e);
+            n++;
+        }
+        return n;
+    }
+
+    @Override
+    public int size() {
+        long h = head.get();
+        long size = tail.get() - h;
+        return (int) Math.max(0, Math.min(size, mask + 1L));
+    }
+
+    @Override
+    public int capacity() {
+        return mask + 1;
+    }
+}
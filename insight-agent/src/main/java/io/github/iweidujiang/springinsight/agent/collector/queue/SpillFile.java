@@ -0,0 +1,254 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+import com.fasterxml.jackson.databind.DeserializationFeature;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.OutputStream;
+import java.nio.charset.StandardCharsets;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
+import java.util.function.Consumer;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 上报队列溢写文件（SPILL_TO_DISK 策略）
+ * │    业务线程只把放不进队列的 Span 投入有界环形缓冲（满即丢弃，不等待、不做 I/O）；
+ * │    专用写线程负责序列化并以 NDJSON 追加写入（带缓冲，不 fsync）；
+ * │    上报线程在队列回落后整体切换文件并读回补报，读完即删除
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ * <p>
+ * 每行首字节为类型标记（S = TraceSpan），其后为 JSON；JVM 指标走独立队列，满时淘汰最旧，不溢写。
+ * 文件锁只在写线程与补报线程之间竞争；写线程在锁外完成序列化，超出容量上限的数据计入 {@link #dropped()}。
+ * 进程异常退出后残留的文件在下次启动时一并补报。
+ */
+@Slf4j
+public class SpillFile {
+
+    private static final byte SPAN = 'S';
+    private static final int QUEUE_CAPACITY = 4096;
+    private static final int WRITE_BATCH = 256;
+    private static final long WRITER_POLL_MS = 200;
+
+    private final Path path;
+    private final Path replayPath;
+    private final long maxBytes;
+    private final ObjectMapper mapper = new ObjectMapper()
+            .disable(DeserializationFeature.FAIL_ON_UNKNOWN_PROPERTIES);
+
+    /** 业务线程多写、写线程单读 */
+    private final ReporterQueue<TraceSpan> queue = new RingReporterQueue<>(QUEUE_CAPACITY);
+    private final LongAdder dropped = new LongAdder();
+    private final Thread writer;
+    private volatile boolean closed;
+
+    // 以下由 this 保护，只在写线程与补报 / 关闭之间竞争
+    private OutputStream out;
+    private long bytes;
+    private volatile boolean pending;
+
+    public SpillFile(Path dir, long maxBytes) throws IOException {
+        Files.createDirectories(dir);
+        this.path = dir.resolve("spill.ndjson");
+        this.replayPath = dir.resolve("spill.replay.ndjson");
+        this.maxBytes = maxBytes;
+        this.bytes = Files.exists(path) ? Files.size(path) : 0L;
+        this.pending = bytes > 0 || Files.exists(replayPath);
+        this.writer = new Thread(this::writeLoop, "spring-insight-spill-writer");
+        writer.setDaemon(true);
+        writer.start();
+    }
+
+    /**
+     * 把一条溢出的 Span 交给写线程，非阻塞；写缓冲已满或已关闭时返回 {@code false}。
+     * 写线程稍后因超出容量上限或 I/O 失败丢弃的数据计入 {@link #dropped()}
+     */
+    public boolean append(TraceSpan span) {
+        if (closed || span == null) {
+            return false;
+        }
+        return queue.offer(span);
+    }
+
+    /**
+     * 已交给写线程、但因超出容量上限或写入失败而丢弃的条数
+     */
+    public long dropped() {
+        return dropped.sum();
+    }
+
+    private void writeLoop() {
+        List<TraceSpan> batch = new ArrayList<>(WRITE_BATCH);
+        while (!closed) {
+            try {
+                TraceSpan first = queue.poll(WRITER_POLL_MS, TimeUnit.MILLISECONDS);
+                if (first == null) {
+                    continue;
+                }
+                batch.add(first);
+                queue.drainTo(batch, WRITE_BATCH - 1);
+                write(batch);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+                break;
+            } catch (Exception e) {
+                log.warn("[溢写文件] 写线程异常: path={}", path, e);
+            } finally {
+                batch.clear();
+            }
+        }
+    }
+
+    /**
+     * 锁外序列化，持锁只做缓冲写入
+     */
+    private void write(List<TraceSpan> batch) {
+        List<byte[]> lines = new ArrayList<>(batch.size());
+        for (TraceSpan span : batch) {
+            try {
+                byte[] json = mapper.writeValueAsBytes(span);
+                byte[] line = new byte[json.length + 2];
+                line[0] = SPAN;
+                System.arraycopy(json, 0, line, 1, json.length);
+                line[line.length - 1] = '\n';
+                lines.add(line);
+            } catch (IOException e) {
+                dropped.increment();
+                log.debug("[溢写文件] 序列化失败，已丢弃: {}", e.getMessage());
+            }
+        }
+        // 已有结果（写入成功或因超出上限已计入丢弃）的行数，I/O 失败时只把其余的行计为丢弃
+        int handled = 0;
+        synchronized (this) {
+            try {
+                for (byte[] line : lines) {
+                    if (bytes + line.length > maxBytes) {
+                        dropped.increment();
+                        handled++;
+                        continue;
+                    }
+                    if (out == null) {
+                        out = new BufferedOutputStream(Files.newOutputStream(path,
+                                StandardOpenOption.CREATE, StandardOpenOption.APPEND), 64 * 1024);
+                    }
+                    out.write(line);
+                    bytes += line.length;
+                    pending = true;
+                    handled++;
+                }
+            } catch (IOException e) {
+                long lost = lines.size() - handled;
+                dropped.add(lost);
+                log.warn("[溢写文件] 写入失败，丢弃 {} 条: path={}, error={}", lost, path, e.getMessage());
+            }
+        }
+    }
+
+    /**
+     * 是否有待补报的数据
+     */
+    public boolean hasPending() {
+        return pending;
+    }
+
+    /**
+     * 当前溢写文件大小（字节，含缓冲中未落盘部分）
+     */
+    public synchronized long bytes() {
+        return bytes;
+    }
+
+    /**
+     * 切换当前文件并按写入顺序读回全部溢出数据，读完删除；返回读回条数。仅由上报线程调用
+     */
+    public int replay(Consumer<TraceSpan> action) {
+        int n = 0;
+        try {
+            // 上次补报中断（或进程退出）时残留的文件先补报
+            if (Files.exists(replayPath)) {
+                n += read(replayPath, action);
+            }
+            synchronized (this) {
+                if (out != null) {
+                    out.close();
+                    out = null;
+                }
+                if (Files.exists(path)) {
+                    Files.move(path, replayPath, StandardCopyOption.REPLACE_EXISTING);
+                }
+                bytes = 0;
+                pending = false;
+            }
+            if (Files.exists(replayPath)) {
+                n += read(replayPath, action);
+            }
+        } catch (IOException e) {
+            log.warn("[溢写文件] 补报失败: path={}, error={}", replayPath, e.getMessage());
+        }
+        return n;
+    }
+
+    private int read(Path file, Consumer<TraceSpan> action) throws IOException {
+        int n = 0;
+        try (BufferedReader reader = Files.newBufferedReader(file, StandardCharsets.UTF_8)) {
+            String line;
+            while ((line = reader.readLine()) != null) {
+                if (line.length() < 2 || line.charAt(0) != SPAN) {
+                    continue;
+                }
+                try {
+                    action.accept(mapper.readValue(line.substring(1), TraceSpan.class));
+                    n++;
+                } catch (IOException e) {
+                    // 进程退出时最后一行可能只写了一半
+                    log.debug("[溢写文件] 跳过无法解析的行: {}", e.getMessage());
+                }
+            }
+        }
+        Files.deleteIfExists(file);
+        return n;
+    }
+
+    /**
+     * 停止写线程并写完缓冲中剩余的数据，关闭写入流（保留文件，下次启动时或随后的 {@link #replay} 补报）
+     */
+    public void close() {
+        closed = true;
+        try {
+            writer.join(WRITER_POLL_MS * 10);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+        List<TraceSpan> rest = new ArrayList<>();
+        queue.drainTo(rest, Integer.MAX_VALUE);
+        if (!rest.isEmpty()) {
+            write(rest);
+        }
+        synchronized (this) {
+            if (out != null) {
+                try {
+                    out.close();
+                } catch (IOException e) {
+                    log.warn("[溢写文件] 关闭失败: path={}, error={}", path, e.getMessage());
+                }
+                out = null;
+            }
+        }
+    }
+}
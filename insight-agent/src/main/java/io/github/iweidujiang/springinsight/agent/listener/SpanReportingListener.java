@@ -5,15 +5,25 @@ import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
 import jakarta.annotation.PostConstruct;
 import jakarta.annotation.PreDestroy;
 import lombok.Data;
-import lombok.RequiredArgsConstructor;
 import lombok.extern.slf4j.Slf4j;
 
-import java.util.concurrent.atomic.AtomicLong;
+import java.lang.ref.WeakReference;
+import java.util.ArrayList;
+import java.util.Iterator;
+import java.util.List;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.LongAdder;
 
 /**
  * ┌───────────────────────────────────────────────
  * │ 📦 Span 报告监听器
  * |    负责监听Span完成事件并触发上报，同时管理上报器的生命周期
+ * |    平台线程先把 Span 攒在线程私有缓冲里，满一段后一次性交给上报器；
+ * |    后台线程按时限冲刷久未写满的缓冲，Span 最多延迟约 1.5 × maxDelayMs
  * │
  * │ 👤 作者：苏渡苇
  * │ 🔗 公众号：苏渡苇
@@ -21,26 +31,65 @@ import java.util.concurrent.atomic.AtomicLong;
  * │
  * | 📅 @since：2026/1/9
  * └───────────────────────────────────────────────
+ * <p>
+ * 虚拟线程数量多、生命周期短，线程私有缓冲几乎攒不满且无法取到载体线程的本地存储，因此直接逐条上报。
  */
 @Slf4j
-@RequiredArgsConstructor
 public class SpanReportingListener {
+
+    private static final int DEFAULT_BUFFER_SIZE = 32;
+    private static final long DEFAULT_MAX_DELAY_MS = 200;
+    private static final long STATS_LOG_INTERVAL_MS = 60_000;
+
     private final AsyncSpanReporter asyncSpanReporter;
+    private final int bufferSize;
+    private final long maxDelayNanos;
+
+    /** 为 null 表示关闭线程缓冲 */
+    private final ThreadLocal<SpanBuffer> buffers;
+    /** 全部线程缓冲，供后台线程按时限冲刷 */
+    private final Set<SpanBuffer> allBuffers = ConcurrentHashMap.newKeySet();
+    private final ScheduledExecutorService sweeper;
+
+    // 上报统计（按缓冲段累加，不在每条 Span 上做原子操作）
+    private final LongAdder totalReportedSpans = new LongAdder();
+    private final LongAdder totalRejectedSpans = new LongAdder();
+    private long lastStatsLogAt = System.currentTimeMillis();
 
-    // 上报统计
-    private final AtomicLong totalReportedSpans = new AtomicLong(0);
-    private final AtomicLong lastReportTime = new AtomicLong(System.currentTimeMillis());
+    public SpanReportingListener(AsyncSpanReporter asyncSpanReporter) {
+        this(asyncSpanReporter, DEFAULT_BUFFER_SIZE, DEFAULT_MAX_DELAY_MS);
+    }
+
+    /**
+     * @param bufferSize 线程缓冲攒满多少条交给上报器；不大于 1 时关闭缓冲、逐条上报
+     * @param maxDelayMs 缓冲中最旧 Span 的最长停留时间
+     */
+    public SpanReportingListener(AsyncSpanReporter asyncSpanReporter, int bufferSize, long maxDelayMs) {
+        this.asyncSpanReporter = asyncSpanReporter;
+        this.bufferSize = bufferSize;
+        this.maxDelayNanos = TimeUnit.MILLISECONDS.toNanos(Math.max(1, maxDelayMs));
+        if (bufferSize > 1) {
+            this.buffers = ThreadLocal.withInitial(this::newBuffer);
+            this.sweeper = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "spring-insight-span-buffer");
+                t.setDaemon(true);
+                return t;
+            });
+            long period = Math.max(10, maxDelayMs / 2);
+            sweeper.scheduleWithFixedDelay(this::sweep, period, period, TimeUnit.MILLISECONDS);
+        } else {
+            this.buffers = null;
+            this.sweeper = null;
+        }
+    }
 
     /**
      * 初始化监听器
      */
     @PostConstruct
     public void init() {
-        log.info("[Span监听器] 初始化完成，已连接上报器");
-
-        // 可以在这里注册各种Span完成事件的钩子
-        // 例如：注册到全局的Span完成回调机制中
-        // 目前我们通过 TraceContext 和 HttpRequestInterceptor 直接调用上报
+        log.info("[Span监听器] 初始化完成，已连接上报器: 线程缓冲={}, 最长停留={}ms",
+                buffers != null ? bufferSize : "关闭", TimeUnit.NANOSECONDS.toMillis(maxDelayNanos));
     }
 
     /**
@@ -52,33 +101,21 @@ public class SpanReportingListener {
             log.warn("[Span监听器] 尝试上报空的Span，已忽略");
             return;
         }
-        log.debug("[Span监听器] Span准备上报: spanId={}, operation={}", span.getSpanId(), span.getOperationName());
 
         if (!span.isFinished()) {
             log.warn("[Span监听器] 尝试上报未完成的Span: spanId={}，将强制结束", span.getSpanId());
             span.finish();
         }
 
-        // 异步上报Span
-        boolean success = asyncSpanReporter.report(span);
-
-        if (success) {
-            long count = totalReportedSpans.incrementAndGet();
-            long now = System.currentTimeMillis();
-            long lastTime = lastReportTime.getAndSet(now);
-
-            // 每分钟打印一次统计信息
-            if (now - lastTime > 60000) {
-                log.info("[Span监听器] 上报统计: 总上报数={}, 队列大小={}",
-                        count, asyncSpanReporter.getQueueSize());
+        if (buffers == null || Thread.currentThread().isVirtual()) {
+            if (asyncSpanReporter.report(span)) {
+                totalReportedSpans.increment();
+            } else {
+                totalRejectedSpans.increment();
             }
-
-            log.debug("[Span监听器] Span已接受上报: spanId={}, operation={}, duration={}ms",
-                    span.getSpanId(), span.getOperationName(), span.getDurationMs());
-        } else {
-            log.warn("[Span监听器] Span上报失败（可能队列已满）: spanId={}, operation={}",
-                    span.getSpanId(), span.getOperationName());
+            return;
         }
+        buffers.get().add(span);
     }
 
     /**
@@ -88,15 +125,17 @@ public class SpanReportingListener {
         if (spans == null) {
             return;
         }
-
-        int count = 0;
         for (TraceSpan span : spans) {
             reportSpan(span);
-            count++;
         }
+    }
 
-        if (count > 0) {
-            log.debug("[Span监听器] 批量上报完成: 数量={}", count);
+    /**
+     * 立即把所有线程缓冲交给上报器（关闭前调用）
+     */
+    public void flushBuffers() {
+        for (SpanBuffer buffer : allBuffers) {
+            buffer.flush();
         }
     }
 
@@ -105,7 +144,9 @@ public class SpanReportingListener {
      */
     public ReportingStats getStats() {
         ReportingStats stats = new ReportingStats();
-        stats.setTotalReportedSpans(totalReportedSpans.get());
+        stats.setTotalReportedSpans(totalReportedSpans.sum());
+        stats.setTotalRejectedSpans(totalRejectedSpans.sum());
+        stats.setThreadBuffers(allBuffers.size());
         stats.setQueueSize(asyncSpanReporter.getQueueSize());
         stats.setReporterMetrics(asyncSpanReporter.getMetrics());
         return stats;
@@ -118,6 +159,11 @@ public class SpanReportingListener {
     public void destroy() {
         log.info("[Span监听器] 正在关闭...");
 
+        if (sweeper != null) {
+            sweeper.shutdownNow();
+        }
+        flushBuffers();
+
         // 获取最终统计
         ReportingStats finalStats = getStats();
         log.info("[Span监听器] 最终上报统计: {}", finalStats);
@@ -125,19 +171,128 @@ public class SpanReportingListener {
         log.info("[Span监听器] 已关闭");
     }
 
+    private SpanBuffer newBuffer() {
+        SpanBuffer buffer = new SpanBuffer(Thread.currentThread());
+        allBuffers.add(buffer);
+        return buffer;
+    }
+
+    /**
+     * 后台冲刷：超时的缓冲交给上报器，所属线程已结束的缓冲冲刷后移除
+     */
+    private void sweep() {
+        try {
+            long now = System.nanoTime();
+            Iterator<SpanBuffer> it = allBuffers.iterator();
+            while (it.hasNext()) {
+                SpanBuffer buffer = it.next();
+                if (buffer.ownerGone()) {
+                    buffer.flush();
+                    it.remove();
+                } else {
+                    buffer.flushIfOlderThan(now - maxDelayNanos);
+                }
+            }
+
+            long nowMs = System.currentTimeMillis();
+            if (nowMs - lastStatsLogAt > STATS_LOG_INTERVAL_MS) {
+                lastStatsLogAt = nowMs;
+                log.info("[Span监听器] 上报统计: 总上报数={}, 拒绝数={}, 队列大小={}",
+                        totalReportedSpans.sum(), totalRejectedSpans.sum(), asyncSpanReporter.getQueueSize());
+            }
+        } catch (Exception e) {
+            log.error("[Span监听器] 冲刷线程缓冲失败", e);
+        }
+    }
+
+    /**
+     * 单个平台线程的 Span 缓冲；锁只在所属线程与冲刷线程之间偶发竞争，
+     * 且只用于换出列表，交给上报器（可能触发溢出策略）在锁外进行，冲刷线程不会挡住业务线程的 add
+     */
+    private final class SpanBuffer {
+        private final WeakReference<Thread> owner;
+        private List<TraceSpan> spans = new ArrayList<>(bufferSize);
+        private long firstAt;
+
+        SpanBuffer(Thread owner) {
+            this.owner = new WeakReference<>(owner);
+        }
+
+        void add(TraceSpan span) {
+            List<TraceSpan> full = null;
+            synchronized (this) {
+                if (spans.isEmpty()) {
+                    firstAt = System.nanoTime();
+                }
+                spans.add(span);
+                if (spans.size() >= bufferSize) {
+                    full = take();
+                }
+            }
+            if (full != null) {
+                report(full);
+            }
+        }
+
+        void flushIfOlderThan(long deadline) {
+            List<TraceSpan> batch = null;
+            synchronized (this) {
+                if (!spans.isEmpty() && firstAt - deadline <= 0) {
+                    batch = take();
+                }
+            }
+            if (batch != null) {
+                report(batch);
+            }
+        }
+
+        void flush() {
+            List<TraceSpan> batch;
+            synchronized (this) {
+                if (spans.isEmpty()) {
+                    return;
+                }
+                batch = take();
+            }
+            report(batch);
+        }
+
+        /**
+         * 换出当前列表（持锁调用）
+         */
+        private List<TraceSpan> take() {
+            List<TraceSpan> batch = spans;
+            spans = new ArrayList<>(bufferSize);
+            return batch;
+        }
+
+        private void report(List<TraceSpan> batch) {
+            int accepted = asyncSpanReporter.reportBatch(batch);
+            totalReportedSpans.add(accepted);
+            totalRejectedSpans.add(batch.size() - accepted);
+        }
+
+        boolean ownerGone() {
+            Thread t = owner.get();
+            return t == null || !t.isAlive();
+        }
+    }
+
     /**
      * 上报统计信息
      */
     @Data
     public static class ReportingStats {
         private long totalReportedSpans;
+        private long totalRejectedSpans;
+        private int threadBuffers;
         private int queueSize;
         private AsyncSpanReporter.ReporterMetrics reporterMetrics;
 
         @Override
         public String toString() {
-            return String.format("总上报Span数=%d, 当前队列大小=%d, 上报器状态=[%s]",
-                    totalReportedSpans, queueSize, reporterMetrics);
+            return String.format("总上报Span数=%d, 拒绝数=%d, 线程缓冲数=%d, 当前队列大小=%d, 上报器状态=[%s]",
+                    totalReportedSpans, totalRejectedSpans, threadBuffers, queueSize, reporterMetrics);
         }
     }
 }
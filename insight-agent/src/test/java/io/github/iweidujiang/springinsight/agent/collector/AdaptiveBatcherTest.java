@@ -0,0 +1,79 @@
+package io.github.iweidujiang.springinsight.agent.collector;
+
+import org.junit.jupiter.api.Test;
+
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 自适应批量测试：积压时放大、空闲时缩短等待、Sink 变慢时缩小批量，且不越过配置边界
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+class AdaptiveBatcherTest {
+
+    private static final long FAST = TimeUnit.MILLISECONDS.toNanos(1);
+    private static final long SLOW = TimeUnit.MILLISECONDS.toNanos(500);
+
+    private final AdaptiveBatcher batcher = new AdaptiveBatcher(
+            new AsyncSpanReporter.ChannelOptions(50, 400, 0, 100, 200, 5000));
+
+    @Test
+    void startsAtLowerBounds() {
+        assertEquals(50, batcher.batchSize());
+        assertEquals(0, batcher.lingerMs());
+    }
+
+    @Test
+    void fullBatchesGrowUpToMax() {
+        for (int i = 0; i < 10; i++) {
+            batcher.onBatch(batcher.batchSize(), FAST);
+        }
+        assertEquals(400, batcher.batchSize());
+        assertEquals(100, batcher.lingerMs());
+    }
+
+    @Test
+    void idleBatchesShortenLinger() {
+        for (int i = 0; i < 10; i++) {
+            batcher.onBatch(batcher.batchSize(), FAST);
+        }
+        batcher.onBatch(1, FAST);
+        assertEquals(50, batcher.lingerMs());
+        for (int i = 0; i < 10; i++) {
+            batcher.onBatch(1, FAST);
+        }
+        assertEquals(0, batcher.lingerMs());
+        assertEquals(400, batcher.batchSize(), "空闲只缩短等待，批量上限保留以应对下一波积压");
+    }
+
+    @Test
+    void slowSinkHalvesBatchDownToMin() {
+        for (int i = 0; i < 10; i++) {
+            batcher.onBatch(batcher.batchSize(), FAST);
+        }
+        batcher.onBatch(400, SLOW);
+        assertEquals(200, batcher.batchSize());
+        for (int i = 0; i < 10; i++) {
+            batcher.onBatch(batcher.batchSize(), SLOW);
+        }
+        assertEquals(50, batcher.batchSize());
+    }
+
+    @Test
+    void fixedChannelNeverChanges() {
+        AdaptiveBatcher fixed = new AdaptiveBatcher(AsyncSpanReporter.ChannelOptions.fixed(50, 1000));
+        fixed.onBatch(50, SLOW);
+        fixed.onBatch(50, FAST);
+        fixed.onBatch(1, FAST);
+        assertEquals(50, fixed.batchSize());
+        assertEquals(0, fixed.lingerMs());
+    }
+}
@@ -0,0 +1,230 @@
+package io.github.iweidujiang.springinsight.agent.collector;
+
+import io.github.iweidujiang.springinsight.agent.collector.queue.OverflowPolicy;
+import io.github.iweidujiang.springinsight.agent.collector.queue.RingReporterQueue;
+import io.github.iweidujiang.springinsight.agent.collector.queue.SpillFile;
+import io.github.iweidujiang.springinsight.agent.model.JvmMetric;
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.agent.sink.InsightBatchSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.nio.file.Path;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTimeoutPreemptively;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 异步上报器溢出策略测试：Sink 卡住、队列写满后各策略的取舍与计数，以及指标通道不受 Span 积压影响
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+class AsyncSpanReporterTest {
+
+    private static final int CAPACITY = 4;
+    /** 判定「不等待」的宽松上限，只用于发现卡死，不衡量耗时 */
+    private static final Duration NO_WAIT = Duration.ofSeconds(5);
+
+    private final StallingSink sink = new StallingSink();
+    private AsyncSpanReporter reporter;
+
+    @AfterEach
+    void tearDown() {
+        sink.release();
+        if (reporter != null) {
+            reporter.stop();
+        }
+    }
+
+    @Test
+    void dropNewestRejectsImmediately() throws InterruptedException {
+        reporter = stalledReporter(OverflowPolicy.DROP_NEWEST, 1.0, 1.0, null);
+
+        // Sink 一直卡住，队列满时若等待则不会返回
+        int accepted = assertTimeoutPreemptively(NO_WAIT, () -> reportSpans(1, 10), "队列满时不应等待");
+
+        assertEquals(CAPACITY, accepted);
+        assertEquals(6, reporter.getMetrics().getDroppedNewest());
+        assertEquals(6, reporter.getMetrics().getTotalDropped());
+    }
+
+    @Test
+    void dropOldestKeepsNewestSpans() throws InterruptedException {
+        reporter = stalledReporter(OverflowPolicy.DROP_OLDEST, 1.0, 1.0, null);
+
+        assertEquals(10, reportSpans(1, 10));
+        assertEquals(6, reporter.getMetrics().getDroppedOldest());
+
+        sink.release();
+        assertTrue(sink.awaitSpans(1 + CAPACITY));
+        assertEquals(List.of("span-0", "span-7", "span-8", "span-9", "span-10"), sink.spanIds());
+    }
+
+    @Test
+    void sampleDropsWholeTracesAboveThreshold() throws InterruptedException {
+        reporter = stalledReporter(OverflowPolicy.SAMPLE, 0.5, 0.0, null);
+
+        int accepted = reportSpans(1, 10);
+        assertEquals(CAPACITY / 2, accepted);
+        assertEquals(10 - CAPACITY / 2, reporter.getMetrics().getSampledOut());
+        assertEquals(0, reporter.getMetrics().getDroppedNewest());
+    }
+
+    @Test
+    void jvmMetricsBypassStalledSpanChannel() throws InterruptedException {
+        reporter = stalledReporter(OverflowPolicy.DROP_NEWEST, 1.0, 1.0, null);
+
+        reportSpans(1, 10);
+        assertEquals(CAPACITY, reporter.getQueueSize());
+        assertTrue(reporter.report(new JvmMetric()), "Span 队列已满时指标仍应入队");
+        assertTrue(sink.awaitMetrics(1), "Span 上报卡住时指标应照常交付");
+        assertEquals(0, reporter.getMetrics().getMetricsDropped());
+    }
+
+    @Test
+    void spillToDiskReplaysOverflowOnceDrained(@TempDir Path dir) throws Exception {
+        SpillFile spillFile = new SpillFile(dir, 1 << 20);
+        reporter = stalledReporter(OverflowPolicy.SPILL_TO_DISK, 1.0, 1.0, spillFile);
+
+        assertEquals(10, assertTimeoutPreemptively(NO_WAIT, () -> reportSpans(1, 10), "溢写不应阻塞业务线程"));
+        assertTrue(reporter.report(new JvmMetric()));
+        assertEquals(6, reporter.getMetrics().getSpilled(), "指标走独立通道，不应溢写");
+
+        // 等溢写线程落盘后再放行，否则补报要等到下一次空闲唤醒
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (!spillFile.hasPending() && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        sink.release();
+        assertTrue(sink.awaitSpans(11));
+        assertEquals(11, sink.spanIds().size());
+        deadline = System.currentTimeMillis() + 5_000;
+        while (reporter.getMetrics().getSpillReplayed() < 6 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(6, reporter.getMetrics().getSpillReplayed());
+        assertEquals(1, sink.metricCount());
+    }
+
+    @Test
+    void spillStopsAtSizeLimit(@TempDir Path dir) throws Exception {
+        reporter = stalledReporter(OverflowPolicy.SPILL_TO_DISK, 1.0, 1.0, new SpillFile(dir, 600));
+
+        // 业务线程只投递给溢写线程，超出上限的部分由写线程丢弃并计入 droppedNewest
+        assertEquals(10, reportSpans(1, 10));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (reporter.getMetrics().getDroppedNewest() == 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        long spilled = reporter.getMetrics().getSpilled();
+        assertTrue(spilled > 0 && spilled < 6, "溢写应在达到上限后停止: " + spilled);
+        assertEquals(6 - spilled, reporter.getMetrics().getDroppedNewest());
+    }
+
+    /**
+     * 启动上报器并让首个 Span 卡在 Sink 中，之后的数据只能堆在队列里
+     */
+    private AsyncSpanReporter stalledReporter(OverflowPolicy policy, double sampleThreshold, double sampleKeepRatio,
+                                              SpillFile spillFile) throws InterruptedException {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("sink", sink));
+        AsyncSpanReporter r = new AsyncSpanReporter("test-service", "localhost:8080",
+                beans.getBeanProvider(InsightBatchSink.class), new RingReporterQueue<>(CAPACITY),
+                policy, sampleThreshold, sampleKeepRatio, spillFile);
+        r.start();
+        assertTrue(r.report(span(0)));
+        assertTrue(sink.stalled.await(5, TimeUnit.SECONDS), "Sink 未被调用");
+        return r;
+    }
+
+    private int reportSpans(int from, int count) {
+        int accepted = 0;
+        for (int i = from; i < from + count; i++) {
+            if (reporter.report(span(i))) {
+                accepted++;
+            }
+        }
+        return accepted;
+    }
+
+    private static TraceSpan span(int i) {
+        TraceSpan span = new TraceSpan();
+        span.setTraceId("trace-" + i);
+        span.setSpanId("span-" + i);
+        span.setOperationName("GET /" + i);
+        span.finish();
+        return span;
+    }
+
+    /**
+     * 首次调用阻塞到 release()，记录收到的全部数据
+     */
+    private static class StallingSink implements InsightBatchSink {
+        final CountDownLatch stalled = new CountDownLatch(1);
+        private final CountDownLatch gate = new CountDownLatch(1);
+        private final List<String> spanIds = new ArrayList<>();
+        private int metrics;
+
+        @Override
+        public void acceptTraceSpans(List<TraceSpan> spans) {
+            stalled.countDown();
+            try {
+                gate.await(10, TimeUnit.SECONDS);
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            synchronized (this) {
+                spans.forEach(s -> spanIds.add(s.getSpanId()));
+                notifyAll();
+            }
+        }
+
+        @Override
+        public synchronized void acceptJvmMetrics(List<JvmMetric> batch) {
+            metrics += batch.size();
+            notifyAll();
+        }
+
+        void release() {
+            gate.countDown();
+        }
+
+        synchronized boolean awaitSpans(int n) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 10_000;
+            while (spanIds.size() < n && System.currentTimeMillis() < deadline) {
+                wait(100);
+            }
+            return spanIds.size() >= n;
+        }
+
+        synchronized boolean awaitMetrics(int n) throws InterruptedException {
+            long deadline = System.currentTimeMillis() + 5_000;
+            while (metrics < n && System.currentTimeMillis() < deadline) {
+                wait(50);
+            }
+            return metrics >= n;
+        }
+
+        synchronized List<String> spanIds() {
+            return new ArrayList<>(spanIds);
+        }
+
+        synchronized int metricCount() {
+            return metrics;
+        }
+    }
+}
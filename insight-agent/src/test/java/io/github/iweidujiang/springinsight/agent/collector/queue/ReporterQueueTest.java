@@ -0,0 +1,218 @@
+package io.github.iweidujiang.springinsight.agent.collector.queue;
+
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.CountDownLatch;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.function.Supplier;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertFalse;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 上报队列正确性测试与多生产者吞吐基准（基准默认跳过）
+ * │    运行基准：mvn -pl insight-agent test -Dtest=ReporterQueueTest -Dinsight.benchmark=true
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+@Slf4j
+class ReporterQueueTest {
+
+    @Test
+    void ringRejectsWhenFullAndWrapsAround() throws InterruptedException {
+        RingReporterQueue<Integer> queue = new RingReporterQueue<>(3);
+        assertEquals(4, queue.capacity());
+        for (int i = 0; i < 4; i++) {
+            assertTrue(queue.offer(i));
+        }
+        assertFalse(queue.offer(4), "已满时应立即拒绝");
+        assertEquals(4, queue.size());
+
+        List<Integer> drained = new ArrayList<>();
+        assertEquals(2, queue.drainTo(drained, 2));
+        assertEquals(List.of(0, 1), drained);
+        assertTrue(queue.offer(4));
+        assertTrue(queue.offer(5));
+        drained.clear();
+        queue.drainTo(drained, Integer.MAX_VALUE);
+        assertEquals(List.of(2, 3, 4, 5), drained);
+        assertNull(queue.poll(10, TimeUnit.MILLISECONDS));
+    }
+
+    @Test
+    void ringOfferBatchClaimsContiguousPrefix() {
+        RingReporterQueue<Integer> queue = new RingReporterQueue<>(8);
+        assertEquals(5, queue.offerBatch(List.of(0, 1, 2, 3, 4)));
+        assertEquals(3, queue.offerBatch(List.of(5, 6, 7, 8, 9)), "空间不足时只放入前缀");
+        assertEquals(0, queue.offerBatch(List.of(10)));
+
+        List<Integer> drained = new ArrayList<>();
+        queue.drainTo(drained, 3);
+        assertEquals(3, queue.offerBatch(List.of(8, 9, 10)));
+        queue.drainTo(drained, Integer.MAX_VALUE);
+        assertEquals(List.of(0, 1, 2, 3, 4, 5, 6, 7, 8, 9, 10), drained);
+    }
+
+    @Test
+    void ringDeliversEveryAcceptedElementOnceInProducerOrder() throws InterruptedException {
+        int producers = 8;
+        int perProducer = 50_000;
+        RingReporterQueue<long[]> queue = new RingReporterQueue<>(1024);
+        long[] lastSeen = new long[producers];
+        Arrays.fill(lastSeen, -1);
+        AtomicLong accepted = new AtomicLong();
+        CountDownLatch done = new CountDownLatch(producers);
+
+        for (int p = 0; p < producers; p++) {
+            int producer = p;
+            Thread t = new Thread(() -> {
+                if (producer % 2 == 0) {
+                    for (long i = 0; i < perProducer; i++) {
+                        if (queue.offer(new long[]{producer, i})) {
+                            accepted.incrementAndGet();
+                        }
+                    }
+                } else {
+                    // 奇数生产者按段发布，段内放不下的部分直接丢弃
+                    List<long[]> chunk = new ArrayList<>(16);
+                    for (long i = 0; i < perProducer; i++) {
+                        chunk.add(new long[]{producer, i});
+                        if (chunk.size() == 16) {
+                            accepted.addAndGet(queue.offerBatch(chunk));
+                            chunk.clear();
+                        }
+                    }
+                    accepted.addAndGet(queue.offerBatch(chunk));
+                }
+                done.countDown();
+            });
+            t.start();
+        }
+
+        long consumed = 0;
+        while (done.getCount() > 0 || !queue.isEmpty()) {
+            long[] e = queue.poll(10, TimeUnit.MILLISECONDS);
+            if (e == null) {
+                continue;
+            }
+            int producer = (int) e[0];
+            assertTrue(e[1] > lastSeen[producer], "同一生产者的元素应保持入队顺序");
+            lastSeen[producer] = e[1];
+            consumed++;
+        }
+        assertEquals(accepted.get(), consumed, "接受的元素应恰好被消费一次");
+        assertTrue(consumed > 0);
+    }
+
+    /**
+     * 8 / 32 / 128 个生产者并发入队、单消费者持续取出：对比入队吞吐、实际送达吞吐与丢弃数。
+     * BLOCKING(0) 为不等待的 LinkedBlockingQueue，用于单看数据结构本身的开销；RING batch(32) 为线程缓冲按段发布。
+     * 仓库未引入 JMH，此处为带预热的普通计时基准，数字仅用于同机横向比较
+     */
+    @Test
+    @EnabledIfSystemProperty(named = "insight.benchmark", matches = "true")
+    void multiProducerThroughput() throws InterruptedException {
+        int totalOps = 4_000_000;
+        int capacity = 10_000;
+        for (int producers : new int[]{8, 32, 128}) {
+            Map<String, Supplier<ReporterQueue<Object>>> variants = new LinkedHashMap<>();
+            variants.put("RING", () -> new RingReporterQueue<>(capacity));
+            variants.put("RING batch(32)", () -> new RingReporterQueue<>(capacity));
+            variants.put("BLOCKING(0)", () -> new BlockingReporterQueue<>(capacity, 0));
+            variants.put("BLOCKING(100ms)", () -> new BlockingReporterQueue<>(capacity, 100));
+            for (Map.Entry<String, Supplier<ReporterQueue<Object>>> variant : variants.entrySet()) {
+                // 预热
+                int chunk = variant.getKey().startsWith("RING batch") ? 32 : 1;
+                run(variant.getValue(), producers, totalOps / 4, chunk);
+                Result r = run(variant.getValue(), producers, totalOps, chunk);
+                log.info("[基准] {} 个生产者 {}: 入队 {} ops/ms，送达 {} ops/ms，丢弃 {}",
+                        producers, variant.getKey(), r.offersPerMs(), r.deliveredPerMs(), r.dropped());
+            }
+        }
+    }
+
+    private static Result run(Supplier<ReporterQueue<Object>> factory, int producers, int totalOps, int chunk)
+            throws InterruptedException {
+        ReporterQueue<Object> queue = factory.get();
+        int perProducer = totalOps / producers;
+        Object item = new Object();
+        AtomicLong dropped = new AtomicLong();
+        AtomicLong delivered = new AtomicLong();
+        AtomicBoolean stop = new AtomicBoolean(false);
+        CountDownLatch start = new CountDownLatch(1);
+        CountDownLatch done = new CountDownLatch(producers);
+
+        Thread consumer = new Thread(() -> {
+            List<Object> batch = new ArrayList<>(200);
+            long n = 0;
+            while (!stop.get() || !queue.isEmpty()) {
+                try {
+                    Object first = queue.poll(5, TimeUnit.MILLISECONDS);
+                    if (first != null) {
+                        n += 1 + queue.drainTo(batch, 199);
+                        batch.clear();
+                    }
+                } catch (InterruptedException e) {
+                    break;
+                }
+            }
+            delivered.set(n);
+        });
+        consumer.start();
+        for (int p = 0; p < producers; p++) {
+            Thread t = new Thread(() -> {
+                try {
+                    start.await();
+                } catch (InterruptedException e) {
+                    return;
+                }
+                long local = 0;
+                if (chunk > 1) {
+                    List<Object> items = Collections.nCopies(chunk, item);
+                    for (int i = 0; i < perProducer; i += chunk) {
+                        local += chunk - queue.offerBatch(items);
+                    }
+                } else {
+                    for (int i = 0; i < perProducer; i++) {
+                        if (!queue.offer(item)) {
+                            local++;
+                        }
+                    }
+                }
+                dropped.addAndGet(local);
+                done.countDown();
+            });
+            t.start();
+        }
+
+        long begin = System.nanoTime();
+        start.countDown();
+        done.await();
+        long elapsed = Math.max(1, System.nanoTime() - begin);
+        stop.set(true);
+        consumer.join();
+        long offers = (long) perProducer * producers;
+        return new Result(offers * 1_000_000L / elapsed, delivered.get() * 1_000_000L / elapsed, dropped.get());
+    }
+
+    private record Result(long offersPerMs, long deliveredPerMs, long dropped) {
+    }
+}
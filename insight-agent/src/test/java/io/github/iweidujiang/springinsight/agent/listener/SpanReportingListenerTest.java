@@ -0,0 +1,135 @@
+package io.github.iweidujiang.springinsight.agent.listener;
+
+import io.github.iweidujiang.springinsight.agent.collector.AsyncSpanReporter;
+import io.github.iweidujiang.springinsight.agent.model.JvmMetric;
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.agent.sink.InsightBatchSink;
+import org.junit.jupiter.api.AfterEach;
+import org.junit.jupiter.api.BeforeEach;
+import org.junit.jupiter.api.Test;
+import org.springframework.beans.factory.support.StaticListableBeanFactory;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.TimeUnit;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ┌───────────────────────────────────────────────
+ * │ 📦 Span 监听器线程缓冲测试：攒满整段交付、超时冲刷、虚拟线程直接上报
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────
+ */
+class SpanReportingListenerTest {
+
+    private final CollectingSink sink = new CollectingSink();
+    private AsyncSpanReporter reporter;
+    private SpanReportingListener listener;
+
+    @BeforeEach
+    void setUp() {
+        StaticListableBeanFactory beans = new StaticListableBeanFactory(Map.of("sink", sink));
+        reporter = new AsyncSpanReporter("test-service", "localhost:8080", beans.getBeanProvider(InsightBatchSink.class));
+        reporter.start();
+    }
+
+    @AfterEach
+    void tearDown() {
+        if (listener != null) {
+            listener.destroy();
+        }
+        reporter.stop();
+    }
+
+    @Test
+    void platformThreadBuffersUntilChunkIsFull() throws InterruptedException {
+        listener = new SpanReportingListener(reporter, 8, 60_000);
+
+        for (int i = 0; i < 7; i++) {
+            listener.reportSpan(span(i));
+        }
+        Thread.sleep(100);
+        assertEquals(0, reporter.getMetrics().getTotalReceived(), "未攒满时不应交给上报器");
+
+        listener.reportSpan(span(7));
+        assertEquals(8, reporter.getMetrics().getTotalReceived());
+        assertTrue(sink.await(8));
+        assertEquals(8, listener.getStats().getTotalReportedSpans());
+    }
+
+    @Test
+    void idleBufferIsFlushedAfterMaxDelay() {
+        listener = new SpanReportingListener(reporter, 64, 50);
+
+        listener.reportSpan(span(0));
+        listener.reportSpan(span(1));
+        assertTrue(sink.await(2), "超时后缓冲应被后台冲刷");
+    }
+
+    @Test
+    void bufferOfFinishedThreadIsNotLost() throws InterruptedException {
+        listener = new SpanReportingListener(reporter, 64, 50);
+
+        Thread worker = new Thread(() -> listener.reportSpan(span(0)));
+        worker.start();
+        worker.join();
+
+        // 不主动冲刷：由后台线程发现所属线程已结束，冲刷并移除其缓冲
+        assertTrue(sink.await(1));
+        long deadline = System.currentTimeMillis() + 5_000;
+        while (listener.getStats().getThreadBuffers() > 0 && System.currentTimeMillis() < deadline) {
+            Thread.sleep(10);
+        }
+        assertEquals(0, listener.getStats().getThreadBuffers(), "已结束线程的缓冲应被移除");
+    }
+
+    @Test
+    void virtualThreadReportsDirectly() throws InterruptedException {
+        listener = new SpanReportingListener(reporter, 64, 60_000);
+
+        Thread.ofVirtual().start(() -> listener.reportSpan(span(0))).join();
+        assertEquals(1, reporter.getMetrics().getTotalReceived());
+        assertTrue(sink.await(1));
+    }
+
+    private static TraceSpan span(int i) {
+        TraceSpan span = new TraceSpan();
+        span.setSpanId("span-" + i);
+        span.finish();
+        return span;
+    }
+
+    private static class CollectingSink implements InsightBatchSink {
+        private final List<TraceSpan> spans = new ArrayList<>();
+
+        @Override
+        public synchronized void acceptTraceSpans(List<TraceSpan> batch) {
+            spans.addAll(batch);
+            notifyAll();
+        }
+
+        @Override
+        public void acceptJvmMetrics(List<JvmMetric> metrics) {
+        }
+
+        synchronized boolean await(int n) {
+            long deadline = System.nanoTime() + TimeUnit.SECONDS.toNanos(5);
+            try {
+                while (spans.size() < n && System.nanoTime() < deadline) {
+                    wait(50);
+                }
+            } catch (InterruptedException e) {
+                Thread.currentThread().interrupt();
+            }
+            return spans.size() >= n;
+        }
+    }
+}
@@ -1,14 +1,24 @@
 package io.github.iweidujiang.springinsight.collector.controller;
 
+import com.fasterxml.jackson.core.JsonGenerator;
+import com.fasterxml.jackson.databind.ObjectMapper;
+import com.fasterxml.jackson.databind.ObjectWriter;
+import com.fasterxml.jackson.databind.SerializationFeature;
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
 import io.github.iweidujiang.springinsight.collector.service.TraceSpanCollectorService;
 import io.github.iweidujiang.springinsight.storage.service.TraceSpanPersistenceService;
 import lombok.extern.slf4j.Slf4j;
+import org.springframework.http.MediaType;
 import org.springframework.http.ResponseEntity;
 import org.springframework.web.bind.annotation.*;
+import org.springframework.web.servlet.mvc.method.annotation.StreamingResponseBody;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.HashMap;
+import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 
@@ -28,13 +38,23 @@ import java.util.Map;
 @RequestMapping("/api/v1/ui")
 public class CollectorApiController {
 
+    private static final MediaType NDJSON = MediaType.parseMediaType("application/x-ndjson");
+    private static final String NEXT_CURSOR_HEADER = "X-Next-Cursor";
+
     private final TraceSpanPersistenceService traceSpanPersistenceService;
     private final TraceSpanCollectorService traceSpanCollectorService;
+    private final ObjectMapper objectMapper;
+    /** 逐条写出 Span，不在每条之后刷新输出流 */
+    private final ObjectWriter spanWriter;
 
     public CollectorApiController(TraceSpanPersistenceService traceSpanPersistenceService,
-                                  TraceSpanCollectorService traceSpanCollectorService) {
+                                  TraceSpanCollectorService traceSpanCollectorService,
+                                  ObjectMapper objectMapper) {
         this.traceSpanPersistenceService = traceSpanPersistenceService;
         this.traceSpanCollectorService = traceSpanCollectorService;
+        this.objectMapper = objectMapper;
+        this.spanWriter = objectMapper.writerFor(TraceSpan.class)
+                .without(SerializationFeature.FLUSH_AFTER_WRITE_VALUE);
     }
 
     /**
@@ -52,22 +72,112 @@ public class CollectorApiController {
     }
 
     /**
-     * 获取最近链路
+     * 获取最近链路（由新到旧分页）：响应头 X-Next-Cursor 为下一页游标，原样回传 cursor 参数即可续查，没有更多时不返回该头
      */
     @GetMapping("/traces/recent")
     public ResponseEntity<?> getRecentTraces(
             @RequestParam(value = "hours", defaultValue = "24") int hours,
-            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         try {
-            var traces = traceSpanPersistenceService.getRecentSpans(hours, limit);
-            return ResponseEntity.ok(traces);
+            var page = traceSpanPersistenceService.getRecentSpans(hours, limit, TraceSpanPersistenceService.Cursor.decode(cursor));
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("获取最近链路失败", e);
             return ResponseEntity.internalServerError().build();
         }
     }
 
+    /**
+     * 获取链路摘要列表（每条链路一行，由新到旧分页，游标同 /traces/recent）；serviceName 非空时只取经过该服务的链路
+     */
+    @GetMapping("/traces/summaries")
+    public ResponseEntity<?> getTraceSummaries(
+            @RequestParam(value = "hours", defaultValue = "24") int hours,
+            @RequestParam(value = "serviceName", required = false) String serviceName,
+            @RequestParam(value = "limit", defaultValue = "50") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+
+        try {
+            var page = traceSpanPersistenceService.getTraceSummaries(hours, serviceName, limit,
+                    TraceSpanPersistenceService.Cursor.decode(cursor));
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
+        } catch (Exception e) {
+            log.error("获取链路摘要失败", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 按标签筛选 Span（走标签倒排索引）：tag 形如 http.status_code:500，可重复传入取交集；
+     * 标签键须在 spring.insight.storage.indexed-tags 中配置，否则返回 400。分页游标同 /traces/recent
+     */
+    @GetMapping("/spans/search")
+    public ResponseEntity<?> searchSpans(
+            @RequestParam(value = "tag") List<String> tags,
+            @RequestParam(value = "serviceName", required = false) String serviceName,
+            @RequestParam(value = "hours", defaultValue = "24") int hours,
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
+
+        try {
+            Map<String, String> filters = new LinkedHashMap<>();
+            for (String tag : tags) {
+                int sep = tag.indexOf(':');
+                if (sep <= 0) {
+                    throw new IllegalArgumentException("标签条件须为 key:value 格式: " + tag);
+                }
+                filters.put(tag.substring(0, sep), tag.substring(sep + 1));
+            }
+            var page = traceSpanPersistenceService.findSpansByTags(filters, serviceName, hours, limit,
+                    TraceSpanPersistenceService.Cursor.decode(cursor));
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().body(Map.of("error", e.getMessage()));
+        } catch (Exception e) {
+            log.error("按标签筛选 Span 失败", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 流式导出 Span（NDJSON，每行一条）：边遍历存储边写响应，不构造完整结果列表，
+     * 导出十万条以上时单个请求的内存占用也不随条数增长。limit 为 0 时不限条数
+     */
+    @GetMapping("/spans/export")
+    public ResponseEntity<StreamingResponseBody> exportSpans(
+            @RequestParam(value = "hours", defaultValue = "24") int hours,
+            @RequestParam(value = "serviceName", required = false) String serviceName,
+            @RequestParam(value = "limit", defaultValue = "0") long limit) {
+
+        long sinceTime = Instant.now().minus(hours, ChronoUnit.HOURS).toEpochMilli();
+        StreamingResponseBody body = out -> {
+            try (JsonGenerator gen = objectMapper.getFactory().createGenerator(out)) {
+                gen.disable(JsonGenerator.Feature.AUTO_CLOSE_TARGET);
+                gen.setRootValueSeparator(null);
+                long exported = traceSpanPersistenceService.exportSpans(sinceTime, serviceName, limit, span -> {
+                    try {
+                        spanWriter.writeValue(gen, span);
+                        gen.writeRaw('\n');
+                        return true;
+                    } catch (IOException e) {
+                        throw new UncheckedIOException(e);
+                    }
+                });
+                log.debug("[UI接口] 流式导出 Span 条数={}", exported);
+            } catch (UncheckedIOException e) {
+                log.warn("[UI接口] 流式导出中断: {}", e.getCause().getMessage());
+                throw e.getCause();
+            }
+        };
+        return ResponseEntity.ok().contentType(NDJSON).body(body);
+    }
+
     /**
      * 获取服务依赖关系
      */
@@ -116,16 +226,37 @@ public class CollectorApiController {
     }
 
     /**
-     * 获取指定服务的链路
+     * 获取耗时分位数（p50 / p95 / p99）；不传 serviceName 时按服务汇总，传入时按接口汇总
+     */
+    @GetMapping("/latency")
+    public ResponseEntity<?> getLatency(
+            @RequestParam(value = "hours", defaultValue = "1") int hours,
+            @RequestParam(value = "serviceName", required = false) String serviceName) {
+
+        try {
+            var latency = traceSpanPersistenceService.getLatencyPercentiles(hours, serviceName);
+            return ResponseEntity.ok(latency);
+        } catch (Exception e) {
+            log.error("获取耗时分位数失败", e);
+            return ResponseEntity.internalServerError().build();
+        }
+    }
+
+    /**
+     * 获取指定服务的链路（由新到旧分页，游标同 /traces/recent）
      */
     @GetMapping("/services/{serviceName}/traces")
     public ResponseEntity<?> getServiceTraces(
             @PathVariable("serviceName") String serviceName,
-            @RequestParam(value = "limit", defaultValue = "100") int limit) {
+            @RequestParam(value = "limit", defaultValue = "100") int limit,
+            @RequestParam(value = "cursor", required = false) String cursor) {
 
         try {
-            var traces = traceSpanPersistenceService.getRecentSpansByService(serviceName, limit);
-            return ResponseEntity.ok(traces);
+            var page = traceSpanPersistenceService.getRecentSpansByService(serviceName, limit,
+                    TraceSpanPersistenceService.Cursor.decode(cursor));
+            return pageResponse(page);
+        } catch (IllegalArgumentException e) {
+            return ResponseEntity.badRequest().build();
         } catch (Exception e) {
             log.error("获取服务{}的链路失败", serviceName, e);
             return ResponseEntity.internalServerError().build();
@@ -148,12 +279,21 @@ public class CollectorApiController {
         return getRealtimeStatsBody();
     }
 
+    private static ResponseEntity<?> pageResponse(TraceSpanPersistenceService.Page<?> page) {
+        var response = ResponseEntity.ok();
+        if (page.next() != null) {
+            response.header(NEXT_CURSOR_HEADER, page.next().encode());
+        }
+        return response.body(page.items());
+    }
+
     private ResponseEntity<?> getRealtimeStatsBody() {
         try {
             var collectorStats = traceSpanCollectorService.getStats();
 
             Map<String, Object> result = new HashMap<>();
             result.put("collectorStats", collectorStats);
+            result.put("storageStats", traceSpanPersistenceService.getStorageStats());
             result.put("timestamp", Instant.now().toString());
 
             return ResponseEntity.ok(result);
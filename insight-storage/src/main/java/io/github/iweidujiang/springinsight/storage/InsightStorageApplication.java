@@ -40,6 +40,8 @@ public class InsightStorageApplication {
         String port = env.getProperty("server.port", "8082");
         String contextPath = env.getProperty("server.servlet.context-path", "");
         String hostAddress = InetAddress.getLocalHost().getHostAddress();
+        String logDir = env.getProperty("spring.insight.storage.log-dir", "");
+        String traceStore = logDir.isBlank() ? "in-memory (no JDBC)" : "in-memory + mmap log (" + logDir + ")";
 
         log.info("""
                 \n----------------------------------------------------------
@@ -47,16 +49,21 @@ public class InsightStorageApplication {
                 Start Time: {}ms
                 Local URL:    http://localhost:{}{}
                 External URL: http://{}:{}{}
-                Trace store:  in-memory (no JDBC)
+                Trace store:  {}
                 Profiles:     {}
                 ----------------------------------------------------------""",
                 appName,
                 stopWatch.getTotalTimeMillis(),
                 port, contextPath,
                 hostAddress, port, contextPath,
+                traceStore,
                 env.getActiveProfiles().length > 0 ? env.getActiveProfiles() : "default");
 
-        log.info("[存储模块] 链路数据为进程内内存存储，重启后清空");
+        if (logDir.isBlank()) {
+            log.info("[存储模块] 链路数据为进程内内存存储，重启后清空");
+        } else {
+            log.info("[存储模块] 链路数据为进程内内存存储，同时追加到日志目录 {}，重启后重放恢复", logDir);
+        }
     }
 
     // 简单的StopWatch替代类
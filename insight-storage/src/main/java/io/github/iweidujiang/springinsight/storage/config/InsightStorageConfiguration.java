@@ -0,0 +1,21 @@
+package io.github.iweidujiang.springinsight.storage.config;
+
+import org.springframework.boot.context.properties.EnableConfigurationProperties;
+import org.springframework.context.annotation.Configuration;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 存储模块配置：随存储包扫描注册 {@link InsightStorageProperties}
+ * │    （Starter、Collector、Storage 独立启动三种方式均生效）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ */
+@Configuration(proxyBeanMethods = false)
+@EnableConfigurationProperties(InsightStorageProperties.class)
+public class InsightStorageConfiguration {
+}
@@ -0,0 +1,93 @@
+package io.github.iweidujiang.springinsight.storage.config;
+
+import lombok.Data;
+import org.springframework.boot.context.properties.ConfigurationProperties;
+import org.springframework.util.unit.DataSize;
+
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 内存存储配置属性
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ */
+@Data
+@ConfigurationProperties(prefix = "spring.insight.storage")
+public class InsightStorageProperties {
+
+    /**
+     * 最多保留的 Span 条数（环形缓冲槽位数）；启用冷段后为热区槽位数，写满时最旧部分提前封存
+     */
+    private int maxSpans = 50_000;
+
+    /**
+     * Span 存放位置：HEAP 为堆内列式存储；OFF_HEAP 为堆外字节环，
+     * 此时 max-bytes 即堆外环大小，需不超过 -XX:MaxDirectMemorySize
+     */
+    private StoreType type = StoreType.HEAP;
+
+    /**
+     * 存储 Span 的估算占用上限（堆内估算字节数，或堆外字节环大小），超出时从最旧开始淘汰；
+     * 字符串字典的占用同样计入，堆内存储的字典最多占其中八分之一
+     */
+    private DataSize maxBytes = DataSize.ofMegabytes(128);
+
+    /**
+     * Span 保留时长（按写入时间计），超出后由后台线程整段过期；为 0 时不按时间过期
+     */
+    private Duration retention = Duration.ofHours(72);
+
+    /**
+     * 按写入时间超过该时长的 Span 封存为压缩冷段（约为热区占用的十分之一，查询时按需解压）；为 0 时不启用
+     */
+    private Duration coldAfter = Duration.ZERO;
+
+    /**
+     * 后台过期与冷段封存检查间隔
+     */
+    private Duration expiryInterval = Duration.ofSeconds(10);
+
+    /**
+     * 建立倒排索引的标签键，可按这些标签的取值筛选 Span；为空时不建标签索引
+     */
+    private List<String> indexedTags = new ArrayList<>(List.of("http.method", "http.status_code", "http.path", "db.sql_type"));
+
+    /**
+     * Span 追加日志目录（内存映射分段文件）；配置后写入同时落盘、启动时重放，为空时仅内存保留
+     */
+    private String logDir;
+
+    /**
+     * 单个日志段文件大小
+     */
+    private DataSize logSegmentSize = DataSize.ofMegabytes(64);
+
+    /**
+     * 日志刷盘（force）间隔，掉电时至多丢失该间隔内的写入；为 0 时只在滚动段与关闭时刷盘
+     */
+    private Duration logFlushInterval = Duration.ofSeconds(1);
+
+    /**
+     * 快照文件路径；配置后后台定期（及关闭时）把 Span 与预聚合写成二进制快照，启动时流式载入。
+     * 同时配置 log-dir 时以日志重放为准，不载入快照
+     */
+    private String snapshotPath;
+
+    /**
+     * 后台快照间隔；为 0 时只在关闭时写快照
+     */
+    private Duration snapshotInterval = Duration.ofMinutes(5);
+
+    public enum StoreType {
+        HEAP,
+        OFF_HEAP
+    }
+}
@@ -0,0 +1,180 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import java.util.Arrays;
+import java.util.function.LongPredicate;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 Span 序号的先进先出队列（基本类型 long，按需扩容，单写多读）
+ * │    二级索引用它记录某个 key 下的 Span 序号：写入时尾部追加，
+ * │    淘汰总是从最旧的 Span 开始，因此只需从头部弹出
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 写入方（add / removeFirstIf）须由调用方保证唯一；读取方无锁、弱一致：
+ * 先读 tail 再读数组，扩容时元素保持逻辑位置不变，读到的数组至少包含 tail 之前的全部元素。
+ * 并发弹出后旧位置可能被新元素覆盖，因此读取方只接受严格递减（或递增）的序号，
+ * 并需以存储层的 seq 校验过滤已淘汰的 Span。
+ */
+public class SeqRing {
+
+    private static final int INITIAL_CAPACITY = 4;
+
+    private volatile long[] buf;
+
+    /** 逻辑位置：head 为最旧元素，tail 为下一个写入位置 */
+    private volatile long head;
+    private volatile long tail;
+
+    public SeqRing() {
+        this.buf = new long[INITIAL_CAPACITY];
+    }
+
+    public void add(long seq) {
+        long t = tail;
+        long[] b = buf;
+        if (t - head == b.length) {
+            b = grow(b, t);
+        }
+        b[(int) (t & (b.length - 1))] = seq;
+        tail = t + 1;
+    }
+
+    /**
+     * 若最旧元素等于 {@code seq} 则弹出，返回是否弹出
+     */
+    public boolean removeFirstIf(long seq) {
+        long h = head;
+        long[] b = buf;
+        if (h < tail && b[(int) (h & (b.length - 1))] == seq) {
+            head = h + 1;
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 弹出全部小于 {@code seq} 的最旧元素（按段批量清理时使用），返回弹出个数
+     */
+    public int removeBefore(long seq) {
+        long h = head;
+        long t = tail;
+        long[] b = buf;
+        long start = h;
+        while (h < t && b[(int) (h & (b.length - 1))] < seq) {
+            h++;
+        }
+        head = h;
+        return (int) (h - start);
+    }
+
+    /**
+     * 小于 {@code bound} 的最大序号，二分查找；没有时返回 -1
+     */
+    public long lower(long bound) {
+        long t = tail;
+        long h = head;
+        long[] b = buf;
+        long lo = Math.max(h, t - b.length);
+        long hi = t - 1;
+        long found = -1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            long seq = b[(int) (mid & (b.length - 1))];
+            if (seq < bound) {
+                found = seq;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        return found;
+    }
+
+    /**
+     * 由新到旧遍历，只回调严格递减的序号；回调返回 {@code false} 时停止
+     */
+    public void forEachNewestFirst(LongPredicate action) {
+        forEachNewestFirst(Long.MAX_VALUE, action);
+    }
+
+    /**
+     * 由新到旧遍历小于 {@code before} 的序号：先二分定位起点（队列内序号递增），跳过更新的部分，
+     * 分页续查时代价与页大小而非已翻过的条数相关
+     */
+    public void forEachNewestFirst(long before, LongPredicate action) {
+        long t = tail;
+        long h = head;
+        long[] b = buf;
+        long floor = Math.max(h, t - b.length);
+        long lo = floor;
+        long hi = t - 1;
+        long start = floor - 1;
+        while (lo <= hi) {
+            long mid = (lo + hi) >>> 1;
+            if (b[(int) (mid & (b.length - 1))] < before) {
+                start = mid;
+                lo = mid + 1;
+            } else {
+                hi = mid - 1;
+            }
+        }
+        long last = before;
+        for (long pos = start; pos >= floor; pos--) {
+            long seq = b[(int) (pos & (b.length - 1))];
+            if (seq >= last) {
+                continue;
+            }
+            last = seq;
+            if (!action.test(seq)) {
+                return;
+            }
+        }
+    }
+
+    /**
+     * 由旧到新的序号快照（严格递增）
+     */
+    public long[] toArray() {
+        long t = tail;
+        long h = head;
+        long[] b = buf;
+        long start = Math.max(h, t - b.length);
+        long[] out = new long[(int) Math.max(0, t - start)];
+        int n = 0;
+        long last = Long.MIN_VALUE;
+        for (long pos = start; pos < t; pos++) {
+            long seq = b[(int) (pos & (b.length - 1))];
+            if (seq > last) {
+                out[n++] = seq;
+                last = seq;
+            }
+        }
+        return n == out.length ? out : Arrays.copyOf(out, n);
+    }
+
+    public int size() {
+        return (int) Math.max(0, tail - head);
+    }
+
+    public boolean isEmpty() {
+        return size() == 0;
+    }
+
+    /**
+     * 扩容为两倍：元素按原逻辑位置搬入新数组后再发布，已持有旧数组的读取方不受影响
+     */
+    private long[] grow(long[] b, long t) {
+        long[] next = new long[b.length << 1];
+        for (long pos = head; pos < t; pos++) {
+            next[(int) (pos & (next.length - 1))] = b[(int) (pos & (b.length - 1))];
+        }
+        buf = next;
+        return next;
+    }
+}
@@ -0,0 +1,117 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 按服务名的二级索引
+ * │    服务名字典（name ↔ id）+ 每个服务一条 Span 序号队列，写入/淘汰时增量维护；
+ * │    服务列表与单服务最近 Span 查询不再随存储总量增长
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：add / remove / publish 由唯一写入方调用，其余方法可并发读取。
+ * 服务列表由写入方在服务出现或清空时重建并整体发布，读取方只读不写。
+ */
+public class ServiceIndex {
+
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+
+    /** id → 服务名 / 序号队列，写入方追加后整体替换（服务数量很少） */
+    private volatile String[] names = new String[0];
+    private volatile SeqRing[] seqsById = new SeqRing[0];
+
+    /** 当前仍持有 Span 的服务（已排序） */
+    private volatile List<String> liveNames = List.of();
+    private boolean liveNamesDirty;
+
+    /**
+     * 登记新写入的 Span，返回服务 id
+     */
+    public int add(String serviceName, long seq) {
+        Integer id = ids.get(serviceName);
+        if (id == null) {
+            id = names.length;
+            SeqRing[] nextSeqs = Arrays.copyOf(seqsById, id + 1);
+            nextSeqs[id] = new SeqRing();
+            String[] nextNames = Arrays.copyOf(names, id + 1);
+            nextNames[id] = serviceName;
+            seqsById = nextSeqs;
+            names = nextNames;
+            ids.put(serviceName, id);
+        }
+        SeqRing seqs = seqsById[id];
+        if (seqs.isEmpty()) {
+            liveNamesDirty = true;
+        }
+        seqs.add(seq);
+        return id;
+    }
+
+    /**
+     * 清理被淘汰的 Span（必然是该服务最旧的一条）
+     */
+    public void remove(String serviceName, long seq) {
+        Integer id = ids.get(serviceName);
+        if (id == null) {
+            return;
+        }
+        SeqRing seqs = seqsById[id];
+        if (seqs.removeFirstIf(seq) && seqs.isEmpty()) {
+            liveNamesDirty = true;
+        }
+    }
+
+    /**
+     * 写入批次结束后由写入方调用：服务集合有变化时重建并发布服务列表
+     */
+    public void publish() {
+        if (!liveNamesDirty) {
+            return;
+        }
+        liveNamesDirty = false;
+        String[] n = names;
+        SeqRing[] s = seqsById;
+        List<String> live = new ArrayList<>();
+        for (int id = 0; id < n.length; id++) {
+            if (!s[id].isEmpty() && !n[id].isBlank()) {
+                live.add(n[id]);
+            }
+        }
+        Collections.sort(live);
+        liveNames = Collections.unmodifiableList(live);
+    }
+
+    /**
+     * 指定服务的 Span 序号队列，不存在时返回 {@code null}
+     */
+    public SeqRing seqs(String serviceName) {
+        Integer id = serviceName != null ? ids.get(serviceName) : null;
+        return id != null ? seqsById[id] : null;
+    }
+
+    /**
+     * 当前仍持有 Span 的服务名（字典序，不含空白名）
+     */
+    public List<String> serviceNames() {
+        return liveNames;
+    }
+
+    public String name(int id) {
+        return names[id];
+    }
+
+    public int dictionarySize() {
+        return names.length;
+    }
+}
@@ -0,0 +1,154 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import java.util.Arrays;
+import java.util.Comparator;
+import java.util.Iterator;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Set;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.function.LongPredicate;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 标签倒排索引：(标签键, 值) → Span 序号有序队列
+ * │    只索引配置的标签键；每个键值对一条按序号递增的 posting list（{@link SeqRing}），
+ * │    多条件查询对各 posting list 由新到旧二分跳跃求交，代价与命中数及条件数相关，与存储总量无关
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：add / removeBefore 由唯一写入方调用。淘汰不逐条清理：
+ * 写入方另维护一条按各 posting list 最新序号排序的过期队列，最旧时间分段整体淘汰时
+ * 只从队头摘除全部序号均已淘汰的键值对（{@link #removeBefore}），不遍历仍存活的 posting list；
+ * 存活 posting list 头部的已淘汰序号在下次向其追加时顺带弹出。
+ * 因此队列头部可能残留少量已淘汰序号，读取方须按存储层 seq 校验过滤。
+ */
+public class TagIndex {
+
+    private final Set<String> keys;
+    private final Map<String, Map<String, SeqRing>> byKey = new ConcurrentHashMap<>();
+    /** 过期队列（仅写入方访问）：访问顺序即追加顺序，序号单调递增，故按最新序号由旧到新排列 */
+    private final LinkedHashMap<SeqRing, Posting> expiry = new LinkedHashMap<>(16, 0.75f, true);
+    private volatile int postingCount;
+    /** 最近一次 {@link #removeBefore} 的水位 */
+    private long oldestSeq;
+
+    public TagIndex(List<String> keys) {
+        this.keys = keys != null ? Set.copyOf(keys) : Set.of();
+    }
+
+    public boolean isIndexed(String key) {
+        return keys.contains(key);
+    }
+
+    public Set<String> keys() {
+        return keys;
+    }
+
+    /**
+     * 登记新写入 Span 中被索引的标签
+     */
+    public void add(Map<String, String> tags, long seq) {
+        if (tags == null || tags.isEmpty() || keys.isEmpty()) {
+            return;
+        }
+        for (String key : keys) {
+            String value = tags.get(key);
+            if (value == null) {
+                continue;
+            }
+            Map<String, SeqRing> values = byKey.computeIfAbsent(key, k -> new ConcurrentHashMap<>());
+            SeqRing seqs = values.get(value);
+            Posting posting;
+            if (seqs == null) {
+                seqs = new SeqRing();
+                values.put(value, seqs);
+                posting = new Posting(key, value);
+                expiry.put(seqs, posting);
+                postingCount = postingCount + 1;
+            } else {
+                posting = expiry.get(seqs);
+                seqs.removeBefore(oldestSeq);
+            }
+            posting.lastSeq = seq;
+            seqs.add(seq);
+        }
+    }
+
+    /**
+     * 删除最新序号小于 {@code oldestSeq}（即已全部淘汰）的键值对，只访问过期队列头部这些条目
+     */
+    public void removeBefore(long oldestSeq) {
+        this.oldestSeq = oldestSeq;
+        Iterator<Posting> it = expiry.values().iterator();
+        while (it.hasNext()) {
+            Posting posting = it.next();
+            if (posting.lastSeq >= oldestSeq) {
+                break;
+            }
+            it.remove();
+            byKey.get(posting.key).remove(posting.value);
+            postingCount = postingCount - 1;
+        }
+    }
+
+    /**
+     * 指定键值对的 posting list，不存在时返回 {@code null}
+     */
+    public SeqRing seqs(String key, String value) {
+        Map<String, SeqRing> values = byKey.get(key);
+        return values != null && value != null ? values.get(value) : null;
+    }
+
+    /**
+     * 键值对数量（posting list 条数）
+     */
+    public int postingCount() {
+        return postingCount;
+    }
+
+    /**
+     * 由新到旧求多条有序序号队列的交集：只回调同时出现在全部队列中、
+     * 且位于 [{@code floor}, {@code before}) 的序号；回调返回 {@code false} 时停止。
+     * 以最短的队列驱动，其余队列二分跳到不大于候选的位置，不一致时以更小者为新候选
+     */
+    public static void intersectNewestFirst(List<SeqRing> lists, long floor, long before, LongPredicate action) {
+        if (lists.isEmpty()) {
+            return;
+        }
+        SeqRing[] sorted = lists.toArray(new SeqRing[0]);
+        Arrays.sort(sorted, Comparator.comparingInt(SeqRing::size));
+        long x = sorted[0].lower(before);
+        outer:
+        while (x >= floor && x >= 0) {
+            for (SeqRing list : sorted) {
+                long y = list.lower(x + 1);
+                if (y != x) {
+                    x = y;
+                    continue outer;
+                }
+            }
+            if (!action.test(x)) {
+                return;
+            }
+            x = sorted[0].lower(x);
+        }
+    }
+
+    private static final class Posting {
+        final String key;
+        final String value;
+        long lastSeq;
+
+        Posting(String key, String value) {
+            this.key = key;
+            this.value = value;
+        }
+    }
+}
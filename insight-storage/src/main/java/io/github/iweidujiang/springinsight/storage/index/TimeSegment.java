@@ -0,0 +1,75 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 时间分段：一段连续写入序号 [firstSeq, endSeq) 及其 startTime 范围
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 头部 Span 被淘汰后 min/max 不回收，仍是段内现存 Span 的有效上下界。
+ * 字段仅由写入方修改，以 volatile 发布给并发读取方。
+ */
+public class TimeSegment {
+
+    /** 分段开启时的写入分钟（epochMillis / 60000） */
+    private final long ingestMinute;
+
+    private volatile long firstSeq;
+    private volatile long endSeq;
+    private volatile long minStartTime = Long.MAX_VALUE;
+    private volatile long maxStartTime = Long.MIN_VALUE;
+
+    TimeSegment(long ingestMinute, long firstSeq) {
+        this.ingestMinute = ingestMinute;
+        this.firstSeq = firstSeq;
+        this.endSeq = firstSeq;
+    }
+
+    void append(long seq, long startTime) {
+        // 先放宽时间范围再推进 endSeq，读取方看到新序号时 min/max 已覆盖它
+        if (startTime < minStartTime) {
+            minStartTime = startTime;
+        }
+        if (startTime > maxStartTime) {
+            maxStartTime = startTime;
+        }
+        endSeq = seq + 1;
+    }
+
+    void evictFirst() {
+        firstSeq++;
+    }
+
+    public long getIngestMinute() {
+        return ingestMinute;
+    }
+
+    public long getFirstSeq() {
+        return firstSeq;
+    }
+
+    public long getEndSeq() {
+        return endSeq;
+    }
+
+    public long getMinStartTime() {
+        return minStartTime;
+    }
+
+    public long getMaxStartTime() {
+        return maxStartTime;
+    }
+
+    public int size() {
+        return (int) Math.max(0, endSeq - firstSeq);
+    }
+
+    public boolean isEmpty() {
+        return firstSeq >= endSeq;
+    }
+}
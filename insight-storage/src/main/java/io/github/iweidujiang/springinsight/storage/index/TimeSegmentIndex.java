@@ -0,0 +1,112 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import java.util.ArrayDeque;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 按写入时间分段的索引（默认每分钟一段，单段上限 4096 条）
+ * │    每段记录 startTime 的 min/max，窗口查询可整段跳过，
+ * │    最新优先的 Top-N 可在凑满后提前结束，无需全量排序
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：onAppend / onEvict 由唯一写入方调用；分段开启或移除时整体发布分段数组快照，
+ * 读取方拿到的快照不会再变化（段内字段仍会随写入推进）。
+ */
+public class TimeSegmentIndex {
+
+    private static final long MINUTE_MS = 60_000L;
+    private static final int DEFAULT_MAX_SEGMENT_SPANS = 4096;
+
+    private final int maxSegmentSpans;
+    private final ArrayDeque<TimeSegment> segments = new ArrayDeque<>();
+    private volatile TimeSegment[] published = new TimeSegment[0];
+
+    public TimeSegmentIndex() {
+        this(DEFAULT_MAX_SEGMENT_SPANS);
+    }
+
+    public TimeSegmentIndex(int maxSegmentSpans) {
+        this.maxSegmentSpans = maxSegmentSpans;
+    }
+
+    /**
+     * 登记新写入的 Span；写入分钟变化或当前段写满时开启新段
+     */
+    public void onAppend(long seq, long startTime, long nowMillis) {
+        long minute = nowMillis / MINUTE_MS;
+        TimeSegment active = segments.peekLast();
+        if (active == null || active.getIngestMinute() != minute || active.size() >= maxSegmentSpans) {
+            active = new TimeSegment(minute, seq);
+            segments.addLast(active);
+            active.append(seq, startTime);
+            publish();
+            return;
+        }
+        active.append(seq, startTime);
+    }
+
+    /**
+     * 清理被淘汰的 Span（必然位于最旧一段的头部），最旧一段因此被整体移除时返回 {@code true}
+     */
+    public boolean onEvict(long seq) {
+        TimeSegment oldest = segments.peekFirst();
+        if (oldest == null || oldest.getFirstSeq() != seq) {
+            return false;
+        }
+        oldest.evictFirst();
+        if (oldest.isEmpty()) {
+            segments.pollFirst();
+            publish();
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 现存分段 startTime 的下界，无分段时返回 {@link Long#MAX_VALUE}
+     */
+    public long oldestStartTime() {
+        long min = Long.MAX_VALUE;
+        for (TimeSegment segment : published) {
+            min = Math.min(min, segment.getMinStartTime());
+        }
+        return min;
+    }
+
+    /**
+     * 由旧到新的分段快照
+     */
+    public List<TimeSegment> segments() {
+        return Arrays.asList(published);
+    }
+
+    public int segmentCount() {
+        return published.length;
+    }
+
+    private void publish() {
+        published = segments.toArray(new TimeSegment[0]);
+    }
+
+    /**
+     * 前缀最大值：{@code result[i]} 为第 0..i 段 maxStartTime 的最大值。
+     * 由新到旧遍历到第 i 段时，若它小于窗口下界（或 Top-N 的当前门槛），更旧的分段都可跳过。
+     */
+    public static long[] prefixMaxStartTimes(List<TimeSegment> segments) {
+        long[] out = new long[segments.size()];
+        long max = Long.MIN_VALUE;
+        for (int i = 0; i < out.length; i++) {
+            max = Math.max(max, segments.get(i).getMaxStartTime());
+            out[i] = max;
+        }
+        return out;
+    }
+}
@@ -0,0 +1,60 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 traceId → Span 序号 的二级索引
+ * │    写入时登记，环形缓冲覆盖旧 Span 时同步清理；
+ * │    按 traceId 查询的代价为 O(该链路 Span 数)，与存储总量无关
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：add / remove 由唯一写入方调用，seqs 可并发读取（弱一致，需按存储层 seq 校验）。
+ */
+public class TraceIndex {
+
+    private final Map<String, SeqRing> byTrace = new ConcurrentHashMap<>();
+
+    /**
+     * 登记新写入的 Span
+     */
+    public void add(String traceId, long seq) {
+        byTrace.computeIfAbsent(traceId, k -> new SeqRing()).add(seq);
+    }
+
+    /**
+     * 清理被淘汰的 Span；淘汰按写入顺序进行，被淘汰的序号必然是该链路中最旧的一条。
+     * 返回该链路是否已没有任何 Span
+     */
+    public boolean remove(String traceId, long seq) {
+        SeqRing seqs = byTrace.get(traceId);
+        if (seqs == null) {
+            return true;
+        }
+        seqs.removeFirstIf(seq);
+        if (seqs.isEmpty()) {
+            byTrace.remove(traceId);
+            return true;
+        }
+        return false;
+    }
+
+    /**
+     * 指定链路下的全部 Span 序号（由旧到新），不存在时返回空数组
+     */
+    public long[] seqs(String traceId) {
+        SeqRing seqs = traceId != null ? byTrace.get(traceId) : null;
+        return seqs != null ? seqs.toArray() : new long[0];
+    }
+
+    public int traceCount() {
+        return byTrace.size();
+    }
+}
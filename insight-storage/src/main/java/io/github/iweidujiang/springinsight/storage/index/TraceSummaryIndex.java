@@ -0,0 +1,246 @@
+package io.github.iweidujiang.springinsight.storage.index;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.util.Arrays;
+import java.util.List;
+import java.util.Map;
+import java.util.NavigableMap;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+import java.util.function.Predicate;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 链路摘要索引：traceId → 摘要，按链路开始时间有序
+ * │    Span 写入时就地累加所属链路的入口操作、服务集合、Span 数、起止时间与错误标记，
+ * │    链路列表直接由新到旧遍历摘要，不再列出并在前端归并单个 Span；
+ * │    另按服务维护摘要的有序倒排，按服务筛选时只遍历该服务的链路，代价与页大小相当
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：add / remove 由唯一写入方调用，摘要字段以 volatile 发布，遍历为弱一致快照。
+ * 摘要描述链路收到的全部 Span，直到该链路最后一条 Span 被淘汰或过期时随 {@link TraceIndex} 一并移除。
+ */
+public class TraceSummaryIndex {
+
+    private final Map<String, TraceSummary> byTrace = new ConcurrentHashMap<>();
+    /** (开始时间, 首条序号) 有序，开始时间因更早的 Span 到达而前移时重新登记 */
+    private final ConcurrentSkipListMap<Key, TraceSummary> byStart = new ConcurrentSkipListMap<>();
+    /** 服务名 → 出现过该服务的链路摘要，排序同 {@link #byStart} */
+    private final Map<String, ConcurrentSkipListMap<Key, TraceSummary>> byService = new ConcurrentHashMap<>();
+
+    /**
+     * 把新写入的 Span 累加到所属链路的摘要
+     */
+    public void add(TraceSpan span, long seq, boolean error) {
+        long startTime = span.getStartTime() != null ? span.getStartTime() : 0L;
+        long endTime = span.getEndTime() != null ? span.getEndTime()
+                : startTime + (span.getDurationMs() != null ? span.getDurationMs() : 0L);
+        TraceSummary summary = byTrace.get(span.getTraceId());
+        if (summary == null) {
+            summary = new TraceSummary(span.getTraceId(), seq, startTime);
+            byTrace.put(span.getTraceId(), summary);
+            byStart.put(summary.key(), summary);
+        } else if (startTime < summary.startTime) {
+            Key old = summary.key();
+            byStart.remove(old);
+            for (String service : summary.services) {
+                serviceMap(service).remove(old);
+            }
+            summary.startTime = startTime;
+            Key key = summary.key();
+            byStart.put(key, summary);
+            for (String service : summary.services) {
+                serviceMap(service).put(key, summary);
+            }
+        }
+        String added = summary.record(span, endTime, error);
+        if (added != null) {
+            serviceMap(added).put(summary.key(), summary);
+        }
+    }
+
+    /**
+     * 链路的全部 Span 已离开存储时移除摘要
+     */
+    public void remove(String traceId) {
+        TraceSummary summary = byTrace.remove(traceId);
+        if (summary != null) {
+            Key key = summary.key();
+            byStart.remove(key);
+            for (String service : summary.services) {
+                ConcurrentSkipListMap<Key, TraceSummary> map = byService.get(service);
+                if (map != null) {
+                    map.remove(key);
+                    if (map.isEmpty()) {
+                        byService.remove(service, map);
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * 由新到旧遍历开始时间不早于 {@code sinceTime}、且按 (开始时间, 首条序号) 严格早于
+     * ({@code beforeStartTime}, {@code beforeSeq}) 的摘要；回调返回 {@code false} 时停止
+     */
+    public void forEachNewestFirst(long sinceTime, long beforeStartTime, long beforeSeq, Predicate<TraceSummary> action) {
+        forEachNewestFirst(null, sinceTime, beforeStartTime, beforeSeq, action);
+    }
+
+    /**
+     * 同上，{@code serviceName} 非空时只遍历出现过该服务的链路
+     */
+    public void forEachNewestFirst(String serviceName, long sinceTime, long beforeStartTime, long beforeSeq,
+                                   Predicate<TraceSummary> action) {
+        ConcurrentSkipListMap<Key, TraceSummary> source = serviceName != null ? byService.get(serviceName) : byStart;
+        if (source == null) {
+            return;
+        }
+        NavigableMap<Key, TraceSummary> range = source
+                .subMap(new Key(sinceTime, Long.MIN_VALUE), true, new Key(beforeStartTime, beforeSeq), false)
+                .descendingMap();
+        for (TraceSummary summary : range.values()) {
+            if (!action.test(summary)) {
+                return;
+            }
+        }
+    }
+
+    public TraceSummary get(String traceId) {
+        return traceId != null ? byTrace.get(traceId) : null;
+    }
+
+    public int size() {
+        return byTrace.size();
+    }
+
+    /**
+     * 仅由写入方调用
+     */
+    private ConcurrentSkipListMap<Key, TraceSummary> serviceMap(String serviceName) {
+        return byService.computeIfAbsent(serviceName, k -> new ConcurrentSkipListMap<>());
+    }
+
+    private record Key(long startTime, long firstSeq) implements Comparable<Key> {
+        @Override
+        public int compareTo(Key o) {
+            int c = Long.compare(startTime, o.startTime);
+            return c != 0 ? c : Long.compare(firstSeq, o.firstSeq);
+        }
+    }
+
+    /**
+     * 单条链路的摘要；入口取无父 Span 的那一条，尚未收到时暂取开始最早的 Span
+     */
+    public static final class TraceSummary {
+        private static final String[] NO_SERVICES = new String[0];
+
+        private final String traceId;
+        private final long firstSeq;
+        private volatile long startTime;
+        private volatile long endTime;
+        private volatile int spanCount;
+        private volatile boolean error;
+        private volatile boolean rootSeen;
+        private volatile String rootService;
+        private volatile String rootOperation;
+        /** 出现过的服务，写入方整体替换 */
+        private volatile String[] services = NO_SERVICES;
+
+        TraceSummary(String traceId, long firstSeq, long startTime) {
+            this.traceId = traceId;
+            this.firstSeq = firstSeq;
+            this.startTime = startTime;
+            this.endTime = startTime;
+        }
+
+        private Key key() {
+            return new Key(startTime, firstSeq);
+        }
+
+        /**
+         * @return 本条 Span 新引入的服务名，没有时为 {@code null}
+         */
+        private String record(TraceSpan span, long spanEnd, boolean spanError) {
+            boolean root = span.getParentSpanId() == null || span.getParentSpanId().isBlank();
+            long spanStart = span.getStartTime() != null ? span.getStartTime() : 0L;
+            if (root || (!rootSeen && (rootOperation == null || spanStart <= startTime))) {
+                rootService = span.getServiceName();
+                rootOperation = span.getOperationName();
+                rootSeen = rootSeen || root;
+            }
+            String service = span.getServiceName();
+            String added = null;
+            if (service != null && !service.isBlank()) {
+                String[] current = services;
+                if (!Arrays.asList(current).contains(service)) {
+                    String[] next = Arrays.copyOf(current, current.length + 1);
+                    next[current.length] = service;
+                    services = next;
+                    added = service;
+                }
+            }
+            if (spanEnd > endTime) {
+                endTime = spanEnd;
+            }
+            if (spanError) {
+                error = true;
+            }
+            spanCount = spanCount + 1;
+            return added;
+        }
+
+        public String traceId() {
+            return traceId;
+        }
+
+        /**
+         * 链路内首条 Span 的序号，与开始时间一起作为分页游标
+         */
+        public long firstSeq() {
+            return firstSeq;
+        }
+
+        public long startTime() {
+            return startTime;
+        }
+
+        /**
+         * 端到端耗时：最晚结束减最早开始
+         */
+        public long durationMs() {
+            return Math.max(0L, endTime - startTime);
+        }
+
+        public int spanCount() {
+            return spanCount;
+        }
+
+        public boolean error() {
+            return error;
+        }
+
+        public String rootService() {
+            return rootService;
+        }
+
+        public String rootOperation() {
+            return rootOperation;
+        }
+
+        public List<String> services() {
+            return List.of(services);
+        }
+
+        public boolean hasService(String serviceName) {
+            return Arrays.asList(services).contains(serviceName);
+        }
+    }
+}
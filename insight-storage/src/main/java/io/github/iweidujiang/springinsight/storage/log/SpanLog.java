@@ -0,0 +1,296 @@
+package io.github.iweidujiang.springinsight.storage.log;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.memory.SpanCodec;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.IOException;
+import java.nio.MappedByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.time.Duration;
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Deque;
+import java.util.List;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.stream.Stream;
+import java.util.zip.CRC32;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 Span 追加日志（内存映射、分段、定期刷盘）
+ * │    每条记录 = [长度 4B][CRC32 4B][写入时间 8B][{@link SpanCodec} 编码]，
+ * │    段文件 spans-{序号}.log 固定大小、整段映射，写满后滚动到新段；
+ * │    启动时按段顺序流式重放以重建内存存储与索引
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 写入即落入页缓存，进程崩溃不丢；后台线程按间隔 {@code force()}，
+ * 机器掉电时至多丢失最近一个刷盘间隔。长度字段最后写入作为提交标记，
+ * 重放遇到长度为 0、越界或校验和不符的记录即停止该段（未写完的尾部）。
+ * <p>
+ * 每段记录其中 Span 在内存存储里的序号区间；段内 Span 全部被淘汰或过期后整段删除，
+ * 磁盘上的数据量与内存中持有的大致相同。除后台刷盘外，方法均由写入方（持写锁）调用。
+ */
+@Slf4j
+public class SpanLog implements AutoCloseable {
+
+    /**
+     * 重放回调：把 Span 按原写入时间写回内存存储，返回分配的序号，被丢弃时返回 -1
+     */
+    @FunctionalInterface
+    public interface Replayer {
+        long replay(TraceSpan span, long ingestMillis);
+    }
+
+    static final int HEADER_BYTES = 4 + 4 + 8;
+
+    private static final String PREFIX = "spans-";
+    private static final String SUFFIX = ".log";
+
+    private final Path dir;
+    private final int segmentBytes;
+    private final SpanCodec codec = new SpanCodec();
+    private final CRC32 crc = new CRC32();
+    private final Deque<Segment> segments = new ArrayDeque<>();
+    private final ScheduledExecutorService flusher;
+    private long nextIndex;
+    /** 当前写入段，刷盘线程读取 */
+    private volatile Segment active;
+    private volatile long appendedRecords;
+    /** 段数，供统计线程读取 */
+    private volatile int segmentCount;
+
+    public SpanLog(Path dir, long segmentBytes, Duration flushInterval) {
+        if (segmentBytes <= HEADER_BYTES || segmentBytes > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("日志段大小须在 " + HEADER_BYTES + " 字节与 2GB 之间: " + segmentBytes);
+        }
+        this.dir = dir;
+        this.segmentBytes = (int) segmentBytes;
+        try {
+            Files.createDirectories(dir);
+            for (Path path : listSegments(dir)) {
+                long index = indexOf(path);
+                segments.addLast(new Segment(path));
+                nextIndex = Math.max(nextIndex, index + 1);
+            }
+            segmentCount = segments.size();
+        } catch (IOException e) {
+            throw new IllegalStateException("无法打开 Span 日志目录: " + dir, e);
+        }
+        long intervalMillis = flushInterval != null ? flushInterval.toMillis() : 0L;
+        if (intervalMillis > 0) {
+            this.flusher = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "spring-insight-log-flusher");
+                t.setDaemon(true);
+                return t;
+            });
+            flusher.scheduleWithFixedDelay(this::flush, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.flusher = null;
+        }
+    }
+
+    /**
+     * 按段顺序重放已有记录，返回重放条数。须在首次 {@link #append} 之前调用
+     */
+    public long replay(Replayer replayer) {
+        long replayed = 0;
+        for (Segment segment : segments) {
+            MappedByteBuffer buffer;
+            try (FileChannel channel = FileChannel.open(segment.path, StandardOpenOption.READ)) {
+                buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            } catch (IOException e) {
+                log.warn("[Span日志] 读取日志段失败，跳过: {}", segment.path, e);
+                continue;
+            }
+            int pos = 0;
+            int limit = buffer.capacity();
+            while (pos + HEADER_BYTES <= limit) {
+                int length = buffer.getInt(pos);
+                if (length <= 0 || length > limit - pos - HEADER_BYTES) {
+                    break;
+                }
+                crc.reset();
+                crc.update(buffer.slice(pos + HEADER_BYTES, length));
+                if ((int) crc.getValue() != buffer.getInt(pos + 4)) {
+                    log.warn("[Span日志] 日志段 {} 偏移 {} 校验失败，截断其后记录", segment.path.getFileName(), pos);
+                    break;
+                }
+                long ingestMillis = buffer.getLong(pos + 8);
+                long seq = replayer.replay(SpanCodec.decode(buffer, pos + HEADER_BYTES, length), ingestMillis);
+                if (seq >= 0) {
+                    segment.track(seq);
+                }
+                replayed++;
+                pos += HEADER_BYTES + length;
+            }
+        }
+        return replayed;
+    }
+
+    /**
+     * 追加一条记录并登记其内存序号；单条超过段大小时丢弃并返回 {@code false}
+     */
+    public boolean append(TraceSpan span, long seq, long ingestMillis) {
+        int length;
+        try {
+            length = codec.encode(span, segmentBytes - HEADER_BYTES);
+        } catch (IllegalArgumentException e) {
+            log.warn("[Span日志] Span 过大未写入日志: traceId={}, {}", span.getTraceId(), e.getMessage());
+            return false;
+        }
+        Segment segment = active;
+        if (segment == null || segment.position + HEADER_BYTES + length > segmentBytes) {
+            segment = roll();
+        }
+        MappedByteBuffer buffer = segment.buffer;
+        int pos = segment.position;
+        codec.copyTo(buffer, pos + HEADER_BYTES);
+        crc.reset();
+        codec.updateChecksum(crc);
+        codec.reset();
+        buffer.putInt(pos + 4, (int) crc.getValue());
+        buffer.putLong(pos + 8, ingestMillis);
+        buffer.putInt(pos, length);
+        segment.position = pos + HEADER_BYTES + length;
+        segment.track(seq);
+        appendedRecords = appendedRecords + 1;
+        return true;
+    }
+
+    /**
+     * 删除其中 Span 已全部离开内存存储（序号均小于 {@code oldestSeq}）的非活动段
+     */
+    public void releaseBefore(long oldestSeq) {
+        while (!segments.isEmpty()) {
+            Segment segment = segments.peekFirst();
+            if (segment == active || segment.endSeq > oldestSeq) {
+                return;
+            }
+            segments.pollFirst();
+            segmentCount = segments.size();
+            try {
+                Files.deleteIfExists(segment.path);
+            } catch (IOException e) {
+                log.warn("[Span日志] 删除日志段失败: {}", segment.path, e);
+            }
+        }
+    }
+
+    /**
+     * 把当前段已写入的内容刷到磁盘，可由任意线程调用
+     */
+    public void flush() {
+        Segment segment = active;
+        MappedByteBuffer buffer = segment != null ? segment.buffer : null;
+        if (buffer == null) {
+            return;
+        }
+        try {
+            buffer.force();
+        } catch (RuntimeException e) {
+            log.warn("[Span日志] 刷盘失败: {}", segment.path, e);
+        }
+    }
+
+    public int segmentCount() {
+        return segmentCount;
+    }
+
+    public long diskBytes() {
+        return (long) segmentCount * segmentBytes;
+    }
+
+    public long appendedRecords() {
+        return appendedRecords;
+    }
+
+    public Path dir() {
+        return dir;
+    }
+
+    @Override
+    public void close() {
+        if (flusher != null) {
+            flusher.shutdownNow();
+        }
+        flush();
+    }
+
+    /**
+     * 封存当前段并映射新段；新段文件按段大小预分配（稀疏文件，零填充即“无记录”）
+     */
+    private Segment roll() {
+        Segment previous = active;
+        if (previous != null) {
+            previous.buffer.force();
+        }
+        Path path = dir.resolve(String.format("%s%012d%s", PREFIX, nextIndex, SUFFIX));
+        Segment segment = new Segment(path);
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW,
+                StandardOpenOption.READ, StandardOpenOption.WRITE)) {
+            segment.buffer = channel.map(FileChannel.MapMode.READ_WRITE, 0, segmentBytes);
+        } catch (IOException e) {
+            throw new IllegalStateException("无法创建 Span 日志段: " + path, e);
+        }
+        nextIndex++;
+        segments.addLast(segment);
+        segmentCount = segments.size();
+        active = segment;
+        if (previous != null) {
+            previous.buffer = null;
+        }
+        return segment;
+    }
+
+    private static List<Path> listSegments(Path dir) throws IOException {
+        List<Path> out = new ArrayList<>();
+        try (Stream<Path> files = Files.list(dir)) {
+            files.filter(p -> {
+                String name = p.getFileName().toString();
+                return name.startsWith(PREFIX) && name.endsWith(SUFFIX) && indexOf(p) >= 0;
+            }).forEach(out::add);
+        }
+        out.sort((a, b) -> Long.compare(indexOf(a), indexOf(b)));
+        return out;
+    }
+
+    private static long indexOf(Path path) {
+        String name = path.getFileName().toString();
+        try {
+            return Long.parseLong(name.substring(PREFIX.length(), name.length() - SUFFIX.length()));
+        } catch (NumberFormatException e) {
+            return -1;
+        }
+    }
+
+    /**
+     * 日志段：文件、映射（仅活动段持有）、写入位置与其中 Span 的内存序号上界
+     */
+    private static final class Segment {
+        final Path path;
+        volatile MappedByteBuffer buffer;
+        int position;
+        /** 段内最大序号 + 1，无记录时为 0 */
+        long endSeq;
+
+        Segment(Path path) {
+            this.path = path;
+        }
+
+        void track(long seq) {
+            endSeq = Math.max(endSeq, seq + 1);
+        }
+    }
+}
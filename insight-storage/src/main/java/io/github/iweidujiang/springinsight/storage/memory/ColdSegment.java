@@ -0,0 +1,220 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.io.ByteArrayOutputStream;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.zip.DataFormatException;
+import java.util.zip.Deflater;
+import java.util.zip.Inflater;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 压缩冷段：一段连续序号的 Span 封存为一个 Deflate 块
+ * │    块内布局（压缩前）：
+ * │    [条数][startTime 差分 zigzag 变长整数...]
+ * │    [服务名字典][每条的服务名 id...][每条记录长度...][{@link SpanCodec} 记录...]
+ * │    堆内只常驻压缩字节与序号范围，查询时整块解压（按时间的筛选由时间分段索引完成）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 不可变，封存后可被任意线程读取；解压结果 {@link Decoded} 同样不可变，可跨线程共享缓存。
+ */
+final class ColdSegment {
+
+    final long id;
+    final long firstSeq;
+    final int count;
+    final int rawBytes;
+    final byte[] compressed;
+
+    private ColdSegment(long id, long firstSeq, int count, int rawBytes, byte[] compressed) {
+        this.id = id;
+        this.firstSeq = firstSeq;
+        this.count = count;
+        this.rawBytes = rawBytes;
+        this.compressed = compressed;
+    }
+
+    long endSeq() {
+        return firstSeq + count;
+    }
+
+    boolean contains(long seq) {
+        return seq >= firstSeq && seq < firstSeq + count;
+    }
+
+    /**
+     * 编码并压缩序号从 {@code firstSeq} 起连续的一批 Span（仅写入方调用，复用其编码器）
+     */
+    static ColdSegment seal(long id, long firstSeq, List<TraceSpan> spans, SpanCodec codec) {
+        int n = spans.size();
+        ByteArrayOutputStream out = new ByteArrayOutputStream(256 * n + 64);
+        writeVarLong(out, n);
+        long prev = 0;
+        for (TraceSpan span : spans) {
+            long startTime = span.getStartTime() != null ? span.getStartTime() : 0L;
+            writeVarLong(out, zigzag(startTime - prev));
+            prev = startTime;
+        }
+
+        Map<String, Integer> ids = new HashMap<>();
+        int[] serviceIds = new int[n];
+        ByteArrayOutputStream dict = new ByteArrayOutputStream();
+        for (int i = 0; i < n; i++) {
+            String name = spans.get(i).getServiceName();
+            if (name == null) {
+                serviceIds[i] = 0;
+                continue;
+            }
+            Integer sid = ids.get(name);
+            if (sid == null) {
+                sid = ids.size() + 1;
+                ids.put(name, sid);
+                byte[] bytes = name.getBytes(StandardCharsets.UTF_8);
+                writeVarLong(dict, bytes.length);
+                dict.write(bytes, 0, bytes.length);
+            }
+            serviceIds[i] = sid;
+        }
+        writeVarLong(out, ids.size());
+        out.writeBytes(dict.toByteArray());
+        for (int serviceId : serviceIds) {
+            writeVarLong(out, serviceId);
+        }
+
+        ByteArrayOutputStream records = new ByteArrayOutputStream(256 * n);
+        for (TraceSpan span : spans) {
+            writeVarLong(out, codec.encode(span, Integer.MAX_VALUE));
+            codec.writeTo(records);
+            codec.reset();
+        }
+        out.writeBytes(records.toByteArray());
+
+        byte[] raw = out.toByteArray();
+        Deflater deflater = new Deflater(Deflater.BEST_SPEED);
+        try {
+            deflater.setInput(raw);
+            deflater.finish();
+            ByteArrayOutputStream packed = new ByteArrayOutputStream(Math.max(64, raw.length / 4));
+            byte[] chunk = new byte[8192];
+            while (!deflater.finished()) {
+                int len = deflater.deflate(chunk);
+                packed.write(chunk, 0, len);
+            }
+            return new ColdSegment(id, firstSeq, n, raw.length, packed.toByteArray());
+        } finally {
+            deflater.end();
+        }
+    }
+
+    /**
+     * 整块解压并切分出各列与记录位置
+     */
+    Decoded decode() {
+        byte[] raw = new byte[rawBytes];
+        Inflater inflater = new Inflater();
+        try {
+            inflater.setInput(compressed);
+            int n = 0;
+            while (n < raw.length && !inflater.finished()) {
+                n += inflater.inflate(raw, n, raw.length - n);
+            }
+        } catch (DataFormatException e) {
+            throw new IllegalStateException("冷段解压失败: id=" + id, e);
+        } finally {
+            inflater.end();
+        }
+
+        ByteBuffer in = ByteBuffer.wrap(raw);
+        int n = (int) readVarLong(in);
+        long[] startTimes = new long[n];
+        long prev = 0;
+        for (int i = 0; i < n; i++) {
+            prev += unzigzag(readVarLong(in));
+            startTimes[i] = prev;
+        }
+        int dictSize = (int) readVarLong(in);
+        String[] dict = new String[dictSize + 1];
+        for (int i = 1; i <= dictSize; i++) {
+            int len = (int) readVarLong(in);
+            dict[i] = new String(raw, in.position(), len, StandardCharsets.UTF_8);
+            in.position(in.position() + len);
+        }
+        int[] serviceIds = new int[n];
+        for (int i = 0; i < n; i++) {
+            serviceIds[i] = (int) readVarLong(in);
+        }
+        int[] lengths = new int[n];
+        for (int i = 0; i < n; i++) {
+            lengths[i] = (int) readVarLong(in);
+        }
+        int[] offsets = new int[n];
+        int pos = in.position();
+        for (int i = 0; i < n; i++) {
+            offsets[i] = pos;
+            pos += lengths[i];
+        }
+        return new Decoded(this, startTimes, dict, serviceIds, offsets, lengths, in);
+    }
+
+    /**
+     * 解压后的冷段（下标 = seq - firstSeq）
+     */
+    record Decoded(ColdSegment segment, long[] startTimes, String[] dict, int[] serviceIds,
+                   int[] offsets, int[] lengths, ByteBuffer records) {
+
+        long startTime(int i) {
+            return startTimes[i];
+        }
+
+        String serviceName(int i) {
+            return dict[serviceIds[i]];
+        }
+
+        String traceId(int i) {
+            return SpanCodec.decodeTraceId(records, offsets[i], lengths[i]);
+        }
+
+        TraceSpan span(int i) {
+            return SpanCodec.decode(records, offsets[i], lengths[i]);
+        }
+    }
+
+    private static long zigzag(long v) {
+        return (v << 1) ^ (v >> 63);
+    }
+
+    private static long unzigzag(long v) {
+        return (v >>> 1) ^ -(v & 1);
+    }
+
+    private static void writeVarLong(ByteArrayOutputStream out, long v) {
+        while ((v & ~0x7FL) != 0) {
+            out.write((int) ((v & 0x7F) | 0x80));
+            v >>>= 7;
+        }
+        out.write((int) v);
+    }
+
+    private static long readVarLong(ByteBuffer in) {
+        long v = 0;
+        for (int shift = 0; shift < 64; shift += 7) {
+            byte b = in.get();
+            v |= (long) (b & 0x7F) << shift;
+            if ((b & 0x80) == 0) {
+                return v;
+            }
+        }
+        throw new IllegalStateException("变长整数格式错误");
+    }
+}
@@ -0,0 +1,552 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 列式 Span 环形存储（单写多读）
+ * │    每个字段一列：起止时间 / 耗时为 long[]，状态为 byte[]，
+ * │    服务名、实例、接口、类型、组件等低基数字段字典编码为 int[]，
+ * │    标签按 [k0, v0, k1, v1, ...] 紧凑存放且 key 全局共享，
+ * │    短的 tag value / 错误信息经有界规范化器去重；
+ * │    只在 API 边界按需还原 TraceSpan，扫描只触达所需的列
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 序号与槽位：seq 单调递增，槽位 = seq % capacity，存活区间为 [headSeq, nextSeq)；
+ * 过期水位 expiredBefore 之前的序号对读取方立即不可见，槽位稍后由写入方回收。
+ * <p>
+ * 并发：写入方须由调用方保证同一时刻只有一个。每个槽位有一个版本号（即所存 seq），
+ * 按 seqlock 方式读写：写入方先置空版本、再写各列、最后以 release 发布 seq；
+ * 读取方先校验版本、读列、再次校验版本，期间被淘汰或覆盖则视为不存在。
+ * <p>
+ * 字节占用：{@link #usedBytes()} = 存活 Span 估算字节数 + 各字典与规范化器自身占用；
+ * 字典只增不减，总占用上限为构造时给定的字典预算（各字典均分），超出后新值按原始字符串逐条存放。
+ */
+public class ColumnarSpanStore implements SpanStore {
+
+    private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = -1L;
+    private static final String[] NO_TAGS = new String[0];
+    /** 10 个字典 + 1 个规范化器均分字典预算 */
+    private static final int DICTIONARIES = 11;
+
+    /** 未指定时的字典总预算 */
+    public static final long DEFAULT_DICTIONARY_BYTES = 16L << 20;
+
+    private static final byte START_NULL = 1;
+    private static final byte END_NULL = 1 << 1;
+    private static final byte DURATION_NULL = 1 << 2;
+    private static final byte PORT_NULL = 1 << 3;
+    private static final byte SUCCESS_TRUE = 1 << 4;
+    private static final byte SUCCESS_FALSE = 1 << 5;
+
+    private static final byte STATUS_NULL = 0;
+    private static final byte STATUS_OK = 1;
+    private static final byte STATUS_ERROR = 2;
+    private static final byte STATUS_OTHER = 3;
+
+    private final int capacity;
+    private final long[] versions;
+
+    private final long[] startTimes;
+    private final long[] endTimes;
+    private final long[] durations;
+    private final int[] hostPorts;
+    private final byte[] statuses;
+    private final byte[] flags;
+    private final int[] bytes;
+
+    private final String[] traceIds;
+    private final String[] spanIds;
+    private final String[] parentSpanIds;
+    private final String[] errorMessages;
+    private final String[][] tags;
+    /** 非 OK / ERROR 的状态码，出现时才分配 */
+    private volatile String[] otherStatuses;
+
+    private final SymbolTable serviceSymbols;
+    private final SymbolTable tagKeys;
+    private final StringCanonicalizer values;
+    private final DictColumn services;
+    private final DictColumn remoteServices;
+    private final DictColumn instances;
+    private final DictColumn hostIps;
+    private final DictColumn operations;
+    private final DictColumn kinds;
+    private final DictColumn components;
+    private final DictColumn endpoints;
+    private final DictColumn remoteEndpoints;
+    private final DictColumn errorCodes;
+
+    /** 下一条写入的序号；仅写入方修改，对读取方即“已发布序号”上界 */
+    private volatile long nextSeq;
+    /** 最旧一条存活 Span 的序号 */
+    private volatile long headSeq;
+    /** 存活 Span 的估算字节数之和 */
+    private volatile long usedBytes;
+    /** 过期水位：小于它的序号已过期，可由任意单一线程推进（只增不减） */
+    private volatile long expiredBefore;
+
+    public ColumnarSpanStore(int capacity) {
+        this(capacity, DEFAULT_DICTIONARY_BYTES);
+    }
+
+    /**
+     * @param dictionaryBytes 字典与规范化器合计的字节预算，计入 {@link #usedBytes()}
+     */
+    public ColumnarSpanStore(int capacity, long dictionaryBytes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("环形缓冲容量必须大于 0: " + capacity);
+        }
+        this.capacity = capacity;
+        this.versions = new long[capacity];
+        Arrays.fill(versions, EMPTY);
+        this.startTimes = new long[capacity];
+        this.endTimes = new long[capacity];
+        this.durations = new long[capacity];
+        this.hostPorts = new int[capacity];
+        this.statuses = new byte[capacity];
+        this.flags = new byte[capacity];
+        this.bytes = new int[capacity];
+        this.traceIds = new String[capacity];
+        this.spanIds = new String[capacity];
+        this.parentSpanIds = new String[capacity];
+        this.errorMessages = new String[capacity];
+        this.tags = new String[capacity][];
+        long share = dictionaryBytes / DICTIONARIES;
+        this.serviceSymbols = new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share);
+        this.tagKeys = new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share);
+        this.values = new StringCanonicalizer(StringCanonicalizer.DEFAULT_MAX_ENTRIES,
+                StringCanonicalizer.DEFAULT_MAX_LENGTH, share);
+        this.services = new DictColumn(serviceSymbols, capacity);
+        this.remoteServices = new DictColumn(serviceSymbols, capacity);
+        this.instances = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.hostIps = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.operations = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.kinds = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.components = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.endpoints = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.remoteEndpoints = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+        this.errorCodes = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS, share), capacity);
+    }
+
+    /**
+     * Span 自身的估算字节数 + 写入后字典的增量：新字典条目的开销，或字典已满时逐条存放的原始字符串
+     */
+    @Override
+    public int estimateBytes(TraceSpan span) {
+        long bytes = SpanSizeEstimator.estimate(span)
+                + serviceSymbols.internCost(span.getServiceName())
+                + serviceSymbols.internCost(span.getRemoteService())
+                + instances.symbols().internCost(span.getServiceInstance())
+                + hostIps.symbols().internCost(span.getHostIp())
+                + operations.symbols().internCost(span.getOperationName())
+                + kinds.symbols().internCost(span.getSpanKind())
+                + components.symbols().internCost(span.getComponent())
+                + endpoints.symbols().internCost(span.getEndpoint())
+                + remoteEndpoints.symbols().internCost(span.getRemoteEndpoint())
+                + errorCodes.symbols().internCost(span.getErrorCode())
+                + values.canonicalizeCost(span.getErrorMessage());
+        Map<String, String> source = span.getTags();
+        if (source != null) {
+            for (Map.Entry<String, String> e : source.entrySet()) {
+                bytes += tagKeys.internCost(e.getKey()) + values.canonicalizeCost(e.getValue());
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    /**
+     * 槽位未满即可追加，字节预算由调用方按 {@link #usedBytes()} 控制
+     */
+    @Override
+    public boolean canAppend(int estimatedBytes) {
+        return !isFull();
+    }
+
+    /**
+     * 按列写入一条 Span，调用方之后可继续修改入参对象。仅写入方调用，写满时须先 {@link #evictOldest()}。
+     * 槽位记录 Span 自身估算字节数与字典溢出时持有的原始字符串字节数，淘汰时一并扣除；
+     * 新增字典条目计入字典占用，二者之和不超过 {@link #estimateBytes} 的返回值。
+     */
+    @Override
+    public void append(TraceSpan span, int estimatedBytes) {
+        long seq = nextSeq;
+        if (seq - headSeq >= capacity) {
+            throw new IllegalStateException("环形缓冲已满，需先淘汰最旧 Span");
+        }
+        int slot = index(seq);
+        VERSIONS.setOpaque(versions, slot, EMPTY);
+        VarHandle.storeStoreFence();
+
+        byte f = 0;
+        startTimes[slot] = value(span.getStartTime());
+        f |= span.getStartTime() == null ? START_NULL : 0;
+        endTimes[slot] = value(span.getEndTime());
+        f |= span.getEndTime() == null ? END_NULL : 0;
+        durations[slot] = value(span.getDurationMs());
+        f |= span.getDurationMs() == null ? DURATION_NULL : 0;
+        hostPorts[slot] = span.getHostPort() != null ? span.getHostPort() : 0;
+        f |= span.getHostPort() == null ? PORT_NULL : 0;
+        if (span.getSuccess() != null) {
+            f |= span.getSuccess() ? SUCCESS_TRUE : SUCCESS_FALSE;
+        }
+        flags[slot] = f;
+        setStatus(slot, span.getStatusCode());
+
+        traceIds[slot] = span.getTraceId();
+        spanIds[slot] = span.getSpanId();
+        parentSpanIds[slot] = span.getParentSpanId();
+        errorMessages[slot] = values.canonicalize(span.getErrorMessage());
+        int held = SpanSizeEstimator.estimate(span) + packTags(slot, span.getTags());
+
+        held += services.set(slot, span.getServiceName());
+        held += remoteServices.set(slot, span.getRemoteService());
+        held += instances.set(slot, span.getServiceInstance());
+        held += hostIps.set(slot, span.getHostIp());
+        held += operations.set(slot, span.getOperationName());
+        held += kinds.set(slot, span.getSpanKind());
+        held += components.set(slot, span.getComponent());
+        held += endpoints.set(slot, span.getEndpoint());
+        held += remoteEndpoints.set(slot, span.getRemoteEndpoint());
+        held += errorCodes.set(slot, span.getErrorCode());
+        bytes[slot] = held;
+
+        VERSIONS.setRelease(versions, slot, seq);
+        usedBytes = usedBytes + held;
+        nextSeq = seq + 1;
+    }
+
+    /**
+     * 淘汰最旧一条 Span（其序号为调用前的 {@link #oldestSeq()}），为空时返回 {@code false}。仅写入方调用。
+     */
+    @Override
+    public boolean evictOldest() {
+        long seq = headSeq;
+        if (seq >= nextSeq) {
+            return false;
+        }
+        int slot = index(seq);
+        VERSIONS.setOpaque(versions, slot, EMPTY);
+        VarHandle.storeStoreFence();
+        // 释放大对象引用，字典列只有溢出的原始字符串需要释放
+        traceIds[slot] = null;
+        spanIds[slot] = null;
+        parentSpanIds[slot] = null;
+        errorMessages[slot] = null;
+        tags[slot] = null;
+        String[] others = otherStatuses;
+        if (others != null) {
+            others[slot] = null;
+        }
+        services.clear(slot);
+        remoteServices.clear(slot);
+        instances.clear(slot);
+        hostIps.clear(slot);
+        operations.clear(slot);
+        kinds.clear(slot);
+        components.clear(slot);
+        endpoints.clear(slot);
+        remoteEndpoints.clear(slot);
+        errorCodes.clear(slot);
+        headSeq = seq + 1;
+        usedBytes = usedBytes - bytes[slot];
+        return true;
+    }
+
+    /**
+     * 推进过期水位，之前的 Span 立即对读取方隐藏；物理回收仍由写入方 {@link #evictOldest()} 完成
+     */
+    @Override
+    public void expireBefore(long seq) {
+        if (seq > expiredBefore) {
+            expiredBefore = seq;
+        }
+    }
+
+    @Override
+    public long expiredBefore() {
+        return expiredBefore;
+    }
+
+    /**
+     * 按序号还原完整的 TraceSpan（每次返回新对象），不存在时返回 {@code null}
+     */
+    @Override
+    public TraceSpan get(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        TraceSpan t = materialize(slot);
+        return isStable(slot, seq) ? t : null;
+    }
+
+    @Override
+    public TraceSpan peek(long seq) {
+        return seq >= headSeq && seq < nextSeq ? materialize(index(seq)) : null;
+    }
+
+    private TraceSpan materialize(int slot) {
+        byte f = flags[slot];
+        TraceSpan t = new TraceSpan();
+        t.setTraceId(traceIds[slot]);
+        t.setSpanId(spanIds[slot]);
+        t.setParentSpanId(parentSpanIds[slot]);
+        t.setServiceName(services.get(slot));
+        t.setServiceInstance(instances.get(slot));
+        t.setHostIp(hostIps.get(slot));
+        t.setHostPort((f & PORT_NULL) != 0 ? null : hostPorts[slot]);
+        t.setOperationName(operations.get(slot));
+        t.setSpanKind(kinds.get(slot));
+        t.setComponent(components.get(slot));
+        t.setEndpoint(endpoints.get(slot));
+        t.setStartTime((f & START_NULL) != 0 ? null : startTimes[slot]);
+        t.setEndTime((f & END_NULL) != 0 ? null : endTimes[slot]);
+        t.setDurationMs((f & DURATION_NULL) != 0 ? null : durations[slot]);
+        t.setStatusCode(status(slot));
+        t.setSuccess((f & SUCCESS_TRUE) != 0 ? Boolean.TRUE : (f & SUCCESS_FALSE) != 0 ? Boolean.FALSE : null);
+        t.setErrorCode(errorCodes.get(slot));
+        t.setErrorMessage(errorMessages[slot]);
+        t.setRemoteService(remoteServices.get(slot));
+        t.setRemoteEndpoint(remoteEndpoints.get(slot));
+        String[] kv = tags[slot];
+        if (kv != null) {
+            Map<String, String> m = new HashMap<>(Math.max(4, kv.length));
+            for (int i = 0; i + 1 < kv.length; i += 2) {
+                m.put(kv[i], kv[i + 1]);
+            }
+            t.setTags(m);
+        }
+        return t;
+    }
+
+    /**
+     * startTime 列（null 记为 0），不存在时返回 {@link #MISSING}
+     */
+    @Override
+    public long startTime(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return MISSING;
+        }
+        long v = startTimes[slot];
+        return isStable(slot, seq) ? v : MISSING;
+    }
+
+    /**
+     * traceId 列，不存在时返回 {@code null}
+     */
+    @Override
+    public String traceId(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        String v = traceIds[slot];
+        return isStable(slot, seq) ? v : null;
+    }
+
+    /**
+     * 服务名列，不存在时返回 {@code null}
+     */
+    @Override
+    public String serviceName(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        String v = services.get(slot);
+        return isStable(slot, seq) ? v : null;
+    }
+
+    /**
+     * 最旧一条 Span 的 traceId（含已过期未回收的），为空时返回 {@code null}。仅写入方调用，用于淘汰前清理索引。
+     */
+    @Override
+    public String oldestTraceId() {
+        return isEmpty() ? null : traceIds[index(headSeq)];
+    }
+
+    /**
+     * 最旧一条 Span 的服务名（含已过期未回收的），为空时返回 {@code null}。仅写入方调用，用于淘汰前清理索引。
+     */
+    @Override
+    public String oldestServiceName() {
+        return isEmpty() ? null : services.get(index(headSeq));
+    }
+
+    /**
+     * 最旧一条仍在缓冲内的序号
+     */
+    @Override
+    public long oldestSeq() {
+        return headSeq;
+    }
+
+    @Override
+    public long nextSeq() {
+        return nextSeq;
+    }
+
+    @Override
+    public int size() {
+        return (int) (nextSeq - headSeq);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headSeq >= nextSeq;
+    }
+
+    public boolean isFull() {
+        return nextSeq - headSeq >= capacity;
+    }
+
+    /**
+     * 存活 Span 估算字节数 + 字典与规范化器自身占用
+     */
+    @Override
+    public long usedBytes() {
+        return usedBytes + dictionaryBytes();
+    }
+
+    private long dictionaryBytes() {
+        return serviceSymbols.bytes() + tagKeys.bytes() + values.bytes()
+                + instances.symbols().bytes() + hostIps.symbols().bytes()
+                + operations.symbols().bytes() + kinds.symbols().bytes()
+                + components.symbols().bytes() + endpoints.symbols().bytes()
+                + remoteEndpoints.symbols().bytes() + errorCodes.symbols().bytes()
+                + services.overflowArrayBytes() + remoteServices.overflowArrayBytes()
+                + instances.overflowArrayBytes() + hostIps.overflowArrayBytes()
+                + operations.overflowArrayBytes() + kinds.overflowArrayBytes()
+                + components.overflowArrayBytes() + endpoints.overflowArrayBytes()
+                + remoteEndpoints.overflowArrayBytes() + errorCodes.overflowArrayBytes();
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 字典编码列（服务、接口、组件、标签 key 等）的汇总统计
+     */
+    public DictionaryStats dictionaryStats() {
+        return serviceSymbols.stats().plus(tagKeys.stats())
+                .plus(instances.symbols().stats()).plus(hostIps.symbols().stats())
+                .plus(operations.symbols().stats()).plus(kinds.symbols().stats())
+                .plus(components.symbols().stats()).plus(endpoints.symbols().stats())
+                .plus(remoteEndpoints.symbols().stats()).plus(errorCodes.symbols().stats());
+    }
+
+    /**
+     * tag value / 错误信息规范化器的统计
+     */
+    public DictionaryStats canonicalizerStats() {
+        return values.stats();
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store_type", "HEAP");
+        stats.put("dictionary", dictionaryStats().toMap());
+        stats.put("canonical_values", canonicalizerStats().toMap());
+        return stats;
+    }
+
+    private int slotOf(long seq) {
+        if (seq < headSeq || seq < expiredBefore || seq >= nextSeq) {
+            return -1;
+        }
+        int slot = index(seq);
+        return (long) VERSIONS.getAcquire(versions, slot) == seq ? slot : -1;
+    }
+
+    /**
+     * 读完各列后再次校验版本，期间被淘汰或覆盖则读到的值作废
+     */
+    private boolean isStable(int slot, long seq) {
+        VarHandle.loadLoadFence();
+        return (long) VERSIONS.getAcquire(versions, slot) == seq;
+    }
+
+    private void setStatus(int slot, String statusCode) {
+        if (statusCode == null) {
+            statuses[slot] = STATUS_NULL;
+        } else if ("OK".equals(statusCode)) {
+            statuses[slot] = STATUS_OK;
+        } else if ("ERROR".equals(statusCode)) {
+            statuses[slot] = STATUS_ERROR;
+        } else {
+            String[] others = otherStatuses;
+            if (others == null) {
+                others = new String[capacity];
+                otherStatuses = others;
+            }
+            others[slot] = values.canonicalize(statusCode);
+            statuses[slot] = STATUS_OTHER;
+        }
+    }
+
+    private String status(int slot) {
+        return switch (statuses[slot]) {
+            case STATUS_OK -> "OK";
+            case STATUS_ERROR -> "ERROR";
+            case STATUS_OTHER -> {
+                String[] others = otherStatuses;
+                yield others != null ? others[slot] : null;
+            }
+            default -> null;
+        };
+    }
+
+    /**
+     * 标签压成 [k0, v0, k1, v1, ...] 写入槽位，key 经字典规范化后全局共享同一实例；
+     * 返回字典溢出时按原样存放的 key 字节数
+     */
+    private int packTags(int slot, Map<String, String> source) {
+        if (source == null || source.isEmpty()) {
+            tags[slot] = NO_TAGS;
+            return 0;
+        }
+        String[] kv = new String[source.size() * 2];
+        int i = 0;
+        int raw = 0;
+        for (Map.Entry<String, String> e : source.entrySet()) {
+            String key = e.getKey();
+            int id = tagKeys.intern(key);
+            if (id >= 0) {
+                kv[i++] = tagKeys.symbol(id);
+            } else {
+                kv[i++] = key;
+                raw += key != null ? (int) StringCanonicalizer.retainedBytes(key) : 0;
+            }
+            kv[i++] = values.canonicalize(e.getValue());
+        }
+        tags[slot] = kv;
+        return raw;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % capacity);
+    }
+
+    private static long value(Long v) {
+        return v != null ? v : 0L;
+    }
+}
@@ -0,0 +1,91 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 字典编码列：每个槽位一个 int id，字典满后回退为原始字符串
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 读写一致性由 {@link ColumnarSpanStore} 的槽位版本号保证，本类不做同步。
+ */
+class DictColumn {
+
+    private final SymbolTable symbols;
+    private final int[] ids;
+    /** 字典溢出时才分配 */
+    private volatile String[] raw;
+
+    DictColumn(SymbolTable symbols, int capacity) {
+        this.symbols = symbols;
+        this.ids = new int[capacity];
+    }
+
+    /**
+     * 写入槽位，返回该槽位因字典溢出而单独持有的原始字符串字节数（编码成功时为 0）
+     */
+    int set(int slot, String value) {
+        int id = symbols.intern(value);
+        ids[slot] = id;
+        if (id != SymbolTable.OVERFLOW) {
+            return 0;
+        }
+        String[] r = raw;
+        if (r == null) {
+            r = new String[ids.length];
+            raw = r;
+        }
+        r[slot] = value;
+        return (int) StringCanonicalizer.retainedBytes(value);
+    }
+
+    /**
+     * 槽位单独持有的原始字符串字节数（仅字典溢出时非 0）
+     */
+    int rawBytes(int slot) {
+        if (ids[slot] != SymbolTable.OVERFLOW) {
+            return 0;
+        }
+        String[] r = raw;
+        String value = r != null ? r[slot] : null;
+        return value != null ? (int) StringCanonicalizer.retainedBytes(value) : 0;
+    }
+
+    /**
+     * 溢出后分配的原始字符串引用数组本身的字节数
+     */
+    long overflowArrayBytes() {
+        return raw != null ? SpanSizeEstimator.ARRAY_OVERHEAD + 4L * ids.length : 0;
+    }
+
+    /**
+     * 释放槽位持有的原始字符串（仅字典溢出时存在）
+     */
+    void clear(int slot) {
+        String[] r = raw;
+        if (r != null) {
+            r[slot] = null;
+        }
+    }
+
+    String get(int slot) {
+        int id = ids[slot];
+        if (id == SymbolTable.OVERFLOW) {
+            String[] r = raw;
+            return r != null ? r[slot] : null;
+        }
+        return symbols.symbol(id);
+    }
+
+    int id(int slot) {
+        return ids[slot];
+    }
+
+    SymbolTable symbols() {
+        return symbols;
+    }
+}
@@ -0,0 +1,38 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 字典 / 规范化器统计：条目数、查询次数、命中次数、节省的字符串字节数、字典自身占用
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ */
+public record DictionaryStats(long entries, long lookups, long hits, long savedBytes, long retainedBytes) {
+
+    public DictionaryStats plus(DictionaryStats other) {
+        return new DictionaryStats(entries + other.entries, lookups + other.lookups,
+                hits + other.hits, savedBytes + other.savedBytes, retainedBytes + other.retainedBytes);
+    }
+
+    public double hitRatio() {
+        return lookups > 0 ? Math.round(hits * 10000.0 / lookups) / 100.0 : 0.0;
+    }
+
+    public Map<String, Object> toMap() {
+        Map<String, Object> m = new LinkedHashMap<>();
+        m.put("entries", entries);
+        m.put("lookups", lookups);
+        m.put("hits", hits);
+        m.put("hit_ratio", hitRatio());
+        m.put("saved_bytes", savedBytes);
+        m.put("retained_bytes", retainedBytes);
+        return m;
+    }
+}
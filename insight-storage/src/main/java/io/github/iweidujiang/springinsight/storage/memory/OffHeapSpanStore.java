@@ -0,0 +1,349 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.lang.invoke.MethodHandles;
+import java.lang.invoke.VarHandle;
+import java.nio.ByteBuffer;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 堆外 Span 环形存储（单写多读）
+ * │    Span 按 {@link SpanCodec} 编码后顺序写入固定大小的堆外字节环（direct ByteBuffer 分块，按需分配），
+ * │    堆内只保留定长索引：版本号、记录偏移 / 长度、startTime、服务名字典 id；
+ * │    GC 不再追踪 Span 的字符串与标签，适合很长的保留窗口
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 字节环：写入位置为单调递增的逻辑偏移，物理位置 = 逻辑偏移 % 环大小；
+ * 单条记录不跨块，块尾放不下时跳到下一块开头。存活字节区间为 [最旧记录偏移, 写入位置)，
+ * 追加前须保证新记录不会覆盖存活区间（{@link #canAppend(int)}），否则先淘汰最旧。
+ * <p>
+ * 读取：时间与服务名扫描只读堆内索引；{@link #get(long)} 才解码对应记录，
+ * 只触达最终返回的 Span。并发与 {@link ColumnarSpanStore} 相同按 seqlock 校验版本号，
+ * 解码期间记录被覆盖时丢弃结果（越界长度由解码器拦截）。
+ * <p>
+ * 堆外内存计入 {@code -XX:MaxDirectMemorySize}（默认与 -Xmx 相同），环大小须在其之内。
+ */
+public class OffHeapSpanStore implements SpanStore {
+
+    /** 默认分块大小；环小于该值时只有一块 */
+    public static final int DEFAULT_CHUNK_BYTES = 32 * 1024 * 1024;
+
+    private static final VarHandle VERSIONS = MethodHandles.arrayElementVarHandle(long[].class);
+    private static final long EMPTY = -1L;
+
+    private final int capacity;
+    private final int chunkBytes;
+    private final ByteBuffer[] chunks;
+    private final long ringBytes;
+    private final SpanCodec codec = new SpanCodec();
+
+    private final long[] versions;
+    private final long[] offsets;
+    private final int[] lengths;
+    private final long[] startTimes;
+    private final DictColumn services;
+
+    private volatile long nextSeq;
+    private volatile long headSeq;
+    private volatile long expiredBefore;
+    /** 下一条记录的逻辑写入位置 */
+    private volatile long writePos;
+    /** 最旧存活记录的逻辑偏移，为空时等于 writePos */
+    private volatile long headPos;
+    /** 服务名字典溢出后堆内逐条存放的原始字符串字节数 */
+    private volatile long overflowBytes;
+
+    public OffHeapSpanStore(int capacity, long arenaBytes) {
+        this(capacity, arenaBytes, DEFAULT_CHUNK_BYTES);
+    }
+
+    public OffHeapSpanStore(int capacity, long arenaBytes, int chunkBytes) {
+        if (capacity <= 0) {
+            throw new IllegalArgumentException("环形缓冲容量必须大于 0: " + capacity);
+        }
+        if (arenaBytes <= 0 || chunkBytes <= 0) {
+            throw new IllegalArgumentException("堆外字节环大小必须大于 0: " + arenaBytes);
+        }
+        this.capacity = capacity;
+        this.chunkBytes = (int) Math.min(chunkBytes, arenaBytes);
+        int chunkCount = (int) ((arenaBytes + this.chunkBytes - 1) / this.chunkBytes);
+        this.chunks = new ByteBuffer[chunkCount];
+        this.ringBytes = (long) chunkCount * this.chunkBytes;
+        this.versions = new long[capacity];
+        Arrays.fill(versions, EMPTY);
+        this.offsets = new long[capacity];
+        this.lengths = new int[capacity];
+        this.startTimes = new long[capacity];
+        this.services = new DictColumn(new SymbolTable(SymbolTable.DEFAULT_MAX_SYMBOLS,
+                Math.min(SymbolTable.DEFAULT_MAX_BYTES, Math.max(1, arenaBytes / 8))), capacity);
+    }
+
+    /**
+     * 编码后的记录字节数；编码结果暂存，紧接着的 {@link #append} 直接复用
+     */
+    @Override
+    public int estimateBytes(TraceSpan span) {
+        return codec.encode(span, chunkBytes);
+    }
+
+    /**
+     * 槽位未满，且新记录（含块尾跳过的空隙）不会覆盖最旧存活记录
+     */
+    @Override
+    public boolean canAppend(int estimatedBytes) {
+        if (nextSeq - headSeq >= capacity) {
+            return false;
+        }
+        long start = placement(writePos, estimatedBytes);
+        return start + estimatedBytes - headPos <= ringBytes;
+    }
+
+    @Override
+    public void append(TraceSpan span, int estimatedBytes) {
+        long seq = nextSeq;
+        int length = codec.encode(span, chunkBytes);
+        if (!canAppend(length)) {
+            throw new IllegalStateException("堆外字节环已满，需先淘汰最旧 Span");
+        }
+        int slot = index(seq);
+        VERSIONS.setOpaque(versions, slot, EMPTY);
+        VarHandle.storeStoreFence();
+
+        long start = placement(writePos, length);
+        codec.copyTo(allocatedChunk(start), (int) (start % chunkBytes));
+        codec.reset();
+        offsets[slot] = start;
+        lengths[slot] = length;
+        startTimes[slot] = span.getStartTime() != null ? span.getStartTime() : 0L;
+        int raw = services.set(slot, span.getServiceName());
+        if (raw > 0) {
+            overflowBytes = overflowBytes + raw;
+        }
+
+        VERSIONS.setRelease(versions, slot, seq);
+        if (seq == headSeq) {
+            headPos = start;
+        }
+        writePos = start + length;
+        nextSeq = seq + 1;
+    }
+
+    @Override
+    public boolean evictOldest() {
+        long seq = headSeq;
+        if (seq >= nextSeq) {
+            return false;
+        }
+        int slot = index(seq);
+        VERSIONS.setOpaque(versions, slot, EMPTY);
+        VarHandle.storeStoreFence();
+        int raw = services.rawBytes(slot);
+        if (raw > 0) {
+            overflowBytes = overflowBytes - raw;
+        }
+        services.clear(slot);
+        long next = seq + 1;
+        headPos = next < nextSeq ? offsets[index(next)] : writePos;
+        headSeq = next;
+        return true;
+    }
+
+    /**
+     * 从字节环解码最旧记录的 traceId（写入方调用，记录不会并发被覆盖）
+     */
+    @Override
+    public String oldestTraceId() {
+        if (isEmpty()) {
+            return null;
+        }
+        int slot = index(headSeq);
+        long offset = offsets[slot];
+        return SpanCodec.decodeTraceId(chunk(offset), (int) (offset % chunkBytes), lengths[slot]);
+    }
+
+    @Override
+    public String oldestServiceName() {
+        return isEmpty() ? null : services.get(index(headSeq));
+    }
+
+    @Override
+    public void expireBefore(long seq) {
+        if (seq > expiredBefore) {
+            expiredBefore = seq;
+        }
+    }
+
+    @Override
+    public long expiredBefore() {
+        return expiredBefore;
+    }
+
+    @Override
+    public TraceSpan get(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        try {
+            long offset = offsets[slot];
+            TraceSpan t = SpanCodec.decode(chunk(offset), (int) (offset % chunkBytes), lengths[slot]);
+            return isStable(slot, seq) ? t : null;
+        } catch (RuntimeException e) {
+            if (isStable(slot, seq)) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public TraceSpan peek(long seq) {
+        if (seq < headSeq || seq >= nextSeq) {
+            return null;
+        }
+        int slot = index(seq);
+        long offset = offsets[slot];
+        return SpanCodec.decode(chunk(offset), (int) (offset % chunkBytes), lengths[slot]);
+    }
+
+    @Override
+    public long startTime(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return MISSING;
+        }
+        long v = startTimes[slot];
+        return isStable(slot, seq) ? v : MISSING;
+    }
+
+    @Override
+    public String traceId(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        try {
+            long offset = offsets[slot];
+            String v = SpanCodec.decodeTraceId(chunk(offset), (int) (offset % chunkBytes), lengths[slot]);
+            return isStable(slot, seq) ? v : null;
+        } catch (RuntimeException e) {
+            if (isStable(slot, seq)) {
+                throw e;
+            }
+            return null;
+        }
+    }
+
+    @Override
+    public String serviceName(long seq) {
+        int slot = slotOf(seq);
+        if (slot < 0) {
+            return null;
+        }
+        String v = services.get(slot);
+        return isStable(slot, seq) ? v : null;
+    }
+
+    @Override
+    public long oldestSeq() {
+        return headSeq;
+    }
+
+    @Override
+    public long nextSeq() {
+        return nextSeq;
+    }
+
+    @Override
+    public int size() {
+        return (int) (nextSeq - headSeq);
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return headSeq >= nextSeq;
+    }
+
+    @Override
+    public int capacity() {
+        return capacity;
+    }
+
+    /**
+     * 字节环中存活区间的长度（含块尾空隙）+ 堆内服务名字典及溢出原始字符串的占用
+     */
+    @Override
+    public long usedBytes() {
+        return writePos - headPos + services.symbols().bytes() + overflowBytes + services.overflowArrayBytes();
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        int allocated = 0;
+        for (ByteBuffer c : chunks) {
+            allocated += c != null ? 1 : 0;
+        }
+        Map<String, Object> stats = new LinkedHashMap<>();
+        stats.put("store_type", "OFF_HEAP");
+        stats.put("arena_bytes", ringBytes);
+        stats.put("allocated_bytes", (long) allocated * chunkBytes);
+        stats.put("chunk_bytes", chunkBytes);
+        stats.put("dictionary", services.symbols().stats().toMap());
+        return stats;
+    }
+
+    /**
+     * 记录起始位置：当前块剩余空间放不下时跳到下一块开头
+     */
+    private long placement(long pos, int length) {
+        long inChunk = pos % chunkBytes;
+        return inChunk + length > chunkBytes ? pos + (chunkBytes - inChunk) : pos;
+    }
+
+    /**
+     * 逻辑偏移所在的块；块引用先于版本号发布，校验通过的记录所在块必然可见
+     */
+    private ByteBuffer chunk(long pos) {
+        return chunks[(int) ((pos / chunkBytes) % chunks.length)];
+    }
+
+    /**
+     * 写入方取块，首次写入时分配
+     */
+    private ByteBuffer allocatedChunk(long pos) {
+        int i = (int) ((pos / chunkBytes) % chunks.length);
+        ByteBuffer c = chunks[i];
+        if (c == null) {
+            c = ByteBuffer.allocateDirect(chunkBytes);
+            chunks[i] = c;
+        }
+        return c;
+    }
+
+    private int slotOf(long seq) {
+        if (seq < headSeq || seq < expiredBefore || seq >= nextSeq) {
+            return -1;
+        }
+        int slot = index(seq);
+        return (long) VERSIONS.getAcquire(versions, slot) == seq ? slot : -1;
+    }
+
+    private boolean isStable(int slot, long seq) {
+        VarHandle.loadLoadFence();
+        return (long) VERSIONS.getAcquire(versions, slot) == seq;
+    }
+
+    private int index(long seq) {
+        return (int) (seq % capacity);
+    }
+}
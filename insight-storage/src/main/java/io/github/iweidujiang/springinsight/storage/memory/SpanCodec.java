@@ -0,0 +1,308 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.io.ByteArrayOutputStream;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.charset.StandardCharsets;
+import java.util.Arrays;
+import java.util.HashMap;
+import java.util.Map;
+import java.util.zip.Checksum;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 Span 二进制编解码（堆外存储、落盘日志与压缩冷段共用的记录格式）
+ * │    [标志位 1B][startTime 8B][endTime 8B][durationMs 8B][hostPort 4B]
+ * │    [traceId][spanId][parentSpanId][serviceName]...[remoteEndpoint]
+ * │    [标签数 4B][k0][v0][k1][v1]...
+ * │    字符串 = [长度 4B，-1 表示 null][UTF-8 字节]
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 编码器持有可复用的暂存区，仅写入方使用；解码为静态方法，只用绝对位置读取，
+ * 多个读取线程可共享同一个 ByteBuffer。解码时校验每个长度不越出记录边界，
+ * 记录在读取期间被覆盖时抛出 {@link IllegalStateException}，由调用方按版本号判定作废。
+ */
+public final class SpanCodec {
+
+    /** traceId 在记录内的偏移：紧随定长头部 */
+    static final int TRACE_ID_OFFSET = 1 + 8 + 8 + 8 + 4;
+
+    private static final byte START_NULL = 1;
+    private static final byte END_NULL = 1 << 1;
+    private static final byte DURATION_NULL = 1 << 2;
+    private static final byte PORT_NULL = 1 << 3;
+    private static final byte SUCCESS_TRUE = 1 << 4;
+    private static final byte SUCCESS_FALSE = 1 << 5;
+
+    /** 超长记录降级时错误信息保留的字符数 */
+    private static final int TRUNCATED_MESSAGE_CHARS = 1024;
+
+    private byte[] buf = new byte[512];
+    private int length;
+    private TraceSpan encoded;
+
+    /**
+     * 编码到暂存区并返回字节数；超出 {@code maxLength} 时依次丢弃标签、截断错误信息，
+     * 仍放不下则抛出 {@link IllegalArgumentException}
+     */
+    public int encode(TraceSpan span, int maxLength) {
+        if (span == encoded) {
+            return length;
+        }
+        encoded = null;
+        length = write(span, span.getTags(), span.getErrorMessage());
+        if (length > maxLength) {
+            String message = span.getErrorMessage();
+            if (message != null && message.length() > TRUNCATED_MESSAGE_CHARS) {
+                message = message.substring(0, TRUNCATED_MESSAGE_CHARS);
+            }
+            length = write(span, null, message);
+            if (length > maxLength) {
+                throw new IllegalArgumentException("Span 编码后 " + length + " 字节，超出单条记录上限 " + maxLength);
+            }
+        }
+        encoded = span;
+        return length;
+    }
+
+    /**
+     * 把最近一次编码的结果写入目标缓冲的绝对位置
+     */
+    public void copyTo(ByteBuffer target, int index) {
+        target.put(index, buf, 0, length);
+    }
+
+    /**
+     * 把最近一次编码的结果追加到输出流
+     */
+    public void writeTo(ByteArrayOutputStream out) {
+        out.write(buf, 0, length);
+    }
+
+    /**
+     * 把最近一次编码的结果写入数据输出（快照文件）
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        out.write(buf, 0, length);
+    }
+
+    /**
+     * 用最近一次编码的结果更新校验和
+     */
+    public void updateChecksum(Checksum checksum) {
+        checksum.update(buf, 0, length);
+    }
+
+    /**
+     * 暂存区对应的 Span 可能随后被调用方修改，写入后即失效
+     */
+    public void reset() {
+        encoded = null;
+    }
+
+    private int write(TraceSpan span, Map<String, String> tags, String errorMessage) {
+        int pos = 0;
+        byte f = 0;
+        f |= span.getStartTime() == null ? START_NULL : 0;
+        f |= span.getEndTime() == null ? END_NULL : 0;
+        f |= span.getDurationMs() == null ? DURATION_NULL : 0;
+        f |= span.getHostPort() == null ? PORT_NULL : 0;
+        if (span.getSuccess() != null) {
+            f |= span.getSuccess() ? SUCCESS_TRUE : SUCCESS_FALSE;
+        }
+        ensure(TRACE_ID_OFFSET);
+        buf[pos++] = f;
+        pos = putLong(pos, value(span.getStartTime()));
+        pos = putLong(pos, value(span.getEndTime()));
+        pos = putLong(pos, value(span.getDurationMs()));
+        pos = putInt(pos, span.getHostPort() != null ? span.getHostPort() : 0);
+
+        pos = putString(pos, span.getTraceId());
+        pos = putString(pos, span.getSpanId());
+        pos = putString(pos, span.getParentSpanId());
+        pos = putString(pos, span.getServiceName());
+        pos = putString(pos, span.getServiceInstance());
+        pos = putString(pos, span.getHostIp());
+        pos = putString(pos, span.getOperationName());
+        pos = putString(pos, span.getSpanKind());
+        pos = putString(pos, span.getComponent());
+        pos = putString(pos, span.getEndpoint());
+        pos = putString(pos, span.getStatusCode());
+        pos = putString(pos, span.getErrorCode());
+        pos = putString(pos, errorMessage);
+        pos = putString(pos, span.getRemoteService());
+        pos = putString(pos, span.getRemoteEndpoint());
+
+        int count = tags != null ? tags.size() : 0;
+        ensure(pos + 4);
+        pos = putInt(pos, count);
+        if (count > 0) {
+            for (Map.Entry<String, String> e : tags.entrySet()) {
+                pos = putString(pos, e.getKey());
+                pos = putString(pos, e.getValue());
+            }
+        }
+        return pos;
+    }
+
+    /**
+     * 从 {@code source} 的 [offset, offset + length) 解码完整 Span
+     */
+    public static TraceSpan decode(ByteBuffer source, int offset, int length) {
+        Reader r = new Reader(source, offset, length);
+        byte f = r.getByte();
+        long startTime = r.getLong();
+        long endTime = r.getLong();
+        long duration = r.getLong();
+        int hostPort = r.getInt();
+
+        TraceSpan t = new TraceSpan();
+        t.setTraceId(r.getString());
+        t.setSpanId(r.getString());
+        t.setParentSpanId(r.getString());
+        t.setServiceName(r.getString());
+        t.setServiceInstance(r.getString());
+        t.setHostIp(r.getString());
+        t.setOperationName(r.getString());
+        t.setSpanKind(r.getString());
+        t.setComponent(r.getString());
+        t.setEndpoint(r.getString());
+        t.setStatusCode(r.getString());
+        t.setErrorCode(r.getString());
+        t.setErrorMessage(r.getString());
+        t.setRemoteService(r.getString());
+        t.setRemoteEndpoint(r.getString());
+        t.setStartTime((f & START_NULL) != 0 ? null : startTime);
+        t.setEndTime((f & END_NULL) != 0 ? null : endTime);
+        t.setDurationMs((f & DURATION_NULL) != 0 ? null : duration);
+        t.setHostPort((f & PORT_NULL) != 0 ? null : hostPort);
+        t.setSuccess((f & SUCCESS_TRUE) != 0 ? Boolean.TRUE : (f & SUCCESS_FALSE) != 0 ? Boolean.FALSE : null);
+
+        int count = r.getInt();
+        if (count < 0 || count > r.remaining() / 8) {
+            throw new IllegalStateException("标签数越界: " + count);
+        }
+        Map<String, String> tags = new HashMap<>(Math.max(4, count * 2));
+        for (int i = 0; i < count; i++) {
+            tags.put(r.getString(), r.getString());
+        }
+        t.setTags(tags);
+        return t;
+    }
+
+    /**
+     * 只解码 traceId，不触达记录其余部分
+     */
+    public static String decodeTraceId(ByteBuffer source, int offset, int length) {
+        Reader r = new Reader(source, offset, length);
+        r.skip(TRACE_ID_OFFSET);
+        return r.getString();
+    }
+
+    private void ensure(int capacity) {
+        if (capacity > buf.length) {
+            buf = Arrays.copyOf(buf, Math.max(capacity, buf.length * 2));
+        }
+    }
+
+    private int putLong(int pos, long v) {
+        for (int shift = 56; shift >= 0; shift -= 8) {
+            buf[pos++] = (byte) (v >>> shift);
+        }
+        return pos;
+    }
+
+    private int putInt(int pos, int v) {
+        buf[pos++] = (byte) (v >>> 24);
+        buf[pos++] = (byte) (v >>> 16);
+        buf[pos++] = (byte) (v >>> 8);
+        buf[pos++] = (byte) v;
+        return pos;
+    }
+
+    private int putString(int pos, String s) {
+        if (s == null) {
+            ensure(pos + 4);
+            return putInt(pos, -1);
+        }
+        byte[] bytes = s.getBytes(StandardCharsets.UTF_8);
+        ensure(pos + 4 + bytes.length);
+        pos = putInt(pos, bytes.length);
+        System.arraycopy(bytes, 0, buf, pos, bytes.length);
+        return pos + bytes.length;
+    }
+
+    private static long value(Long v) {
+        return v != null ? v : 0L;
+    }
+
+    /**
+     * 记录范围内的绝对位置读取器（ByteBuffer 默认大端序，与编码一致）
+     */
+    private static final class Reader {
+        private final ByteBuffer source;
+        private final int limit;
+        private int pos;
+
+        Reader(ByteBuffer source, int offset, int length) {
+            this.source = source;
+            this.pos = offset;
+            this.limit = offset + length;
+        }
+
+        int remaining() {
+            return limit - pos;
+        }
+
+        void skip(int n) {
+            check(n);
+            pos += n;
+        }
+
+        byte getByte() {
+            check(1);
+            return source.get(pos++);
+        }
+
+        int getInt() {
+            check(4);
+            int v = source.getInt(pos);
+            pos += 4;
+            return v;
+        }
+
+        long getLong() {
+            check(8);
+            long v = source.getLong(pos);
+            pos += 8;
+            return v;
+        }
+
+        String getString() {
+            int n = getInt();
+            if (n < 0) {
+                return null;
+            }
+            check(n);
+            byte[] bytes = new byte[n];
+            source.get(pos, bytes);
+            pos += n;
+            return new String(bytes, StandardCharsets.UTF_8);
+        }
+
+        private void check(int n) {
+            if (n < 0 || n > limit - pos) {
+                throw new IllegalStateException("记录越界: 需要 " + n + " 字节，剩余 " + (limit - pos));
+            }
+        }
+    }
+}
@@ -0,0 +1,55 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 Span 在列式存储中的堆内占用估算（64 位 JVM、压缩指针）
+ * │    固定部分：每个槽位各列的定长字节（时间、状态、字典 id、引用）；
+ * │    可变部分：traceId / spanId / parentSpanId / errorMessage 字符串，
+ * │    以及标签区（数组 + value 字符串，key 由字典共享不计）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 字符按 2 字节计（不区分 Latin-1 紧凑字符串），对纯 ASCII 内容偏高，
+ * 作为内存预算的上界估计更安全；只读长度，不逐字符扫描。
+ * 字典编码列的字符串全局只存一份，不计入单条 Span；字典溢出后逐条存放的原始字符串
+ * 由 {@link ColumnarSpanStore} 另行计入该条 Span 的槽位字节数。
+ */
+public final class SpanSizeEstimator {
+
+    /** 版本号 + 3 个 long + 端口 + 状态 / 标志位 + 字节数 + 10 个字典 id + 5 个引用 */
+    static final int FIXED_BYTES = 104;
+    static final int STRING_OVERHEAD = 40;
+    static final int ARRAY_OVERHEAD = 16;
+
+    private SpanSizeEstimator() {
+    }
+
+    public static int estimate(TraceSpan span) {
+        long bytes = FIXED_BYTES;
+        bytes += string(span.getTraceId());
+        bytes += string(span.getSpanId());
+        bytes += string(span.getParentSpanId());
+        bytes += string(span.getErrorMessage());
+        Map<String, String> tags = span.getTags();
+        if (tags != null && !tags.isEmpty()) {
+            bytes += ARRAY_OVERHEAD + 8L * tags.size();
+            for (String value : tags.values()) {
+                bytes += string(value);
+            }
+        }
+        return (int) Math.min(Integer.MAX_VALUE, bytes);
+    }
+
+    private static long string(String s) {
+        return s == null ? 0 : STRING_OVERHEAD + 2L * s.length();
+    }
+}
@@ -0,0 +1,101 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 Span 环形存储抽象：按单调递增的 seq 追加、从最旧淘汰、按 seq 读取
+ * │    实现：{@link ColumnarSpanStore}（堆内列式）、{@link OffHeapSpanStore}（堆外字节环）、
+ * │    {@link TieredSpanStore}（热区 + 压缩冷段）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：append / evictOldest / oldest* / peek / estimateBytes / canAppend 仅由唯一写入方调用；
+ * 读取方法无需加锁，序号已淘汰、已过期或读取期间被覆盖时返回 {@code null} / {@link #MISSING}。
+ * 存活区间为 [oldestSeq, nextSeq)，过期水位之前的序号对读取方立即不可见。
+ */
+public interface SpanStore {
+
+    /** 序号不存在时数值列访问的返回值 */
+    long MISSING = Long.MIN_VALUE;
+
+    /**
+     * 该 Span 计入 {@link #usedBytes()} 的估算字节数（仅写入方调用）
+     */
+    int estimateBytes(TraceSpan span);
+
+    /**
+     * 是否还有空间追加一条占 {@code estimatedBytes} 的 Span，否则须先 {@link #evictOldest()}
+     */
+    boolean canAppend(int estimatedBytes);
+
+    /**
+     * 追加一条 Span，调用方之后可继续修改入参对象
+     */
+    void append(TraceSpan span, int estimatedBytes);
+
+    /**
+     * 淘汰最旧一条 Span（其序号为调用前的 {@link #oldestSeq()}），为空时返回 {@code false}
+     */
+    boolean evictOldest();
+
+    /**
+     * 最旧一条 Span 的 traceId（含已过期未回收的），用于淘汰前清理索引
+     */
+    String oldestTraceId();
+
+    /**
+     * 最旧一条 Span 的服务名（含已过期未回收的），用于淘汰前清理索引
+     */
+    String oldestServiceName();
+
+    /**
+     * 按序号还原 Span，含已过期未回收的（仅写入方调用），不在缓冲内时返回 {@code null}
+     */
+    TraceSpan peek(long seq);
+
+    /**
+     * 推进过期水位（只增不减），可由任意单一线程调用
+     */
+    void expireBefore(long seq);
+
+    long expiredBefore();
+
+    /**
+     * 按序号还原完整的 TraceSpan（每次返回新对象）
+     */
+    TraceSpan get(long seq);
+
+    /**
+     * startTime（null 记为 0）
+     */
+    long startTime(long seq);
+
+    String traceId(long seq);
+
+    String serviceName(long seq);
+
+    long oldestSeq();
+
+    long nextSeq();
+
+    int size();
+
+    boolean isEmpty();
+
+    int capacity();
+
+    long usedBytes();
+
+    /**
+     * 实现相关的占用与字典统计
+     */
+    Map<String, Object> stats();
+}
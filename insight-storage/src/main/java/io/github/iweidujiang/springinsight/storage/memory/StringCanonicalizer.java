@@ -0,0 +1,112 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 有界并发字符串规范化器
+ * │    相同内容的字符串只保留首个实例（如 tag value "GET"、"200"、重复的错误信息），
+ * │    JSON 反序列化得到的重复字符串在写入时即被替换，原实例随请求对象回收
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 线程安全，可由多个线程同时调用。条目数、估算字节数与单个字符串长度均有上限：
+ * 表满或字符串过长时原样返回，不再登记，避免高基数值（SQL、ID）撑大字典；
+ * 已登记条目的占用由 {@link #bytes()} 给出，计入所属存储的 usedBytes。
+ */
+public class StringCanonicalizer {
+
+    public static final int DEFAULT_MAX_ENTRIES = 1 << 16;
+    public static final int DEFAULT_MAX_LENGTH = 128;
+    public static final long DEFAULT_MAX_BYTES = 1L << 20;
+
+    private static final int STRING_OVERHEAD = 40;
+    /** 每个条目除字符串本身外的开销：哈希表节点 */
+    private static final int ENTRY_OVERHEAD = 48;
+
+    private final int maxEntries;
+    private final int maxLength;
+    private final long maxBytes;
+    private final ConcurrentHashMap<String, String> canonical = new ConcurrentHashMap<>();
+    private final AtomicInteger size = new AtomicInteger();
+    private final AtomicLong bytes = new AtomicLong();
+    private final LongAdder lookups = new LongAdder();
+    private final LongAdder hits = new LongAdder();
+    private final LongAdder savedBytes = new LongAdder();
+
+    public StringCanonicalizer() {
+        this(DEFAULT_MAX_ENTRIES, DEFAULT_MAX_LENGTH, DEFAULT_MAX_BYTES);
+    }
+
+    public StringCanonicalizer(int maxEntries, int maxLength, long maxBytes) {
+        this.maxEntries = maxEntries;
+        this.maxLength = maxLength;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 返回与 {@code value} 内容相同的规范实例；未登记且表已满时返回原值
+     */
+    public String canonicalize(String value) {
+        if (value == null || value.length() > maxLength) {
+            return value;
+        }
+        lookups.increment();
+        String existing = canonical.get(value);
+        if (existing != null) {
+            hits.increment();
+            if (existing != value) {
+                savedBytes.add(retainedBytes(value));
+            }
+            return existing;
+        }
+        long cost = retainedBytes(value) + ENTRY_OVERHEAD;
+        if (size.get() >= maxEntries || bytes.get() + cost > maxBytes) {
+            return value;
+        }
+        existing = canonical.putIfAbsent(value, value);
+        if (existing == null) {
+            size.incrementAndGet();
+            bytes.addAndGet(cost);
+            return value;
+        }
+        return existing;
+    }
+
+    /**
+     * 规范化 {@code value} 将新增的登记字节数：已登记、过长或表已满时为 0
+     */
+    long canonicalizeCost(String value) {
+        if (value == null || value.length() > maxLength || canonical.containsKey(value)) {
+            return 0;
+        }
+        long cost = retainedBytes(value) + ENTRY_OVERHEAD;
+        return size.get() >= maxEntries || bytes.get() + cost > maxBytes ? 0 : cost;
+    }
+
+    /**
+     * 已登记条目的估算堆占用（字符串 + 条目开销）
+     */
+    public long bytes() {
+        return bytes.get();
+    }
+
+    public DictionaryStats stats() {
+        return new DictionaryStats(size.get(), lookups.sum(), hits.sum(), savedBytes.sum(), bytes.get());
+    }
+
+    /**
+     * 单个字符串的估算堆占用：String 对象 + byte[]，按每字符 2 字节计
+     */
+    static long retainedBytes(String value) {
+        return STRING_OVERHEAD + 2L * value.length();
+    }
+}
@@ -0,0 +1,129 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 字符串字典（String ↔ int id），用于列式存储的字典编码列
+ * │    服务名、接口名、组件等低基数字段每条 Span 只存 4 字节 id，
+ * │    同一字符串在堆上只保留一份
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：intern 由唯一写入方调用；先写入符号数组再发布 id，读取方拿到的 id 必然可解析。
+ * 条目只增不减，条目数或估算字节数（{@link #bytes()}，计入所属存储的 usedBytes）达到上限后
+ * intern 返回 {@link #OVERFLOW}，由调用方改存原始字符串，高基数值不会让字典越过预算。
+ * 命中计数与节省字节数同样只由写入方累加。
+ */
+public class SymbolTable {
+
+    /** null 值 */
+    public static final int NULL_ID = -1;
+    /** 字典已满，未编码 */
+    public static final int OVERFLOW = -2;
+
+    public static final int DEFAULT_MAX_SYMBOLS = 1 << 16;
+    public static final long DEFAULT_MAX_BYTES = 1L << 20;
+
+    /** 每个条目除字符串本身外的开销：哈希表节点 + Integer + 符号数组槽位 */
+    static final int ENTRY_OVERHEAD = 64;
+
+    private final int maxSymbols;
+    private final long maxBytes;
+    private final Map<String, Integer> ids = new ConcurrentHashMap<>();
+    private volatile String[] symbols = new String[16];
+    private volatile int size;
+    private volatile long bytes;
+
+    private volatile long lookups;
+    private volatile long hits;
+    private volatile long savedBytes;
+
+    public SymbolTable() {
+        this(DEFAULT_MAX_SYMBOLS, DEFAULT_MAX_BYTES);
+    }
+
+    public SymbolTable(int maxSymbols, long maxBytes) {
+        this.maxSymbols = maxSymbols;
+        this.maxBytes = maxBytes;
+    }
+
+    /**
+     * 返回字符串的 id，不存在时登记（仅写入方调用）
+     */
+    public int intern(String value) {
+        if (value == null) {
+            return NULL_ID;
+        }
+        lookups = lookups + 1;
+        Integer id = ids.get(value);
+        if (id != null) {
+            hits = hits + 1;
+            if (symbols[id] != value) {
+                savedBytes = savedBytes + StringCanonicalizer.retainedBytes(value);
+            }
+            return id;
+        }
+        int next = size;
+        long cost = StringCanonicalizer.retainedBytes(value) + ENTRY_OVERHEAD;
+        if (next >= maxSymbols || bytes + cost > maxBytes) {
+            return OVERFLOW;
+        }
+        String[] current = symbols;
+        if (next == current.length) {
+            current = Arrays.copyOf(current, Math.min(maxSymbols, current.length * 2));
+        }
+        current[next] = value;
+        symbols = current;
+        size = next + 1;
+        bytes = bytes + cost;
+        ids.put(value, next);
+        return next;
+    }
+
+    /**
+     * 登记 {@code value} 将增加的估算字节数（仅写入方调用）：已登记为 0；
+     * 字典放得下时为新条目开销，否则为调用方逐条存放的原始字符串
+     */
+    long internCost(String value) {
+        if (value == null || ids.containsKey(value)) {
+            return 0;
+        }
+        long string = StringCanonicalizer.retainedBytes(value);
+        return size >= maxSymbols || bytes + string + ENTRY_OVERHEAD > maxBytes ? string : string + ENTRY_OVERHEAD;
+    }
+
+    /**
+     * 查找已登记的 id，不存在时返回 {@link #NULL_ID}
+     */
+    public int find(String value) {
+        Integer id = value != null ? ids.get(value) : null;
+        return id != null ? id : NULL_ID;
+    }
+
+    public String symbol(int id) {
+        return id >= 0 ? symbols[id] : null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * 字典自身的估算堆占用（字符串 + 条目开销）
+     */
+    public long bytes() {
+        return bytes;
+    }
+
+    public DictionaryStats stats() {
+        return new DictionaryStats(size, lookups, hits, savedBytes, bytes);
+    }
+}
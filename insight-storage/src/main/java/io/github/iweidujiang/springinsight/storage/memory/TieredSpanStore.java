@@ -0,0 +1,367 @@
+package io.github.iweidujiang.springinsight.storage.memory;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.atomic.AtomicReferenceArray;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 冷热分层 Span 存储
+ * │    热区为任一 {@link SpanStore}（最新的 Span，未压缩）；热区最旧的一段按写入时间
+ * │    超龄（{@link #sealBefore}）、热区槽位写满或热区占去过半字节预算（{@link #canAppend}）时封存为 {@link ColdSegment}，
+ * │    以差分时间戳 + 服务名字典 + Deflate 压缩常驻堆内，约为热区占用的十分之一
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 序号连续：冷段依次覆盖 [coldHead, 热区最旧序号)，热区覆盖其后直到 nextSeq，
+ * 淘汰始终从全局最旧（冷段头部）开始，与各索引的先进先出约定一致；冷段字节按头段中存活条数折算，
+ * 调用方逐条淘汰时占用随之下降，达到预算即停，不会为释放整段而一次清理上千条。
+ * <p>
+ * 读取：先查热区，不在热区时二分定位冷段并整块解压；只有被访问到的冷段才解压，
+ * 最近解压的若干段按段号直接映射缓存，供同一查询内的后续序号复用。
+ * 写入方逐条淘汰时读取的头段另存一份私有解压结果，不经共享缓存，读取方的查询不会把它挤出。
+ * 封存时先发布冷段再从热区淘汰，读取方任一时刻都能在两者之一找到存活的序号。
+ */
+public class TieredSpanStore implements SpanStore {
+
+    /** 单个冷段最多容纳的 Span 数 */
+    public static final int SEAL_MAX_SPANS = 4096;
+    /** 单次封存的最小条数（过小的冷段压缩率低） */
+    public static final int SEAL_MIN_SPANS = 64;
+
+    private static final int CACHE_SLOTS = 8;
+    private static final ColdSegment[] NO_SEGMENTS = new ColdSegment[0];
+
+    private final SpanStore hot;
+    private final long maxBytes;
+    private final SpanCodec codec = new SpanCodec();
+    private final AtomicReferenceArray<ColdSegment.Decoded> cache = new AtomicReferenceArray<>(CACHE_SLOTS);
+
+    /** 冷段，按序号递增；写入方以整体替换方式发布 */
+    private volatile ColdSegment[] cold = NO_SEGMENTS;
+    /** 冷段中最旧一条存活 Span 的序号（冷段为空时无意义） */
+    private volatile long coldHead;
+    private volatile long coldBytes;
+    private volatile long coldRawBytes;
+    private volatile long sealedSpans;
+    private volatile long expiredBefore;
+    private long nextSegmentId;
+    /** 写入方私有：冷段头段的解压结果，淘汰时读取最旧一条的 traceId / 服务名 */
+    private ColdSegment.Decoded headDecoded;
+
+    public TieredSpanStore(SpanStore hot, long maxBytes) {
+        this.hot = hot;
+        this.maxBytes = maxBytes;
+    }
+
+    @Override
+    public int estimateBytes(TraceSpan span) {
+        return hot.estimateBytes(span);
+    }
+
+    /**
+     * 热区槽位写满、或总字节数将超出预算且热区占去过半预算时，先把热区最旧的一半封存为冷段，而不是直接丢弃；
+     * 其余字节压力不封存（否则每次写入都会把最新的少量 Span 封成压缩率很低的小段），由调用方从冷段头部淘汰
+     */
+    @Override
+    public boolean canAppend(int estimatedBytes) {
+        while (!hot.isEmpty() && (!hot.canAppend(estimatedBytes)
+                || (usedBytes() + estimatedBytes > maxBytes && hot.usedBytes() > maxBytes / 2))) {
+            seal(Math.min(SEAL_MAX_SPANS, Math.max(Math.min(SEAL_MIN_SPANS, hot.size()), hot.size() / 2)));
+        }
+        return hot.canAppend(estimatedBytes);
+    }
+
+    @Override
+    public void append(TraceSpan span, int estimatedBytes) {
+        hot.append(span, estimatedBytes);
+    }
+
+    /**
+     * 把序号小于 {@code seq} 的热区 Span 封存为冷段（仅写入方调用），返回封存条数
+     */
+    public int sealBefore(long seq) {
+        int sealed = 0;
+        while (!hot.isEmpty() && hot.oldestSeq() < seq) {
+            sealed += seal((int) Math.min(SEAL_MAX_SPANS, seq - hot.oldestSeq()));
+        }
+        return sealed;
+    }
+
+    /**
+     * 热区中最旧一条的序号，小于它的均已在冷段
+     */
+    public long hotOldestSeq() {
+        return hot.oldestSeq();
+    }
+
+    private int seal(int n) {
+        long first = hot.oldestSeq();
+        n = (int) Math.min(n, hot.nextSeq() - first);
+        List<TraceSpan> batch = new ArrayList<>(n);
+        for (int i = 0; i < n; i++) {
+            batch.add(hot.peek(first + i));
+        }
+        ColdSegment segment = ColdSegment.seal(nextSegmentId++, first, batch, codec);
+        ColdSegment[] current = cold;
+        if (current.length == 0) {
+            coldHead = first;
+        }
+        ColdSegment[] next = Arrays.copyOf(current, current.length + 1);
+        next[current.length] = segment;
+        cold = next;
+        coldBytes = coldBytes + segment.compressed.length;
+        coldRawBytes = coldRawBytes + segment.rawBytes;
+        for (int i = 0; i < n; i++) {
+            hot.evictOldest();
+        }
+        sealedSpans = sealedSpans + n;
+        return n;
+    }
+
+    /**
+     * 冷段非空时淘汰冷段头部一条，冷段整段淘汰完后释放；否则淘汰热区最旧
+     */
+    @Override
+    public boolean evictOldest() {
+        ColdSegment[] current = cold;
+        if (current.length == 0) {
+            return hot.evictOldest();
+        }
+        long next = coldHead + 1;
+        if (next >= current[0].endSeq()) {
+            ColdSegment dropped = current[0];
+            if (current.length > 1) {
+                coldHead = current[1].firstSeq;
+            }
+            cold = Arrays.copyOfRange(current, 1, current.length);
+            coldBytes = coldBytes - dropped.compressed.length;
+            coldRawBytes = coldRawBytes - dropped.rawBytes;
+            ColdSegment.Decoded d = cache.get(slot(dropped));
+            if (d != null && d.segment() == dropped) {
+                cache.compareAndSet(slot(dropped), d, null);
+            }
+            if (headDecoded != null && headDecoded.segment() == dropped) {
+                headDecoded = null;
+            }
+        } else {
+            coldHead = next;
+        }
+        return true;
+    }
+
+    @Override
+    public String oldestTraceId() {
+        ColdSegment[] current = cold;
+        if (current.length == 0) {
+            return hot.oldestTraceId();
+        }
+        return head(current[0]).traceId((int) (coldHead - current[0].firstSeq));
+    }
+
+    @Override
+    public String oldestServiceName() {
+        ColdSegment[] current = cold;
+        if (current.length == 0) {
+            return hot.oldestServiceName();
+        }
+        return head(current[0]).serviceName((int) (coldHead - current[0].firstSeq));
+    }
+
+    @Override
+    public TraceSpan peek(long seq) {
+        TraceSpan t = hot.peek(seq);
+        if (t != null) {
+            return t;
+        }
+        ColdSegment segment = find(seq, false);
+        return segment != null ? decoded(segment).span((int) (seq - segment.firstSeq)) : null;
+    }
+
+    @Override
+    public void expireBefore(long seq) {
+        if (seq > expiredBefore) {
+            expiredBefore = seq;
+        }
+        hot.expireBefore(seq);
+    }
+
+    @Override
+    public long expiredBefore() {
+        return expiredBefore;
+    }
+
+    @Override
+    public TraceSpan get(long seq) {
+        TraceSpan t = hot.get(seq);
+        if (t != null) {
+            return t;
+        }
+        ColdSegment segment = find(seq, true);
+        return segment != null ? decoded(segment).span((int) (seq - segment.firstSeq)) : null;
+    }
+
+    @Override
+    public long startTime(long seq) {
+        long v = hot.startTime(seq);
+        if (v != MISSING) {
+            return v;
+        }
+        ColdSegment segment = find(seq, true);
+        return segment != null ? decoded(segment).startTime((int) (seq - segment.firstSeq)) : MISSING;
+    }
+
+    @Override
+    public String traceId(long seq) {
+        String v = hot.traceId(seq);
+        if (v != null) {
+            return v;
+        }
+        ColdSegment segment = find(seq, true);
+        return segment != null ? decoded(segment).traceId((int) (seq - segment.firstSeq)) : null;
+    }
+
+    @Override
+    public String serviceName(long seq) {
+        String v = hot.serviceName(seq);
+        if (v != null) {
+            return v;
+        }
+        ColdSegment segment = find(seq, true);
+        return segment != null ? decoded(segment).serviceName((int) (seq - segment.firstSeq)) : null;
+    }
+
+    @Override
+    public long oldestSeq() {
+        return cold.length > 0 ? coldHead : hot.oldestSeq();
+    }
+
+    @Override
+    public long nextSeq() {
+        return hot.nextSeq();
+    }
+
+    @Override
+    public int size() {
+        return hot.size() + coldSize();
+    }
+
+    @Override
+    public boolean isEmpty() {
+        return cold.length == 0 && hot.isEmpty();
+    }
+
+    @Override
+    public int capacity() {
+        return hot.capacity();
+    }
+
+    /**
+     * 热区估算字节数 + 冷段压缩后字节数（头段按存活条数折算）
+     */
+    @Override
+    public long usedBytes() {
+        return hot.usedBytes() + liveColdBytes();
+    }
+
+    /**
+     * 冷段压缩字节数扣除头段中已淘汰部分的折算值
+     */
+    private long liveColdBytes() {
+        ColdSegment[] current = cold;
+        if (current.length == 0) {
+            return 0;
+        }
+        ColdSegment head = current[0];
+        long evicted = Math.max(0, Math.min(head.count, coldHead - head.firstSeq));
+        return Math.max(0, coldBytes - head.compressed.length * evicted / head.count);
+    }
+
+    @Override
+    public Map<String, Object> stats() {
+        long raw = coldRawBytes;
+        long packed = coldBytes;
+        long live = liveColdBytes();
+        Map<String, Object> stats = new LinkedHashMap<>(hot.stats());
+        stats.put("hot_spans", hot.size());
+        stats.put("cold_spans", coldSize());
+        stats.put("cold_segments", cold.length);
+        stats.put("cold_bytes", live);
+        stats.put("cold_raw_bytes", raw);
+        stats.put("cold_compression_ratio", packed > 0 ? Math.round(raw * 100.0 / packed) / 100.0 : 0.0);
+        stats.put("sealed_spans", sealedSpans);
+        return stats;
+    }
+
+    private int coldSize() {
+        ColdSegment[] current = cold;
+        return current.length == 0 ? 0 : (int) (current[current.length - 1].endSeq() - coldHead);
+    }
+
+    /**
+     * 二分定位序号所在冷段，已淘汰（{@code live} 时含已过期）或不在冷段时返回 {@code null}
+     */
+    private ColdSegment find(long seq, boolean live) {
+        ColdSegment[] current = cold;
+        if (current.length == 0 || seq < coldHead || (live && seq < expiredBefore)) {
+            return null;
+        }
+        int lo = 0;
+        int hi = current.length - 1;
+        while (lo <= hi) {
+            int mid = (lo + hi) >>> 1;
+            ColdSegment s = current[mid];
+            if (seq < s.firstSeq) {
+                hi = mid - 1;
+            } else if (seq >= s.endSeq()) {
+                lo = mid + 1;
+            } else {
+                return s;
+            }
+        }
+        return null;
+    }
+
+    /**
+     * 冷段头段的解压结果（仅写入方调用）：头段释放前只解压一次，与读取方共享的缓存互不影响
+     */
+    private ColdSegment.Decoded head(ColdSegment segment) {
+        ColdSegment.Decoded d = headDecoded;
+        if (d == null || d.segment() != segment) {
+            d = cache.get(slot(segment));
+            if (d == null || d.segment() != segment) {
+                d = segment.decode();
+            }
+            headDecoded = d;
+        }
+        return d;
+    }
+
+    /**
+     * 解压冷段，命中直接映射缓存时复用；并发解压同一段时各自解压，结果等价
+     */
+    private ColdSegment.Decoded decoded(ColdSegment segment) {
+        int slot = slot(segment);
+        ColdSegment.Decoded d = cache.get(slot);
+        if (d != null && d.segment() == segment) {
+            return d;
+        }
+        d = segment.decode();
+        cache.set(slot, d);
+        return d;
+    }
+
+    private static int slot(ColdSegment segment) {
+        return (int) (segment.id % CACHE_SLOTS);
+    }
+}
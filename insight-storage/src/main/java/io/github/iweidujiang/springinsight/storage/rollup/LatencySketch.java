@@ -0,0 +1,198 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 可合并的耗时分位数草图（DDSketch 风格）
+ * │    按对数间隔分桶：桶 i 覆盖 (γ^(i-1), γ^i]，分位数相对误差不超过 α；
+ * │    桶数上限固定，超出时合并最低的桶（只牺牲低分位精度，保住尾部）
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：add 由唯一写入方调用，读取方通过 {@link #mergeFrom} 拷贝后再计算分位数，
+ * 读到的是弱一致快照。桶数组只覆盖出现过的索引区间，稀疏分布时占用很小。
+ */
+public class LatencySketch {
+
+    public static final double DEFAULT_RELATIVE_ACCURACY = 0.01;
+    public static final int DEFAULT_MAX_BINS = 2048;
+
+    private final double gamma;
+    private final double logGamma;
+    private final int maxBins;
+
+    /** 桶区间整体替换发布，计数在数组内原地累加 */
+    private volatile Bins bins = new Bins(0, new long[0]);
+    private volatile long zeroCount;
+    private volatile long count;
+    private volatile long min = Long.MAX_VALUE;
+    private volatile long max = Long.MIN_VALUE;
+
+    public LatencySketch() {
+        this(DEFAULT_RELATIVE_ACCURACY, DEFAULT_MAX_BINS);
+    }
+
+    public LatencySketch(double relativeAccuracy, int maxBins) {
+        if (relativeAccuracy <= 0 || relativeAccuracy >= 1) {
+            throw new IllegalArgumentException("relativeAccuracy must be in (0, 1): " + relativeAccuracy);
+        }
+        if (maxBins < 2) {
+            throw new IllegalArgumentException("maxBins must be >= 2: " + maxBins);
+        }
+        this.gamma = (1 + relativeAccuracy) / (1 - relativeAccuracy);
+        this.logGamma = Math.log(gamma);
+        this.maxBins = maxBins;
+    }
+
+    /**
+     * 记录一次耗时（毫秒，负值按 0 计）
+     */
+    public void add(long valueMs) {
+        long v = Math.max(0, valueMs);
+        if (v == 0) {
+            zeroCount = zeroCount + 1;
+        } else {
+            addToBin(index(v), 1);
+        }
+        if (v < min) {
+            min = v;
+        }
+        if (v > max) {
+            max = v;
+        }
+        count = count + 1;
+    }
+
+    /**
+     * 把 {@code other} 的计数并入当前草图（两者精度参数须一致）
+     */
+    public LatencySketch mergeFrom(LatencySketch other) {
+        if (other.gamma != gamma) {
+            throw new IllegalArgumentException("cannot merge sketches with different relative accuracy");
+        }
+        Bins src = other.bins;
+        long[] counts = src.counts();
+        for (int i = 0; i < counts.length; i++) {
+            if (counts[i] > 0) {
+                addToBin(src.offset() + i, counts[i]);
+            }
+        }
+        zeroCount = zeroCount + other.zeroCount;
+        min = Math.min(min, other.min);
+        max = Math.max(max, other.max);
+        count = count + other.count;
+        return this;
+    }
+
+    /**
+     * 分位数估计，{@code q} ∈ [0, 1]；空草图返回 0
+     */
+    public double quantile(double q) {
+        long total = count;
+        if (total == 0) {
+            return 0.0;
+        }
+        long rank = (long) Math.ceil(Math.max(0.0, Math.min(1.0, q)) * total);
+        if (rank <= 1) {
+            return min;
+        }
+        if (rank >= total) {
+            return max;
+        }
+        long seen = zeroCount;
+        if (seen >= rank) {
+            return 0.0;
+        }
+        Bins b = bins;
+        long[] counts = b.counts();
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                double estimate = 2 * Math.pow(gamma, b.offset() + i) / (gamma + 1);
+                return Math.max(min, Math.min(max, estimate));
+            }
+        }
+        return max;
+    }
+
+    public long count() {
+        return count;
+    }
+
+    public long max() {
+        return count > 0 ? max : 0;
+    }
+
+    public int binCount() {
+        return bins.counts().length;
+    }
+
+    /**
+     * 写出计数与桶区间（弱一致快照，精度参数按默认值约定不写出）
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        Bins b = bins;
+        out.writeLong(zeroCount);
+        out.writeLong(count);
+        out.writeLong(min);
+        out.writeLong(max);
+        out.writeInt(b.offset());
+        out.writeInt(b.counts().length);
+        for (long c : b.counts()) {
+            out.writeLong(c);
+        }
+    }
+
+    /**
+     * 读入 {@link #writeTo} 写出的默认精度草图
+     */
+    public static LatencySketch readFrom(DataInput in) throws IOException {
+        LatencySketch sketch = new LatencySketch();
+        sketch.zeroCount = in.readLong();
+        sketch.count = in.readLong();
+        sketch.min = in.readLong();
+        sketch.max = in.readLong();
+        int offset = in.readInt();
+        long[] counts = new long[in.readInt()];
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] = in.readLong();
+        }
+        sketch.bins = new Bins(offset, counts);
+        return sketch;
+    }
+
+    private int index(long v) {
+        return (int) Math.ceil(Math.log(v) / logGamma);
+    }
+
+    private void addToBin(int index, long n) {
+        Bins b = bins;
+        long[] counts = b.counts();
+        int pos = index - b.offset();
+        if (counts.length > 0 && pos >= 0 && pos < counts.length) {
+            counts[pos] += n;
+            return;
+        }
+        int lo = counts.length == 0 ? index : Math.min(b.offset(), index);
+        int hi = counts.length == 0 ? index : Math.max(b.offset() + counts.length - 1, index);
+        // 超出桶数上限：抬高下界，低于下界的计数并入最低桶
+        int floor = Math.max(lo, hi - maxBins + 1);
+        long[] next = new long[hi - floor + 1];
+        for (int i = 0; i < counts.length; i++) {
+            next[Math.max(0, b.offset() + i - floor)] += counts[i];
+        }
+        next[Math.max(0, index - floor)] += n;
+        bins = new Bins(floor, next);
+    }
+
+    private record Bins(int offset, long[] counts) {
+    }
+}
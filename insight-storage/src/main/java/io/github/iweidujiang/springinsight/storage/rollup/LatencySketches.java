@@ -0,0 +1,190 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.nio.charset.StandardCharsets;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.Objects;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 按服务 / 接口、按时间桶（默认 10 分钟）维护的耗时草图
+ * │    写入时同时累加服务级（operation 为 null）与接口级草图，
+ * │    查询合并窗口内的桶即可得到 p50 / p95 / p99，内存只与桶数和键数有关；
+ * │    每个桶内单个服务的接口数有上限，超出的接口（如带 ID 的原始 URI）并入 {@link #OTHER_OPERATION}
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：record / expire 由唯一写入方调用，merge 可并发读取。
+ * 窗口以时间桶为粒度，边界桶整桶计入。
+ */
+public class LatencySketches {
+
+    public static final Duration DEFAULT_BUCKET = Duration.ofMinutes(10);
+    public static final Duration DEFAULT_HISTORY = Duration.ofHours(24);
+    /** 每个桶内单个服务最多单独统计的接口数 */
+    public static final int DEFAULT_MAX_OPERATIONS = 200;
+    /** 超出接口数上限的调用统一计入的接口名 */
+    public static final String OTHER_OPERATION = "<other>";
+
+    private final long bucketMillis;
+    private final long historyMillis;
+    private final int maxOperations;
+    private final ConcurrentSkipListMap<Long, Bucket> buckets = new ConcurrentSkipListMap<>();
+
+    public LatencySketches() {
+        this(DEFAULT_BUCKET, DEFAULT_HISTORY, DEFAULT_MAX_OPERATIONS);
+    }
+
+    public LatencySketches(Duration bucket, Duration history, int maxOperations) {
+        this.bucketMillis = bucket.toMillis();
+        this.historyMillis = history.toMillis();
+        this.maxOperations = maxOperations;
+    }
+
+    public void record(String serviceName, String operationName, long startTime, long durationMs) {
+        Bucket bucket = buckets.computeIfAbsent(Math.floorDiv(startTime, bucketMillis), b -> new Bucket());
+        bucket.sketch(serviceName, null, maxOperations).add(durationMs);
+        if (operationName != null) {
+            bucket.sketch(serviceName, operationName, maxOperations).add(durationMs);
+        }
+    }
+
+    /**
+     * 丢弃超出保留时长的时间桶
+     */
+    public void expire(long nowMillis) {
+        buckets.headMap(Math.floorDiv(nowMillis - historyMillis, bucketMillis)).clear();
+    }
+
+    /**
+     * 合并 {@code sinceTime} 所在时间桶起的草图。
+     * {@code serviceName} 为 null 时返回各服务的服务级草图，否则返回该服务各接口的草图。
+     */
+    public Map<Key, LatencySketch> merge(long sinceTime, String serviceName) {
+        Map<Key, LatencySketch> out = new HashMap<>();
+        for (Bucket bucket : buckets.tailMap(Math.floorDiv(sinceTime, bucketMillis), true).values()) {
+            for (Map.Entry<Key, LatencySketch> e : bucket.sketches.entrySet()) {
+                Key key = e.getKey();
+                boolean wanted = serviceName == null
+                        ? key.operationName() == null
+                        : key.operationName() != null && Objects.equals(serviceName, key.serviceName());
+                if (wanted) {
+                    out.computeIfAbsent(key, k -> new LatencySketch()).mergeFrom(e.getValue());
+                }
+            }
+        }
+        return out;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * 全部桶内的草图个数（服务级 + 接口级）
+     */
+    public int sketchCount() {
+        int n = 0;
+        for (Bucket bucket : buckets.values()) {
+            n += bucket.sketches.size();
+        }
+        return n;
+    }
+
+    /**
+     * 逐桶写出全部草图（可由非写入线程调用，弱一致快照）
+     */
+    public void writeTo(DataOutput out) throws IOException {
+        for (Map.Entry<Long, Bucket> bucket : buckets.entrySet()) {
+            List<Map.Entry<Key, LatencySketch>> entries = new ArrayList<>(bucket.getValue().sketches.entrySet());
+            out.writeBoolean(true);
+            out.writeLong(bucket.getKey());
+            out.writeInt(entries.size());
+            for (Map.Entry<Key, LatencySketch> e : entries) {
+                writeString(out, e.getKey().serviceName());
+                out.writeBoolean(e.getKey().operationName() != null);
+                if (e.getKey().operationName() != null) {
+                    writeString(out, e.getKey().operationName());
+                }
+                e.getValue().writeTo(out);
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    /**
+     * 读入 {@link #writeTo} 写出的草图并合并到现有桶（仅写入方调用），接口数上限同样生效
+     */
+    public void readFrom(DataInput in) throws IOException {
+        while (in.readBoolean()) {
+            Bucket bucket = buckets.computeIfAbsent(in.readLong(), b -> new Bucket());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                String serviceName = readString(in);
+                String operationName = in.readBoolean() ? readString(in) : null;
+                LatencySketch sketch = LatencySketch.readFrom(in);
+                bucket.sketch(serviceName, operationName, maxOperations).mergeFrom(sketch);
+            }
+        }
+    }
+
+    /**
+     * 长度前缀 + UTF-8 字节，不受 writeUTF 的 64KB 限制
+     */
+    private static void writeString(DataOutput out, String value) throws IOException {
+        byte[] bytes = value.getBytes(StandardCharsets.UTF_8);
+        out.writeInt(bytes.length);
+        out.write(bytes);
+    }
+
+    private static String readString(DataInput in) throws IOException {
+        byte[] bytes = new byte[in.readInt()];
+        in.readFully(bytes);
+        return new String(bytes, StandardCharsets.UTF_8);
+    }
+
+    /**
+     * 一个时间桶：草图表 + 各服务已单独统计的接口数（接口数仅写入方访问）
+     */
+    private static final class Bucket {
+        final Map<Key, LatencySketch> sketches = new ConcurrentHashMap<>();
+        final Map<String, Integer> operations = new HashMap<>();
+
+        LatencySketch sketch(String serviceName, String operationName, int maxOperations) {
+            Key key = new Key(serviceName, operationName);
+            LatencySketch sketch = sketches.get(key);
+            if (sketch != null) {
+                return sketch;
+            }
+            if (operationName != null) {
+                int n = operations.getOrDefault(serviceName, 0);
+                if (n >= maxOperations) {
+                    return sketches.computeIfAbsent(new Key(serviceName, OTHER_OPERATION), k -> new LatencySketch());
+                }
+                operations.put(serviceName, n + 1);
+            }
+            sketch = new LatencySketch();
+            sketches.put(key, sketch);
+            return sketch;
+        }
+    }
+
+    /**
+     * 草图键：operationName 为 null 表示服务级汇总
+     */
+    public record Key(String serviceName, String operationName) {
+    }
+}
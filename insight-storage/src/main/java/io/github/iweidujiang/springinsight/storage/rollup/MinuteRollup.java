@@ -0,0 +1,155 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentSkipListMap;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 按分钟分桶的预聚合计数器
+ * │    每个分钟桶内按 key 累加调用数 / 错误数 / 耗时总和 / 最小 / 最大，
+ * │    窗口查询只合并窗口内的桶，与原始 Span 数量无关
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：record / rollOff 由唯一写入方调用，merge 可并发读取。
+ * 窗口与淘汰均以分钟为粒度，边界分钟整桶计入。
+ */
+public class MinuteRollup<K> {
+
+    public static final long MINUTE_MS = 60_000L;
+
+    private final ConcurrentSkipListMap<Long, Map<K, Counter>> buckets = new ConcurrentSkipListMap<>();
+
+    /**
+     * 按 {@code timeMillis} 所在分钟累加一次调用
+     */
+    public void record(K key, long timeMillis, long durationMs, boolean error) {
+        buckets.computeIfAbsent(minuteOf(timeMillis), m -> new ConcurrentHashMap<>())
+                .computeIfAbsent(key, k -> new Counter())
+                .add(durationMs, error);
+    }
+
+    /**
+     * 丢弃早于 {@code oldestTimeMillis} 所在分钟的桶
+     */
+    public void rollOff(long oldestTimeMillis) {
+        buckets.headMap(minuteOf(oldestTimeMillis)).clear();
+    }
+
+    /**
+     * 合并 {@code sinceMillis} 所在分钟起的全部桶，按 key 汇总
+     */
+    public Map<K, RollupStats> merge(long sinceMillis) {
+        Map<K, RollupStats> out = new HashMap<>();
+        for (Map<K, Counter> bucket : buckets.tailMap(minuteOf(sinceMillis), true).values()) {
+            for (Map.Entry<K, Counter> e : bucket.entrySet()) {
+                out.merge(e.getKey(), e.getValue().stats(), RollupStats::plus);
+            }
+        }
+        return out;
+    }
+
+    public int bucketCount() {
+        return buckets.size();
+    }
+
+    /**
+     * 逐桶写出全部计数（可由非写入线程调用，弱一致快照）
+     */
+    public void writeTo(DataOutput out, KeyWriter<K> keyWriter) throws IOException {
+        for (Map.Entry<Long, Map<K, Counter>> bucket : buckets.entrySet()) {
+            List<Map.Entry<K, Counter>> entries = new ArrayList<>(bucket.getValue().entrySet());
+            out.writeBoolean(true);
+            out.writeLong(bucket.getKey());
+            out.writeInt(entries.size());
+            for (Map.Entry<K, Counter> e : entries) {
+                keyWriter.write(out, e.getKey());
+                RollupStats stats = e.getValue().stats();
+                out.writeLong(stats.calls());
+                out.writeLong(stats.errors());
+                out.writeLong(stats.durationSum());
+                out.writeLong(stats.durationMin());
+                out.writeLong(stats.durationMax());
+            }
+        }
+        out.writeBoolean(false);
+    }
+
+    /**
+     * 读入 {@link #writeTo} 写出的计数并累加到现有桶（仅写入方调用）
+     */
+    public void readFrom(DataInput in, KeyReader<K> keyReader) throws IOException {
+        while (in.readBoolean()) {
+            Map<K, Counter> bucket = buckets.computeIfAbsent(in.readLong(), m -> new ConcurrentHashMap<>());
+            int n = in.readInt();
+            for (int i = 0; i < n; i++) {
+                K key = keyReader.read(in);
+                RollupStats stats = new RollupStats(in.readLong(), in.readLong(), in.readLong(), in.readLong(), in.readLong());
+                bucket.computeIfAbsent(key, k -> new Counter()).add(stats);
+            }
+        }
+    }
+
+    public static long minuteOf(long timeMillis) {
+        return Math.floorDiv(timeMillis, MINUTE_MS);
+    }
+
+    @FunctionalInterface
+    public interface KeyWriter<K> {
+        void write(DataOutput out, K key) throws IOException;
+    }
+
+    @FunctionalInterface
+    public interface KeyReader<K> {
+        K read(DataInput in) throws IOException;
+    }
+
+    /**
+     * 单写者计数器，volatile 保证读取方可见
+     */
+    private static final class Counter {
+        private volatile long calls;
+        private volatile long errors;
+        private volatile long durationSum;
+        private volatile long durationMin = Long.MAX_VALUE;
+        private volatile long durationMax = Long.MIN_VALUE;
+
+        void add(long durationMs, boolean error) {
+            durationSum = durationSum + durationMs;
+            if (durationMs < durationMin) {
+                durationMin = durationMs;
+            }
+            if (durationMs > durationMax) {
+                durationMax = durationMs;
+            }
+            if (error) {
+                errors = errors + 1;
+            }
+            calls = calls + 1;
+        }
+
+        void add(RollupStats stats) {
+            durationSum = durationSum + stats.durationSum();
+            durationMin = Math.min(durationMin, stats.durationMin());
+            durationMax = Math.max(durationMax, stats.durationMax());
+            errors = errors + stats.errors();
+            calls = calls + stats.calls();
+        }
+
+        RollupStats stats() {
+            return new RollupStats(calls, errors, durationSum, durationMin, durationMax);
+        }
+    }
+}
@@ -0,0 +1,32 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 预聚合结果：调用数 / 错误数 / 耗时总和 / 最小 / 最大
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ */
+public record RollupStats(long calls, long errors, long durationSum, long durationMin, long durationMax) {
+
+    public RollupStats plus(RollupStats other) {
+        return new RollupStats(
+                calls + other.calls,
+                errors + other.errors,
+                durationSum + other.durationSum,
+                Math.min(durationMin, other.durationMin),
+                Math.max(durationMax, other.durationMax));
+    }
+
+    public double avgDuration() {
+        return calls > 0 ? (double) durationSum / (double) calls : 0.0;
+    }
+
+    public double errorRate() {
+        return calls > 0 ? Math.round(errors * 10000.0 / calls) / 100.0 : 0.0;
+    }
+}
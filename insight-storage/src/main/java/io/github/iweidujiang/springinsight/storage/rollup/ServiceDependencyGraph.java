@@ -0,0 +1,80 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 增量维护的服务依赖图
+ * │    写入时按 Span startTime 所在分钟累加 source → target 边的
+ * │    调用次数 / 总耗时 / 错误数；查询只需合并窗口内的分钟桶
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：record / rollOff 由唯一写入方调用，merge 可并发读取。
+ * 窗口与淘汰均以分钟为粒度，边界分钟整桶计入。
+ */
+public class ServiceDependencyGraph {
+
+    private final MinuteRollup<Edge> edges = new MinuteRollup<>();
+
+    /**
+     * 累加一次跨服务调用
+     */
+    public void record(String source, String target, long startTime, long durationMs, boolean error) {
+        edges.record(new Edge(source, target), startTime, durationMs, error);
+    }
+
+    /**
+     * 丢弃早于 {@code oldestStartTime} 所在分钟的桶（随原始 Span 淘汰滚动）
+     */
+    public void rollOff(long oldestStartTime) {
+        edges.rollOff(oldestStartTime);
+    }
+
+    /**
+     * 合并 startTime ≥ {@code sinceTime} 所在分钟起的全部桶
+     */
+    public List<EdgeStats> merge(long sinceTime) {
+        Map<Edge, RollupStats> merged = edges.merge(sinceTime);
+        List<EdgeStats> out = new ArrayList<>(merged.size());
+        for (Map.Entry<Edge, RollupStats> e : merged.entrySet()) {
+            RollupStats s = e.getValue();
+            out.add(new EdgeStats(e.getKey().source(), e.getKey().target(), s.calls(), s.durationSum(), s.errors()));
+        }
+        return out;
+    }
+
+    public int bucketCount() {
+        return edges.bucketCount();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        edges.writeTo(out, (o, edge) -> {
+            o.writeUTF(edge.source());
+            o.writeUTF(edge.target());
+        });
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        edges.readFrom(in, i -> new Edge(i.readUTF(), i.readUTF()));
+    }
+
+    private record Edge(String source, String target) {
+    }
+
+    /**
+     * 窗口内一条依赖边的聚合结果
+     */
+    public record EdgeStats(String source, String target, long calls, long durationSum, long errors) {
+    }
+}
@@ -0,0 +1,68 @@
+package io.github.iweidujiang.springinsight.storage.rollup;
+
+import java.io.DataInput;
+import java.io.DataOutput;
+import java.io.IOException;
+import java.time.Duration;
+import java.util.Map;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 按服务、按分钟的预聚合指标
+ * │    调用数 / 错误数 / 耗时总和 / 最小 / 最大，写入时累加；
+ * │    独立于原始 Span 的淘汰，按固定时长保留历史
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 单写多读：record / expire 由唯一写入方调用，merge 可并发读取。
+ */
+public class ServiceRollups {
+
+    public static final Duration DEFAULT_HISTORY = Duration.ofDays(7);
+
+    private final long historyMillis;
+    private final MinuteRollup<String> services = new MinuteRollup<>();
+
+    public ServiceRollups() {
+        this(DEFAULT_HISTORY);
+    }
+
+    public ServiceRollups(Duration history) {
+        this.historyMillis = history.toMillis();
+    }
+
+    public void record(String serviceName, long startTime, long durationMs, boolean error) {
+        services.record(serviceName, startTime, durationMs, error);
+    }
+
+    /**
+     * 丢弃超出保留时长的分钟桶
+     */
+    public void expire(long nowMillis) {
+        services.rollOff(nowMillis - historyMillis);
+    }
+
+    /**
+     * 合并 startTime ≥ {@code sinceTime} 所在分钟起的各服务指标
+     */
+    public Map<String, RollupStats> merge(long sinceTime) {
+        return services.merge(sinceTime);
+    }
+
+    public int bucketCount() {
+        return services.bucketCount();
+    }
+
+    public void writeTo(DataOutput out) throws IOException {
+        services.writeTo(out, DataOutput::writeUTF);
+    }
+
+    public void readFrom(DataInput in) throws IOException {
+        services.readFrom(in, DataInput::readUTF);
+    }
+}
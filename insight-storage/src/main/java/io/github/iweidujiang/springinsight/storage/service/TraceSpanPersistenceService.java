@@ -1,24 +1,58 @@
 package io.github.iweidujiang.springinsight.storage.service;
 
 import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.config.InsightStorageProperties;
+import io.github.iweidujiang.springinsight.storage.index.SeqRing;
+import io.github.iweidujiang.springinsight.storage.index.TagIndex;
+import io.github.iweidujiang.springinsight.storage.index.ServiceIndex;
+import io.github.iweidujiang.springinsight.storage.index.TimeSegment;
+import io.github.iweidujiang.springinsight.storage.index.TimeSegmentIndex;
+import io.github.iweidujiang.springinsight.storage.index.TraceIndex;
+import io.github.iweidujiang.springinsight.storage.index.TraceSummaryIndex;
+import io.github.iweidujiang.springinsight.storage.log.SpanLog;
+import io.github.iweidujiang.springinsight.storage.memory.ColumnarSpanStore;
+import io.github.iweidujiang.springinsight.storage.memory.OffHeapSpanStore;
+import io.github.iweidujiang.springinsight.storage.memory.SpanStore;
+import io.github.iweidujiang.springinsight.storage.memory.TieredSpanStore;
+import io.github.iweidujiang.springinsight.storage.rollup.LatencySketch;
+import io.github.iweidujiang.springinsight.storage.rollup.LatencySketches;
+import io.github.iweidujiang.springinsight.storage.rollup.RollupStats;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceDependencyGraph;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceRollups;
+import io.github.iweidujiang.springinsight.storage.snapshot.SnapshotReader;
+import io.github.iweidujiang.springinsight.storage.snapshot.SnapshotWriter;
 import lombok.extern.slf4j.Slf4j;
+import jakarta.annotation.PreDestroy;
+import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.stereotype.Service;
 import org.springframework.util.StopWatch;
+import org.springframework.util.unit.DataSize;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
 import java.time.Instant;
 import java.time.temporal.ChronoUnit;
 import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Base64;
 import java.util.Comparator;
-import java.util.HashMap;
 import java.util.LinkedHashMap;
 import java.util.List;
 import java.util.Map;
 import java.util.Objects;
+import java.util.PriorityQueue;
+import java.util.concurrent.Executors;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.locks.ReentrantLock;
+import java.util.function.Predicate;
 import java.util.stream.Collectors;
 
 /**
  * ┌───────────────────────────────────────────────┐
- * │ 📦 链路追踪内存存储（进程内环形缓冲，无 JDBC）
+ * │ 📦 链路追踪内存存储（进程内环形缓冲：堆内列式或堆外字节环，无 JDBC）
  * │
  * │ 👤 作者：苏渡苇
  * │ 🔗 公众号：苏渡苇
@@ -26,15 +60,248 @@ import java.util.stream.Collectors;
  * │
  * | 📅 @since：2026/1/9
  * └───────────────────────────────────────────────┘
+ * <p>
+ * 并发模型：单写多读。写入批次之间由 {@link #writeLock} 串行（只有写入方之间竞争），
+ * 查询不加锁：环形缓冲按 seq 发布与校验，各索引以 volatile / 并发容器发布，
+ * 读到已被淘汰的序号时按 seq 校验跳过。查询结果为弱一致快照，重查询不会阻塞写入。
+ * <p>
+ * 淘汰：槽位数与估算字节数两道上限在写入时即时淘汰最旧；按时间保留由后台线程推进过期水位，
+ * 整段过期的 Span 立即对查询不可见，槽位与索引在写锁空闲时（或下一批写入时）回收。
+ * <p>
+ * 冷段（可选）：配置 cold-after 后，超龄的热区 Span 由后台线程封存为压缩冷段，热区槽位写满或热区占去过半字节预算时也提前封存；
+ * 查询经索引定位到冷段序号时才解压该段，按时间窗口的查询只会触达与窗口重叠的分段。
+ * <p>
+ * 持久化（可选）：配置 log-dir 后每条 Span 同时追加到内存映射日志，启动时重放日志重建存储与索引；
+ * 日志段随其中 Span 被淘汰或过期整段删除。
+ * <p>
+ * 快照（可选）：配置 snapshot-path 后由后台线程定期（及关闭时）不加写锁地遍历存活 Span 与预聚合写成快照，
+ * 未启用日志时启动即流式载入，重建存储与索引、恢复预聚合。
  */
 @Slf4j
 @Service
 public class TraceSpanPersistenceService {
 
-    private static final int DEFAULT_MAX_SPANS = 50_000;
+    private static final long MINUTE_MS = 60_000L;
 
-    private final Object lock = new Object();
-    private final List<TraceSpan> spans = new ArrayList<>();
+    private final ReentrantLock writeLock = new ReentrantLock();
+    private final SpanStore spans;
+    private final long maxBytes;
+    private final long retentionMillis;
+    /** 冷段封存：超龄的热区 Span 压缩封存，未启用时为 null */
+    private final TieredSpanStore coldTier;
+    private final long coldAfterMillis;
+    private final ScheduledExecutorService expirer;
+    /** 追加日志，未配置 log-dir 时为 null */
+    private final SpanLog spanLog;
+    /** 快照文件，未配置 snapshot-path 时为 null */
+    private final Path snapshotPath;
+    private final ScheduledExecutorService snapshotter;
+    /** 后台快照与关闭时快照互斥，不与写入方竞争 */
+    private final ReentrantLock snapshotLock = new ReentrantLock();
+    private volatile long lastSnapshotAt;
+    private volatile long lastSnapshotSpans;
+    private volatile long lastSnapshotBytes;
+    private volatile long lastSnapshotMillis;
+    private volatile long evictedSpans;
+    private volatile long expiredSpans;
+    private final TraceIndex traceIndex = new TraceIndex();
+    private final TraceSummaryIndex summaryIndex = new TraceSummaryIndex();
+    private final TagIndex tagIndex;
+    private final TimeSegmentIndex timeIndex = new TimeSegmentIndex();
+    private final ServiceIndex serviceIndex = new ServiceIndex();
+    private final ServiceDependencyGraph dependencyGraph = new ServiceDependencyGraph();
+    private final ServiceRollups serviceRollups = new ServiceRollups();
+    private final LatencySketches latencySketches = new LatencySketches();
+
+    public TraceSpanPersistenceService() {
+        this(new InsightStorageProperties());
+    }
+
+    public TraceSpanPersistenceService(int maxSpans) {
+        this(maxSpans, new InsightStorageProperties().getMaxBytes().toBytes());
+    }
+
+    public TraceSpanPersistenceService(int maxSpans, long maxBytes) {
+        this(properties(maxSpans, maxBytes));
+    }
+
+    @Autowired
+    public TraceSpanPersistenceService(InsightStorageProperties properties) {
+        this.maxBytes = properties.getMaxBytes().toBytes();
+        this.tagIndex = new TagIndex(properties.getIndexedTags());
+        SpanStore hot = properties.getType() == InsightStorageProperties.StoreType.OFF_HEAP
+                ? new OffHeapSpanStore(properties.getMaxSpans(), maxBytes)
+                : new ColumnarSpanStore(properties.getMaxSpans(), maxBytes / 8);
+        this.coldAfterMillis = properties.getColdAfter() != null ? properties.getColdAfter().toMillis() : 0L;
+        this.coldTier = coldAfterMillis > 0 ? new TieredSpanStore(hot, maxBytes) : null;
+        this.spans = coldTier != null ? coldTier : hot;
+        this.retentionMillis = properties.getRetention() != null ? properties.getRetention().toMillis() : 0L;
+        if (retentionMillis > 0 || coldTier != null) {
+            long intervalMillis = Math.max(1L, properties.getExpiryInterval().toMillis());
+            this.expirer = Executors.newSingleThreadScheduledExecutor(r -> {
+                Thread t = new Thread(r, "spring-insight-expirer");
+                t.setDaemon(true);
+                return t;
+            });
+            expirer.scheduleWithFixedDelay(() -> expire(System.currentTimeMillis()),
+                    intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+        } else {
+            this.expirer = null;
+        }
+        if (properties.getLogDir() != null && !properties.getLogDir().isBlank()) {
+            this.spanLog = new SpanLog(Path.of(properties.getLogDir()),
+                    properties.getLogSegmentSize().toBytes(), properties.getLogFlushInterval());
+            replayLog();
+        } else {
+            this.spanLog = null;
+        }
+        if (properties.getSnapshotPath() != null && !properties.getSnapshotPath().isBlank()) {
+            this.snapshotPath = Path.of(properties.getSnapshotPath());
+            if (spanLog == null) {
+                restoreSnapshot();
+            } else {
+                log.info("[内存存储] 已从日志重放，跳过快照 {}", snapshotPath);
+            }
+            long intervalMillis = properties.getSnapshotInterval() != null ? properties.getSnapshotInterval().toMillis() : 0L;
+            if (intervalMillis > 0) {
+                this.snapshotter = Executors.newSingleThreadScheduledExecutor(r -> {
+                    Thread t = new Thread(r, "spring-insight-snapshot");
+                    t.setDaemon(true);
+                    return t;
+                });
+                snapshotter.scheduleWithFixedDelay(this::snapshot, intervalMillis, intervalMillis, TimeUnit.MILLISECONDS);
+            } else {
+                this.snapshotter = null;
+            }
+        } else {
+            this.snapshotPath = null;
+            this.snapshotter = null;
+        }
+    }
+
+    private static InsightStorageProperties properties(int maxSpans, long maxBytes) {
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setMaxSpans(maxSpans);
+        properties.setMaxBytes(DataSize.ofBytes(maxBytes));
+        return properties;
+    }
+
+    @PreDestroy
+    public void shutdown() {
+        if (expirer != null) {
+            expirer.shutdownNow();
+        }
+        if (snapshotter != null) {
+            snapshotter.shutdownNow();
+        }
+        snapshot();
+        if (spanLog != null) {
+            spanLog.close();
+        }
+    }
+
+    /**
+     * 按原写入时间重放追加日志，重建环形缓冲、索引与预聚合；随后按保留时长过期并删除已不需要的段
+     */
+    private void replayLog() {
+        StopWatch sw = new StopWatch();
+        sw.start();
+        long replayed;
+        writeLock.lock();
+        try {
+            replayed = spanLog.replay(this::append);
+            serviceIndex.publish();
+            long now = System.currentTimeMillis();
+            serviceRollups.expire(now);
+            latencySketches.expire(now);
+            releaseLog();
+        } finally {
+            writeLock.unlock();
+        }
+        expire(System.currentTimeMillis());
+        sw.stop();
+        log.info("[内存存储] 从日志 {} 重放 {} 条 Span，耗时={}ms，当前持有={}",
+                spanLog.dir(), replayed, sw.getTotalTimeMillis(), size());
+    }
+
+    /**
+     * 流式载入快照：按原写入时间重新写入 Span 以重建环形缓冲与索引（不重复计入预聚合），再合并快照中的预聚合。
+     * 快照损坏时保留已载入的部分并告警
+     */
+    private void restoreSnapshot() {
+        if (!Files.isRegularFile(snapshotPath)) {
+            return;
+        }
+        StopWatch sw = new StopWatch();
+        sw.start();
+        long restored = 0;
+        writeLock.lock();
+        try (SnapshotReader reader = new SnapshotReader(snapshotPath)) {
+            try {
+                reader.readSpans((span, ingestMillis) -> append(span, ingestMillis, false));
+                reader.readRollups(serviceRollups, dependencyGraph, latencySketches);
+            } finally {
+                restored = reader.spanCount();
+            }
+        } catch (IOException | RuntimeException e) {
+            log.warn("[内存存储] 快照 {} 读取失败，保留已载入的 {} 条 Span", snapshotPath, restored, e);
+        } finally {
+            serviceIndex.publish();
+            long now = System.currentTimeMillis();
+            serviceRollups.expire(now);
+            latencySketches.expire(now);
+            writeLock.unlock();
+        }
+        expire(System.currentTimeMillis());
+        sw.stop();
+        log.info("[内存存储] 从快照 {} 载入 {} 条 Span，耗时={}ms，当前持有={}",
+                snapshotPath, restored, sw.getTotalTimeMillis(), size());
+    }
+
+    /**
+     * 把存活 Span（按写入顺序，带原写入时间）与预聚合写成快照，完成后原子替换旧快照。
+     * 不持写锁：Span 按序号校验读取，写入期间被淘汰或过期的跳过，结果为弱一致快照。
+     * 通常由后台线程及关闭时调用；未配置 snapshot-path 时返回 {@code false}
+     */
+    public boolean snapshot() {
+        if (snapshotPath == null) {
+            return false;
+        }
+        snapshotLock.lock();
+        try {
+            StopWatch sw = new StopWatch();
+            sw.start();
+            long now = System.currentTimeMillis();
+            long bytes;
+            long written;
+            try (SnapshotWriter writer = new SnapshotWriter(snapshotPath, now)) {
+                for (TimeSegment segment : timeIndex.segments()) {
+                    long ingestMillis = segment.getIngestMinute() * MINUTE_MS;
+                    for (long seq = Math.max(segment.getFirstSeq(), spans.oldestSeq()); seq < segment.getEndSeq(); seq++) {
+                        TraceSpan span = spans.get(seq);
+                        if (span != null) {
+                            writer.writeSpan(span, ingestMillis);
+                        }
+                    }
+                }
+                writer.writeRollups(serviceRollups, dependencyGraph, latencySketches);
+                bytes = writer.commit();
+                written = writer.spanCount();
+            } catch (IOException | RuntimeException e) {
+                log.warn("[内存存储] 写快照 {} 失败", snapshotPath, e);
+                return false;
+            }
+            sw.stop();
+            lastSnapshotAt = now;
+            lastSnapshotSpans = written;
+            lastSnapshotBytes = bytes;
+            lastSnapshotMillis = sw.getTotalTimeMillis();
+            log.info("[内存存储] 写快照 {} 条 Span，{} 字节，耗时={}ms", written, bytes, lastSnapshotMillis);
+            return true;
+        } finally {
+            snapshotLock.unlock();
+        }
+    }
 
     public void saveTraceSpan(TraceSpan span) {
         if (span == null) {
@@ -52,23 +319,181 @@ public class TraceSpanPersistenceService {
         StopWatch sw = new StopWatch();
         sw.start();
         int added;
-        synchronized (lock) {
+        writeLock.lock();
+        try {
+            long now = System.currentTimeMillis();
+            reclaimExpired();
             for (TraceSpan span : batch) {
                 if (span == null || span.getTraceId() == null || span.getSpanId() == null) {
                     continue;
                 }
-                spans.add(TraceSpan.snapshot(span));
+                long seq = append(span, now);
+                if (seq >= 0 && spanLog != null) {
+                    spanLog.append(span, seq, now);
+                }
             }
+            releaseLog();
+            serviceIndex.publish();
+            serviceRollups.expire(now);
+            latencySketches.expire(now);
             added = batch.size();
-            evictIfNeeded();
+        } finally {
+            writeLock.unlock();
         }
         sw.stop();
         log.info("[内存存储] 写入 {} 条 Span，耗时={}ms，当前持有={}", added, sw.getTotalTimeMillis(), size());
     }
 
-    private void evictIfNeeded() {
-        while (spans.size() > DEFAULT_MAX_SPANS) {
-            spans.removeFirst();
+    /**
+     * 写入环形缓冲并维护二级索引与依赖图。
+     * 槽位已满或估算字节数将超出预算时先从最旧开始淘汰（至少保留新写入的这一条），均为 O(1)。
+     * 先发布槽位再登记索引，读取方从索引拿到的序号在缓冲中必然可见。
+     *
+     * @return 分配的序号，Span 过大被丢弃时返回 -1
+     */
+    private long append(TraceSpan span, long now) {
+        return append(span, now, true);
+    }
+
+    /**
+     * @param aggregate 是否计入预聚合；载入快照时预聚合随快照恢复，不重复计入
+     */
+    private long append(TraceSpan span, long now, boolean aggregate) {
+        int bytes;
+        try {
+            bytes = spans.estimateBytes(span);
+        } catch (IllegalArgumentException e) {
+            log.warn("[内存存储] Span 过大无法存储，已丢弃: traceId={}, {}", span.getTraceId(), e.getMessage());
+            return -1;
+        }
+        while (!spans.isEmpty() && (!spans.canAppend(bytes) || spans.usedBytes() + bytes > maxBytes)) {
+            evictOldest();
+            evictedSpans = evictedSpans + 1;
+        }
+        long seq = spans.nextSeq();
+        spans.append(span, bytes);
+        traceIndex.add(span.getTraceId(), seq);
+        summaryIndex.add(span, seq, isError(span));
+        tagIndex.add(span.getTags(), seq);
+        timeIndex.onAppend(seq, n(span.getStartTime()), now);
+        if (span.getServiceName() != null) {
+            serviceIndex.add(span.getServiceName(), seq);
+            if (aggregate && !span.getServiceName().isBlank()) {
+                serviceRollups.record(span.getServiceName(), n(span.getStartTime()), n(span.getDurationMs()), isError(span));
+                latencySketches.record(span.getServiceName(), span.getOperationName(),
+                        n(span.getStartTime()), n(span.getDurationMs()));
+            }
+        }
+        String remote = span.getRemoteService();
+        if (aggregate && remote != null && !remote.isBlank()) {
+            String src = span.getServiceName() != null ? span.getServiceName() : "";
+            dependencyGraph.record(src, remote, n(span.getStartTime()), n(span.getDurationMs()), isError(span));
+        }
+        return seq;
+    }
+
+    /**
+     * 淘汰最旧一条 Span 并清理索引；最旧时间分段被整体淘汰时，依赖图中早于现存 Span 的分钟桶随之滚出
+     */
+    private void evictOldest() {
+        long seq = spans.oldestSeq();
+        String traceId = spans.oldestTraceId();
+        String serviceName = spans.oldestServiceName();
+        if (!spans.evictOldest()) {
+            return;
+        }
+        if (traceIndex.remove(traceId, seq)) {
+            summaryIndex.remove(traceId);
+        }
+        if (timeIndex.onEvict(seq)) {
+            dependencyGraph.rollOff(timeIndex.oldestStartTime());
+            tagIndex.removeBefore(spans.oldestSeq());
+        }
+        if (serviceName != null) {
+            serviceIndex.remove(serviceName, seq);
+        }
+    }
+
+    /**
+     * 按写入时间的后台维护：
+     * 保留时长——写入分钟已整体早于截止时间的前缀分段推进过期水位，立即对查询隐藏；
+     * 冷段——写入分钟早于 coldAfter 的热区前缀分段待封存。
+     * 随后尝试获取写锁回收与封存；写锁被占用时不等待，由下一批写入（过期）或下一轮（封存）处理。通常由后台线程调用。
+     */
+    public void expire(long nowMillis) {
+        boolean expired = false;
+        if (retentionMillis > 0) {
+            long watermark = ingestedBefore(nowMillis - retentionMillis);
+            if (watermark > spans.expiredBefore()) {
+                spans.expireBefore(watermark);
+                expired = true;
+            }
+        }
+        long sealWatermark = coldTier != null ? ingestedBefore(nowMillis - coldAfterMillis) : 0L;
+        boolean seal = coldTier != null && sealWatermark > coldTier.hotOldestSeq();
+        if ((expired || seal) && writeLock.tryLock()) {
+            try {
+                reclaimExpired();
+                if (seal) {
+                    sealCold(sealWatermark);
+                }
+                releaseLog();
+                serviceIndex.publish();
+            } finally {
+                writeLock.unlock();
+            }
+        }
+    }
+
+    /**
+     * 写入分钟整体早于 {@code cutoff} 的前缀时间分段的序号上界，没有时返回 0
+     */
+    private long ingestedBefore(long cutoff) {
+        long watermark = 0L;
+        for (TimeSegment segment : timeIndex.segments()) {
+            if ((segment.getIngestMinute() + 1) * MINUTE_MS > cutoff) {
+                break;
+            }
+            watermark = segment.getEndSeq();
+        }
+        return watermark;
+    }
+
+    /**
+     * 把热区中序号小于 {@code watermark} 的 Span 封存为压缩冷段（写入方持锁调用）
+     */
+    private void sealCold(long watermark) {
+        StopWatch sw = new StopWatch();
+        sw.start();
+        int sealed = coldTier.sealBefore(watermark);
+        sw.stop();
+        if (sealed > 0) {
+            log.info("[内存存储] 封存冷段 {} 条 Span，耗时={}ms", sealed, sw.getTotalTimeMillis());
+        }
+    }
+
+    /**
+     * 回收过期水位之前的槽位与索引（写入方持锁调用）
+     */
+    private void reclaimExpired() {
+        long watermark = spans.expiredBefore();
+        int reclaimed = 0;
+        while (!spans.isEmpty() && spans.oldestSeq() < watermark) {
+            evictOldest();
+            reclaimed++;
+        }
+        if (reclaimed > 0) {
+            expiredSpans = expiredSpans + reclaimed;
+            log.info("[内存存储] 过期回收 {} 条 Span，当前持有={}", reclaimed, size());
+        }
+    }
+
+    /**
+     * 删除其中 Span 已全部淘汰或过期的日志段（写入方持锁调用）
+     */
+    private void releaseLog() {
+        if (spanLog != null) {
+            spanLog.releaseBefore(spans.oldestSeq());
         }
     }
 
@@ -76,145 +501,472 @@ public class TraceSpanPersistenceService {
         return spans.size();
     }
 
-    public List<TraceSpan> getTraceById(String traceId) {
-        synchronized (lock) {
-            return spans.stream()
-                    .filter(s -> traceId.equals(s.getTraceId()))
-                    .sorted(Comparator.comparing(s -> n(s.getStartTime())))
-                    .map(TraceSpan::snapshot)
-                    .collect(Collectors.toList());
+    /**
+     * 存储占用概况：条数 / 估算字节数及其上限、累计淘汰条数与索引规模
+     */
+    public Map<String, Object> getStorageStats() {
+        Map<String, Object> stats = new LinkedHashMap<>();
+        long usedBytes = spans.usedBytes();
+        stats.put("span_count", spans.size());
+        stats.put("max_spans", spans.capacity());
+        stats.put("used_bytes", usedBytes);
+        stats.put("max_bytes", maxBytes);
+        stats.put("bytes_usage", maxBytes > 0 ? Math.round(usedBytes * 10000.0 / maxBytes) / 100.0 : 0.0);
+        stats.put("evicted_spans", evictedSpans);
+        stats.put("expired_spans", expiredSpans);
+        stats.put("retention_ms", retentionMillis);
+        stats.put("trace_count", traceIndex.traceCount());
+        stats.put("service_count", serviceIndex.serviceNames().size());
+        stats.put("time_segments", timeIndex.segmentCount());
+        stats.put("tag_postings", tagIndex.postingCount());
+        stats.put("latency_sketches", latencySketches.sketchCount());
+        stats.putAll(spans.stats());
+        if (spanLog != null) {
+            stats.put("log_segments", spanLog.segmentCount());
+            stats.put("log_bytes", spanLog.diskBytes());
+            stats.put("log_records", spanLog.appendedRecords());
+        }
+        if (snapshotPath != null) {
+            stats.put("snapshot_at", lastSnapshotAt);
+            stats.put("snapshot_spans", lastSnapshotSpans);
+            stats.put("snapshot_bytes", lastSnapshotBytes);
+            stats.put("snapshot_ms", lastSnapshotMillis);
         }
+        return stats;
+    }
+
+    public List<TraceSpan> getTraceById(String traceId) {
+        return Arrays.stream(traceIndex.seqs(traceId))
+                .mapToObj(spans::get)
+                .filter(s -> s != null && Objects.equals(traceId, s.getTraceId()))
+                .sorted(Comparator.comparing(s -> n(s.getStartTime())))
+                .collect(Collectors.toList());
     }
 
     public List<TraceSpan> getRecentSpans(int lastHours, int limit) {
+        return getRecentSpans(lastHours, limit, null).items();
+    }
+
+    /**
+     * 窗口内由新到旧的一页 Span；{@code after} 为上一页返回的游标，为 null 时从最新开始
+     */
+    public Page<TraceSpan> getRecentSpans(int lastHours, int limit, Cursor after) {
         long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
-        synchronized (lock) {
-            return spans.stream()
-                    .filter(s -> n(s.getStartTime()) >= sinceTime)
-                    .sorted(Comparator.comparing((TraceSpan s) -> n(s.getStartTime())).reversed())
-                    .limit(limit)
-                    .map(TraceSpan::snapshot)
-                    .collect(Collectors.toList());
+        return newestInWindow(sinceTime, limit, after);
+    }
+
+    /**
+     * 由新到旧遍历时间分段，维护容量为 limit + 1 的小顶堆（多取一条判断是否还有下一页）；
+     * 更旧分段的 startTime 上界已不高于堆顶时提前结束，避免对窗口内全部 Span 排序。
+     * 带游标时整体新于游标的分段直接跳过，上界同时受游标约束，每页代价与页大小相关。
+     * 扫描只读 startTime 列，只有最终入选的 Span 才还原为对象
+     */
+    private Page<TraceSpan> newestInWindow(long sinceTime, int limit, Cursor after) {
+        if (limit <= 0) {
+            return new Page<>(new ArrayList<>(), null);
         }
+        NewestSpans newest = new NewestSpans(limit + 1);
+        List<TimeSegment> segments = timeIndex.segments();
+        long[] prefixMax = TimeSegmentIndex.prefixMaxStartTimes(segments);
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            long remainingMax = after != null ? Math.min(prefixMax[i], after.startTime()) : prefixMax[i];
+            if (remainingMax < sinceTime || newest.isSettled(remainingMax)) {
+                break;
+            }
+            TimeSegment segment = segments.get(i);
+            if (segment.getMaxStartTime() < sinceTime || (after != null && segment.getMinStartTime() > after.startTime())) {
+                continue;
+            }
+            for (long seq = segment.getEndSeq() - 1; seq >= segment.getFirstSeq(); seq--) {
+                long startTime = spans.startTime(seq);
+                if (startTime != SpanStore.MISSING && startTime >= sinceTime && isBefore(after, seq, startTime)) {
+                    newest.offer(seq, startTime);
+                }
+            }
+        }
+        return page(newest, limit);
     }
 
     public List<String> getAllServiceNames() {
-        synchronized (lock) {
-            return spans.stream()
-                    .map(TraceSpan::getServiceName)
-                    .filter(Objects::nonNull)
-                    .filter(n -> !n.isBlank())
-                    .distinct()
-                    .sorted()
-                    .collect(Collectors.toList());
-        }
+        return new ArrayList<>(serviceIndex.serviceNames());
     }
 
+    /**
+     * 合并依赖图中窗口内的分钟桶（至多 lastHours × 60 个），不再扫描原始 Span；
+     * 窗口起点所在分钟整桶计入
+     */
     public List<Map<String, Object>> getServiceDependencies(int lastHours) {
         long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
-        synchronized (lock) {
-            record Key(String src, String tgt) {}
-            Map<Key, long[]> agg = new HashMap<>();
-            for (TraceSpan s : spans) {
-                if (n(s.getStartTime()) < sinceTime) {
-                    continue;
-                }
-                String remote = s.getRemoteService();
-                if (remote == null || remote.isBlank()) {
-                    continue;
-                }
-                String src = s.getServiceName() != null ? s.getServiceName() : "";
-                Key k = new Key(src, remote);
-                long[] a = agg.computeIfAbsent(k, x -> new long[]{0L, 0L});
-                a[0]++;
-                a[1] += n(s.getDurationMs());
-            }
-            List<Map<String, Object>> out = new ArrayList<>();
-            for (Map.Entry<Key, long[]> e : agg.entrySet()) {
-                long cnt = e.getValue()[0];
-                if (cnt <= 0) {
-                    continue;
-                }
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("source_service", e.getKey().src());
-                row.put("target_service", e.getKey().tgt());
-                row.put("call_count", cnt);
-                row.put("avg_duration", (double) e.getValue()[1] / (double) cnt);
-                out.add(row);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (ServiceDependencyGraph.EdgeStats e : dependencyGraph.merge(sinceTime)) {
+            if (e.calls() <= 0) {
+                continue;
             }
-            return out;
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("source_service", e.source());
+            row.put("target_service", e.target());
+            row.put("call_count", e.calls());
+            row.put("avg_duration", (double) e.durationSum() / (double) e.calls());
+            row.put("error_count", e.errors());
+            out.add(row);
         }
+        return out;
     }
 
+    /**
+     * 各服务当前持有的 Span 数，直接取自服务索引的序号队列长度
+     */
     public List<Map<String, Object>> getSpanCountByService() {
-        synchronized (lock) {
-            Map<String, Long> counts = new HashMap<>();
-            for (TraceSpan s : spans) {
-                String name = s.getServiceName();
-                if (name == null || name.isBlank()) {
-                    continue;
-                }
-                counts.merge(name, 1L, Long::sum);
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (String name : serviceIndex.serviceNames()) {
+            SeqRing seqs = serviceIndex.seqs(name);
+            int count = seqs != null ? seqs.size() : 0;
+            if (count <= 0) {
+                continue;
             }
-            return counts.entrySet().stream()
-                    .sorted((a, b) -> Long.compare(b.getValue(), a.getValue()))
-                    .map(e -> {
-                        Map<String, Object> row = new LinkedHashMap<>();
-                        row.put("service_name", e.getKey());
-                        row.put("span_count", e.getValue());
-                        return row;
-                    })
-                    .collect(Collectors.toList());
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("service_name", name);
+            row.put("span_count", (long) count);
+            out.add(row);
         }
+        out.sort((a, b) -> Long.compare((Long) b.get("span_count"), (Long) a.get("span_count")));
+        return out;
     }
 
+    /**
+     * 合并服务预聚合指标中窗口内的分钟桶；原始 Span 被淘汰后历史仍可查询
+     */
     public List<Map<String, Object>> findHighErrorServices(int lastHours) {
         long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
-        synchronized (lock) {
-            Map<String, long[]> agg = new HashMap<>();
-            for (TraceSpan s : spans) {
-                if (n(s.getStartTime()) < sinceTime) {
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map.Entry<String, RollupStats> e : serviceRollups.merge(sinceTime).entrySet()) {
+            RollupStats stats = e.getValue();
+            if (stats.errors() <= 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("service_name", e.getKey());
+            row.put("total_calls", stats.calls());
+            row.put("error_calls", stats.errors());
+            row.put("error_rate", stats.errorRate());
+            row.put("avg_duration", stats.avgDuration());
+            row.put("min_duration", stats.durationMin());
+            row.put("max_duration", stats.durationMax());
+            out.add(row);
+        }
+        out.sort((a, b) -> Double.compare(
+                ((Number) b.get("error_rate")).doubleValue(),
+                ((Number) a.get("error_rate")).doubleValue()));
+        return out;
+    }
+
+    /**
+     * 耗时分位数：合并窗口内的草图桶。
+     * {@code serviceName} 为空时按服务汇总，否则按该服务的 operationName 汇总；按 p99 降序
+     */
+    public List<Map<String, Object>> getLatencyPercentiles(int lastHours, String serviceName) {
+        long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
+        String service = serviceName == null || serviceName.isBlank() ? null : serviceName;
+        List<Map<String, Object>> out = new ArrayList<>();
+        for (Map.Entry<LatencySketches.Key, LatencySketch> e : latencySketches.merge(sinceTime, service).entrySet()) {
+            LatencySketch sketch = e.getValue();
+            if (sketch.count() <= 0) {
+                continue;
+            }
+            Map<String, Object> row = new LinkedHashMap<>();
+            row.put("service_name", e.getKey().serviceName());
+            if (service != null) {
+                row.put("operation_name", e.getKey().operationName());
+            }
+            row.put("count", sketch.count());
+            row.put("p50", round2(sketch.quantile(0.50)));
+            row.put("p95", round2(sketch.quantile(0.95)));
+            row.put("p99", round2(sketch.quantile(0.99)));
+            row.put("max", sketch.max());
+            out.add(row);
+        }
+        out.sort((a, b) -> Double.compare((Double) b.get("p99"), (Double) a.get("p99")));
+        return out;
+    }
+
+    public List<TraceSpan> getRecentSpansByService(String serviceName, int limit) {
+        return getRecentSpansByService(serviceName, limit, null).items();
+    }
+
+    /**
+     * 由新到旧遍历该服务的序号队列；结合时间分段的 startTime 上界，凑满一页（多取一条）后提前结束。
+     * 带游标时最新一端整体新于游标的分段所含序号不再遍历（队列内二分定位起点）
+     */
+    public Page<TraceSpan> getRecentSpansByService(String serviceName, int limit, Cursor after) {
+        SeqRing seqs = serviceIndex.seqs(serviceName);
+        if (seqs == null || limit <= 0) {
+            return new Page<>(new ArrayList<>(), null);
+        }
+        NewestSpans newest = new NewestSpans(limit + 1);
+        List<TimeSegment> segments = timeIndex.segments();
+        long[] prefixMax = TimeSegmentIndex.prefixMaxStartTimes(segments);
+        long before = Long.MAX_VALUE;
+        if (after != null) {
+            for (int i = segments.size() - 1; i >= 0 && segments.get(i).getMinStartTime() > after.startTime(); i--) {
+                before = segments.get(i).getFirstSeq();
+            }
+        }
+        int[] segmentIdx = {segments.size() - 1};
+        seqs.forEachNewestFirst(before, seq -> {
+            while (segmentIdx[0] >= 0 && segments.get(segmentIdx[0]).getFirstSeq() > seq) {
+                segmentIdx[0]--;
+            }
+            if (segmentIdx[0] < 0) {
+                return false;
+            }
+            long remainingMax = prefixMax[segmentIdx[0]];
+            if (newest.isSettled(after != null ? Math.min(remainingMax, after.startTime()) : remainingMax)) {
+                return false;
+            }
+            long startTime = spans.startTime(seq);
+            if (startTime != SpanStore.MISSING && isBefore(after, seq, startTime)
+                    && serviceName.equals(spans.serviceName(seq))) {
+                newest.offer(seq, startTime);
+            }
+            return true;
+        });
+        return page(newest, limit);
+    }
+
+    /**
+     * 链路列表：直接由新到旧遍历链路摘要索引，每条链路一行（入口服务 / 操作、涉及服务、Span 数、端到端耗时、是否出错）。
+     * {@code serviceName} 非空时只取经过该服务的链路；游标为上一页最后一条链路的 (开始时间, 首条序号)
+     */
+    public Page<Map<String, Object>> getTraceSummaries(int lastHours, String serviceName, int limit, Cursor after) {
+        long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
+        String service = serviceName == null || serviceName.isBlank() ? null : serviceName;
+        List<Map<String, Object>> out = new ArrayList<>();
+        if (limit <= 0) {
+            return new Page<>(out, null);
+        }
+        // 多看一条判断是否还有下一页；游标取入选时的 (开始时间, 首条序号)，不受其后摘要更新影响
+        Cursor[] last = {null};
+        boolean[] more = {false};
+        // 按服务筛选时直接遍历该服务的摘要倒排，不扫描其他服务的链路
+        summaryIndex.forEachNewestFirst(service, sinceTime,
+                after != null ? after.startTime() : Long.MAX_VALUE, after != null ? after.seq() : Long.MAX_VALUE, summary -> {
+                    if (out.size() == limit) {
+                        more[0] = true;
+                        return false;
+                    }
+                    Map<String, Object> row = summaryRow(summary);
+                    out.add(row);
+                    last[0] = new Cursor((Long) row.get("start_time"), summary.firstSeq());
+                    return true;
+                });
+        return new Page<>(out, more[0] ? last[0] : null);
+    }
+
+    private static Map<String, Object> summaryRow(TraceSummaryIndex.TraceSummary summary) {
+        Map<String, Object> row = new LinkedHashMap<>();
+        row.put("trace_id", summary.traceId());
+        row.put("root_service", summary.rootService());
+        row.put("root_operation", summary.rootOperation());
+        row.put("services", summary.services());
+        row.put("span_count", summary.spanCount());
+        row.put("duration_ms", summary.durationMs());
+        row.put("error", summary.error());
+        row.put("start_time", summary.startTime());
+        return row;
+    }
+
+    /**
+     * 按标签筛选 Span：对各标签键值对（及 {@code serviceName} 的服务队列）的有序序号队列求交，
+     * 按写入顺序由新到旧返回 startTime 落在窗口内的一页。标签键须在 indexed-tags 中配置，否则抛出
+     * {@link IllegalArgumentException}；游标只按序号续查
+     */
+    public Page<TraceSpan> findSpansByTags(Map<String, String> tags, String serviceName, int lastHours,
+                                           int limit, Cursor after) {
+        for (String key : tags.keySet()) {
+            if (!tagIndex.isIndexed(key)) {
+                throw new IllegalArgumentException("标签未建索引: " + key + "，可选 " + tagIndex.keys());
+            }
+        }
+        List<SeqRing> lists = new ArrayList<>();
+        for (Map.Entry<String, String> e : tags.entrySet()) {
+            lists.add(tagIndex.seqs(e.getKey(), e.getValue()));
+        }
+        if (serviceName != null && !serviceName.isBlank()) {
+            lists.add(serviceIndex.seqs(serviceName));
+        }
+        List<TraceSpan> out = new ArrayList<>();
+        if (limit <= 0 || lists.isEmpty() || lists.contains(null)) {
+            return new Page<>(out, null);
+        }
+        long sinceTime = Instant.now().minus(lastHours, ChronoUnit.HOURS).toEpochMilli();
+        // 更旧的时间分段 startTime 上界已早于窗口时，其序号不必再看
+        List<TimeSegment> segments = timeIndex.segments();
+        long[] prefixMax = TimeSegmentIndex.prefixMaxStartTimes(segments);
+        long floor = spans.oldestSeq();
+        for (int i = segments.size() - 1; i >= 0; i--) {
+            if (prefixMax[i] < sinceTime) {
+                floor = Math.max(floor, segments.get(i).getEndSeq());
+                break;
+            }
+        }
+        Cursor[] next = {null};
+        long[] lastSeq = {0L};
+        TagIndex.intersectNewestFirst(lists, floor, after != null ? after.seq() : Long.MAX_VALUE, seq -> {
+            long startTime = spans.startTime(seq);
+            if (startTime == SpanStore.MISSING || startTime < sinceTime) {
+                return true;
+            }
+            if (out.size() == limit) {
+                next[0] = new Cursor(n(out.getLast().getStartTime()), lastSeq[0]);
+                return false;
+            }
+            TraceSpan span = spans.get(seq);
+            if (span == null) {
+                return true;
+            }
+            out.add(span);
+            lastSeq[0] = seq;
+            return true;
+        });
+        return new Page<>(out, next[0]);
+    }
+
+    /**
+     * 流式导出：按写入顺序逐个时间分段遍历 startTime ≥ {@code sinceTime} 的 Span（{@code serviceName} 非空时只取该服务），
+     * 每条还原后立即交给 {@code sink}，不累积结果，内存占用与导出条数无关。
+     * 不加锁；遍历期间被淘汰或过期的序号跳过。{@code limit} ≤ 0 时不限条数，{@code sink} 返回 false 时提前结束
+     *
+     * @return 交给 {@code sink} 的条数
+     */
+    public long exportSpans(long sinceTime, String serviceName, long limit, Predicate<TraceSpan> sink) {
+        String service = serviceName == null || serviceName.isBlank() ? null : serviceName;
+        long exported = 0;
+        for (TimeSegment segment : timeIndex.segments()) {
+            if (segment.getMaxStartTime() < sinceTime) {
+                continue;
+            }
+            for (long seq = Math.max(segment.getFirstSeq(), spans.oldestSeq()); seq < segment.getEndSeq(); seq++) {
+                long startTime = spans.startTime(seq);
+                if (startTime == SpanStore.MISSING || startTime < sinceTime
+                        || (service != null && !service.equals(spans.serviceName(seq)))) {
                     continue;
                 }
-                String name = s.getServiceName();
-                if (name == null || name.isBlank()) {
+                TraceSpan span = spans.get(seq);
+                if (span == null) {
                     continue;
                 }
-                long[] a = agg.computeIfAbsent(name, x -> new long[]{0L, 0L});
-                a[0]++;
-                if (isError(s)) {
-                    a[1]++;
+                exported++;
+                if (!sink.test(span) || (limit > 0 && exported >= limit)) {
+                    return exported;
                 }
             }
-            List<Map<String, Object>> out = new ArrayList<>();
-            for (Map.Entry<String, long[]> e : agg.entrySet()) {
-                long total = e.getValue()[0];
-                long err = e.getValue()[1];
-                if (err <= 0) {
-                    continue;
-                }
-                Map<String, Object> row = new LinkedHashMap<>();
-                row.put("service_name", e.getKey());
-                row.put("total_calls", total);
-                row.put("error_calls", err);
-                row.put("error_rate", Math.round((err * 10000.0 / total)) / 100.0);
-                out.add(row);
+        }
+        return exported;
+    }
+
+    /**
+     * 取最新的 limit 条还原为 Span；堆中多出的一条说明还有更旧的，以本页最后一条作为下一页游标
+     */
+    private Page<TraceSpan> page(NewestSpans newest, int limit) {
+        List<SpanRef> refs = newest.newestFirst();
+        boolean more = refs.size() > limit;
+        if (more) {
+            refs = refs.subList(0, limit);
+        }
+        List<TraceSpan> out = new ArrayList<>(refs.size());
+        for (SpanRef ref : refs) {
+            TraceSpan s = spans.get(ref.seq());
+            if (s != null) {
+                out.add(s);
             }
-            out.sort((a, b) -> Double.compare(
-                    ((Number) b.get("error_rate")).doubleValue(),
-                    ((Number) a.get("error_rate")).doubleValue()));
-            return out;
         }
+        SpanRef last = more ? refs.getLast() : null;
+        return new Page<>(out, last != null ? new Cursor(last.startTime(), last.seq()) : null);
     }
 
-    public List<TraceSpan> getRecentSpansByService(String serviceName, int limit) {
-        synchronized (lock) {
-            return spans.stream()
-                    .filter(s -> serviceName.equals(s.getServiceName()))
-                    .sorted(Comparator.comparing((TraceSpan s) -> n(s.getStartTime())).reversed())
-                    .limit(limit)
-                    .map(TraceSpan::snapshot)
-                    .collect(Collectors.toList());
+    /**
+     * 按 (startTime, seq) 严格旧于游标；无游标时恒为真
+     */
+    private static boolean isBefore(Cursor after, long seq, long startTime) {
+        return after == null || startTime < after.startTime() || (startTime == after.startTime() && seq < after.seq());
+    }
+
+    /**
+     * 一页查询结果；{@code next} 为 null 时没有更旧的数据
+     */
+    public record Page<T>(List<T> items, Cursor next) {
+    }
+
+    /**
+     * 分页游标：上一页最后一条的 (startTime, seq)，对外编码为不透明的 URL 安全 Base64 串。
+     * 序号只在当前进程内有意义，重启后旧游标仍按 startTime 续查，同一毫秒内的先后不再保证
+     */
+    public record Cursor(long startTime, long seq) {
+
+        public String encode() {
+            ByteBuffer buf = ByteBuffer.allocate(16).putLong(startTime).putLong(seq);
+            return Base64.getUrlEncoder().withoutPadding().encodeToString(buf.array());
+        }
+
+        /**
+         * 解析 {@link #encode()} 的结果，空串返回 null，格式不符时抛出 {@link IllegalArgumentException}
+         */
+        public static Cursor decode(String token) {
+            if (token == null || token.isBlank()) {
+                return null;
+            }
+            byte[] bytes = Base64.getUrlDecoder().decode(token.trim());
+            if (bytes.length != 16) {
+                throw new IllegalArgumentException("无效的分页游标: " + token);
+            }
+            ByteBuffer buf = ByteBuffer.wrap(bytes);
+            return new Cursor(buf.getLong(), buf.getLong());
+        }
+    }
+
+    /**
+     * Top-N 堆元素：按 (startTime, seq) 排序，seq 越大越新
+     */
+    private record SpanRef(long seq, long startTime) {
+        static final Comparator<SpanRef> ORDER =
+                Comparator.comparingLong(SpanRef::startTime).thenComparingLong(SpanRef::seq);
+    }
+
+    /**
+     * 最新优先的 Top-N 收集器（容量为 limit 的小顶堆）
+     */
+    private static final class NewestSpans {
+        private final int limit;
+        private final PriorityQueue<SpanRef> heap = new PriorityQueue<>(SpanRef.ORDER);
+
+        NewestSpans(int limit) {
+            this.limit = Math.max(0, limit);
+        }
+
+        void offer(long seq, long startTime) {
+            if (limit == 0) {
+                return;
+            }
+            SpanRef ref = new SpanRef(seq, startTime);
+            if (heap.size() < limit) {
+                heap.add(ref);
+            } else if (SpanRef.ORDER.compare(ref, heap.peek()) > 0) {
+                heap.poll();
+                heap.add(ref);
+            }
+        }
+
+        /**
+         * 剩余候选的 startTime 上界不高于堆顶时，结果已确定（候选序号更小，同时间也排不进来）
+         */
+        boolean isSettled(long remainingMaxStartTime) {
+            return limit == 0 || (heap.size() == limit && remainingMaxStartTime <= heap.peek().startTime());
+        }
+
+        List<SpanRef> newestFirst() {
+            List<SpanRef> refs = new ArrayList<>(heap);
+            refs.sort(SpanRef.ORDER.reversed());
+            return refs;
         }
     }
 
@@ -226,6 +978,10 @@ public class TraceSpanPersistenceService {
         return Boolean.FALSE.equals(s.getSuccess());
     }
 
+    private static double round2(double v) {
+        return Math.round(v * 100.0) / 100.0;
+    }
+
     private static long n(Long v) {
         return v != null ? v : 0L;
     }
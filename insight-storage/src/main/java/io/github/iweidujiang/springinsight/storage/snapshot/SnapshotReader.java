@@ -0,0 +1,113 @@
+package io.github.iweidujiang.springinsight.storage.snapshot;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.memory.SpanCodec;
+import io.github.iweidujiang.springinsight.storage.rollup.LatencySketches;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceDependencyGraph;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceRollups;
+
+import java.io.BufferedInputStream;
+import java.io.DataInputStream;
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.function.ObjLongConsumer;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 内存存储快照读取（顺序流式读入）
+ * │    按 {@link SnapshotWriter} 的布局逐条解码 Span 交给回调，
+ * │    随后把预聚合合并回各自结构；整个过程只做一次顺序读，不整体载入内存
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 格式不符、记录长度越界或缺少尾部标记时抛出 {@link IOException}；
+ * 此前已交给回调的 Span 保持有效，由调用方决定是否保留。
+ */
+public class SnapshotReader implements AutoCloseable {
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+    /** 单条记录长度上限，超出视为文件损坏 */
+    private static final int MAX_RECORD_BYTES = 64 * 1024 * 1024;
+
+    private final DataInputStream in;
+    private final long createdAt;
+    private byte[] record = new byte[4096];
+    private long spanCount;
+
+    public SnapshotReader(Path path) throws IOException {
+        this.in = new DataInputStream(new BufferedInputStream(Files.newInputStream(path), BUFFER_BYTES));
+        try {
+            int magic = in.readInt();
+            int version = in.readInt();
+            if (magic != SnapshotWriter.MAGIC || version != SnapshotWriter.VERSION) {
+                throw new IOException("不是可识别的快照文件: " + path + "（版本 " + version + "）");
+            }
+            this.createdAt = in.readLong();
+        } catch (IOException e) {
+            in.close();
+            throw e;
+        }
+    }
+
+    /**
+     * 快照生成时间
+     */
+    public long createdAt() {
+        return createdAt;
+    }
+
+    /**
+     * 依次读出 Span 及其原写入时间交给 {@code consumer}，返回条数
+     */
+    public long readSpans(ObjLongConsumer<TraceSpan> consumer) throws IOException {
+        while (in.readByte() != 0) {
+            long ingestMillis = in.readLong();
+            int length = in.readInt();
+            if (length <= 0 || length > MAX_RECORD_BYTES) {
+                throw new IOException("快照记录长度越界: " + length);
+            }
+            if (length > record.length) {
+                record = new byte[Math.max(length, record.length * 2)];
+            }
+            in.readFully(record, 0, length);
+            TraceSpan span;
+            try {
+                span = SpanCodec.decode(ByteBuffer.wrap(record), 0, length);
+            } catch (IllegalStateException e) {
+                throw new IOException("快照记录解码失败: 第 " + spanCount + " 条", e);
+            }
+            consumer.accept(span, ingestMillis);
+            spanCount++;
+        }
+        return spanCount;
+    }
+
+    /**
+     * 读入预聚合并合并到给定结构，随后校验尾部标记（须在 {@link #readSpans} 之后调用）
+     */
+    public void readRollups(ServiceRollups serviceRollups, ServiceDependencyGraph dependencyGraph,
+                            LatencySketches latencySketches) throws IOException {
+        serviceRollups.readFrom(in);
+        dependencyGraph.readFrom(in);
+        latencySketches.readFrom(in);
+        if (in.readInt() != SnapshotWriter.TRAILER) {
+            throw new IOException("快照缺少尾部标记，文件不完整");
+        }
+    }
+
+    public long spanCount() {
+        return spanCount;
+    }
+
+    @Override
+    public void close() throws IOException {
+        in.close();
+    }
+}
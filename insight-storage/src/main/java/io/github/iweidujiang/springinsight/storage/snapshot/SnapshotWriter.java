@@ -0,0 +1,133 @@
+package io.github.iweidujiang.springinsight.storage.snapshot;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.memory.SpanCodec;
+import io.github.iweidujiang.springinsight.storage.rollup.LatencySketches;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceDependencyGraph;
+import io.github.iweidujiang.springinsight.storage.rollup.ServiceRollups;
+import lombok.extern.slf4j.Slf4j;
+
+import java.io.BufferedOutputStream;
+import java.io.DataOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.FileChannel;
+import java.nio.file.AtomicMoveNotSupportedException;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardCopyOption;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 内存存储快照写入（顺序流式写出）
+ * │    [魔数 4B][版本 4B][生成时间 8B]
+ * │    [1][写入时间 8B][长度 4B][{@link SpanCodec} 编码]...[0]
+ * │    [服务预聚合][服务依赖图][耗时草图][尾部魔数 4B]
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ * <p>
+ * 先写同目录下的临时文件，{@link #commit()} 时刷盘并原子改名覆盖旧快照；
+ * 中途失败或未提交即关闭时删除临时文件，磁盘上始终保留最近一份完整快照。
+ * 二级索引不单独落盘：恢复时按原顺序重新写入 Span 即可重建。
+ */
+@Slf4j
+public class SnapshotWriter implements AutoCloseable {
+
+    static final int MAGIC = 0x534E5350;
+    static final int TRAILER = 0x454E4421;
+    static final int VERSION = 1;
+
+    private static final int BUFFER_BYTES = 64 * 1024;
+
+    private final Path path;
+    private final Path temp;
+    private final FileChannel channel;
+    private final DataOutputStream out;
+    private final SpanCodec codec = new SpanCodec();
+    private boolean rollupsWritten;
+    private boolean committed;
+    private long spanCount;
+
+    public SnapshotWriter(Path path, long createdAt) throws IOException {
+        this.path = path;
+        this.temp = path.resolveSibling(path.getFileName() + ".tmp");
+        Path parent = path.toAbsolutePath().getParent();
+        if (parent != null) {
+            Files.createDirectories(parent);
+        }
+        this.channel = FileChannel.open(temp, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING);
+        this.out = new DataOutputStream(new BufferedOutputStream(Channels.newOutputStream(channel), BUFFER_BYTES));
+        out.writeInt(MAGIC);
+        out.writeInt(VERSION);
+        out.writeLong(createdAt);
+    }
+
+    /**
+     * 追加一条 Span 及其原写入时间
+     */
+    public void writeSpan(TraceSpan span, long ingestMillis) throws IOException {
+        int length = codec.encode(span, Integer.MAX_VALUE);
+        out.writeByte(1);
+        out.writeLong(ingestMillis);
+        out.writeInt(length);
+        codec.writeTo(out);
+        codec.reset();
+        spanCount++;
+    }
+
+    /**
+     * 结束 Span 区并写出各预聚合（弱一致，与写入并发进行）
+     */
+    public void writeRollups(ServiceRollups serviceRollups, ServiceDependencyGraph dependencyGraph,
+                             LatencySketches latencySketches) throws IOException {
+        out.writeByte(0);
+        serviceRollups.writeTo(out);
+        dependencyGraph.writeTo(out);
+        latencySketches.writeTo(out);
+        rollupsWritten = true;
+    }
+
+    /**
+     * 写出尾部标记、刷盘并原子替换旧快照，返回快照文件字节数
+     */
+    public long commit() throws IOException {
+        if (!rollupsWritten) {
+            throw new IllegalStateException("提交快照前须先写出预聚合");
+        }
+        out.writeInt(TRAILER);
+        out.flush();
+        channel.force(true);
+        out.close();
+        try {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING, StandardCopyOption.ATOMIC_MOVE);
+        } catch (AtomicMoveNotSupportedException e) {
+            Files.move(temp, path, StandardCopyOption.REPLACE_EXISTING);
+        }
+        committed = true;
+        return Files.size(path);
+    }
+
+    public long spanCount() {
+        return spanCount;
+    }
+
+    @Override
+    public void close() {
+        if (committed) {
+            return;
+        }
+        try {
+            out.close();
+            Files.deleteIfExists(temp);
+        } catch (IOException e) {
+            log.warn("[快照] 清理临时文件失败: {}", temp, e);
+        }
+    }
+}
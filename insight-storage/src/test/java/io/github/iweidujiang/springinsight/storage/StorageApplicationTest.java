@@ -1,17 +1,35 @@
 package io.github.iweidujiang.springinsight.storage;
 
 import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.config.InsightStorageProperties;
+import io.github.iweidujiang.springinsight.storage.memory.TieredSpanStore;
+import io.github.iweidujiang.springinsight.storage.rollup.LatencySketches;
 import io.github.iweidujiang.springinsight.storage.service.TraceSpanPersistenceService;
 import lombok.extern.slf4j.Slf4j;
 import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.io.TempDir;
 import org.springframework.beans.factory.annotation.Autowired;
 import org.springframework.boot.test.context.SpringBootTest;
+import org.springframework.util.unit.DataSize;
 
+import java.io.ByteArrayInputStream;
+import java.io.ByteArrayOutputStream;
+import java.io.DataInputStream;
+import java.io.DataOutputStream;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.time.Duration;
 import java.util.ArrayList;
+import java.util.Arrays;
 import java.util.List;
 import java.util.Map;
 import java.util.UUID;
 
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertNull;
+import static org.junit.jupiter.api.Assertions.assertThrows;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
 /**
  * ┌───────────────────────────────────────────────┐
  * │ 📦 存储模块集成测试
@@ -82,6 +100,7 @@ public class StorageApplicationTest {
         // 查询验证
         List<TraceSpan> retrieved = traceSpanPersistenceService.getTraceById(traceId);
         log.info("为traceId {} 获取到 {} 条链路跨度", traceId, retrieved.size());
+        assertEquals(spans.size(), retrieved.size());
 
         log.info("批量保存测试执行成功完成");
     }
@@ -108,6 +127,909 @@ public class StorageApplicationTest {
         log.info("服务依赖关系测试执行完成");
     }
 
+    @Test
+    void testColumnarRoundTrip() {
+        log.info("测试列式存储还原 TraceSpan...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(10);
+        TraceSpan full = createTestTraceSpan();
+        full.setParentSpanId("parent-1");
+        full.setStatusCode("TIMEOUT");
+        full.setSuccess(false);
+        full.setErrorCode("E500");
+        full.setErrorMessage("下游超时");
+        TraceSpan sparse = new TraceSpan();
+        sparse.setTraceId(full.getTraceId());
+        sparse.setSpanId("sparse-1");
+        sparse.setStartTime(full.getStartTime() + 1);
+        store.saveTraceSpans(List.of(full, sparse));
+
+        List<TraceSpan> trace = store.getTraceById(full.getTraceId());
+        assertEquals(2, trace.size());
+        TraceSpan a = trace.get(0);
+        assertEquals(full.getSpanId(), a.getSpanId());
+        assertEquals(full.getParentSpanId(), a.getParentSpanId());
+        assertEquals(full.getServiceName(), a.getServiceName());
+        assertEquals(full.getServiceInstance(), a.getServiceInstance());
+        assertEquals(full.getHostIp(), a.getHostIp());
+        assertEquals(full.getHostPort(), a.getHostPort());
+        assertEquals(full.getOperationName(), a.getOperationName());
+        assertEquals(full.getSpanKind(), a.getSpanKind());
+        assertEquals(full.getComponent(), a.getComponent());
+        assertEquals(full.getEndpoint(), a.getEndpoint());
+        assertEquals(full.getStartTime(), a.getStartTime());
+        assertEquals(full.getEndTime(), a.getEndTime());
+        assertEquals(full.getDurationMs(), a.getDurationMs());
+        assertEquals("TIMEOUT", a.getStatusCode());
+        assertEquals(Boolean.FALSE, a.getSuccess());
+        assertEquals("E500", a.getErrorCode());
+        assertEquals("下游超时", a.getErrorMessage());
+        assertEquals(full.getRemoteService(), a.getRemoteService());
+        assertEquals(full.getRemoteEndpoint(), a.getRemoteEndpoint());
+        assertEquals(full.getTags(), a.getTags());
+
+        TraceSpan b = trace.get(1);
+        assertEquals("sparse-1", b.getSpanId());
+        assertNull(b.getServiceName());
+        assertNull(b.getEndTime());
+        assertNull(b.getDurationMs());
+        assertNull(b.getHostPort());
+        assertNull(b.getStatusCode());
+        assertNull(b.getSuccess());
+        assertTrue(b.getTags().isEmpty());
+
+        log.info("列式存储还原测试执行完成");
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDictionaryStats() {
+        log.info("测试字符串字典命中统计...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(1000);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            // 模拟 JSON 反序列化：每条 Span 的字段都是新的 String 实例
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName(new String("order-service"));
+            span.setSpanKind(new String("SERVER"));
+            span.getTags().put(new String("http.method"), new String("GET"));
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        Map<String, Object> stats = store.getStorageStats();
+        Map<String, Object> dictionary = (Map<String, Object>) stats.get("dictionary");
+        Map<String, Object> values = (Map<String, Object>) stats.get("canonical_values");
+        assertTrue((Double) dictionary.get("hit_ratio") > 90.0, "字典命中率过低: " + dictionary);
+        assertTrue((Long) dictionary.get("saved_bytes") > 0, "字典未节省内存: " + dictionary);
+        assertTrue((Long) values.get("hits") >= 99, "tag value 未去重: " + values);
+
+        log.info("字符串字典统计：{}，tag value：{}", dictionary, values);
+    }
+
+    @Test
+    void testRingBufferEvictsOldest() {
+        log.info("测试环形缓冲写满后淘汰最旧 Span...");
+
+        TraceSpanPersistenceService small = new TraceSpanPersistenceService(3);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + i);
+            spans.add(span);
+        }
+        small.saveTraceSpans(spans);
+
+        List<TraceSpan> recent = small.getRecentSpans(24, 10);
+        assertEquals(3, recent.size());
+        assertEquals(spans.get(4).getSpanId(), recent.getFirst().getSpanId());
+        assertTrue(small.getTraceById(spans.get(0).getTraceId()).isEmpty());
+        assertEquals(1, small.getTraceById(spans.get(2).getTraceId()).size());
+
+        log.info("环形缓冲淘汰测试执行完成");
+    }
+
+    @Test
+    void testRecentSpansWindowAndOrder() {
+        log.info("测试时间窗口内最新优先的 Top-N 查询...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(100);
+        long now = System.currentTimeMillis();
+        long[] offsetsMinutes = {5, 180, 1, 30, 300, 2};
+        List<TraceSpan> spans = new ArrayList<>();
+        for (long offset : offsetsMinutes) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(now - offset * 60_000L);
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        List<TraceSpan> top = store.getRecentSpans(1, 3);
+        assertEquals(3, top.size());
+        assertEquals(spans.get(2).getSpanId(), top.get(0).getSpanId());
+        assertEquals(spans.get(5).getSpanId(), top.get(1).getSpanId());
+        assertEquals(spans.get(0).getSpanId(), top.get(2).getSpanId());
+        assertEquals(4, store.getRecentSpans(1, 10).size());
+        assertEquals(5, store.getRecentSpans(4, 10).size());
+
+        log.info("时间窗口 Top-N 查询测试执行完成");
+    }
+
+    @Test
+    void testServiceIndex() {
+        log.info("测试按服务的二级索引...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(4);
+        long now = System.currentTimeMillis();
+        String[] services = {"order-service", "user-service", "order-service", "pay-service", "order-service", "user-service"};
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < services.length; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName(services[i]);
+            span.setStartTime(now - (services.length - i) * 1000L);
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        // 容量为 4，前两条已被淘汰
+        assertEquals(List.of("order-service", "pay-service", "user-service"), store.getAllServiceNames());
+        List<TraceSpan> orders = store.getRecentSpansByService("order-service", 10);
+        assertEquals(2, orders.size());
+        assertEquals(spans.get(4).getSpanId(), orders.getFirst().getSpanId());
+        assertEquals(1, store.getRecentSpansByService("order-service", 1).size());
+        assertTrue(store.getRecentSpansByService("missing-service", 10).isEmpty());
+
+        log.info("按服务的二级索引测试执行完成");
+    }
+
+    @Test
+    void testDependencyGraphBuckets() {
+        log.info("测试增量维护的服务依赖图...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(100);
+        long now = System.currentTimeMillis();
+        long[] offsetsMinutes = {1, 2, 3, 180};
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < offsetsMinutes.length; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName("order-service");
+            span.setRemoteService("user-service");
+            span.setStartTime(now - offsetsMinutes[i] * 60_000L);
+            span.setDurationMs(10L * (i + 1));
+            span.setStatusCode(i == 0 ? "ERROR" : "OK");
+            spans.add(span);
+        }
+        TraceSpan local = createTestTraceSpan();
+        local.setRemoteService(null);
+        spans.add(local);
+        store.saveTraceSpans(spans);
+
+        List<Map<String, Object>> lastHour = store.getServiceDependencies(1);
+        assertEquals(1, lastHour.size());
+        Map<String, Object> edge = lastHour.getFirst();
+        assertEquals("order-service", edge.get("source_service"));
+        assertEquals("user-service", edge.get("target_service"));
+        assertEquals(3L, edge.get("call_count"));
+        assertEquals(20.0, edge.get("avg_duration"));
+        assertEquals(1L, edge.get("error_count"));
+        assertEquals(4L, store.getServiceDependencies(4).getFirst().get("call_count"));
+
+        log.info("服务依赖图测试执行完成");
+    }
+
+    @Test
+    void testServiceRollupsKeepHistory() {
+        log.info("测试按服务的分钟级预聚合...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(2);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 5; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName("order-service");
+            span.setDurationMs(10L * (i + 1));
+            span.setStatusCode(i % 2 == 0 ? "ERROR" : "OK");
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        // 原始 Span 只剩 2 条，预聚合仍保留全部 5 次调用
+        assertEquals(2L, store.getSpanCountByService().getFirst().get("span_count"));
+        Map<String, Object> row = store.findHighErrorServices(1).getFirst();
+        assertEquals("order-service", row.get("service_name"));
+        assertEquals(5L, row.get("total_calls"));
+        assertEquals(3L, row.get("error_calls"));
+        assertEquals(60.0, row.get("error_rate"));
+        assertEquals(10L, row.get("min_duration"));
+        assertEquals(50L, row.get("max_duration"));
+
+        log.info("按服务预聚合测试执行完成");
+    }
+
+    @Test
+    void testLatencyPercentiles() {
+        log.info("测试耗时分位数草图...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(10);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 1; i <= 1000; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName("order-service");
+            span.setOperationName(i % 2 == 0 ? "GET /orders" : "POST /orders");
+            span.setDurationMs((long) i);
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        // 原始 Span 只保留 10 条，草图仍覆盖全部 1000 次调用，相对误差 1%
+        Map<String, Object> service = store.getLatencyPercentiles(1, null).getFirst();
+        assertEquals("order-service", service.get("service_name"));
+        assertEquals(1000L, service.get("count"));
+        assertEquals(500.0, (Double) service.get("p50"), 500 * 0.01);
+        assertEquals(950.0, (Double) service.get("p95"), 950 * 0.01);
+        assertEquals(990.0, (Double) service.get("p99"), 990 * 0.01);
+        assertEquals(1000L, service.get("max"));
+
+        List<Map<String, Object>> operations = store.getLatencyPercentiles(1, "order-service");
+        assertEquals(2, operations.size());
+        assertEquals(500L, operations.getFirst().get("count"));
+        assertTrue(store.getLatencyPercentiles(1, "missing-service").isEmpty());
+
+        log.info("耗时分位数测试执行完成");
+    }
+
+    @Test
+    void testLatencySketchOperationsBounded() {
+        log.info("测试高基数接口名的耗时草图上限...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(10);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 5000; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setServiceName("order-service");
+            // 原始 URI 带订单号，每次调用的接口名都不同
+            span.setOperationName("GET /orders/" + i);
+            span.setDurationMs((long) (i % 100));
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        // 同一时间桶内：1 个服务级草图 + 至多 200 个接口 + 1 个 <other>
+        int sketches = (Integer) store.getStorageStats().get("latency_sketches");
+        assertTrue(sketches <= 2 * (LatencySketches.DEFAULT_MAX_OPERATIONS + 2), "草图数未受限: " + sketches);
+        List<Map<String, Object>> operations = store.getLatencyPercentiles(1, "order-service");
+        long total = 0;
+        for (Map<String, Object> op : operations) {
+            total += (Long) op.get("count");
+        }
+        assertEquals(5000L, total, "超出上限的调用应并入 <other>");
+        assertTrue(operations.stream().anyMatch(op -> LatencySketches.OTHER_OPERATION.equals(op.get("operation_name"))));
+
+        log.info("耗时草图上限测试执行完成，草图 {} 个", sketches);
+    }
+
+    @Test
+    void testLatencySketchLongOperationRoundTrip() throws Exception {
+        log.info("测试超长接口名的耗时草图快照读写...");
+
+        // 超过 writeUTF 的 64KB 上限
+        String operation = "GET /search?q=" + "x".repeat(70_000);
+        LatencySketches sketches = new LatencySketches();
+        sketches.record("order-service", operation, System.currentTimeMillis(), 42);
+        ByteArrayOutputStream bytes = new ByteArrayOutputStream();
+        sketches.writeTo(new DataOutputStream(bytes));
+
+        LatencySketches restored = new LatencySketches();
+        restored.readFrom(new DataInputStream(new ByteArrayInputStream(bytes.toByteArray())));
+        Map<LatencySketches.Key, ?> merged = restored.merge(0, "order-service");
+        assertTrue(merged.containsKey(new LatencySketches.Key("order-service", operation)), "超长接口名未能还原");
+
+        log.info("超长接口名快照读写测试执行完成");
+    }
+
+    @Test
+    void testByteBudgetEviction() {
+        log.info("测试按估算字节数淘汰...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(1000, 64 * 1024);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 20; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + i);
+            // 约 16KB 的大 SQL 标签
+            span.getTags().put("db.sql", "SELECT 1 ".repeat(900));
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        Map<String, Object> stats = store.getStorageStats();
+        long usedBytes = (Long) stats.get("used_bytes");
+        int held = (Integer) stats.get("span_count");
+        assertTrue(usedBytes <= 64 * 1024, "估算占用超出预算: " + usedBytes);
+        assertTrue(held > 0 && held < 20, "应按字节预算淘汰: " + held);
+        assertEquals(20L - held, stats.get("evicted_spans"));
+        assertEquals(spans.get(19).getSpanId(), store.getRecentSpans(1, 1).getFirst().getSpanId());
+        assertTrue(store.getTraceById(spans.get(0).getTraceId()).isEmpty());
+
+        log.info("按字节数淘汰测试执行完成，持有 {} 条，估算 {} 字节", held, usedBytes);
+    }
+
+    @Test
+    @SuppressWarnings("unchecked")
+    void testDictionaryCountedInBudget() {
+        log.info("测试高基数字段的字典占用计入字节预算...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(100, 64 * 1024);
+        for (int i = 0; i < 5000; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + i);
+            // 每条 Span 的接口名都不同，字典只增不减
+            span.setOperationName("GET /api/orders/" + i);
+            store.saveTraceSpans(List.of(span));
+        }
+
+        Map<String, Object> stats = store.getStorageStats();
+        Map<String, Object> dictionary = (Map<String, Object>) stats.get("dictionary");
+        long usedBytes = (Long) stats.get("used_bytes");
+        assertTrue(usedBytes <= 64 * 1024, "估算占用超出预算: " + stats);
+        long dictionaryBytes = (Long) dictionary.get("retained_bytes");
+        assertTrue(dictionaryBytes <= 64 * 1024 / 8, "字典超出预算: " + dictionary);
+        // 字典早已写满，存活 Span 的接口名都按原样逐条存放：与接口名共享字典的同构 Span 相比，
+        // 每条至少多占一个原始字符串
+        TraceSpanPersistenceService shared = new TraceSpanPersistenceService(100, 64 * 1024);
+        TraceSpan sharedSpan = createTestTraceSpan();
+        sharedSpan.setOperationName("GET /api/orders/0000");
+        shared.saveTraceSpans(List.of(sharedSpan));
+        long sharedSpanBytes = spanBytes(shared.getStorageStats());
+        int spanCount = (Integer) stats.get("span_count");
+        long rawOperationBytes = 40 + 2L * "GET /api/orders/4999".length();
+        assertTrue(spanBytes(stats) >= spanCount * (sharedSpanBytes + rawOperationBytes),
+                "溢出的原始字符串未计入占用: " + stats);
+        assertEquals("GET /api/orders/4999", store.getRecentSpans(1, 1).getFirst().getOperationName());
+
+        log.info("字典计入预算测试执行完成，估算 {} 字节，字典 {}", usedBytes, dictionary);
+    }
+
+    /**
+     * 估算占用中扣除字典与规范化值表后、由各条 Span 槽位持有的字节数
+     */
+    @SuppressWarnings("unchecked")
+    private static long spanBytes(Map<String, Object> stats) {
+        return (Long) stats.get("used_bytes")
+                - (Long) ((Map<String, Object>) stats.get("dictionary")).get("retained_bytes")
+                - (Long) ((Map<String, Object>) stats.get("canonical_values")).get("retained_bytes");
+    }
+
+    @Test
+    void testOffHeapStore() {
+        log.info("测试堆外字节环存储...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setType(InsightStorageProperties.StoreType.OFF_HEAP);
+        properties.setMaxSpans(1000);
+        properties.setMaxBytes(DataSize.ofKilobytes(64));
+        properties.setRetention(Duration.ZERO);
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+
+        TraceSpan full = createTestTraceSpan();
+        full.setParentSpanId("parent-1");
+        full.setSuccess(false);
+        full.setErrorMessage("下游超时");
+        TraceSpan sparse = new TraceSpan();
+        sparse.setTraceId(full.getTraceId());
+        sparse.setSpanId("sparse-1");
+        sparse.setStartTime(full.getStartTime() + 1);
+        store.saveTraceSpans(List.of(full, sparse));
+
+        List<TraceSpan> trace = store.getTraceById(full.getTraceId());
+        assertEquals(2, trace.size());
+        TraceSpan a = trace.get(0);
+        assertEquals(full.getSpanId(), a.getSpanId());
+        assertEquals(full.getParentSpanId(), a.getParentSpanId());
+        assertEquals(full.getServiceName(), a.getServiceName());
+        assertEquals(full.getHostPort(), a.getHostPort());
+        assertEquals(full.getStartTime(), a.getStartTime());
+        assertEquals(full.getDurationMs(), a.getDurationMs());
+        assertEquals(Boolean.FALSE, a.getSuccess());
+        assertEquals("下游超时", a.getErrorMessage());
+        assertEquals(full.getRemoteService(), a.getRemoteService());
+        assertEquals(full.getTags(), a.getTags());
+        TraceSpan b = trace.get(1);
+        assertNull(b.getServiceName());
+        assertNull(b.getDurationMs());
+        assertNull(b.getHostPort());
+        assertNull(b.getSuccess());
+
+        // 写满 64KB 字节环后绕回，最旧的被覆盖前先淘汰
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 100; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + 10 + i);
+            span.getTags().put("db.sql", "SELECT 1 ".repeat(200));
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+
+        Map<String, Object> stats = store.getStorageStats();
+        int held = (Integer) stats.get("span_count");
+        assertEquals("OFF_HEAP", stats.get("store_type"));
+        assertTrue((Long) stats.get("used_bytes") <= 64 * 1024, "字节环占用超出: " + stats);
+        assertTrue(held > 0 && held < 100, "应按字节环大小淘汰: " + held);
+        assertTrue(store.getTraceById(full.getTraceId()).isEmpty());
+        TraceSpan newest = store.getRecentSpans(1, 1).getFirst();
+        assertEquals(spans.get(99).getSpanId(), newest.getSpanId());
+        assertEquals(spans.get(99).getTags(), newest.getTags());
+        assertEquals(held, store.getRecentSpansByService(full.getServiceName(), 1000).size());
+
+        log.info("堆外字节环存储测试执行完成，持有 {} 条，{}", held, stats);
+    }
+
+    @Test
+    void testColdTier() {
+        log.info("测试压缩冷段...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setMaxSpans(200);
+        properties.setRetention(Duration.ZERO);
+        properties.setColdAfter(Duration.ofHours(1));
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        try {
+            List<TraceSpan> spans = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                TraceSpan span = createTestTraceSpan();
+                span.setStartTime(span.getStartTime() + i);
+                spans.add(span);
+            }
+            store.saveTraceSpans(spans);
+
+            // 热区只有 200 个槽位，写满时最旧部分封存为冷段而非丢弃
+            Map<String, Object> stats = store.getStorageStats();
+            assertEquals(1000, stats.get("span_count"));
+            assertEquals(0L, stats.get("evicted_spans"));
+            assertTrue((Integer) stats.get("cold_spans") >= 800, "应封存为冷段: " + stats);
+
+            // 超过 cold-after 后热区整体封存
+            store.expire(System.currentTimeMillis() + Duration.ofHours(2).toMillis());
+            stats = store.getStorageStats();
+            assertEquals(0, stats.get("hot_spans"));
+            assertEquals(1000, stats.get("cold_spans"));
+            assertTrue((Double) stats.get("cold_compression_ratio") > 2.0, "压缩率过低: " + stats);
+
+            TraceSpan first = spans.get(0);
+            List<TraceSpan> trace = store.getTraceById(first.getTraceId());
+            assertEquals(1, trace.size());
+            assertEquals(first.getSpanId(), trace.getFirst().getSpanId());
+            assertEquals(first.getStartTime(), trace.getFirst().getStartTime());
+            assertEquals(first.getTags(), trace.getFirst().getTags());
+            List<TraceSpan> recent = store.getRecentSpans(1, 10);
+            assertEquals(spans.get(999).getSpanId(), recent.getFirst().getSpanId());
+            assertEquals(spans.get(990).getSpanId(), recent.get(9).getSpanId());
+            assertEquals(spans.get(999).getSpanId(),
+                    store.getRecentSpansByService(first.getServiceName(), 1).getFirst().getSpanId());
+
+            log.info("压缩冷段测试执行完成，{}", stats);
+        } finally {
+            store.shutdown();
+        }
+
+        // 字节预算同时计入冷段压缩字节，超出时从冷段头部淘汰
+        properties.setMaxBytes(DataSize.ofKilobytes(40));
+        TraceSpanPersistenceService bounded = new TraceSpanPersistenceService(properties);
+        try {
+            List<TraceSpan> spans = new ArrayList<>();
+            for (int i = 0; i < 1000; i++) {
+                TraceSpan span = createTestTraceSpan();
+                span.setStartTime(span.getStartTime() + i);
+                spans.add(span);
+            }
+            bounded.saveTraceSpans(spans);
+            Map<String, Object> stats = bounded.getStorageStats();
+            int held = (Integer) stats.get("span_count");
+            assertTrue((Long) stats.get("used_bytes") <= 40 * 1024, "超出字节预算: " + stats);
+            assertTrue(held > 100 && held < 1000, "应淘汰最旧的冷段 Span: " + stats);
+            assertEquals(1000L - held, stats.get("evicted_spans"));
+            assertEquals(held, stats.get("trace_count"));
+            assertTrue(bounded.getTraceById(spans.get(0).getTraceId()).isEmpty());
+            assertEquals(1, bounded.getTraceById(spans.get(1000 - held).getTraceId()).size());        } finally {
+            bounded.shutdown();
+        }
+
+        // 冷段占满预算后，字节压力由冷段头部淘汰承担，不再把最新的少量 Span 逐次封成小段
+        properties.setMaxSpans(4000);
+        properties.setMaxBytes(DataSize.ofKilobytes(400));
+        TraceSpanPersistenceService large = new TraceSpanPersistenceService(properties);
+        try {
+            for (int round = 0; round < 15; round++) {
+                List<TraceSpan> spans = new ArrayList<>();
+                for (int i = 0; i < 1000; i++) {
+                    spans.add(createTestTraceSpan());
+                }
+                large.saveTraceSpans(spans);
+            }
+            Map<String, Object> stats = large.getStorageStats();
+            assertTrue((Long) stats.get("evicted_spans") > 0, "应已触发字节淘汰: " + stats);
+            assertTrue((Integer) stats.get("hot_spans") > TieredSpanStore.SEAL_MIN_SPANS, "热区被过早封存: " + stats);
+
+            // 冷段按条折算字节，每次写入只淘汰少量最旧 Span，而非一次清空整个冷段
+            long evicted = (Long) stats.get("evicted_spans");
+            long maxPerWrite = 0;
+            for (int i = 0; i < 1000; i++) {
+                large.saveTraceSpan(createTestTraceSpan());
+                long now = (Long) large.getStorageStats().get("evicted_spans");
+                maxPerWrite = Math.max(maxPerWrite, now - evicted);
+                evicted = now;
+            }
+            assertTrue(maxPerWrite < TieredSpanStore.SEAL_MIN_SPANS, "单次写入淘汰过多: " + maxPerWrite);
+        } finally {
+            large.shutdown();
+        }
+    }
+
+    @Test
+    void testSpanLogReplay(@TempDir Path logDir) {
+        log.info("测试追加日志重放...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setMaxSpans(50);
+        properties.setRetention(Duration.ZERO);
+        properties.setLogDir(logDir.toString());
+        properties.setLogSegmentSize(DataSize.ofKilobytes(4));
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + i);
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+        Map<String, Object> before = store.getStorageStats();
+        store.shutdown();
+
+        // 每段约容纳 10 条，80 条写满 8 段；段随淘汰删除，只保留仍在内存中的 50 条所在的段
+        int segments = (Integer) before.get("log_segments");
+        assertEquals(80L, before.get("log_records"));
+        assertTrue(segments > 1 && segments <= 6, "日志段未随淘汰删除: " + before);
+
+        TraceSpanPersistenceService restarted = new TraceSpanPersistenceService(properties);
+        try {
+            assertEquals(50, restarted.getStorageStats().get("span_count"));
+            TraceSpan last = spans.get(79);
+            List<TraceSpan> trace = restarted.getTraceById(last.getTraceId());
+            assertEquals(1, trace.size());
+            assertEquals(last.getSpanId(), trace.getFirst().getSpanId());
+            assertEquals(last.getTags(), trace.getFirst().getTags());
+            assertTrue(restarted.getTraceById(spans.get(0).getTraceId()).isEmpty());
+            assertEquals(last.getSpanId(), restarted.getRecentSpans(1, 1).getFirst().getSpanId());
+            assertEquals(1, restarted.getServiceDependencies(1).size());
+        } finally {
+            restarted.shutdown();
+        }
+
+        log.info("追加日志重放测试执行完成，{}", before);
+    }
+
+    @Test
+    void testSnapshotRestore(@TempDir Path dir) throws Exception {
+        log.info("测试快照与恢复...");
+
+        Path snapshot = dir.resolve("store.snapshot");
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setMaxSpans(50);
+        properties.setRetention(Duration.ZERO);
+        properties.setSnapshotPath(snapshot.toString());
+        properties.setSnapshotInterval(Duration.ZERO);
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        List<TraceSpan> spans = new ArrayList<>();
+        for (int i = 0; i < 80; i++) {
+            TraceSpan span = createTestTraceSpan();
+            span.setStartTime(span.getStartTime() + i);
+            spans.add(span);
+        }
+        store.saveTraceSpans(spans);
+        assertTrue(store.snapshot());
+        assertEquals(50L, store.getStorageStats().get("snapshot_spans"));
+        store.shutdown();
+
+        // 预聚合随快照恢复：淘汰前的 80 条仍计入，且重建存储时不重复计入
+        TraceSpanPersistenceService restarted = new TraceSpanPersistenceService(properties);
+        try {
+            assertEquals(50, restarted.getStorageStats().get("span_count"));
+            TraceSpan last = spans.get(79);
+            List<TraceSpan> trace = restarted.getTraceById(last.getTraceId());
+            assertEquals(1, trace.size());
+            assertEquals(last.getTags(), trace.getFirst().getTags());
+            assertTrue(restarted.getTraceById(spans.get(0).getTraceId()).isEmpty());
+            assertEquals(last.getSpanId(), restarted.getRecentSpans(1, 1).getFirst().getSpanId());
+            assertEquals(80L, restarted.getServiceDependencies(1).getFirst().get("call_count"));
+            assertEquals(80L, restarted.getLatencyPercentiles(1, null).getFirst().get("count"));
+            assertEquals(List.of("test-service"), restarted.getAllServiceNames());
+        } finally {
+            restarted.shutdown();
+        }
+
+        // 快照截断时保留已载入的部分，不影响启动
+        byte[] bytes = Files.readAllBytes(snapshot);
+        Files.write(snapshot, Arrays.copyOf(bytes, bytes.length / 2));
+        TraceSpanPersistenceService partial = new TraceSpanPersistenceService(properties);
+        try {
+            int restored = (Integer) partial.getStorageStats().get("span_count");
+            assertTrue(restored > 0 && restored < 50, "截断快照应部分载入: " + restored);
+        } finally {
+            partial.shutdown();
+        }
+
+        log.info("快照与恢复测试执行完成");
+    }
+
+    @Test
+    void testCursorPagination() {
+        log.info("测试游标分页...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(100);
+        try {
+            long base = System.currentTimeMillis() - 60_000L;
+            List<TraceSpan> spans = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                TraceSpan span = createTestTraceSpan();
+                // 乱序且有相同 startTime，检验 (startTime, seq) 续查不丢不重
+                span.setStartTime(base + (i * 7L % 10) * 1000);
+                span.setServiceName(i % 2 == 0 ? "order-service" : "test-service");
+                spans.add(span);
+            }
+            for (int i = 0; i < spans.size(); i += 5) {
+                store.saveTraceSpans(spans.subList(i, i + 5));
+            }
+            List<String> expected = store.getRecentSpans(1, 100).stream().map(TraceSpan::getSpanId).toList();
+            assertEquals(30, expected.size());
+
+            List<String> paged = new ArrayList<>();
+            TraceSpanPersistenceService.Cursor cursor = null;
+            int pages = 0;
+            do {
+                TraceSpanPersistenceService.Page<TraceSpan> page = store.getRecentSpans(1, 7, cursor);
+                page.items().forEach(s -> paged.add(s.getSpanId()));
+                cursor = page.next() != null ? TraceSpanPersistenceService.Cursor.decode(page.next().encode()) : null;
+                pages++;
+            } while (cursor != null);
+            assertEquals(expected, paged);
+            assertEquals(5, pages);
+
+            List<String> expectedOrders = store.getRecentSpansByService("order-service", 100).stream()
+                    .map(TraceSpan::getSpanId).toList();
+            List<String> pagedOrders = new ArrayList<>();
+            cursor = null;
+            do {
+                TraceSpanPersistenceService.Page<TraceSpan> page = store.getRecentSpansByService("order-service", 4, cursor);
+                page.items().forEach(s -> pagedOrders.add(s.getSpanId()));
+                cursor = page.next();
+            } while (cursor != null);
+            assertEquals(15, pagedOrders.size());
+            assertEquals(expectedOrders, pagedOrders);
+
+            assertNull(TraceSpanPersistenceService.Cursor.decode(""));
+            assertThrows(IllegalArgumentException.class, () -> TraceSpanPersistenceService.Cursor.decode("abc"));
+        } finally {
+            store.shutdown();
+        }
+
+        log.info("游标分页测试执行完成");
+    }
+
+    @Test
+    void testTraceSummaries() {
+        log.info("测试链路摘要索引...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(20);
+        try {
+            long base = System.currentTimeMillis() - 60_000L;
+            List<String> traceIds = new ArrayList<>();
+            for (int t = 0; t < 4; t++) {
+                String traceId = UUID.randomUUID().toString();
+                traceIds.add(traceId);
+                List<TraceSpan> batch = new ArrayList<>();
+                // 子 Span 先到，入口 Span 最后到且开始最早
+                for (int i = 0; i < 4; i++) {
+                    TraceSpan child = createTestTraceSpan();
+                    child.setTraceId(traceId);
+                    child.setParentSpanId("root-" + t);
+                    child.setServiceName(i % 2 == 0 ? "order-service" : "db-service");
+                    child.setOperationName("SELECT " + i);
+                    child.setStartTime(base + t * 1000 + 100 + i);
+                    child.setEndTime(base + t * 1000 + 300);
+                    child.setStatusCode(t == 2 && i == 3 ? "ERROR" : "OK");
+                    batch.add(child);
+                }
+                TraceSpan root = createTestTraceSpan();
+                root.setTraceId(traceId);
+                root.setSpanId("root-" + t);
+                root.setParentSpanId(null);
+                root.setServiceName("gateway");
+                root.setOperationName("GET /orders");
+                root.setStartTime(base + t * 1000);
+                root.setEndTime(base + t * 1000 + 250);
+                batch.add(root);
+                store.saveTraceSpans(batch);
+            }
+
+            List<Map<String, Object>> rows = store.getTraceSummaries(1, null, 10, null).items();
+            assertEquals(4, rows.size());
+            Map<String, Object> newest = rows.getFirst();
+            assertEquals(traceIds.get(3), newest.get("trace_id"));
+            assertEquals("gateway", newest.get("root_service"));
+            assertEquals("GET /orders", newest.get("root_operation"));
+            assertEquals(5, newest.get("span_count"));
+            assertEquals(300L, newest.get("duration_ms"));
+            assertEquals(base + 3000, newest.get("start_time"));
+            assertEquals(List.of("order-service", "db-service", "gateway"), newest.get("services"));
+            assertEquals(Boolean.TRUE, rows.get(1).get("error"));
+            assertEquals(Boolean.FALSE, newest.get("error"));
+
+            TraceSpanPersistenceService.Page<Map<String, Object>> first = store.getTraceSummaries(1, "db-service", 3, null);
+            assertEquals(3, first.items().size());
+            List<Map<String, Object>> rest = store.getTraceSummaries(1, "db-service", 3, first.next()).items();
+            assertEquals(List.of(traceIds.get(0)), rest.stream().map(r -> r.get("trace_id")).toList());
+            assertTrue(store.getTraceSummaries(1, "unknown", 3, null).items().isEmpty());
+
+            // 链路的 Span 全部被淘汰后摘要随之移除
+            List<TraceSpan> filler = new ArrayList<>();
+            for (int i = 0; i < 12; i++) {
+                filler.add(createTestTraceSpan());
+            }
+            store.saveTraceSpans(filler);
+            List<Object> remaining = store.getTraceSummaries(1, "gateway", 10, null).items().stream()
+                    .map(r -> r.get("trace_id")).toList();
+            assertEquals(List.of(traceIds.get(3), traceIds.get(2)), remaining);
+        } finally {
+            store.shutdown();
+        }
+
+        log.info("链路摘要索引测试执行完成");
+    }
+
+    @Test
+    void testTagIndexSearch() {
+        log.info("测试标签倒排索引...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setMaxSpans(2000);
+        properties.setRetention(Duration.ZERO);
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        try {
+            List<TraceSpan> spans = new ArrayList<>();
+            for (int i = 0; i < 3000; i++) {
+                TraceSpan span = createTestTraceSpan();
+                span.setServiceName(i % 2 == 0 ? "order-service" : "test-service");
+                span.getTags().put("http.method", i % 3 == 0 ? "POST" : "GET");
+                span.getTags().put("http.status_code", i % 10 == 0 ? "500" : "200");
+                spans.add(span);
+            }
+            store.saveTraceSpans(spans);
+
+            // 最旧 1000 条已淘汰：i ∈ [1000, 3000) 中 i % 30 == 0 的 POST + 500 共 66 条
+            Map<String, String> filter = Map.of("http.method", "POST", "http.status_code", "500");
+            List<String> expected = new ArrayList<>();
+            for (int i = 2999; i >= 1000; i--) {
+                if (i % 30 == 0) {
+                    expected.add(spans.get(i).getSpanId());
+                }
+            }
+            List<String> found = new ArrayList<>();
+            TraceSpanPersistenceService.Cursor cursor = null;
+            do {
+                TraceSpanPersistenceService.Page<TraceSpan> page = store.findSpansByTags(filter, null, 1, 25, cursor);
+                page.items().forEach(s -> found.add(s.getSpanId()));
+                cursor = page.next();
+            } while (cursor != null);
+            assertEquals(expected, found);
+
+            // i % 30 == 0 均为偶数，全部属于 order-service
+            assertEquals(expected.size(), store.findSpansByTags(filter, "order-service", 1, 100, null).items().size());
+            assertTrue(store.findSpansByTags(filter, "test-service", 1, 100, null).items().isEmpty());
+            assertEquals(666, store.findSpansByTags(Map.of("http.method", "POST"), null, 1, 1000, null).items().size());
+            assertTrue(store.findSpansByTags(Map.of("http.method", "PUT"), null, 1, 10, null).items().isEmpty());
+            assertThrows(IllegalArgumentException.class,
+                    () -> store.findSpansByTags(Map.of("user.id", "12345"), null, 1, 10, null));
+            assertTrue((Integer) store.getStorageStats().get("tag_postings") >= 4);
+        } finally {
+            store.shutdown();
+        }
+    }
+
+    @Test
+    void testTagPostingsExpire() {
+        log.info("测试标签 posting list 随淘汰过期...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        // 容量需超过单个时间分段的条数上限（4096），同一分钟内的写入才会滚动出新分段
+        properties.setMaxSpans(5000);
+        properties.setRetention(Duration.ZERO);
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        try {
+            int total = 30000;
+            for (int i = 0; i < total; i++) {
+                TraceSpan span = createTestTraceSpan();
+                // 每条 Span 的 http.path 都不同，旧键值对须随分段淘汰整体删除
+                span.getTags().put("http.path", "/orders/" + i);
+                span.getTags().put("http.method", "GET");
+                store.saveTraceSpans(List.of(span));
+            }
+
+            int postings = (Integer) store.getStorageStats().get("tag_postings");
+            assertTrue(postings < total / 2, "过期键值对未删除: " + postings);
+            assertTrue(store.findSpansByTags(Map.of("http.path", "/orders/0"), null, 1, 10, null).items().isEmpty());
+            assertEquals(1, store.findSpansByTags(Map.of("http.path", "/orders/" + (total - 1)), null, 1, 10, null).items().size());
+            assertEquals(5000, store.findSpansByTags(Map.of("http.method", "GET"), null, 1, 10000, null).items().size());
+        } finally {
+            store.shutdown();
+        }
+
+        log.info("标签倒排索引测试执行完成");
+    }
+
+    @Test
+    void testExportSpans() {
+        log.info("测试流式导出...");
+
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(100);
+        try {
+            List<TraceSpan> spans = new ArrayList<>();
+            for (int i = 0; i < 30; i++) {
+                TraceSpan span = createTestTraceSpan();
+                span.setServiceName(i % 3 == 0 ? "order-service" : "test-service");
+                span.setStartTime(span.getStartTime() - (30 - i) * 60_000L);
+                spans.add(span);
+            }
+            store.saveTraceSpans(spans);
+
+            // 按写入顺序逐条交出
+            List<String> exported = new ArrayList<>();
+            assertEquals(30L, store.exportSpans(0L, null, 0, s -> exported.add(s.getSpanId())));
+            assertEquals(spans.stream().map(TraceSpan::getSpanId).toList(), exported);
+
+            assertEquals(10L, store.exportSpans(0L, "order-service", 0, s -> "order-service".equals(s.getServiceName())));
+            long since = spans.get(20).getStartTime();
+            assertEquals(10L, store.exportSpans(since, null, 0, s -> s.getStartTime() >= since));
+            assertEquals(5L, store.exportSpans(0L, null, 5, s -> true));
+            assertEquals(1L, store.exportSpans(0L, null, 0, s -> false));
+        } finally {
+            store.shutdown();
+        }
+
+        log.info("流式导出测试执行完成");
+    }
+
+    @Test
+    void testRetentionExpiry() {
+        log.info("测试按保留时长过期...");
+
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setRetention(Duration.ofMinutes(5));
+        TraceSpanPersistenceService store = new TraceSpanPersistenceService(properties);
+        try {
+            List<TraceSpan> spans = List.of(createTestTraceSpan(), createTestTraceSpan());
+            store.saveTraceSpans(spans);
+
+            long now = System.currentTimeMillis();
+            store.expire(now);
+            assertEquals(2, store.getRecentSpans(1, 10).size());
+
+            store.expire(now + Duration.ofMinutes(7).toMillis());
+            assertTrue(store.getRecentSpans(1, 10).isEmpty());
+            assertTrue(store.getTraceById(spans.getFirst().getTraceId()).isEmpty());
+            assertTrue(store.getAllServiceNames().isEmpty());
+            assertEquals(2L, store.getStorageStats().get("expired_spans"));
+            assertEquals(0, store.getStorageStats().get("span_count"));
+
+            // 过期不影响后续写入
+            store.saveTraceSpan(createTestTraceSpan());
+            assertEquals(1, store.getRecentSpans(1, 10).size());
+        } finally {
+            store.shutdown();
+        }
+
+        log.info("按保留时长过期测试执行完成");
+    }
+
     private TraceSpan createTestTraceSpan() {
         long startTime = System.currentTimeMillis() - 1000;
         long endTime = System.currentTimeMillis();
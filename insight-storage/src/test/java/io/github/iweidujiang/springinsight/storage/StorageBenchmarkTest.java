@@ -0,0 +1,226 @@
+package io.github.iweidujiang.springinsight.storage;
+
+import io.github.iweidujiang.springinsight.agent.model.TraceSpan;
+import io.github.iweidujiang.springinsight.storage.config.InsightStorageProperties;
+import io.github.iweidujiang.springinsight.storage.service.TraceSpanPersistenceService;
+import lombok.extern.slf4j.Slf4j;
+import org.junit.jupiter.api.Test;
+import org.junit.jupiter.api.condition.EnabledIfSystemProperty;
+import org.springframework.util.unit.DataSize;
+
+import java.lang.management.GarbageCollectorMXBean;
+import java.lang.management.ManagementFactory;
+import java.time.Duration;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.TimeUnit;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
+
+import static org.junit.jupiter.api.Assertions.assertEquals;
+import static org.junit.jupiter.api.Assertions.assertTrue;
+
+/**
+ * ┌───────────────────────────────────────────────┐
+ * │ 📦 存储模块基准测试（默认跳过）
+ * │    运行：mvn -pl insight-storage test -Dtest=StorageBenchmarkTest -Dinsight.benchmark=true
+ * │
+ * │ 👤 作者：苏渡苇
+ * │ 🔗 公众号：苏渡苇
+ * │ 💻 GitHub：https://github.com/iweidujiang
+ * │
+ * | 📅 @since：2026/10/17
+ * └───────────────────────────────────────────────┘
+ */
+@Slf4j
+@EnabledIfSystemProperty(named = "insight.benchmark", matches = "true")
+public class StorageBenchmarkTest {
+
+    private static final int CAPACITY = 50_000;
+    private static final int BATCH_SIZE = 500;
+    private static final int QUERY_THREADS = 4;
+
+    /**
+     * 写满前后的单批写入耗时应基本持平（旧实现写满后每批为 O(batch × capacity)）
+     */
+    @Test
+    void ingestLatencyStaysFlatOnceFull() {
+        TraceSpanPersistenceService service = new TraceSpanPersistenceService(CAPACITY);
+        int fillBatches = CAPACITY / BATCH_SIZE;
+        int fullBatches = fillBatches * 4;
+
+        // 预热
+        TraceSpanPersistenceService warmup = new TraceSpanPersistenceService(CAPACITY);
+        for (int i = 0; i < fillBatches * 2; i++) {
+            warmup.saveTraceSpans(batch(i));
+        }
+
+        long[] filling = new long[fillBatches];
+        for (int i = 0; i < fillBatches; i++) {
+            filling[i] = timeBatch(service, batch(i));
+        }
+        long[] full = new long[fullBatches];
+        for (int i = 0; i < fullBatches; i++) {
+            full[i] = timeBatch(service, batch(fillBatches + i));
+        }
+
+        log.info("[基准] 写满前: avg={}µs p99={}µs；写满后: avg={}µs p99={}µs（batch={}, capacity={}）",
+                avgMicros(filling), p99Micros(filling), avgMicros(full), p99Micros(full), BATCH_SIZE, CAPACITY);
+
+        // 写满后不应出现与容量成正比的退化，留足抖动余量
+        assertTrue(avgMicros(full) <= avgMicros(filling) * 3 + 500,
+                "写满后单批写入耗时明显退化");
+    }
+
+    /**
+     * 写入与重查询并发：查询不持锁，写入延迟不应被查询线程拖慢
+     */
+    @Test
+    void ingestLatencyUnderQueryContention() throws InterruptedException {
+        TraceSpanPersistenceService service = new TraceSpanPersistenceService(CAPACITY);
+        int fillBatches = CAPACITY / BATCH_SIZE;
+        for (int i = 0; i < fillBatches; i++) {
+            service.saveTraceSpans(batch(i));
+        }
+
+        long[] idle = ingestWhileQuerying(service, 0, fillBatches * 2, new AtomicLong());
+        AtomicLong queries = new AtomicLong();
+        long[] loaded = ingestWhileQuerying(service, QUERY_THREADS, fillBatches * 2, queries);
+
+        log.info("[基准] 无查询: avg={}µs p99={}µs；{} 个查询线程并发: avg={}µs p99={}µs，期间完成查询 {} 次",
+                avgMicros(idle), p99Micros(idle), QUERY_THREADS, avgMicros(loaded), p99Micros(loaded), queries.get());
+
+        assertTrue(queries.get() > 0, "查询线程未能与写入并发执行");
+        assertTrue(avgMicros(loaded) <= avgMicros(idle) * 4 + 1000,
+                "并发查询明显拖慢了写入");
+    }
+
+    /**
+     * 同样的 Span 量分别存入堆内列式存储与堆外字节环：比较写入期间的 GC 次数 / 耗时、
+     * 显式 Full GC 的停顿以及存活堆大小（堆外存储的 Span 内容不再由 GC 追踪）
+     */
+    @Test
+    void gcPausesHeapVsOffHeap() {
+        int spans = 400_000;
+        GcSample heap = fillAndMeasure(InsightStorageProperties.StoreType.HEAP, spans);
+        GcSample offHeap = fillAndMeasure(InsightStorageProperties.StoreType.OFF_HEAP, spans);
+
+        log.info("[基准] 堆内 {} 条: 写入期间 GC {} 次 / {}ms，Full GC 停顿 {}ms，存活堆 {}MB", spans,
+                heap.gcCount(), heap.gcMillis(), heap.fullGcMillis(), heap.retainedBytes() >> 20);
+        log.info("[基准] 堆外 {} 条: 写入期间 GC {} 次 / {}ms，Full GC 停顿 {}ms，存活堆 {}MB", spans,
+                offHeap.gcCount(), offHeap.gcMillis(), offHeap.fullGcMillis(), offHeap.retainedBytes() >> 20);
+
+        assertTrue(offHeap.retainedBytes() < heap.retainedBytes(), "堆外存储的存活堆应小于堆内存储");
+    }
+
+    private static GcSample fillAndMeasure(InsightStorageProperties.StoreType type, int spans) {
+        System.gc();
+        InsightStorageProperties properties = new InsightStorageProperties();
+        properties.setType(type);
+        properties.setMaxSpans(spans);
+        properties.setMaxBytes(DataSize.ofMegabytes(512));
+        properties.setRetention(Duration.ZERO);
+        TraceSpanPersistenceService service = new TraceSpanPersistenceService(properties);
+        long baseline = heapUsedAfterGc();
+
+        long[] before = gcTotals();
+        for (int i = 0; i < spans / BATCH_SIZE; i++) {
+            service.saveTraceSpans(batch(i));
+        }
+        long[] after = gcTotals();
+
+        long start = System.nanoTime();
+        System.gc();
+        long fullGcMillis = (System.nanoTime() - start) / 1_000_000;
+        long retained = heapUsedAfterGc() - baseline;
+        assertEquals(spans, service.getStorageStats().get("span_count"), "未写满: " + type);
+        service.shutdown();
+        return new GcSample(after[0] - before[0], after[1] - before[1], fullGcMillis, retained);
+    }
+
+    private static long[] gcTotals() {
+        long count = 0;
+        long millis = 0;
+        for (GarbageCollectorMXBean gc : ManagementFactory.getGarbageCollectorMXBeans()) {
+            count += Math.max(0, gc.getCollectionCount());
+            millis += Math.max(0, gc.getCollectionTime());
+        }
+        return new long[]{count, millis};
+    }
+
+    private static long heapUsedAfterGc() {
+        System.gc();
+        return ManagementFactory.getMemoryMXBean().getHeapMemoryUsage().getUsed();
+    }
+
+    private record GcSample(long gcCount, long gcMillis, long fullGcMillis, long retainedBytes) {
+    }
+
+    private static long[] ingestWhileQuerying(TraceSpanPersistenceService service, int queryThreads,
+                                              int batches, AtomicLong queries) throws InterruptedException {
+        AtomicBoolean stop = new AtomicBoolean(false);
+        ExecutorService pool = Executors.newFixedThreadPool(Math.max(1, queryThreads));
+        for (int t = 0; t < queryThreads; t++) {
+            pool.execute(() -> {
+                while (!stop.get()) {
+                    service.getRecentSpans(24, 500);
+                    service.getServiceDependencies(24);
+                    service.findHighErrorServices(24);
+                    service.getSpanCountByService();
+                    service.getRecentSpansByService("bench-service-1", 200);
+                    queries.incrementAndGet();
+                }
+            });
+        }
+        long[] timings = new long[batches];
+        try {
+            for (int i = 0; i < batches; i++) {
+                timings[i] = timeBatch(service, batch(1_000_000 + i));
+            }
+        } finally {
+            stop.set(true);
+            pool.shutdown();
+            pool.awaitTermination(30, TimeUnit.SECONDS);
+        }
+        return timings;
+    }
+
+    private static long timeBatch(TraceSpanPersistenceService service, List<TraceSpan> batch) {
+        long start = System.nanoTime();
+        service.saveTraceSpans(batch);
+        return System.nanoTime() - start;
+    }
+
+    static List<TraceSpan> batch(int batchNo) {
+        List<TraceSpan> list = new ArrayList<>(BATCH_SIZE);
+        long now = System.currentTimeMillis();
+        for (int i = 0; i < BATCH_SIZE; i++) {
+            TraceSpan span = new TraceSpan();
+            span.setTraceId("bench-" + batchNo + "-" + (i / 10));
+            span.setSpanId("bench-" + batchNo + "-" + i);
+            span.setServiceName("bench-service-" + (i % 8));
+            span.setOperationName("GET /api/bench/" + (i % 20));
+            span.setSpanKind("SERVER");
+            span.setStartTime(now - i);
+            span.setEndTime(now);
+            span.setDurationMs((long) i);
+            span.setStatusCode(i % 50 == 0 ? "ERROR" : "OK");
+            span.getTags().put("http.method", "GET");
+            list.add(span);
+        }
+        return list;
+    }
+
+    static long avgMicros(long[] nanos) {
+        return Arrays.stream(nanos).sum() / nanos.length / 1000;
+    }
+
+    static long p99Micros(long[] nanos) {
+        long[] sorted = nanos.clone();
+        Arrays.sort(sorted);
+        return sorted[(int) Math.min(sorted.length - 1, Math.round(sorted.length * 0.99))] / 1000;
+    }
+}
@@ -46,7 +46,8 @@ function normalizeDependency(raw: any) {
     sourceService: raw.source_service ?? raw.sourceService ?? '',
     targetService: raw.target_service ?? raw.targetService ?? '',
     callCount: Number(raw.call_count ?? raw.callCount ?? 0),
-    avgDuration: Number(raw.avg_duration ?? raw.avgDuration ?? 0)
+    avgDuration: Number(raw.avg_duration ?? raw.avgDuration ?? 0),
+    errorCount: Number(raw.error_count ?? raw.errorCount ?? 0)
   }
 }
 
@@ -63,7 +64,55 @@ function normalizeErrorRow(raw: any) {
     serviceName: raw.service_name ?? raw.serviceName ?? '',
     totalCalls: Number(raw.total_calls ?? raw.totalCalls ?? 0),
     errorCalls: Number(raw.error_calls ?? raw.errorCalls ?? 0),
-    errorRate: rate
+    errorRate: rate,
+    avgDuration: Number(raw.avg_duration ?? raw.avgDuration ?? 0),
+    maxDuration: Number(raw.max_duration ?? raw.maxDuration ?? 0)
+  }
+}
+
+function normalizeLatencyRow(raw: any) {
+  return {
+    serviceName: raw.service_name ?? raw.serviceName ?? '',
+    operationName: raw.operation_name ?? raw.operationName ?? '',
+    count: Number(raw.count ?? 0),
+    p50: Number(raw.p50 ?? 0),
+    p95: Number(raw.p95 ?? 0),
+    p99: Number(raw.p99 ?? 0),
+    max: Number(raw.max ?? 0)
+  }
+}
+
+function normalizeTraceSummary(raw: any) {
+  return {
+    traceId: raw.trace_id ?? raw.traceId ?? '',
+    rootService: raw.root_service ?? raw.rootService ?? '',
+    rootOperation: raw.root_operation ?? raw.rootOperation ?? '',
+    services: Array.isArray(raw.services) ? raw.services : [],
+    spanCount: Number(raw.span_count ?? raw.spanCount ?? 0),
+    durationMs: Number(raw.duration_ms ?? raw.durationMs ?? 0),
+    error: Boolean(raw.error),
+    startTime: Number(raw.start_time ?? raw.startTime ?? 0)
+  }
+}
+
+/** 分页结果：nextCursor 为空表示没有更早的数据 */
+export interface SpanPage {
+  items: any[]
+  nextCursor: string | null
+}
+
+/** 由新到旧的一页 Span，下一页游标取自响应头 X-Next-Cursor */
+async function requestPage(url: string, cursor?: string | null, normalize: (raw: any) => any = raw => raw): Promise<SpanPage> {
+  const pageUrl = cursor ? `${url}&cursor=${encodeURIComponent(cursor)}` : url
+  try {
+    const response = await apiClient<any[]>({ url: pageUrl })
+    return {
+      items: Array.isArray(response.data) ? response.data.map(normalize) : [],
+      nextCursor: response.headers['x-next-cursor'] ?? null
+    }
+  } catch (error) {
+    console.error(`请求失败 [${pageUrl}]:`, error)
+    return { items: [], nextCursor: null }
   }
 }
 
@@ -87,6 +136,12 @@ export class ApiService {
     return rows.map(normalizeErrorRow)
   }
 
+  static async getLatency(hours: number = 1, serviceName?: string): Promise<any[]> {
+    const service = serviceName ? `&serviceName=${encodeURIComponent(serviceName)}` : ''
+    const rows = await requestWithDefault<any[]>(`/latency?hours=${hours}${service}`, [])
+    return rows.map(normalizeLatencyRow)
+  }
+
   /** 返回 Collector 内部统计对象（非外层 wrapper） */
   static async getCollectorStats(): Promise<any> {
     const raw = await requestWithDefault<any>('/stats', {})
@@ -104,6 +159,20 @@ export class ApiService {
     return requestWithDefault<any[]>(`/services/${encodeURIComponent(serviceName)}/traces?limit=${limit}`, [])
   }
 
+  static async getRecentSpansPage(hours: number, limit: number, cursor?: string | null): Promise<SpanPage> {
+    return requestPage(`/traces/recent?hours=${hours}&limit=${limit}`, cursor)
+  }
+
+  static async getRecentSpansByServicePage(serviceName: string, limit: number, cursor?: string | null): Promise<SpanPage> {
+    return requestPage(`/services/${encodeURIComponent(serviceName)}/traces?limit=${limit}`, cursor)
+  }
+
+  /** 链路摘要（每条链路一行），serviceName 为空时不按服务过滤 */
+  static async getTraceSummariesPage(hours: number, serviceName: string, limit: number, cursor?: string | null): Promise<SpanPage> {
+    const service = serviceName ? `&serviceName=${encodeURIComponent(serviceName)}` : ''
+    return requestPage(`/traces/summaries?hours=${hours}&limit=${limit}${service}`, cursor, normalizeTraceSummary)
+  }
+
   static async getTraceDetail(traceId: string): Promise<any[]> {
     return requestWithDefault<any[]>(`/traces/${encodeURIComponent(traceId)}`, [])
   }
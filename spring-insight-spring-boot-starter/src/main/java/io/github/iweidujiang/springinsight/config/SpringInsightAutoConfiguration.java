@@ -28,6 +28,6 @@ import org.springframework.context.annotation.ComponentScan;
 public class SpringInsightAutoConfiguration {
 
     public SpringInsightAutoConfiguration() {
-        log.info("[Starter配置] Spring Insight 已启用（链路数据仅内存保留，进程重启即清空）");
+        log.info("[Starter配置] Spring Insight 已启用（链路数据默认仅内存保留，进程重启即清空；配置 spring.insight.storage.log-dir 后落盘并在启动时重放）");
     }
 }
@@ -89,8 +89,8 @@ PERFORMANCE OF THIS SOFTWARE.
 `);return o===-1?"":a.stack.slice(o+1)})();try{if(!n.stack)n.stack=i;else if(i){const o=i.indexOf(`
 `),s=o===-1?-1:i.indexOf(`
 `,o+1),l=s===-1?"":i.slice(s+1);String(n.stack).endsWith(l)||(n.stack+=`
-`+i)}}catch{}}throw n}}_request(t,e){typeof t=="string"?(e=e||{},e.url=t):e=t||{},e=Qo(this.defaults,e);const{transitional:n,paramsSerializer:a,headers:i}=e;n!==void 0&&Kh.assertOptions(n,{silentJSONParsing:Xr.transitional(Xr.boolean),forcedJSONParsing:Xr.transitional(Xr.boolean),clarifyTimeoutError:Xr.transitional(Xr.boolean),legacyInterceptorReqResOrdering:Xr.transitional(Xr.boolean)},!1),a!=null&&(U.isFunction(a)?e.paramsSerializer={serialize:a}:Kh.assertOptions(a,{encode:Xr.function,serialize:Xr.function},!0)),e.allowAbsoluteUrls!==void 0||(this.defaults.allowAbsoluteUrls!==void 0?e.allowAbsoluteUrls=this.defaults.allowAbsoluteUrls:e.allowAbsoluteUrls=!0),Kh.assertOptions(e,{baseUrl:Xr.spelling("baseURL"),withXsrfToken:Xr.spelling("withXSRFToken")},!0),e.method=(e.method||this.defaults.method||"get").toLowerCase();let o=i&&U.merge(i.common,i[e.method]);i&&U.forEach(["delete","get","head","post","put","patch","common"],d=>{delete i[d]}),e.headers=Lr.concat(o,i);const s=[];let l=!0;this.interceptors.request.forEach(function(p){if(typeof p.runWhen=="function"&&p.runWhen(e)===!1)return;l=l&&p.synchronous;const g=e.transitional||RS;g&&g.legacyInterceptorReqResOrdering?s.unshift(p.fulfilled,p.rejected):s.push(p.fulfilled,p.rejected)});const u=[];this.interceptors.response.forEach(function(p){u.push(p.fulfilled,p.rejected)});let f,c=0,h;if(!l){const d=[jM.bind(this),void 0];for(d.unshift(...s),d.push(...u),h=d.length,f=Promise.resolve(e);c<h;)f=f.then(d[c++],d[c++]);return f}h=s.length;let v=e;for(;c<h;){const d=s[c++],p=s[c++];try{v=d(v)}catch(g){p.call(this,g);break}}try{f=jM.call(this,v)}catch(d){return Promise.reject(d)}for(c=0,h=u.length;c<h;)f=f.then(u[c++],u[c++]);return f}getUri(t){t=Qo(this.defaults,t);const e=gN(t.baseURL,t.url,t.allowAbsoluteUrls);return cN(e,t.params,t.paramsSerializer)}};U.forEach(["delete","get","head","options"],function(t){$o.prototype[t]=function(e,n){return this.request(Qo(n||{},{method:t,url:e,data:(n||{}).data}))}});U.forEach(["post","put","patch"],function(t){function e(n){return function(i,o,s){return this.request(Qo(s||{},{method:t,headers:n?{"Content-Type":"multipart/form-data"}:{},url:i,data:o}))}}$o.prototype[t]=e(),$o.prototype[t+"Form"]=e(!0)});let Jrt=class bN{constructor(t){if(typeof t!="function")throw new TypeError("executor must be a function.");let e;this.promise=new Promise(function(i){e=i});const n=this;this.promise.then(a=>{if(!n._listeners)return;let i=n._listeners.length;for(;i-- >0;)n._listeners[i](a);n._listeners=null}),this.promise.then=a=>{let i;const o=new Promise(s=>{n.subscribe(s),i=s}).then(a);return o.cancel=function(){n.unsubscribe(i)},o},t(function(i,o,s){n.reason||(n.reason=new pc(i,o,s),e(n.reason))})}throwIfRequested(){if(this.reason)throw this.reason}subscribe(t){if(this.reason){t(this.reason);return}this._listeners?this._listeners.push(t):this._listeners=[t]}unsubscribe(t){if(!this._listeners)return;const e=this._listeners.indexOf(t);e!==-1&&this._listeners.splice(e,1)}toAbortSignal(){const t=new AbortController,e=n=>{t.abort(n)};return this.subscribe(e),t.signal.unsubscribe=()=>this.unsubscribe(e),t.signal}static source(){let t;return{token:new bN(function(a){t=a}),cancel:t}}};function Qrt(r){return function(e){return r.apply(null,e)}}function tnt(r){return U.isObject(r)&&r.isAxiosError===!0}const a_={Continue:100,SwitchingProtocols:101,Processing:102,EarlyHints:103,Ok:200,Created:201,Accepted:202,NonAuthoritativeInformation:203,NoContent:204,ResetContent:205,PartialContent:206,MultiStatus:207,AlreadyReported:208,ImUsed:226,MultipleChoices:300,MovedPermanently:301,Found:302,SeeOther:303,NotModified:304,UseProxy:305,Unused:306,TemporaryRedirect:307,PermanentRedirect:308,BadRequest:400,Unauthorized:401,PaymentRequired:402,Forbidden:403,NotFound:404,MethodNotAllowed:405,NotAcceptable:406,ProxyAuthenticationRequired:407,RequestTimeout:408,Conflict:409,Gone:410,LengthRequired:411,PreconditionFailed:412,PayloadTooLarge:413,UriTooLong:414,UnsupportedMediaType:415,RangeNotSatisfiable:416,ExpectationFailed:417,ImATeapot:418,MisdirectedRequest:421,UnprocessableEntity:422,Locked:423,FailedDependency:424,TooEarly:425,UpgradeRequired:426,PreconditionRequired:428,TooManyRequests:429,RequestHeaderFieldsTooLarge:431,UnavailableForLegalReasons:451,InternalServerError:500,NotImplemented:501,BadGateway:502,ServiceUnavailable:503,GatewayTimeout:504,HttpVersionNotSupported:505,VariantAlsoNegotiates:506,InsufficientStorage:507,LoopDetected:508,NotExtended:510,NetworkAuthenticationRequired:511,WebServerIsDown:521,ConnectionTimedOut:522,OriginIsUnreachable:523,TimeoutOccurred:524,SslHandshakeFailed:525,InvalidSslCertificate:526};Object.entries(a_).forEach(([r,t])=>{a_[t]=r});function xN(r){const t=new $o(r),e=tN($o.prototype.request,t);return U.extend(e,$o.prototype,t,{allOwnKeys:!0}),U.extend(e,t,null,{allOwnKeys:!0}),e.create=function(a){return xN(Qo(r,a))},e}const De=xN(dc);De.Axios=$o;De.CanceledError=pc;De.CancelToken=Jrt;De.isCancel=dN;De.VERSION=SN;De.toFormData=lp;De.AxiosError=Et;De.Cancel=De.CanceledError;De.all=function(t){return Promise.all(t)};De.spread=Qrt;De.isAxiosError=tnt;De.mergeConfig=Qo;De.AxiosHeaders=Lr;De.formToJSON=r=>hN(U.isHTMLForm(r)?new FormData(r):r);De.getAdapter=_N.getAdapter;De.HttpStatusCode=a_;De.default=De;const{Axios:Bit,AxiosError:Vit,CanceledError:zit,isCancel:Fit,CancelToken:Git,VERSION:Hit,all:Wit,Cancel:Uit,isAxiosError:$it,spread:Yit,toFormData:Xit,AxiosHeaders:Zit,HttpStatusCode:qit,formToJSON:Kit,getAdapter:jit,mergeConfig:Jit}=De,ent=De.create({baseURL:"/api/v1/ui",timeout:1e4,headers:{"Content-Type":"application/json"}});async function ai(r,t,e={}){try{return(await ent({url:r,...e})).data}catch(n){return console.error(`请求失败 [${r}]:`,n),t}}function rnt(r){return{sourceService:r.source_service??r.sourceService??"",targetService:r.target_service??r.targetService??"",callCount:Number(r.call_count??r.callCount??0),avgDuration:Number(r.avg_duration??r.avgDuration??0)}}function nnt(r){return{serviceName:r.service_name??r.serviceName??"",totalSpans:Number(r.span_count??r.totalSpans??0)}}function ant(r){const t=Number(r.error_rate??r.errorRate??0);return{serviceName:r.service_name??r.serviceName??"",totalCalls:Number(r.total_calls??r.totalCalls??0),errorCalls:Number(r.error_calls??r.errorCalls??0),errorRate:t}}class yn{static async getServiceNames(){return ai("/services",[])}static async getServiceDependencies(t=24){return(await ai(`/dependencies?hours=${t}`,[])).map(rnt)}static async getServiceStats(){return(await ai("/services/stats",[])).map(nnt)}static async getErrorAnalysis(t=24){return(await ai(`/errors/analysis?hours=${t}`,[])).map(ant)}static async getCollectorStats(){const t=await ai("/stats",{});return t&&typeof t=="object"&&t.collectorStats?t.collectorStats:t&&typeof t=="object"?t:{}}static async getRecentSpans(t=24,e=50){return ai(`/traces/recent?hours=${t}&limit=${e}`,[])}static async getRecentSpansByService(t,e=50){return ai(`/services/${encodeURIComponent(t)}/traces?limit=${e}`,[])}static async getTraceDetail(t){return ai(`/traces/${encodeURIComponent(t)}`,[])}}const int={class:"si-dashboard fade-in"},ont={class:"si-dashboard__top"},snt={class:"si-dashboard__status"},lnt={key:0,class:"si-dashboard__pill si-dashboard__pill--ok"},unt={key:1,class:"si-dashboard__pill si-dashboard__pill--warn"},fnt={class:"si-dashboard__actions"},cnt=["disabled"],hnt={class:"badge bg-info si-dashboard__clock"},vnt={key:0,class:"si-dashboard__loading"},dnt={class:"si-dashboard__content"},pnt={class:"si-dashboard__kpis"},gnt={class:"card-body"},ynt={class:"d-flex align-items-center justify-content-between"},mnt={class:"si-dashboard__kpi-value"},_nt={class:"si-dashboard__body"},Snt={class:"si-dashboard__rail"},bnt={key:0,class:"card stat-card si-dashboard__panel si-dashboard__collector"},xnt={class:"card-body"},wnt={class:"si-dashboard__collector-grid"},Tnt={class:"si-dashboard__metric"},Ant={class:"si-dashboard__metric-val"},Cnt={class:"si-dashboard__metric"},Dnt={class:"si-dashboard__metric-val"},Mnt={class:"si-dashboard__metric"},Int={class:"si-dashboard__metric"},Lnt={class:"si-dashboard__metric-val"},Pnt={key:0,class:"si-dashboard__alerts"},Rnt={class:"si-dashboard__alerts-head"},Ent={class:"badge bg-danger"},Ont={class:"table-responsive si-dashboard__alerts-scroll"},knt={class:"table table-hover table-sm mb-0"},Nnt=["onClick"],Bnt=fa({__name:"DashboardView",setup(r){const t=ee(!0),e=ee(""),n=ee([]),a=ee([]),i=ee([]),o=ee([]),s=ee({}),l=ee(0);let u=null,f=null,c=null;const h=Or(()=>[{title:"监控服务",value:`${n.value.length} 个`,icon:"fa-server",color:"primary"},{title:"链路总数",value:`${l.value} 条`,icon:"fa-stream",color:"success"},{title:"依赖关系",value:`${a.value.length} 条`,icon:"fa-project-diagram",color:"info"},{title:"异常服务",value:`${o.value.length} 个`,icon:"fa-exclamation-triangle",color:"warning"}]),v=()=>{e.value=new Date().toTimeString().split(" ")[0]},d=()=>{const x=document.getElementById("topology-chart");x&&(u=Af(x),u.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"item",formatter:function(w){return w.dataType==="node"?`<div style="font-weight:bold">${w.data.name}</div>调用次数: ${w.data.value}`:`<div style="font-weight:bold">${w.data.source} → ${w.data.target}</div>调用次数: ${w.data.value}`}},animationDurationUpdate:1500,animationEasingUpdate:"quinticInOut",series:[{type:"graph",layout:"force",data:[],links:[],roam:!0,label:{show:!0,position:"right",formatter:"{b}",fontSize:11,color:"#e2e8f0"},lineStyle:{color:"source",curveness:.3,width:2},emphasis:{focus:"adjacency",lineStyle:{width:4},itemStyle:{shadowBlur:10,shadowColor:"rgba(59, 130, 246, 0.5)"}},force:{repulsion:1500,edgeLength:200,gravity:.1}}]}));const b=document.getElementById("service-rank-chart");b&&(f=Af(b),f.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"axis",axisPointer:{type:"shadow"},formatter:function(w){const T=w[0];return`${T.name}<br/>请求数量: ${T.value} 条`}},grid:{left:"3%",right:"8%",bottom:"4%",top:"8%",containLabel:!0},xAxis:{type:"value",name:"请求",nameTextStyle:{fontSize:10,color:"#94a3b8"},axisLine:{lineStyle:{color:"#334155"}},splitLine:{lineStyle:{color:"rgba(51, 65, 85, 0.45)"}},axisLabel:{fontSize:10,color:"#94a3b8"}},yAxis:{type:"category",data:[],axisLine:{lineStyle:{color:"#334155"}},axisLabel:{fontSize:10,color:"#cbd5e1",width:72,overflow:"truncate"}},series:[{name:"请求数量",type:"bar",data:[],itemStyle:{color:function(w){const T=["#38bdf8","#34d399","#22d3ee","#fbbf24","#f87171","#a78bfa","#fb923c","#2dd4bf"];return T[w.dataIndex%T.length]},borderRadius:[0,4,4,0]},label:{show:!0,position:"right",formatter:"{c}",fontSize:10,color:"#e2e8f0"}}]}))},p=()=>{if(u){const x=new Map,b=[],w=new Map;a.value.forEach(A=>{w.set(A.sourceService,(w.get(A.sourceService)||0)+A.callCount),w.set(A.targetService,(w.get(A.targetService)||0)+A.callCount),b.push({source:A.sourceService,target:A.targetService,value:A.callCount})}),w.forEach((A,C)=>{x.set(C,{name:C,value:A,symbolSize:Math.max(28,Math.min(56,10+Math.sqrt(A)*5))})});const T=Array.from(x.values());u.setOption({graphic:T.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无依赖拓扑
+`+i)}}catch{}}throw n}}_request(t,e){typeof t=="string"?(e=e||{},e.url=t):e=t||{},e=Qo(this.defaults,e);const{transitional:n,paramsSerializer:a,headers:i}=e;n!==void 0&&Kh.assertOptions(n,{silentJSONParsing:Xr.transitional(Xr.boolean),forcedJSONParsing:Xr.transitional(Xr.boolean),clarifyTimeoutError:Xr.transitional(Xr.boolean),legacyInterceptorReqResOrdering:Xr.transitional(Xr.boolean)},!1),a!=null&&(U.isFunction(a)?e.paramsSerializer={serialize:a}:Kh.assertOptions(a,{encode:Xr.function,serialize:Xr.function},!0)),e.allowAbsoluteUrls!==void 0||(this.defaults.allowAbsoluteUrls!==void 0?e.allowAbsoluteUrls=this.defaults.allowAbsoluteUrls:e.allowAbsoluteUrls=!0),Kh.assertOptions(e,{baseUrl:Xr.spelling("baseURL"),withXsrfToken:Xr.spelling("withXSRFToken")},!0),e.method=(e.method||this.defaults.method||"get").toLowerCase();let o=i&&U.merge(i.common,i[e.method]);i&&U.forEach(["delete","get","head","post","put","patch","common"],d=>{delete i[d]}),e.headers=Lr.concat(o,i);const s=[];let l=!0;this.interceptors.request.forEach(function(p){if(typeof p.runWhen=="function"&&p.runWhen(e)===!1)return;l=l&&p.synchronous;const g=e.transitional||RS;g&&g.legacyInterceptorReqResOrdering?s.unshift(p.fulfilled,p.rejected):s.push(p.fulfilled,p.rejected)});const u=[];this.interceptors.response.forEach(function(p){u.push(p.fulfilled,p.rejected)});let f,c=0,h;if(!l){const d=[jM.bind(this),void 0];for(d.unshift(...s),d.push(...u),h=d.length,f=Promise.resolve(e);c<h;)f=f.then(d[c++],d[c++]);return f}h=s.length;let v=e;for(;c<h;){const d=s[c++],p=s[c++];try{v=d(v)}catch(g){p.call(this,g);break}}try{f=jM.call(this,v)}catch(d){return Promise.reject(d)}for(c=0,h=u.length;c<h;)f=f.then(u[c++],u[c++]);return f}getUri(t){t=Qo(this.defaults,t);const e=gN(t.baseURL,t.url,t.allowAbsoluteUrls);return cN(e,t.params,t.paramsSerializer)}};U.forEach(["delete","get","head","options"],function(t){$o.prototype[t]=function(e,n){return this.request(Qo(n||{},{method:t,url:e,data:(n||{}).data}))}});U.forEach(["post","put","patch"],function(t){function e(n){return function(i,o,s){return this.request(Qo(s||{},{method:t,headers:n?{"Content-Type":"multipart/form-data"}:{},url:i,data:o}))}}$o.prototype[t]=e(),$o.prototype[t+"Form"]=e(!0)});let Jrt=class bN{constructor(t){if(typeof t!="function")throw new TypeError("executor must be a function.");let e;this.promise=new Promise(function(i){e=i});const n=this;this.promise.then(a=>{if(!n._listeners)return;let i=n._listeners.length;for(;i-- >0;)n._listeners[i](a);n._listeners=null}),this.promise.then=a=>{let i;const o=new Promise(s=>{n.subscribe(s),i=s}).then(a);return o.cancel=function(){n.unsubscribe(i)},o},t(function(i,o,s){n.reason||(n.reason=new pc(i,o,s),e(n.reason))})}throwIfRequested(){if(this.reason)throw this.reason}subscribe(t){if(this.reason){t(this.reason);return}this._listeners?this._listeners.push(t):this._listeners=[t]}unsubscribe(t){if(!this._listeners)return;const e=this._listeners.indexOf(t);e!==-1&&this._listeners.splice(e,1)}toAbortSignal(){const t=new AbortController,e=n=>{t.abort(n)};return this.subscribe(e),t.signal.unsubscribe=()=>this.unsubscribe(e),t.signal}static source(){let t;return{token:new bN(function(a){t=a}),cancel:t}}};function Qrt(r){return function(e){return r.apply(null,e)}}function tnt(r){return U.isObject(r)&&r.isAxiosError===!0}const a_={Continue:100,SwitchingProtocols:101,Processing:102,EarlyHints:103,Ok:200,Created:201,Accepted:202,NonAuthoritativeInformation:203,NoContent:204,ResetContent:205,PartialContent:206,MultiStatus:207,AlreadyReported:208,ImUsed:226,MultipleChoices:300,MovedPermanently:301,Found:302,SeeOther:303,NotModified:304,UseProxy:305,Unused:306,TemporaryRedirect:307,PermanentRedirect:308,BadRequest:400,Unauthorized:401,PaymentRequired:402,Forbidden:403,NotFound:404,MethodNotAllowed:405,NotAcceptable:406,ProxyAuthenticationRequired:407,RequestTimeout:408,Conflict:409,Gone:410,LengthRequired:411,PreconditionFailed:412,PayloadTooLarge:413,UriTooLong:414,UnsupportedMediaType:415,RangeNotSatisfiable:416,ExpectationFailed:417,ImATeapot:418,MisdirectedRequest:421,UnprocessableEntity:422,Locked:423,FailedDependency:424,TooEarly:425,UpgradeRequired:426,PreconditionRequired:428,TooManyRequests:429,RequestHeaderFieldsTooLarge:431,UnavailableForLegalReasons:451,InternalServerError:500,NotImplemented:501,BadGateway:502,ServiceUnavailable:503,GatewayTimeout:504,HttpVersionNotSupported:505,VariantAlsoNegotiates:506,InsufficientStorage:507,LoopDetected:508,NotExtended:510,NetworkAuthenticationRequired:511,WebServerIsDown:521,ConnectionTimedOut:522,OriginIsUnreachable:523,TimeoutOccurred:524,SslHandshakeFailed:525,InvalidSslCertificate:526};Object.entries(a_).forEach(([r,t])=>{a_[t]=r});function xN(r){const t=new $o(r),e=tN($o.prototype.request,t);return U.extend(e,$o.prototype,t,{allOwnKeys:!0}),U.extend(e,t,null,{allOwnKeys:!0}),e.create=function(a){return xN(Qo(r,a))},e}const De=xN(dc);De.Axios=$o;De.CanceledError=pc;De.CancelToken=Jrt;De.isCancel=dN;De.VERSION=SN;De.toFormData=lp;De.AxiosError=Et;De.Cancel=De.CanceledError;De.all=function(t){return Promise.all(t)};De.spread=Qrt;De.isAxiosError=tnt;De.mergeConfig=Qo;De.AxiosHeaders=Lr;De.formToJSON=r=>hN(U.isHTMLForm(r)?new FormData(r):r);De.getAdapter=_N.getAdapter;De.HttpStatusCode=a_;De.default=De;const{Axios:Bit,AxiosError:Vit,CanceledError:zit,isCancel:Fit,CancelToken:Git,VERSION:Hit,all:Wit,Cancel:Uit,isAxiosError:$it,spread:Yit,toFormData:Xit,AxiosHeaders:Zit,HttpStatusCode:qit,formToJSON:Kit,getAdapter:jit,mergeConfig:Jit}=De,ent=De.create({baseURL:"/api/v1/ui",timeout:1e4,headers:{"Content-Type":"application/json"}});async function ai(r,t,e={}){try{return(await ent({url:r,...e})).data}catch(n){return console.error(`请求失败 [${r}]:`,n),t}}function rnt(r){return{sourceService:r.source_service??r.sourceService??"",targetService:r.target_service??r.targetService??"",callCount:Number(r.call_count??r.callCount??0),avgDuration:Number(r.avg_duration??r.avgDuration??0),errorCount:Number(r.error_count??r.errorCount??0)}}function nnt(r){return{serviceName:r.service_name??r.serviceName??"",totalSpans:Number(r.span_count??r.totalSpans??0)}}function ant(r){const t=Number(r.error_rate??r.errorRate??0);return{serviceName:r.service_name??r.serviceName??"",totalCalls:Number(r.total_calls??r.totalCalls??0),errorCalls:Number(r.error_calls??r.errorCalls??0),errorRate:t,avgDuration:Number(r.avg_duration??r.avgDuration??0),maxDuration:Number(r.max_duration??r.maxDuration??0)}}function Oxn(r){return{serviceName:r.service_name??r.serviceName??"",operationName:r.operation_name??r.operationName??"",count:Number(r.count??0),p50:Number(r.p50??0),p95:Number(r.p95??0),p99:Number(r.p99??0),max:Number(r.max??0)}}function Oxs(r){return{traceId:r.trace_id??r.traceId??"",rootService:r.root_service??r.rootService??"",rootOperation:r.root_operation??r.rootOperation??"",services:Array.isArray(r.services)?r.services:[],spanCount:Number(r.span_count??r.spanCount??0),durationMs:Number(r.duration_ms??r.durationMs??0),error:!!r.error,startTime:Number(r.start_time??r.startTime??0)}}async function Oxp(r,t,e=n=>n){const n=t?`${r}&cursor=${encodeURIComponent(t)}`:r;try{const a=await ent({url:n});return{items:Array.isArray(a.data)?a.data.map(e):[],nextCursor:a.headers["x-next-cursor"]??null}}catch(a){return console.error(`请求失败 [${n}]:`,a),{items:[],nextCursor:null}}}class yn{static async getServiceNames(){return ai("/services",[])}static async getServiceDependencies(t=24){return(await ai(`/dependencies?hours=${t}`,[])).map(rnt)}static async getServiceStats(){return(await ai("/services/stats",[])).map(nnt)}static async getErrorAnalysis(t=24){return(await ai(`/errors/analysis?hours=${t}`,[])).map(ant)}static async getLatency(t=1,e){const n=e?`&serviceName=${encodeURIComponent(e)}`:"";return(await ai(`/latency?hours=${t}${n}`,[])).map(Oxn)}static async getCollectorStats(){const t=await ai("/stats",{});return t&&typeof t=="object"&&t.collectorStats?t.collectorStats:t&&typeof t=="object"?t:{}}static async getRecentSpans(t=24,e=50){return ai(`/traces/recent?hours=${t}&limit=${e}`,[])}static async getRecentSpansByService(t,e=50){return ai(`/services/${encodeURIComponent(t)}/traces?limit=${e}`,[])}static async getRecentSpansPage(t,e,n){return Oxp(`/traces/recent?hours=${t}&limit=${e}`,n)}static async getRecentSpansByServicePage(t,e,n){return Oxp(`/services/${encodeURIComponent(t)}/traces?limit=${e}`,n)}static async getTraceSummariesPage(t,e,n,a){const i=e?`&serviceName=${encodeURIComponent(e)}`:"";return Oxp(`/traces/summaries?hours=${t}&limit=${n}${i}`,a,Oxs)}static async getTraceDetail(t){return ai(`/traces/${encodeURIComponent(t)}`,[])}}const int={class:"si-dashboard fade-in"},ont={class:"si-dashboard__top"},snt={class:"si-dashboard__status"},lnt={key:0,class:"si-dashboard__pill si-dashboard__pill--ok"},unt={key:1,class:"si-dashboard__pill si-dashboard__pill--warn"},fnt={class:"si-dashboard__actions"},cnt=["disabled"],hnt={class:"badge bg-info si-dashboard__clock"},vnt={key:0,class:"si-dashboard__loading"},dnt={class:"si-dashboard__content"},pnt={class:"si-dashboard__kpis"},gnt={class:"card-body"},ynt={class:"d-flex align-items-center justify-content-between"},mnt={class:"si-dashboard__kpi-value"},_nt={class:"si-dashboard__body"},Snt={class:"si-dashboard__rail"},bnt={key:0,class:"card stat-card si-dashboard__panel si-dashboard__collector"},xnt={class:"card-body"},wnt={class:"si-dashboard__collector-grid"},Tnt={class:"si-dashboard__metric"},Ant={class:"si-dashboard__metric-val"},Cnt={class:"si-dashboard__metric"},Dnt={class:"si-dashboard__metric-val"},Mnt={class:"si-dashboard__metric"},Int={class:"si-dashboard__metric"},Lnt={class:"si-dashboard__metric-val"},Pnt={key:0,class:"si-dashboard__alerts"},Rnt={class:"si-dashboard__alerts-head"},Ent={class:"badge bg-danger"},Ont={class:"table-responsive si-dashboard__alerts-scroll"},knt={class:"table table-hover table-sm mb-0"},Nnt=["onClick"],Bnt=fa({__name:"DashboardView",setup(r){const t=ee(!0),e=ee(""),n=ee([]),a=ee([]),i=ee([]),o=ee([]),s=ee({}),l=ee(0);let u=null,f=null,c=null;const h=Or(()=>[{title:"监控服务",value:`${n.value.length} 个`,icon:"fa-server",color:"primary"},{title:"链路总数",value:`${l.value} 条`,icon:"fa-stream",color:"success"},{title:"依赖关系",value:`${a.value.length} 条`,icon:"fa-project-diagram",color:"info"},{title:"异常服务",value:`${o.value.length} 个`,icon:"fa-exclamation-triangle",color:"warning"}]),v=()=>{e.value=new Date().toTimeString().split(" ")[0]},d=()=>{const x=document.getElementById("topology-chart");x&&(u=Af(x),u.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"item",formatter:function(w){return w.dataType==="node"?`<div style="font-weight:bold">${w.data.name}</div>调用次数: ${w.data.value}`:`<div style="font-weight:bold">${w.data.source} → ${w.data.target}</div>调用次数: ${w.data.value}`}},animationDurationUpdate:1500,animationEasingUpdate:"quinticInOut",series:[{type:"graph",layout:"force",data:[],links:[],roam:!0,label:{show:!0,position:"right",formatter:"{b}",fontSize:11,color:"#e2e8f0"},lineStyle:{color:"source",curveness:.3,width:2},emphasis:{focus:"adjacency",lineStyle:{width:4},itemStyle:{shadowBlur:10,shadowColor:"rgba(59, 130, 246, 0.5)"}},force:{repulsion:1500,edgeLength:200,gravity:.1}}]}));const b=document.getElementById("service-rank-chart");b&&(f=Af(b),f.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"axis",axisPointer:{type:"shadow"},formatter:function(w){const T=w[0];return`${T.name}<br/>请求数量: ${T.value} 条`}},grid:{left:"3%",right:"8%",bottom:"4%",top:"8%",containLabel:!0},xAxis:{type:"value",name:"请求",nameTextStyle:{fontSize:10,color:"#94a3b8"},axisLine:{lineStyle:{color:"#334155"}},splitLine:{lineStyle:{color:"rgba(51, 65, 85, 0.45)"}},axisLabel:{fontSize:10,color:"#94a3b8"}},yAxis:{type:"category",data:[],axisLine:{lineStyle:{color:"#334155"}},axisLabel:{fontSize:10,color:"#cbd5e1",width:72,overflow:"truncate"}},series:[{name:"请求数量",type:"bar",data:[],itemStyle:{color:function(w){const T=["#38bdf8","#34d399","#22d3ee","#fbbf24","#f87171","#a78bfa","#fb923c","#2dd4bf"];return T[w.dataIndex%T.length]},borderRadius:[0,4,4,0]},label:{show:!0,position:"right",formatter:"{c}",fontSize:10,color:"#e2e8f0"}}]}))},p=()=>{if(u){const x=new Map,b=[],w=new Map;a.value.forEach(A=>{w.set(A.sourceService,(w.get(A.sourceService)||0)+A.callCount),w.set(A.targetService,(w.get(A.targetService)||0)+A.callCount),b.push({source:A.sourceService,target:A.targetService,value:A.callCount})}),w.forEach((A,C)=>{x.set(C,{name:C,value:A,symbolSize:Math.max(28,Math.min(56,10+Math.sqrt(A)*5))})});const T=Array.from(x.values());u.setOption({graphic:T.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无依赖拓扑
 产生跨服务调用后将显示`,fill:"#94a3b8",fontSize:12,textAlign:"center",lineHeight:20}}]:[],series:[{data:T,links:b}]})}if(f){const x=[],b=[];[...i.value].sort((T,A)=>(A.totalSpans||0)-(T.totalSpans||0)).slice(0,8).forEach(T=>{x.push(T.serviceName),b.push(T.totalSpans||0)}),f.setOption({graphic:x.length===0?[{type:"text",left:"center",top:"center",style:{text:"暂无排名数据",fill:"#94a3b8",fontSize:12,textAlign:"center"}}]:[],yAxis:{data:x},series:[{data:b}]})}},g=()=>{u==null||u.resize(),p()},y=()=>{f==null||f.resize(),p()},m=x=>{console.log("查看服务详情:",x)},_=async()=>{try{t.value=!0;const[x,b,w,T,A]=await Promise.all([yn.getServiceNames(),yn.getServiceDependencies(24),yn.getServiceStats(),yn.getErrorAnalysis(24),yn.getCollectorStats()]);n.value=x,a.value=b,i.value=w,o.value=T,s.value=A,l.value=w.reduce((C,M)=>C+(M.totalSpans||0),0),p()}catch(x){console.error("加载仪表盘数据失败:",x)}finally{t.value=!1,await ka(),u==null||u.resize(),f==null||f.resize()}},S=()=>{u==null||u.resize(),f==null||f.resize()};return Oi(async()=>{await ka(),d(),v(),c=window.setInterval(v,1e3),window.addEventListener("resize",S),await _()}),ki(()=>{u==null||u.dispose(),f==null||f.dispose(),c&&clearInterval(c),window.removeEventListener("resize",S)}),(x,b)=>(kt(),zt("div",int,[I("header",ont,[b[4]||(b[4]=I("div",{class:"si-dashboard__title-block"},[I("h2",{class:"si-dashboard__title"},[I("i",{class:"fa fa-tachometer-alt me-2"}),It("监控仪表盘 ")]),I("p",{class:"si-dashboard__subtitle"},"实时监控 · Spring Boot 架构")],-1)),ta(I("div",snt,[!o.value||o.value.length===0?(kt(),zt("span",lnt,[...b[0]||(b[0]=[I("i",{class:"fa fa-check-circle me-1"},null,-1),It("无异常服务 ",-1)])])):(kt(),zt("span",unt,[b[1]||(b[1]=I("i",{class:"fa fa-exclamation-triangle me-1"},null,-1)),It(Rt(o.value.length)+" 个服务需关注 ",1)]))],512),[[sf,!t.value]]),I("div",fnt,[I("button",{class:"btn btn-primary btn-sm si-dashboard__btn",onClick:_,disabled:t.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":t.value}])},null,2),b[2]||(b[2]=It(" 刷新 ",-1))],8,cnt),I("span",hnt,[b[3]||(b[3]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(e.value),1)])])]),t.value?(kt(),zt("div",vnt,[...b[5]||(b[5]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"加载中…",-1)])])):Vr("",!0),ta(I("div",dnt,[I("section",pnt,[(kt(!0),zt($e,null,Ti(h.value,(w,T)=>(kt(),zt("div",{key:T,class:"card stat-card si-dashboard__kpi",style:es({animationDelay:`${T*.06}s`})},[I("div",gnt,[I("div",ynt,[I("div",null,[I("div",{class:ve(["text-xs font-weight-bold",`text-${w.color} text-uppercase mb-0 si-dashboard__kpi-label`])},Rt(w.title),3),I("div",mnt,Rt(w.value),1)]),I("i",{class:ve(`fa ${w.icon} si-dashboard__kpi-icon text-${w.color}`)},null,2)])])],4))),128))]),I("section",_nt,[I("aside",Snt,[s.value?(kt(),zt("div",bnt,[I("div",xnt,[b[10]||(b[10]=I("h6",{class:"si-dashboard__panel-title"},[I("i",{class:"fa fa-database me-2"}),It("Collector ")],-1)),I("div",wnt,[I("div",Tnt,[b[6]||(b[6]=I("span",{class:"si-dashboard__metric-label"},"接收请求",-1)),I("span",Ant,Rt(s.value.totalReceivedRequests??0),1)]),I("div",Cnt,[b[7]||(b[7]=I("span",{class:"si-dashboard__metric-label"},"总 Span",-1)),I("span",Dnt,Rt(s.value.totalReceivedSpans??0),1)]),I("div",Mnt,[b[8]||(b[8]=I("span",{class:"si-dashboard__metric-label"},"成功率",-1)),I("span",{class:ve(["si-dashboard__metric-val",(s.value.successRate??100)<90?"text-danger":"text-success"])},Rt(s.value.successRate??100)+"%",3)]),I("div",Int,[b[9]||(b[9]=I("span",{class:"si-dashboard__metric-label"},"运行",-1)),I("span",Lnt,Rt(s.value.runningHours??0)+"h",1)])])])])):Vr("",!0),I("div",{class:"chart-container si-dashboard__panel si-dashboard__chart-rank"},[I("div",{class:"si-dashboard__chart-head"},[b[12]||(b[12]=I("h6",{class:"si-dashboard__panel-title mb-0"},[I("i",{class:"fa fa-chart-bar me-2"}),It("请求排名 ")],-1)),I("button",{type:"button",class:"btn btn-sm btn-outline-primary",onClick:y},[...b[11]||(b[11]=[I("i",{class:"fa fa-refresh"},null,-1)])])]),b[13]||(b[13]=I("div",{id:"service-rank-chart",class:"si-dashboard__chart-canvas"},null,-1))])]),I("div",{class:"chart-container si-dashboard__panel si-dashboard__chart-topology"},[I("div",{class:"si-dashboard__chart-head"},[b[15]||(b[15]=I("h6",{class:"si-dashboard__panel-title mb-0"},[I("i",{class:"fa fa-project-diagram me-2"}),It("服务依赖拓扑 ")],-1)),I("button",{type:"button",class:"btn btn-sm btn-outline-primary",onClick:g},[...b[14]||(b[14]=[I("i",{class:"fa fa-refresh"},null,-1)])])]),b[16]||(b[16]=I("div",{id:"topology-chart",class:"si-dashboard__chart-canvas"},null,-1))])]),o.value&&o.value.length>0?(kt(),zt("section",Pnt,[I("div",Rnt,[b[17]||(b[17]=I("span",null,[I("i",{class:"fa fa-exclamation-triangle me-2"}),It("异常服务")],-1)),I("span",Ent,Rt(o.value.length),1)]),I("div",Ont,[I("table",knt,[b[18]||(b[18]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"服务"),I("th",null,"调用"),I("th",null,"错误"),I("th",null,"错误率"),I("th")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(o.value,w=>(kt(),zt("tr",{key:w.serviceName,class:ve({"table-danger":w.errorRate>10,"table-warning":w.errorRate<=10&&w.errorRate>5})},[I("td",null,Rt(w.serviceName),1),I("td",null,Rt(w.totalCalls),1),I("td",null,Rt(w.errorCalls),1),I("td",null,Rt(w.errorRate.toFixed(1))+"%",1),I("td",null,[I("button",{type:"button",class:"btn btn-sm btn-outline-primary py-0",onClick:T=>m(w.serviceName)},"查看",8,Nnt)])],2))),128))])])])])):Vr("",!0)],512),[[sf,!t.value]])]))}}),Vnt=Ni(Bnt,[["__scopeId","data-v-611f526d"]]),znt={class:"si-page fade-in"},Fnt={class:"si-page__header"},Gnt={class:"badge bg-info"},Hnt={class:"card stat-card si-toolbar-card"},Wnt={class:"card-body"},Unt={class:"si-toolbar-inner"},$nt={class:"d-flex flex-wrap gap-2 ms-auto"},Ynt=["disabled"],Xnt=["disabled"],Znt={key:0,class:"loading-spinner"},qnt={class:"si-topology-main"},Knt={class:"card stat-card si-table-panel"},jnt={class:"card-body"},Jnt={class:"d-flex justify-content-between align-items-center mb-2"},Qnt={class:"badge bg-primary"},tat={class:"table-responsive"},eat={class:"table table-hover mb-0"},rat=["onClick"],nat={key:0},aat=fa({__name:"TopologyView",setup(r){const t=ee(!0),e=ee(""),n=ee(24),a=ee([]);let i=null,o=null;const s=()=>{const g=new Date;e.value=g.toTimeString().split(" ")[0]},l=()=>{const g=document.getElementById("topology-chart");if(g){i=Af(g,null,{renderer:"canvas"});const y={backgroundColor:"transparent",textStyle:{color:"#cbd5e1"},tooltip:{trigger:"item",formatter:function(m){return m.dataType==="node"?`<div style="font-weight:bold">${m.data.name}</div>调用次数: ${m.data.value}`:`<div style="font-weight:bold">${m.data.source} → ${m.data.target}</div>调用次数: ${m.data.value}<br/>平均耗时: ${m.data.avgDuration||0}ms`}},animationDurationUpdate:1500,animationEasingUpdate:"quinticInOut",series:[{type:"graph",layout:"force",data:[],links:[],roam:!0,label:{show:!0,position:"right",formatter:"{b}",fontSize:12,color:"#e2e8f0"},lineStyle:{color:"source",curveness:.3,width:2,opacity:.8},itemStyle:{color:function(m){const _=["#3b82f6","#10b981","#06b6d4","#f59e0b","#ef4444","#8b5cf6","#f97316","#14b8a6"];return _[m.dataIndex%_.length]},borderColor:"rgba(56, 189, 248, 0.6)",borderWidth:2,shadowBlur:10,shadowColor:"rgba(59, 130, 246, 0.3)"},emphasis:{focus:"adjacency",lineStyle:{width:4},itemStyle:{shadowBlur:15,shadowColor:"rgba(59, 130, 246, 0.5)"}},force:{repulsion:2e3,edgeLength:250,gravity:.1,layoutAnimation:!0}}]};i.setOption(y)}},u=()=>{if(i){const g=new Map,y=[],m=new Map;a.value.forEach(S=>{m.set(S.sourceService,(m.get(S.sourceService)||0)+S.callCount),m.set(S.targetService,(m.get(S.targetService)||0)+S.callCount),y.push({source:S.sourceService,target:S.targetService,value:S.callCount,avgDuration:S.avgDuration})}),m.forEach((S,x)=>{g.set(x,{name:x,value:S,symbolSize:Math.max(30,Math.min(70,15+Math.sqrt(S)*8))})});const _=Array.from(g.values());i.setOption({graphic:_.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无依赖边
-请产生带下游服务的调用后刷新`,fill:"#94a3b8",fontSize:13,textAlign:"center",lineHeight:22}}]:[],series:[{data:_,links:y}]})}},f=()=>{i&&(i.resize(),u())},c=()=>{i&&(i.dispatchAction({type:"restore"}),i.resize())},h=g=>{console.log("查看依赖详情:",g)},v=()=>{const g=JSON.stringify(a.value,null,2),y=new Blob([g],{type:"application/json"}),m=URL.createObjectURL(y),_=document.createElement("a");_.href=m,_.download=`topology-${new Date().toISOString().slice(0,19).replace(/[:T]/g,"-")}.json`,_.click(),URL.revokeObjectURL(m)},d=async()=>{try{t.value=!0;const g=await yn.getServiceDependencies(n.value);a.value=g,u()}catch(g){console.error("加载拓扑数据失败:",g)}finally{t.value=!1,await ka(),i==null||i.resize()}},p=()=>{i==null||i.resize()};return Oi(async()=>{await ka(),l(),s(),o=window.setInterval(s,1e3),window.addEventListener("resize",p),await d()}),ki(()=>{i==null||i.dispose(),o&&clearInterval(o),window.removeEventListener("resize",p)}),(g,y)=>(kt(),zt("div",znt,[I("div",Fnt,[y[2]||(y[2]=I("div",null,[I("h2",{class:"page-title mb-1"},[I("i",{class:"fa fa-project-diagram me-2"}),It("服务拓扑图 ")]),I("p",{class:"page-description mb-0"},"服务间依赖与调用次数")],-1)),I("span",Gnt,[y[1]||(y[1]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(e.value),1)])]),I("div",Hnt,[I("div",Wnt,[y[7]||(y[7]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-filter me-2"}),It("筛选与操作 ")],-1)),I("div",Unt,[I("div",null,[y[4]||(y[4]=I("label",{class:"form-label",for:"hours-topology"},"时间范围",-1)),ta(I("select",{id:"hours-topology",class:"form-select",style:{"min-width":"11rem"},"onUpdate:modelValue":y[0]||(y[0]=m=>n.value=m),onChange:d},[...y[3]||(y[3]=[I("option",{value:1},"最近 1 小时",-1),I("option",{value:6},"最近 6 小时",-1),I("option",{value:12},"最近 12 小时",-1),I("option",{value:24},"最近 24 小时",-1),I("option",{value:72},"最近 72 小时",-1)])],544),[[Bu,n.value]])]),I("div",$nt,[I("button",{class:"btn btn-primary",type:"button",onClick:d,disabled:t.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":t.value}])},null,2),y[5]||(y[5]=It(" 刷新 ",-1))],8,Ynt),I("button",{class:"btn btn-outline-secondary",type:"button",onClick:v,disabled:t.value||a.value.length===0},[...y[6]||(y[6]=[I("i",{class:"fa fa-download"},null,-1),It(" 导出 ",-1)])],8,Xnt)])])])]),t.value?(kt(),zt("div",Znt,[...y[8]||(y[8]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"正在加载拓扑数据...",-1)])])):Vr("",!0),ta(I("div",qnt,[I("div",{class:"chart-container"},[I("div",{class:"d-flex justify-content-between align-items-center mb-2 flex-shrink-0"},[y[11]||(y[11]=I("h5",{class:"mb-0"},[I("i",{class:"fa fa-project-diagram me-2"}),It("服务依赖拓扑图 ")],-1)),I("div",{class:"d-flex gap-2"},[I("button",{type:"button",class:"btn btn-sm btn-outline-primary",onClick:f},[...y[9]||(y[9]=[I("i",{class:"fa fa-refresh"},null,-1),It(" 刷新视图 ",-1)])]),I("button",{type:"button",class:"btn btn-sm btn-outline-secondary",onClick:c},[...y[10]||(y[10]=[I("i",{class:"fa fa-expand"},null,-1),It(" 适应屏幕 ",-1)])])])]),y[12]||(y[12]=I("div",{class:"si-chart-canvas-wrap"},[I("div",{id:"topology-chart",class:"w-100 h-100",style:{"min-height":"280px"}})],-1))])],512),[[sf,!t.value]]),ta(I("div",Knt,[I("div",jnt,[I("div",Jnt,[y[13]||(y[13]=I("h5",{class:"card-title mb-0"},[I("i",{class:"fa fa-list me-2"}),It("依赖关系列表 ")],-1)),I("span",Qnt,Rt(a.value.length)+" 条依赖",1)]),I("div",tat,[I("table",eat,[y[16]||(y[16]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"源服务"),I("th",null,"目标服务"),I("th",null,"调用次数"),I("th",null,"平均耗时(ms)"),I("th",null,"操作")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(a.value,m=>(kt(),zt("tr",{key:`${m.sourceService}-${m.targetService}`,class:"fade-in",style:es({animationDelay:`${a.value.indexOf(m)*.05}s`})},[I("td",null,Rt(m.sourceService),1),I("td",null,Rt(m.targetService),1),I("td",null,Rt(m.callCount),1),I("td",{class:ve(m.avgDuration>1e3?"text-danger":m.avgDuration>500?"text-warning":"text-success")},Rt(m.avgDuration||0),3),I("td",null,[I("button",{class:"btn btn-sm btn-outline-primary",onClick:_=>h(m)},[...y[14]||(y[14]=[I("i",{class:"fa fa-eye"},null,-1),It(" 查看 ",-1)])],8,rat)])],4))),128)),a.value.length===0?(kt(),zt("tr",nat,[...y[15]||(y[15]=[I("td",{colspan:"5",class:"text-center text-muted"},[I("div",{class:"py-4"},[I("i",{class:"fa fa-info-circle fa-2x mb-2"}),I("p",null,"暂无依赖关系数据")])],-1)])])):Vr("",!0)])])])])],512),[[sf,!t.value]])]))}}),iat=Ni(aat,[["__scopeId","data-v-2d140d17"]]),oat={class:"si-page fade-in"},sat={class:"si-page__header"},lat={class:"si-page__toolbar"},uat=["disabled"],fat={class:"badge bg-info"},cat={class:"card stat-card si-toolbar-card"},hat={class:"card-body"},vat={class:"row g-3 align-items-end"},dat={class:"col-md-3 col-sm-6"},pat=["value"],gat={class:"col-md-3 col-sm-6"},yat={class:"col-md-3 col-sm-6"},mat={class:"col-md-3 col-sm-6"},_at={class:"d-flex gap-2"},Sat=["disabled"],bat=["disabled"],xat={key:0,class:"loading-spinner"},wat={key:1,class:"card stat-card si-table-panel"},Tat={class:"card-body"},Aat={class:"d-flex justify-content-between align-items-center mb-2"},Cat={class:"badge bg-primary"},Dat={class:"table-responsive"},Mat={class:"table table-hover mb-0"},Iat={class:"text-truncate",style:{"max-width":"150px"}},Lat={class:"text-primary"},Pat={class:"text-truncate",style:{"max-width":"200px"}},Rat={class:"d-flex gap-1"},Eat=["onClick"],Oat=["onClick"],kat={key:0},Nat=fa({__name:"TracesView",setup(r){const t=mI(),e=ee(!0),n=ee(""),a=ee([]),i=ee([]),o=ee(""),s=ee(24),l=ee(50);let u=null;const f=y=>new Date(y).toLocaleString("zh-CN"),c=()=>{const y=new Date;n.value=y.toTimeString().split(" ")[0]},h=async()=>{try{e.value=!0;let y=[];o.value?y=await yn.getRecentSpansByService(o.value,l.value):y=await yn.getRecentSpans(s.value,l.value),i.value=y}catch(y){console.error("加载链路数据失败:",y)}finally{e.value=!1}},v=async()=>{try{const y=await yn.getServiceNames();a.value=y}catch(y){console.error("加载服务列表失败:",y)}},d=()=>{o.value="",s.value=24,l.value=50,h()},p=y=>{t.push({name:"trace-detail",params:{traceId:y}})},g=y=>{navigator.clipboard.writeText(y).then(()=>{console.log("Trace ID 已复制到剪贴板:",y)}).catch(m=>{console.error("复制失败:",m)})};return Oi(()=>{v(),h(),c(),u=window.setInterval(c,1e3)}),ki(()=>{u&&clearInterval(u)}),(y,m)=>(kt(),zt("div",oat,[I("div",sat,[m[5]||(m[5]=I("div",null,[I("h2",{class:"page-title mb-1"},[I("i",{class:"fa fa-stream me-2"}),It("链路追踪 ")]),I("p",{class:"page-description mb-0"},"调用链路 Span 列表")],-1)),I("div",lat,[I("button",{class:"btn btn-primary",onClick:h,disabled:e.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":e.value}])},null,2),m[3]||(m[3]=It(" 刷新 ",-1))],8,uat),I("span",fat,[m[4]||(m[4]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(n.value),1)])])]),I("div",cat,[I("div",hat,[m[14]||(m[14]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-filter me-2"}),It("筛选条件 ")],-1)),I("div",vat,[I("div",dat,[m[7]||(m[7]=I("label",{for:"service-select",class:"form-label"},"服务名称",-1)),ta(I("select",{id:"service-select",class:"form-select","onUpdate:modelValue":m[0]||(m[0]=_=>o.value=_),onChange:h},[m[6]||(m[6]=I("option",{value:""},"所有服务",-1)),(kt(!0),zt($e,null,Ti(a.value,_=>(kt(),zt("option",{key:_,value:_},Rt(_),9,pat))),128))],544),[[Bu,o.value]])]),I("div",gat,[m[9]||(m[9]=I("label",{for:"hours-select",class:"form-label"},"时间范围",-1)),ta(I("select",{id:"hours-select",class:"form-select","onUpdate:modelValue":m[1]||(m[1]=_=>s.value=_),onChange:h},[...m[8]||(m[8]=[av('<option value="1" data-v-c813143d>1小时</option><option value="6" data-v-c813143d>6小时</option><option value="12" data-v-c813143d>12小时</option><option value="24" selected data-v-c813143d>24小时</option><option value="72" data-v-c813143d>72小时</option>',5)])],544),[[Bu,s.value]])]),I("div",yat,[m[11]||(m[11]=I("label",{for:"limit-select",class:"form-label"},"显示数量",-1)),ta(I("select",{id:"limit-select",class:"form-select","onUpdate:modelValue":m[2]||(m[2]=_=>l.value=_),onChange:h},[...m[10]||(m[10]=[I("option",{value:"20"},"20条",-1),I("option",{value:"50",selected:""},"50条",-1),I("option",{value:"100"},"100条",-1),I("option",{value:"200"},"200条",-1)])],544),[[Bu,l.value]])]),I("div",mat,[I("div",_at,[I("button",{class:"btn btn-primary flex-grow-1",onClick:h,disabled:e.value},[...m[12]||(m[12]=[I("i",{class:"fa fa-search"},null,-1),It(" 搜索 ",-1)])],8,Sat),I("button",{class:"btn btn-outline-secondary",onClick:d,disabled:e.value},[...m[13]||(m[13]=[I("i",{class:"fa fa-refresh"},null,-1)])],8,bat)])])])])]),e.value?(kt(),zt("div",xat,[...m[15]||(m[15]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"正在加载链路数据...",-1)])])):(kt(),zt("div",wat,[I("div",Tat,[I("div",Aat,[m[16]||(m[16]=I("h5",{class:"card-title mb-0"},[I("i",{class:"fa fa-list me-2"}),It("链路列表 ")],-1)),I("span",Cat,Rt(i.value.length)+" 条链路",1)]),I("div",Dat,[I("table",Mat,[m[20]||(m[20]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"Trace ID"),I("th",null,"服务名称"),I("th",null,"操作名称"),I("th",null,"开始时间"),I("th",null,"耗时(ms)"),I("th",null,"状态"),I("th",null,"操作")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(i.value,(_,S)=>(kt(),zt("tr",{key:_.traceId,class:"fade-in",style:es({animationDelay:`${S*.05}s`})},[I("td",Iat,[I("code",Lat,Rt(_.traceId),1)]),I("td",null,Rt(_.serviceName),1),I("td",Pat,Rt(_.operationName),1),I("td",null,Rt(f(_.startTime)),1),I("td",{class:ve(_.durationMs>1e3?"text-danger font-weight-bold":_.durationMs>500?"text-warning":"text-success")},Rt(_.durationMs),3),I("td",null,[I("span",{class:ve(["badge",_.statusCode==="OK"?"bg-success":"bg-danger"])},Rt(_.statusCode),3)]),I("td",null,[I("div",Rat,[I("button",{class:"btn btn-sm btn-primary",onClick:x=>p(_.traceId)},[...m[17]||(m[17]=[I("i",{class:"fa fa-eye"},null,-1),It(" 查看 ",-1)])],8,Eat),I("button",{class:"btn btn-sm btn-outline-secondary",onClick:x=>g(_.traceId)},[...m[18]||(m[18]=[I("i",{class:"fa fa-copy"},null,-1)])],8,Oat)])])],4))),128)),i.value.length===0?(kt(),zt("tr",kat,[...m[19]||(m[19]=[I("td",{colspan:"7",class:"text-center text-muted"},[I("div",{class:"py-4"},[I("i",{class:"fa fa-info-circle fa-2x mb-2"}),I("p",null,"暂无链路数据")])],-1)])])):Vr("",!0)])])])])]))]))}}),Bat=Ni(Nat,[["__scopeId","data-v-c813143d"]]),Vat={class:"fade-in trace-detail-page"},zat={class:"d-flex flex-wrap justify-content-between align-items-center mb-4 gap-2"},Fat={class:"page-description text-truncate",style:{"max-width":"90vw"}},Gat={class:"text-cyan"},Hat={class:"d-flex gap-2"},Wat=["disabled"],Uat={key:0,class:"loading-spinner"},$at={key:1,class:"card stat-card"},Yat={class:"card-body"},Xat={class:"card-title mb-3"},Zat={class:"table-responsive"},qat={class:"table table-hover table-dark-glass mb-0"},Kat={class:"text-truncate",style:{"max-width":"240px"}},jat={key:0},Jat=fa({__name:"TraceDetailView",setup(r){const t=J5(),e=mI(),n=ee(""),a=ee([]),i=ee(!0),o=async()=>{const l=String(t.params.traceId||"");if(n.value=l,!l){a.value=[],i.value=!1;return}i.value=!0;try{a.value=await yn.getTraceDetail(l)}finally{i.value=!1}},s=()=>{e.push("/traces")};return Ru(()=>t.params.traceId,()=>o()),Oi(()=>o()),(l,u)=>(kt(),zt("div",Vat,[I("div",zat,[I("div",null,[u[0]||(u[0]=I("h2",{class:"page-title"},[I("i",{class:"fa fa-sitemap me-2"}),It("链路详情 ")],-1)),I("p",Fat,[I("code",Gat,Rt(n.value),1)])]),I("div",Hat,[I("button",{class:"btn btn-outline-secondary",type:"button",onClick:s},[...u[1]||(u[1]=[I("i",{class:"fa fa-arrow-left me-1"},null,-1),It("返回 ",-1)])]),I("button",{class:"btn btn-primary",type:"button",onClick:o,disabled:i.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":i.value}])},null,2),u[2]||(u[2]=It(" 刷新 ",-1))],8,Wat)])]),i.value?(kt(),zt("div",Uat,[...u[3]||(u[3]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"加载中...",-1)])])):(kt(),zt("div",$at,[I("div",Yat,[I("h5",Xat,[u[4]||(u[4]=I("i",{class:"fa fa-list me-2"},null,-1)),It("Span 列表（"+Rt(a.value.length)+"）",1)]),I("div",Zat,[I("table",qat,[u[6]||(u[6]=I("thead",null,[I("tr",null,[I("th",null,"spanId"),I("th",null,"operation"),I("th",null,"kind"),I("th",null,"耗时(ms)"),I("th",null,"状态")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(a.value,(f,c)=>(kt(),zt("tr",{key:f.spanId||c},[I("td",null,[I("code",null,Rt(f.spanId),1)]),I("td",Kat,Rt(f.operationName),1),I("td",null,Rt(f.spanKind),1),I("td",null,Rt(f.durationMs),1),I("td",null,[I("span",{class:ve(["badge",f.statusCode==="OK"?"bg-success":"bg-danger"])},Rt(f.statusCode),3)])]))),128)),a.value.length===0?(kt(),zt("tr",jat,[...u[5]||(u[5]=[I("td",{colspan:"5",class:"text-center text-muted py-4"},"暂无数据",-1)])])):Vr("",!0)])])])])]))]))}}),Qat=Ni(Jat,[["__scopeId","data-v-6a62bf0f"]]),tit={class:"si-page fade-in"},eit={class:"si-page__header"},rit={class:"si-page__toolbar"},nit=["disabled"],ait=["disabled"],iit={class:"badge bg-info"},oit={class:"card stat-card si-toolbar-card"},sit={class:"card-body"},lit={class:"si-toolbar-inner"},uit={key:0,class:"loading-spinner"},fit={class:"card stat-card si-table-panel"},cit={class:"card-body"},hit={class:"d-flex justify-content-between align-items-center mb-2"},vit={class:"badge bg-danger"},dit={class:"table-responsive"},pit={class:"table table-hover mb-0"},git={class:"text-danger"},yit={key:0,class:"badge bg-danger"},mit={key:1,class:"badge bg-warning"},_it={key:2,class:"badge bg-info"},Sit=["onClick"],bit={key:0},xit=fa({__name:"ErrorAnalysisView",setup(r){const t=ee(!0),e=ee(""),n=ee(24),a=ee([]);let i=null,o=null,s=null;const l=()=>{e.value=new Date().toTimeString().split(" ")[0]},u=()=>{const g=document.getElementById("error-rate-chart");g&&(i=Af(g),i.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"axis",axisPointer:{type:"shadow"},formatter:function(m){const _=m[0];return`${_.name}<br/>错误率: ${_.value.toFixed(2)}%`}},grid:{left:"3%",right:"4%",bottom:"18%",top:"10%",containLabel:!0},xAxis:{type:"category",data:[],axisLine:{lineStyle:{color:"#334155"}},axisLabel:{fontSize:10,rotate:40,color:"#94a3b8"},boundaryGap:!0},yAxis:{type:"value",name:"错误率 (%)",nameTextStyle:{fontSize:11,color:"#94a3b8"},splitLine:{lineStyle:{color:"rgba(51, 65, 85, 0.5)"}},axisLabel:{fontSize:10,color:"#94a3b8"},max:100},series:[{name:"错误率",type:"bar",data:[],itemStyle:{color:function(m){const _=m.value;return _>10?"#ef4444":_>5?"#f59e0b":"#06b6d4"},borderRadius:[4,4,0,0]},label:{show:!0,position:"top",formatter:"{c}%",fontSize:10,color:"#e2e8f0"}}]}));const y=document.getElementById("error-pie-chart");y&&(o=Af(y),o.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"item",formatter:"{b}: {c} 次 ({d}%)"},legend:{orient:"vertical",right:6,top:"middle",type:"scroll",textStyle:{color:"#e2e8f0",fontSize:12,fontWeight:500},pageTextStyle:{color:"#94a3b8"},formatter:m=>m.length>14?m.substring(0,14)+"…":m},series:[{name:"错误调用",type:"pie",radius:["36%","62%"],center:["42%","50%"],avoidLabelOverlap:!1,itemStyle:{borderRadius:8,borderColor:"rgba(15, 23, 42, 0.9)",borderWidth:2,color:function(m){const _=["#ef4444","#f59e0b","#06b6d4","#8b5cf6","#10b981","#3b82f6","#f97316","#14b8a6"];return _[m.dataIndex%_.length]}},label:{show:!1},emphasis:{label:{show:!0,fontSize:14,fontWeight:"bold",color:"#f8fafc"},itemStyle:{shadowBlur:12,shadowColor:"rgba(0, 0, 0, 0.45)"}},labelLine:{show:!1},data:[]}]}))},f=()=>{if(i){const g=[],y=[];a.value.forEach(m=>{g.push(m.serviceName),y.push(m.errorRate)}),i.setOption({graphic:g.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无错误率数据
+请产生带下游服务的调用后刷新`,fill:"#94a3b8",fontSize:13,textAlign:"center",lineHeight:22}}]:[],series:[{data:_,links:y}]})}},f=()=>{i&&(i.resize(),u())},c=()=>{i&&(i.dispatchAction({type:"restore"}),i.resize())},h=g=>{console.log("查看依赖详情:",g)},v=()=>{const g=JSON.stringify(a.value,null,2),y=new Blob([g],{type:"application/json"}),m=URL.createObjectURL(y),_=document.createElement("a");_.href=m,_.download=`topology-${new Date().toISOString().slice(0,19).replace(/[:T]/g,"-")}.json`,_.click(),URL.revokeObjectURL(m)},d=async()=>{try{t.value=!0;const g=await yn.getServiceDependencies(n.value);a.value=g,u()}catch(g){console.error("加载拓扑数据失败:",g)}finally{t.value=!1,await ka(),i==null||i.resize()}},p=()=>{i==null||i.resize()};return Oi(async()=>{await ka(),l(),s(),o=window.setInterval(s,1e3),window.addEventListener("resize",p),await d()}),ki(()=>{i==null||i.dispose(),o&&clearInterval(o),window.removeEventListener("resize",p)}),(g,y)=>(kt(),zt("div",znt,[I("div",Fnt,[y[2]||(y[2]=I("div",null,[I("h2",{class:"page-title mb-1"},[I("i",{class:"fa fa-project-diagram me-2"}),It("服务拓扑图 ")]),I("p",{class:"page-description mb-0"},"服务间依赖与调用次数")],-1)),I("span",Gnt,[y[1]||(y[1]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(e.value),1)])]),I("div",Hnt,[I("div",Wnt,[y[7]||(y[7]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-filter me-2"}),It("筛选与操作 ")],-1)),I("div",Unt,[I("div",null,[y[4]||(y[4]=I("label",{class:"form-label",for:"hours-topology"},"时间范围",-1)),ta(I("select",{id:"hours-topology",class:"form-select",style:{"min-width":"11rem"},"onUpdate:modelValue":y[0]||(y[0]=m=>n.value=m),onChange:d},[...y[3]||(y[3]=[I("option",{value:1},"最近 1 小时",-1),I("option",{value:6},"最近 6 小时",-1),I("option",{value:12},"最近 12 小时",-1),I("option",{value:24},"最近 24 小时",-1),I("option",{value:72},"最近 72 小时",-1)])],544),[[Bu,n.value]])]),I("div",$nt,[I("button",{class:"btn btn-primary",type:"button",onClick:d,disabled:t.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":t.value}])},null,2),y[5]||(y[5]=It(" 刷新 ",-1))],8,Ynt),I("button",{class:"btn btn-outline-secondary",type:"button",onClick:v,disabled:t.value||a.value.length===0},[...y[6]||(y[6]=[I("i",{class:"fa fa-download"},null,-1),It(" 导出 ",-1)])],8,Xnt)])])])]),t.value?(kt(),zt("div",Znt,[...y[8]||(y[8]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"正在加载拓扑数据...",-1)])])):Vr("",!0),ta(I("div",qnt,[I("div",{class:"chart-container"},[I("div",{class:"d-flex justify-content-between align-items-center mb-2 flex-shrink-0"},[y[11]||(y[11]=I("h5",{class:"mb-0"},[I("i",{class:"fa fa-project-diagram me-2"}),It("服务依赖拓扑图 ")],-1)),I("div",{class:"d-flex gap-2"},[I("button",{type:"button",class:"btn btn-sm btn-outline-primary",onClick:f},[...y[9]||(y[9]=[I("i",{class:"fa fa-refresh"},null,-1),It(" 刷新视图 ",-1)])]),I("button",{type:"button",class:"btn btn-sm btn-outline-secondary",onClick:c},[...y[10]||(y[10]=[I("i",{class:"fa fa-expand"},null,-1),It(" 适应屏幕 ",-1)])])])]),y[12]||(y[12]=I("div",{class:"si-chart-canvas-wrap"},[I("div",{id:"topology-chart",class:"w-100 h-100",style:{"min-height":"280px"}})],-1))])],512),[[sf,!t.value]]),ta(I("div",Knt,[I("div",jnt,[I("div",Jnt,[y[13]||(y[13]=I("h5",{class:"card-title mb-0"},[I("i",{class:"fa fa-list me-2"}),It("依赖关系列表 ")],-1)),I("span",Qnt,Rt(a.value.length)+" 条依赖",1)]),I("div",tat,[I("table",eat,[y[16]||(y[16]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"源服务"),I("th",null,"目标服务"),I("th",null,"调用次数"),I("th",null,"平均耗时(ms)"),I("th",null,"操作")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(a.value,m=>(kt(),zt("tr",{key:`${m.sourceService}-${m.targetService}`,class:"fade-in",style:es({animationDelay:`${a.value.indexOf(m)*.05}s`})},[I("td",null,Rt(m.sourceService),1),I("td",null,Rt(m.targetService),1),I("td",null,Rt(m.callCount),1),I("td",{class:ve(m.avgDuration>1e3?"text-danger":m.avgDuration>500?"text-warning":"text-success")},Rt(m.avgDuration||0),3),I("td",null,[I("button",{class:"btn btn-sm btn-outline-primary",onClick:_=>h(m)},[...y[14]||(y[14]=[I("i",{class:"fa fa-eye"},null,-1),It(" 查看 ",-1)])],8,rat)])],4))),128)),a.value.length===0?(kt(),zt("tr",nat,[...y[15]||(y[15]=[I("td",{colspan:"5",class:"text-center text-muted"},[I("div",{class:"py-4"},[I("i",{class:"fa fa-info-circle fa-2x mb-2"}),I("p",null,"暂无依赖关系数据")])],-1)])])):Vr("",!0)])])])])],512),[[sf,!t.value]])]))}}),iat=Ni(aat,[["__scopeId","data-v-2d140d17"]]),oat={class:"si-page fade-in"},sat={class:"si-page__header"},lat={class:"si-page__toolbar"},uat=["disabled"],fat={class:"badge bg-info"},cat={class:"card stat-card si-toolbar-card"},hat={class:"card-body"},vat={class:"row g-3 align-items-end"},dat={class:"col-md-3 col-sm-6"},pat=["value"],gat={class:"col-md-3 col-sm-6"},yat={class:"col-md-3 col-sm-6"},mat={class:"col-md-3 col-sm-6"},_at={class:"d-flex gap-2"},Sat=["disabled"],bat=["disabled"],xat={key:0,class:"loading-spinner"},wat={key:1,class:"card stat-card si-table-panel"},Tat={class:"card-body"},Aat={class:"d-flex justify-content-between align-items-center mb-2"},Cat={class:"badge bg-primary"},Dat={class:"table-responsive"},Mat={class:"table table-hover mb-0"},Iat={class:"text-truncate",style:{"max-width":"150px"}},Lat={class:"text-primary"},Pat={class:"text-truncate",style:{"max-width":"200px"}},Oxa=["title"],Rat={class:"d-flex gap-1"},Eat=["onClick"],Oat=["onClick"],kat={key:0},Oxc={key:0},Oxd={key:2},Nat=fa({__name:"TracesView",setup(r){const t=mI(),e=ee(!0),n=ee(""),a=ee([]),i=ee([]),o=ee(""),s=ee(24),l=ee(50),w=ee(null),b=ee(!1),T=ee(null);let u=null,C=null;const f=y=>new Date(y).toLocaleString("zh-CN"),c=()=>{const y=new Date;n.value=y.toTimeString().split(" ")[0]},A=y=>yn.getTraceSummariesPage(s.value,o.value,l.value,y),h=async()=>{try{e.value=!0;const y=await A(null);i.value=y.items,w.value=y.nextCursor}catch(y){console.error("加载链路数据失败:",y)}finally{e.value=!1}},x=async()=>{if(!(e.value||b.value||!w.value))try{b.value=!0;const y=await A(w.value);i.value=i.value.concat(y.items),w.value=y.nextCursor}catch(y){console.error("加载更多链路失败:",y)}finally{b.value=!1}};Ru(T,(y,m)=>{m&&(C==null||C.unobserve(m)),y&&(C==null||C.observe(y))});const v=async()=>{try{const y=await yn.getServiceNames();a.value=y}catch(y){console.error("加载服务列表失败:",y)}},d=()=>{o.value="",s.value=24,l.value=50,h()},p=y=>{t.push({name:"trace-detail",params:{traceId:y}})},g=y=>{navigator.clipboard.writeText(y).then(()=>{console.log("Trace ID 已复制到剪贴板:",y)}).catch(m=>{console.error("复制失败:",m)})};return Oi(()=>{v(),C=new IntersectionObserver(y=>{y.some(m=>m.isIntersecting)&&x()},{rootMargin:"200px"}),h(),c(),u=window.setInterval(c,1e3)}),ki(()=>{u&&clearInterval(u),C==null||C.disconnect()}),(y,m)=>(kt(),zt("div",oat,[I("div",sat,[m[5]||(m[5]=I("div",null,[I("h2",{class:"page-title mb-1"},[I("i",{class:"fa fa-stream me-2"}),It("链路追踪 ")]),I("p",{class:"page-description mb-0"},"调用链路列表（每条链路一行）")],-1)),I("div",lat,[I("button",{class:"btn btn-primary",onClick:h,disabled:e.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":e.value}])},null,2),m[3]||(m[3]=It(" 刷新 ",-1))],8,uat),I("span",fat,[m[4]||(m[4]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(n.value),1)])])]),I("div",cat,[I("div",hat,[m[14]||(m[14]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-filter me-2"}),It("筛选条件 ")],-1)),I("div",vat,[I("div",dat,[m[7]||(m[7]=I("label",{for:"service-select",class:"form-label"},"服务名称",-1)),ta(I("select",{id:"service-select",class:"form-select","onUpdate:modelValue":m[0]||(m[0]=_=>o.value=_),onChange:h},[m[6]||(m[6]=I("option",{value:""},"所有服务",-1)),(kt(!0),zt($e,null,Ti(a.value,_=>(kt(),zt("option",{key:_,value:_},Rt(_),9,pat))),128))],544),[[Bu,o.value]])]),I("div",gat,[m[9]||(m[9]=I("label",{for:"hours-select",class:"form-label"},"时间范围",-1)),ta(I("select",{id:"hours-select",class:"form-select","onUpdate:modelValue":m[1]||(m[1]=_=>s.value=_),onChange:h},[...m[8]||(m[8]=[av('<option value="1" data-v-c813143d>1小时</option><option value="6" data-v-c813143d>6小时</option><option value="12" data-v-c813143d>12小时</option><option value="24" selected data-v-c813143d>24小时</option><option value="72" data-v-c813143d>72小时</option>',5)])],544),[[Bu,s.value]])]),I("div",yat,[m[11]||(m[11]=I("label",{for:"limit-select",class:"form-label"},"每页数量",-1)),ta(I("select",{id:"limit-select",class:"form-select","onUpdate:modelValue":m[2]||(m[2]=_=>l.value=_),onChange:h},[...m[10]||(m[10]=[I("option",{value:"20"},"20条",-1),I("option",{value:"50",selected:""},"50条",-1),I("option",{value:"100"},"100条",-1),I("option",{value:"200"},"200条",-1)])],544),[[Bu,l.value]])]),I("div",mat,[I("div",_at,[I("button",{class:"btn btn-primary flex-grow-1",onClick:h,disabled:e.value},[...m[12]||(m[12]=[I("i",{class:"fa fa-search"},null,-1),It(" 搜索 ",-1)])],8,Sat),I("button",{class:"btn btn-outline-secondary",onClick:d,disabled:e.value},[...m[13]||(m[13]=[I("i",{class:"fa fa-refresh"},null,-1)])],8,bat)])])])])]),e.value?(kt(),zt("div",xat,[...m[15]||(m[15]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"正在加载链路数据...",-1)])])):(kt(),zt("div",wat,[I("div",Tat,[I("div",Aat,[m[16]||(m[16]=I("h5",{class:"card-title mb-0"},[I("i",{class:"fa fa-list me-2"}),It("链路列表 ")],-1)),I("span",Cat,Rt(i.value.length)+" 条链路",1)]),I("div",Dat,[I("table",Mat,[m[20]||(m[20]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"Trace ID"),I("th",null,"入口服务"),I("th",null,"入口操作"),I("th",null,"涉及服务"),I("th",null,"Span 数"),I("th",null,"开始时间"),I("th",null,"耗时(ms)"),I("th",null,"状态"),I("th",null,"操作")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(i.value,(_,S)=>(kt(),zt("tr",{key:_.traceId,class:"fade-in",style:es({animationDelay:`${S%l.value*.05}s`})},[I("td",Iat,[I("code",Lat,Rt(_.traceId),1)]),I("td",null,Rt(_.rootService),1),I("td",Pat,Rt(_.rootOperation),1),I("td",{class:"text-truncate",style:{"max-width":"200px"},title:_.services.join(", ")},Rt(_.services.join(", ")),9,Oxa),I("td",null,Rt(_.spanCount),1),I("td",null,Rt(f(_.startTime)),1),I("td",{class:ve(_.durationMs>1e3?"text-danger font-weight-bold":_.durationMs>500?"text-warning":"text-success")},Rt(_.durationMs),3),I("td",null,[I("span",{class:ve(["badge",_.error?"bg-danger":"bg-success"])},Rt(_.error?"ERROR":"OK"),3)]),I("td",null,[I("div",Rat,[I("button",{class:"btn btn-sm btn-primary",onClick:x=>p(_.traceId)},[...m[17]||(m[17]=[I("i",{class:"fa fa-eye"},null,-1),It(" 查看 ",-1)])],8,Eat),I("button",{class:"btn btn-sm btn-outline-secondary",onClick:x=>g(_.traceId)},[...m[18]||(m[18]=[I("i",{class:"fa fa-copy"},null,-1)])],8,Oat)])])],4))),128)),i.value.length===0?(kt(),zt("tr",kat,[...m[19]||(m[19]=[I("td",{colspan:"9",class:"text-center text-muted"},[I("div",{class:"py-4"},[I("i",{class:"fa fa-info-circle fa-2x mb-2"}),I("p",null,"暂无链路数据")])],-1)])])):Vr("",!0)])])]),I("div",{ref_key:"sentinel",ref:T,class:"text-center text-muted small py-2"},[b.value?(kt(),zt("span",Oxc,[...m[21]||(m[21]=[I("i",{class:"fa fa-spinner fa-spin me-1"},null,-1),It("正在加载更多...",-1)])])):w.value?(kt(),zt("button",{key:1,class:"btn btn-sm btn-outline-secondary",onClick:x},"加载更多")):i.value.length>0?(kt(),zt("span",Oxd,"已加载全部")):Vr("",!0)],512)])]))]))}}),Bat=Ni(Nat,[["__scopeId","data-v-c813143d"]]),Vat={class:"fade-in trace-detail-page"},zat={class:"d-flex flex-wrap justify-content-between align-items-center mb-4 gap-2"},Fat={class:"page-description text-truncate",style:{"max-width":"90vw"}},Gat={class:"text-cyan"},Hat={class:"d-flex gap-2"},Wat=["disabled"],Uat={key:0,class:"loading-spinner"},$at={key:1,class:"card stat-card"},Yat={class:"card-body"},Xat={class:"card-title mb-3"},Zat={class:"table-responsive"},qat={class:"table table-hover table-dark-glass mb-0"},Kat={class:"text-truncate",style:{"max-width":"240px"}},jat={key:0},Jat=fa({__name:"TraceDetailView",setup(r){const t=J5(),e=mI(),n=ee(""),a=ee([]),i=ee(!0),o=async()=>{const l=String(t.params.traceId||"");if(n.value=l,!l){a.value=[],i.value=!1;return}i.value=!0;try{a.value=await yn.getTraceDetail(l)}finally{i.value=!1}},s=()=>{e.push("/traces")};return Ru(()=>t.params.traceId,()=>o()),Oi(()=>o()),(l,u)=>(kt(),zt("div",Vat,[I("div",zat,[I("div",null,[u[0]||(u[0]=I("h2",{class:"page-title"},[I("i",{class:"fa fa-sitemap me-2"}),It("链路详情 ")],-1)),I("p",Fat,[I("code",Gat,Rt(n.value),1)])]),I("div",Hat,[I("button",{class:"btn btn-outline-secondary",type:"button",onClick:s},[...u[1]||(u[1]=[I("i",{class:"fa fa-arrow-left me-1"},null,-1),It("返回 ",-1)])]),I("button",{class:"btn btn-primary",type:"button",onClick:o,disabled:i.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":i.value}])},null,2),u[2]||(u[2]=It(" 刷新 ",-1))],8,Wat)])]),i.value?(kt(),zt("div",Uat,[...u[3]||(u[3]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"加载中...",-1)])])):(kt(),zt("div",$at,[I("div",Yat,[I("h5",Xat,[u[4]||(u[4]=I("i",{class:"fa fa-list me-2"},null,-1)),It("Span 列表（"+Rt(a.value.length)+"）",1)]),I("div",Zat,[I("table",qat,[u[6]||(u[6]=I("thead",null,[I("tr",null,[I("th",null,"spanId"),I("th",null,"operation"),I("th",null,"kind"),I("th",null,"耗时(ms)"),I("th",null,"状态")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(a.value,(f,c)=>(kt(),zt("tr",{key:f.spanId||c},[I("td",null,[I("code",null,Rt(f.spanId),1)]),I("td",Kat,Rt(f.operationName),1),I("td",null,Rt(f.spanKind),1),I("td",null,Rt(f.durationMs),1),I("td",null,[I("span",{class:ve(["badge",f.statusCode==="OK"?"bg-success":"bg-danger"])},Rt(f.statusCode),3)])]))),128)),a.value.length===0?(kt(),zt("tr",jat,[...u[5]||(u[5]=[I("td",{colspan:"5",class:"text-center text-muted py-4"},"暂无数据",-1)])])):Vr("",!0)])])])])]))]))}}),Qat=Ni(Jat,[["__scopeId","data-v-6a62bf0f"]]),tit={class:"si-page fade-in"},eit={class:"si-page__header"},rit={class:"si-page__toolbar"},nit=["disabled"],ait=["disabled"],iit={class:"badge bg-info"},oit={class:"card stat-card si-toolbar-card"},sit={class:"card-body"},lit={class:"si-toolbar-inner"},uit={key:0,class:"loading-spinner"},fit={class:"card stat-card si-table-panel"},cit={class:"card-body"},hit={class:"d-flex justify-content-between align-items-center mb-2"},vit={class:"badge bg-danger"},dit={class:"table-responsive"},pit={class:"table table-hover mb-0"},git={class:"text-danger"},yit={key:0,class:"badge bg-danger"},mit={key:1,class:"badge bg-warning"},_it={key:2,class:"badge bg-info"},Sit=["onClick"],bit={key:0},xit=fa({__name:"ErrorAnalysisView",setup(r){const t=ee(!0),e=ee(""),n=ee(24),a=ee([]);let i=null,o=null,s=null;const l=()=>{e.value=new Date().toTimeString().split(" ")[0]},u=()=>{const g=document.getElementById("error-rate-chart");g&&(i=Af(g),i.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"axis",axisPointer:{type:"shadow"},formatter:function(m){const _=m[0];return`${_.name}<br/>错误率: ${_.value.toFixed(2)}%`}},grid:{left:"3%",right:"4%",bottom:"18%",top:"10%",containLabel:!0},xAxis:{type:"category",data:[],axisLine:{lineStyle:{color:"#334155"}},axisLabel:{fontSize:10,rotate:40,color:"#94a3b8"},boundaryGap:!0},yAxis:{type:"value",name:"错误率 (%)",nameTextStyle:{fontSize:11,color:"#94a3b8"},splitLine:{lineStyle:{color:"rgba(51, 65, 85, 0.5)"}},axisLabel:{fontSize:10,color:"#94a3b8"},max:100},series:[{name:"错误率",type:"bar",data:[],itemStyle:{color:function(m){const _=m.value;return _>10?"#ef4444":_>5?"#f59e0b":"#06b6d4"},borderRadius:[4,4,0,0]},label:{show:!0,position:"top",formatter:"{c}%",fontSize:10,color:"#e2e8f0"}}]}));const y=document.getElementById("error-pie-chart");y&&(o=Af(y),o.setOption({backgroundColor:"transparent",textStyle:{color:"#94a3b8"},tooltip:{trigger:"item",formatter:"{b}: {c} 次 ({d}%)"},legend:{orient:"vertical",right:6,top:"middle",type:"scroll",textStyle:{color:"#e2e8f0",fontSize:12,fontWeight:500},pageTextStyle:{color:"#94a3b8"},formatter:m=>m.length>14?m.substring(0,14)+"…":m},series:[{name:"错误调用",type:"pie",radius:["36%","62%"],center:["42%","50%"],avoidLabelOverlap:!1,itemStyle:{borderRadius:8,borderColor:"rgba(15, 23, 42, 0.9)",borderWidth:2,color:function(m){const _=["#ef4444","#f59e0b","#06b6d4","#8b5cf6","#10b981","#3b82f6","#f97316","#14b8a6"];return _[m.dataIndex%_.length]}},label:{show:!1},emphasis:{label:{show:!0,fontSize:14,fontWeight:"bold",color:"#f8fafc"},itemStyle:{shadowBlur:12,shadowColor:"rgba(0, 0, 0, 0.45)"}},labelLine:{show:!1},data:[]}]}))},f=()=>{if(i){const g=[],y=[];a.value.forEach(m=>{g.push(m.serviceName),y.push(m.errorRate)}),i.setOption({graphic:g.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无错误率数据
 当前无异常服务`,fill:"#94a3b8",fontSize:13,textAlign:"center",lineHeight:22}}]:[],xAxis:{data:g},series:[{data:y}]})}if(o){const g=a.value.map(y=>({name:y.serviceName,value:y.errorCalls}));o.setOption({graphic:g.length===0?[{type:"text",left:"center",top:"center",style:{text:`暂无错误分布
 服务运行正常`,fill:"#94a3b8",fontSize:13,textAlign:"center",lineHeight:22}}]:[],series:[{data:g}]})}},c=()=>{i==null||i.resize(),o==null||o.resize(),f()},h=g=>{console.log("查看服务详情:",g)},v=()=>{const g=JSON.stringify(a.value,null,2),y=new Blob([g],{type:"application/json"}),m=URL.createObjectURL(y),_=document.createElement("a");_.href=m,_.download=`error-analysis-${new Date().toISOString().slice(0,19).replace(/[:T]/g,"-")}.json`,_.click(),URL.revokeObjectURL(m)},d=async()=>{try{t.value=!0,a.value=await yn.getErrorAnalysis(n.value),f()}catch(g){console.error("加载错误分析数据失败:",g)}finally{t.value=!1,await ka(),i==null||i.resize(),o==null||o.resize()}},p=()=>{i==null||i.resize(),o==null||o.resize()};return Oi(async()=>{await ka(),u(),l(),s=window.setInterval(l,1e3),window.addEventListener("resize",p),await d()}),ki(()=>{i==null||i.dispose(),o==null||o.dispose(),s&&clearInterval(s),window.removeEventListener("resize",p)}),(g,y)=>(kt(),zt("div",tit,[I("div",eit,[y[4]||(y[4]=I("div",null,[I("h2",{class:"page-title mb-1"},[I("i",{class:"fa fa-exclamation-triangle me-2"}),It("错误分析 ")]),I("p",{class:"page-description mb-0"},"服务错误率与错误调用占比")],-1)),I("div",rit,[I("button",{class:"btn btn-primary",onClick:d,disabled:t.value},[I("i",{class:ve(["fa fa-refresh",{"fa-spin":t.value}])},null,2),y[1]||(y[1]=It(" 刷新数据 ",-1))],8,nit),I("button",{class:"btn btn-outline-secondary",onClick:v,disabled:t.value||a.value.length===0},[...y[2]||(y[2]=[I("i",{class:"fa fa-download"},null,-1),It(" 导出 ",-1)])],8,ait),I("span",iit,[y[3]||(y[3]=I("i",{class:"fa fa-clock me-1"},null,-1)),It(Rt(e.value),1)])])]),I("div",oit,[I("div",sit,[y[8]||(y[8]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-filter me-2"}),It("筛选 ")],-1)),I("div",lit,[I("div",null,[y[6]||(y[6]=I("label",{class:"form-label",for:"hours-select-err"},"时间范围",-1)),ta(I("select",{id:"hours-select-err",class:"form-select",style:{"min-width":"11rem"},"onUpdate:modelValue":y[0]||(y[0]=m=>n.value=m),onChange:d},[...y[5]||(y[5]=[I("option",{value:1},"最近 1 小时",-1),I("option",{value:6},"最近 6 小时",-1),I("option",{value:12},"最近 12 小时",-1),I("option",{value:24},"最近 24 小时",-1),I("option",{value:72},"最近 72 小时",-1)])],544),[[Bu,n.value]])]),y[7]||(y[7]=I("p",{class:"text-muted small mb-0 align-self-center flex-grow-1",style:{"min-width":"12rem"}}," 仅统计存在错误调用的服务；无异常时图表显示占位说明。 ",-1))])])]),t.value?(kt(),zt("div",uit,[...y[9]||(y[9]=[I("i",{class:"fa fa-spinner fa-spin"},null,-1),I("span",{class:"ms-2"},"正在加载错误分析数据...",-1)])])):Vr("",!0),ta(I("div",null,[I("div",{class:"si-charts-row"},[I("div",{class:"chart-container si-chart-panel"},[I("div",{class:"d-flex justify-content-between align-items-center mb-2 flex-shrink-0"},[y[11]||(y[11]=I("h5",{class:"mb-0"},[I("i",{class:"fa fa-bar-chart me-2"}),It("服务错误率分布 ")],-1)),I("button",{type:"button",class:"btn btn-sm btn-outline-primary",onClick:c},[...y[10]||(y[10]=[I("i",{class:"fa fa-refresh"},null,-1)])])]),y[12]||(y[12]=I("div",{class:"si-chart-canvas-wrap"},[I("div",{id:"error-rate-chart",class:"w-100 h-100",style:{"min-height":"220px"}})],-1))]),y[13]||(y[13]=av('<div class="chart-container si-chart-panel" data-v-8a50457e><div class="d-flex justify-content-between align-items-center mb-2 flex-shrink-0" data-v-8a50457e><h5 class="mb-0" data-v-8a50457e><i class="fa fa-pie-chart me-2" data-v-8a50457e></i>错误调用占比 </h5></div><div class="si-chart-canvas-wrap" data-v-8a50457e><div id="error-pie-chart" class="w-100 h-100" style="min-height:220px;" data-v-8a50457e></div></div></div>',1))]),I("div",fit,[I("div",cit,[I("div",hit,[y[14]||(y[14]=I("h5",{class:"card-title mb-0"},[I("i",{class:"fa fa-list me-2"}),It("错误服务列表 ")],-1)),I("span",vit,Rt(a.value.length)+" 个异常服务",1)]),I("div",dit,[I("table",pit,[y[17]||(y[17]=I("thead",{class:"table-light"},[I("tr",null,[I("th",null,"服务名称"),I("th",null,"总调用数"),I("th",null,"错误调用数"),I("th",null,"错误率"),I("th",null,"状态"),I("th",null,"操作")])],-1)),I("tbody",null,[(kt(!0),zt($e,null,Ti(a.value,(m,_)=>(kt(),zt("tr",{key:m.serviceName,class:ve(["fade-in",m.errorRate>10?"table-danger":m.errorRate>5?"table-warning":""]),style:es({animationDelay:`${_*.05}s`})},[I("td",null,Rt(m.serviceName),1),I("td",null,Rt(m.totalCalls),1),I("td",git,Rt(m.errorCalls),1),I("td",null,[I("span",{class:ve(["badge",m.errorRate>10?"bg-danger":m.errorRate>5?"bg-warning":"bg-info"])},Rt(m.errorRate.toFixed(2))+"% ",3)]),I("td",null,[m.errorRate>10?(kt(),zt("span",yit,"严重")):m.errorRate<=10&&m.errorRate>5?(kt(),zt("span",mit,"警告")):(kt(),zt("span",_it,"注意"))]),I("td",null,[I("button",{class:"btn btn-sm btn-primary",onClick:S=>h(m.serviceName)},[...y[15]||(y[15]=[I("i",{class:"fa fa-eye"},null,-1),It(" 详情 ",-1)])],8,Sit)])],6))),128)),a.value.length===0?(kt(),zt("tr",bit,[...y[16]||(y[16]=[I("td",{colspan:"6",class:"text-center text-muted py-4"},[I("i",{class:"fa fa-check-circle fa-2x text-success mb-2 d-block"}),I("span",null,"暂无错误分析数据 · 所有服务运行正常")],-1)])])):Vr("",!0)])])])])])],512),[[sf,!t.value]])]))}}),wit=Ni(xit,[["__scopeId","data-v-8a50457e"]]),Tit={class:"si-page fade-in"},Ait={class:"si-page__header mb-2"},Cit={class:"badge bg-info"},Dit={class:"row"},Mit={class:"col-md-6"},Iit={class:"card stat-card"},Lit={class:"card-body"},Pit={class:"mb-3"},Rit=fa({__name:"AboutView",setup(r){const t=ee(""),e=ee("");let n=null;const a=()=>{const i=new Date;t.value=i.toTimeString().split(" ")[0]};return Oi(()=>{e.value=new Date().toLocaleString("zh-CN"),a(),n=window.setInterval(a,1e3)}),ki(()=>{n&&clearInterval(n)}),(i,o)=>(kt(),zt("div",Tit,[I("div",Ait,[o[1]||(o[1]=I("div",null,[I("h2",{class:"page-title"},[I("i",{class:"fa fa-info-circle me-2 text-primary"}),It("关于 ")]),I("p",{class:"page-description"},"了解Spring Insight的基本信息和版本详情")],-1)),I("div",null,[I("span",Cit,[o[0]||(o[0]=I("i",{class:"fa fa-clock me-1"},null,-1)),I("span",null,Rt(t.value),1)])])]),I("div",Dit,[o[7]||(o[7]=av('<div class="col-md-6" data-v-27783fd9><div class="card stat-card" data-v-27783fd9><div class="card-body" data-v-27783fd9><h5 class="card-title" data-v-27783fd9><i class="fa fa-cube me-2" data-v-27783fd9></i>项目信息 </h5><div class="mb-3" data-v-27783fd9><strong data-v-27783fd9>项目名称:</strong> Spring Insight </div><div class="mb-3" data-v-27783fd9><strong data-v-27783fd9>版本:</strong> 0.1.0-SNAPSHOT </div><div class="mb-3" data-v-27783fd9><strong data-v-27783fd9>描述:</strong> 一个基于Spring Boot的分布式应用监控系统 </div><div class="mb-3" data-v-27783fd9><strong data-v-27783fd9>技术栈:</strong><ul class="list-inline mt-2" data-v-27783fd9><li class="list-inline-item badge bg-primary me-2 mb-2" data-v-27783fd9>Spring Boot 3.5.9</li><li class="list-inline-item badge bg-success me-2 mb-2" data-v-27783fd9>Java 21</li><li class="list-inline-item badge bg-info me-2 mb-2" data-v-27783fd9>Vue 3</li><li class="list-inline-item badge bg-warning me-2 mb-2" data-v-27783fd9>TypeScript</li><li class="list-inline-item badge bg-danger me-2 mb-2" data-v-27783fd9>ECharts</li></ul></div></div></div></div>',1)),I("div",Mit,[I("div",Iit,[I("div",Lit,[o[3]||(o[3]=I("h5",{class:"card-title"},[I("i",{class:"fa fa-server me-2"}),It("系统信息 ")],-1)),o[4]||(o[4]=I("div",{class:"mb-3"},[I("strong",null,"UI模块:"),It(" Vue 3 + TypeScript + Vite ")],-1)),o[5]||(o[5]=I("div",{class:"mb-3"},[I("strong",null,"服务端口:"),It(" 8088 ")],-1)),I("div",Pit,[o[2]||(o[2]=I("strong",null,"构建时间:",-1)),It(" "+Rt(e.value),1)]),o[6]||(o[6]=I("div",{class:"mb-3"},[I("strong",null,"GitHub:"),I("a",{href:"https://github.com/iweidujiang/spring-insight",target:"_blank",rel:"noopener noreferrer",class:"text-decoration-none"},[I("i",{class:"fa fa-github me-1"}),It("spring-insight ")])],-1))])])])]),o[8]||(o[8]=av('<div class="row mt-4" data-v-27783fd9><div class="col-12" data-v-27783fd9><div class="card stat-card" data-v-27783fd9><div class="card-body" data-v-27783fd9><h5 class="card-title" data-v-27783fd9><i class="fa fa-star me-2" data-v-27783fd9></i>功能特性 </h5><div class="row g-4" data-v-27783fd9><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-tachometer-alt feature-icon text-primary" data-v-27783fd9></i><h6 data-v-27783fd9>实时监控</h6><p class="text-muted" data-v-27783fd9>实时监控服务运行状态和性能指标</p></div></div><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-project-diagram feature-icon text-success" data-v-27783fd9></i><h6 data-v-27783fd9>服务拓扑</h6><p class="text-muted" data-v-27783fd9>可视化展示服务间的依赖关系</p></div></div><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-stream feature-icon text-info" data-v-27783fd9></i><h6 data-v-27783fd9>链路追踪</h6><p class="text-muted" data-v-27783fd9>详细的请求链路追踪和耗时分析</p></div></div><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-exclamation-triangle feature-icon text-danger" data-v-27783fd9></i><h6 data-v-27783fd9>错误分析</h6><p class="text-muted" data-v-27783fd9>自动识别和分析高错误率服务</p></div></div><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-database feature-icon text-warning" data-v-27783fd9></i><h6 data-v-27783fd9>数据持久化</h6><p class="text-muted" data-v-27783fd9>使用H2数据库存储监控数据</p></div></div><div class="col-md-4" data-v-27783fd9><div class="feature-item" data-v-27783fd9><i class="fa fa-chart-line feature-icon text-purple" data-v-27783fd9></i><h6 data-v-27783fd9>性能分析</h6><p class="text-muted" data-v-27783fd9>服务调用性能和响应时间分析</p></div></div></div></div></div></div></div>',1))]))}}),Eit=Ni(Rit,[["__scopeId","data-v-27783fd9"]]),wN=j5({history:I5("/spring-insight/"),routes:[{path:"/",name:"dashboard",component:Vnt,meta:{title:"仪表盘"}},{path:"/topology",name:"topology",component:iat,meta:{title:"服务拓扑"}},{path:"/traces",name:"traces",component:Bat,meta:{title:"链路追踪"}},{path:"/traces/:traceId",name:"trace-detail",component:Qat,meta:{title:"链路详情"}},{path:"/error-analysis",name:"error-analysis",component:wit,meta:{title:"错误分析"}},{path:"/about",name:"about",component:Eit,meta:{title:"关于"}}]});wN.beforeEach((r,t,e)=>{document.title=`Spring Insight - ${r.meta.title||"监控系统"}`,e()});const TN=WV(Az);TN.use(wN);TN.mount("#app");